@@ -0,0 +1,35 @@
+package chatbot.application;
+
+import chatbot.phrase.Phrases;
+import chatbot.response.ResponseStrategy;
+
+public class ChannelBinding {
+
+	private final String channelName;
+	private final ResponseStrategy responseStrategy;
+	private final Phrases phrases;
+
+	public ChannelBinding(String channelName,
+			ResponseStrategy responseStrategy, Phrases phrases) {
+		this.channelName = channelName;
+		this.responseStrategy = responseStrategy;
+		this.phrases = phrases;
+	}
+
+	public String getChannelName() {
+		return this.channelName;
+	}
+
+	public ResponseStrategy getResponseStrategy() {
+		return this.responseStrategy;
+	}
+
+	public Phrases getPhrases() {
+		return this.phrases;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ChannelBinding [channelName:%s]", this.channelName);
+	}
+}
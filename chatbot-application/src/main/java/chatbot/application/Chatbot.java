@@ -1,26 +1,114 @@
 package chatbot.application;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import chatbot.client.ClientConnection;
 import chatbot.client.ConnectionListener;
 import chatbot.client.MessageChannel;
 import chatbot.client.MessageListener;
+import chatbot.client.ThreadFactories;
+import chatbot.metrics.Gauge;
+import chatbot.metrics.MetricRegistry;
 import chatbot.phrase.Phrases;
+import chatbot.response.MessageDispatchQueue;
+import chatbot.response.OverflowPolicy;
 import chatbot.response.RespondingMessageListener;
+import chatbot.response.ResponseMetrics;
 import chatbot.response.ResponseStrategy;
 
 public class Chatbot implements ConnectionListener {
 
+	public static final int DEFAULT_JOIN_PARALLELISM = 16;
+	public static final String DEFAULT_METRICS_NAME = "chatbot";
+	public static final String DISPATCH_DEPTH = "chatbot.dispatch.depth";
+	public static final String DISPATCH_DROPPED = "chatbot.dispatch.dropped";
+
 	private final ClientConnection clientConnection;
-	private final String channelName;
-	private final ResponseStrategy responseStrategy;
-	private final Phrases phrases;
+	private final Map<String, ChannelBinding> bindings;
+	private final Map<String, MessageChannel> joinedChannels;
+	private final Map<String, MessageDispatchQueue> dispatchQueues;
+
+	private int joinParallelism = DEFAULT_JOIN_PARALLELISM;
+	private ThreadFactory joinThreadFactory;
+
+	private int dispatchCapacity;
+	private OverflowPolicy overflowPolicy;
+	private ThreadFactory dispatchThreadFactory;
+
+	private MetricRegistry metricRegistry = new MetricRegistry();
+	private String metricsName = DEFAULT_METRICS_NAME;
 
 	public Chatbot(ClientConnection connection, String channelName,
 			ResponseStrategy responseStrategy, Phrases phrases) {
+		this(connection, Collections.singletonList(new ChannelBinding(
+				channelName, responseStrategy, phrases)));
+	}
+
+	public Chatbot(ClientConnection connection,
+			Collection<ChannelBinding> channelBindings) {
 		this.clientConnection = connection;
-		this.channelName = channelName;
-		this.responseStrategy = responseStrategy;
-		this.phrases = phrases;
+		this.bindings = new LinkedHashMap<String, ChannelBinding>();
+		for (ChannelBinding binding : channelBindings) {
+			if (this.bindings.put(binding.getChannelName(), binding) != null) {
+				throw new IllegalArgumentException("Channel bound twice: "
+						+ binding.getChannelName());
+			}
+		}
+		this.joinedChannels = new ConcurrentHashMap<String, MessageChannel>();
+		this.dispatchQueues = new ConcurrentHashMap<String, MessageDispatchQueue>();
+	}
+
+	public Chatbot joiningInParallel(int parallelism, ThreadFactory threadFactory) {
+		this.joinParallelism = parallelism;
+		this.joinThreadFactory = threadFactory;
+		return this;
+	}
+
+	public Chatbot dispatchingAsynchronously(int capacity,
+			OverflowPolicy overflowPolicy) {
+		return dispatchingAsynchronously(capacity, overflowPolicy, null);
+	}
+
+	public Chatbot dispatchingAsynchronously(int capacity,
+			OverflowPolicy overflowPolicy, ThreadFactory threadFactory) {
+		this.dispatchCapacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+		this.dispatchThreadFactory = threadFactory;
+		return this;
+	}
+
+	public Chatbot measuredBy(MetricRegistry registry, String botName) {
+		this.metricRegistry = registry;
+		this.metricsName = botName;
+		return this;
+	}
+
+	public MetricRegistry getMetricRegistry() {
+		return this.metricRegistry;
+	}
+
+	public Set<String> getChannelNames() {
+		return Collections.unmodifiableSet(this.bindings.keySet());
+	}
+
+	public Set<String> getJoinedChannelNames() {
+		return Collections.unmodifiableSet(this.joinedChannels.keySet());
+	}
+
+	public MessageDispatchQueue getDispatchQueue(String channelName) {
+		return this.dispatchQueues.get(channelName);
 	}
 
 	public void connect() {
@@ -29,10 +117,101 @@ public class Chatbot implements ConnectionListener {
 
 	@Override
 	public void onConnectionSuccessful() {
-		MessageChannel channel = this.clientConnection
-				.channel(this.channelName);
+		if (this.bindings.size() == 1 || this.joinParallelism <= 1) {
+			for (ChannelBinding binding : this.bindings.values()) {
+				join(binding);
+			}
+			return;
+		}
+		joinInParallel();
+	}
+
+	/**
+	 * Stops dispatching, dropping the messages still waiting to be answered,
+	 * and closes the connection.
+	 */
+	public void close() {
+		for (MessageDispatchQueue dispatchQueue : this.dispatchQueues.values()) {
+			dispatchQueue.shutdown();
+		}
+		this.clientConnection.close();
+	}
+
+	private void joinInParallel() {
+		ThreadFactory threadFactory = this.joinThreadFactory != null ? this.joinThreadFactory
+				: ThreadFactories.platform("chatbot-join");
+		ExecutorService joiner = Executors.newFixedThreadPool(
+				Math.min(this.joinParallelism, this.bindings.size()), threadFactory);
+		try {
+			Map<String, Future<?>> joins = new LinkedHashMap<String, Future<?>>();
+			for (final ChannelBinding binding : this.bindings.values()) {
+				joins.put(binding.getChannelName(), joiner.submit(new Runnable() {
+					@Override
+					public void run() {
+						join(binding);
+					}
+				}));
+			}
+			awaitJoins(joins);
+		} finally {
+			joiner.shutdown();
+		}
+	}
+
+	private void awaitJoins(Map<String, Future<?>> joins) {
+		List<String> failedChannels = new ArrayList<String>();
+		Throwable firstFailure = null;
+		for (Map.Entry<String, Future<?>> join : joins.entrySet()) {
+			try {
+				join.getValue().get();
+			} catch (ExecutionException e) {
+				failedChannels.add(join.getKey());
+				if (firstFailure == null) {
+					firstFailure = e.getCause();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while joining channels", e);
+			}
+		}
+		if (!failedChannels.isEmpty()) {
+			throw new IllegalStateException("Unable to join channels: "
+					+ failedChannels, firstFailure);
+		}
+	}
+
+	private void join(ChannelBinding binding) {
+		MessageChannel channel = this.clientConnection.channel(binding
+				.getChannelName());
 		MessageListener messageListener = new RespondingMessageListener(
-				this.responseStrategy, this.phrases, channel);
+				binding.getResponseStrategy(), binding.getPhrases(), channel,
+				binding.getChannelName(), new ResponseMetrics(this.metricRegistry, this.metricsName,
+						binding.getChannelName()));
+		if (this.overflowPolicy != null) {
+			MessageDispatchQueue dispatchQueue = new MessageDispatchQueue(
+					messageListener, this.dispatchCapacity,
+					this.overflowPolicy, this.dispatchThreadFactory);
+			this.dispatchQueues.put(binding.getChannelName(), dispatchQueue);
+			registerDispatchGauges(binding.getChannelName(), dispatchQueue);
+			messageListener = dispatchQueue;
+		}
 		channel.registerListener(messageListener);
+		this.joinedChannels.put(binding.getChannelName(), channel);
+	}
+
+	private void registerDispatchGauges(String channelName,
+			final MessageDispatchQueue dispatchQueue) {
+		this.metricRegistry.gauge(DISPATCH_DEPTH, new Gauge() {
+			@Override
+			public double getValue() {
+				return dispatchQueue.getDepth();
+			}
+		}, "bot", this.metricsName, "channel", channelName);
+		this.metricRegistry.counter(DISPATCH_DROPPED, new Gauge() {
+			@Override
+			public double getValue() {
+				return dispatchQueue.getDroppedCount();
+			}
+		}, "bot", this.metricsName, "channel", channelName);
 	}
-}
\ No newline at end of file
+}
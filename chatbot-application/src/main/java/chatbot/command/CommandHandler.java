@@ -0,0 +1,13 @@
+package chatbot.command;
+
+import chatbot.client.Message;
+import chatbot.phrase.Phrases;
+
+public interface CommandHandler {
+
+	/**
+	 * Handles a command, returning the phrases to answer from or null to
+	 * stay silent. The phrases are the pool registered with the command.
+	 */
+	Phrases handle(Message message, String arguments, Phrases phrases);
+}
@@ -0,0 +1,156 @@
+package chatbot.command;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import chatbot.client.Message;
+import chatbot.phrase.Phrases;
+import chatbot.response.TriggeredResponseStrategy;
+
+/**
+ * Routes commands such as "!joke" or "!slap bob" to the handler and
+ * phrases registered for them. Command names are held in a prefix trie,
+ * so a command is found in one walk over its name, and a message that
+ * does not start with the command prefix is rejected by looking at its
+ * first character alone.
+ */
+public class CommandRouter implements TriggeredResponseStrategy {
+
+	public static final char DEFAULT_PREFIX = '!';
+
+	private static final CommandHandler RESPOND = new CommandHandler() {
+		@Override
+		public Phrases handle(Message message, String arguments, Phrases phrases) {
+			return phrases;
+		}
+	};
+
+	private final char prefix;
+	private final Node root;
+	private final Set<String> commandNames;
+
+	public CommandRouter() {
+		this(DEFAULT_PREFIX);
+	}
+
+	public CommandRouter(char prefix) {
+		this.prefix = prefix;
+		this.root = new Node();
+		this.commandNames = new TreeSet<String>();
+	}
+
+	public CommandRouter command(String name, Phrases phrases) {
+		return command(name, RESPOND, phrases);
+	}
+
+	public CommandRouter command(String name, CommandHandler handler, Phrases phrases) {
+		if (name.length() == 0) {
+			throw new IllegalArgumentException("Command name must not be empty");
+		}
+		Node node = this.root;
+		for (int i = 0; i < name.length(); i++) {
+			if (Character.isWhitespace(name.charAt(i))) {
+				throw new IllegalArgumentException("Command name must be one word: " + name);
+			}
+			node = node.addChild(name.charAt(i));
+		}
+		if (node.command != null) {
+			throw new IllegalArgumentException("Command registered twice: " + name);
+		}
+		node.command = new Command(handler, phrases);
+		this.commandNames.add(name);
+		return this;
+	}
+
+	public char getPrefix() {
+		return this.prefix;
+	}
+
+	public Set<String> getCommandNames() {
+		return Collections.unmodifiableSet(this.commandNames);
+	}
+
+	/**
+	 * Tells whether the message names a registered command, without
+	 * running its handler.
+	 */
+	@Override
+	public boolean shouldRespond(Message message) {
+		return find(message.getPayload()) != null;
+	}
+
+	@Override
+	public Phrases respondWith(Message message, Phrases defaults) {
+		String payload = message.getPayload();
+		Command command = find(payload);
+		if (command == null) {
+			return null;
+		}
+		if (command.handler == RESPOND) {
+			return command.phrases;
+		}
+		int end = 1;
+		while (end < payload.length() && !Character.isWhitespace(payload.charAt(end))) {
+			end++;
+		}
+		return command.handler.handle(message, payload.substring(end).trim(), command.phrases);
+	}
+
+	private Command find(String payload) {
+		if (payload.length() < 2 || payload.charAt(0) != this.prefix) {
+			return null;
+		}
+		Node node = this.root;
+		for (int i = 1; i < payload.length() && !Character.isWhitespace(payload.charAt(i)); i++) {
+			node = node.child(payload.charAt(i));
+			if (node == null) {
+				return null;
+			}
+		}
+		return node.command;
+	}
+
+	private static final class Command {
+
+		private final CommandHandler handler;
+		private final Phrases phrases;
+
+		private Command(CommandHandler handler, Phrases phrases) {
+			this.handler = handler;
+			this.phrases = phrases;
+		}
+	}
+
+	private static final class Node {
+
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private Command command;
+
+		private Node child(char key) {
+			int index = Arrays.binarySearch(this.keys, key);
+			return index < 0 ? null : this.children[index];
+		}
+
+		private Node addChild(char key) {
+			int index = Arrays.binarySearch(this.keys, key);
+			if (index >= 0) {
+				return this.children[index];
+			}
+			int insert = -index - 1;
+			char[] keys = new char[this.keys.length + 1];
+			Node[] children = new Node[this.children.length + 1];
+			System.arraycopy(this.keys, 0, keys, 0, insert);
+			System.arraycopy(this.children, 0, children, 0, insert);
+			System.arraycopy(this.keys, insert, keys, insert + 1, this.keys.length - insert);
+			System.arraycopy(this.children, insert, children, insert + 1, this.children.length - insert);
+			keys[insert] = key;
+			children[insert] = new Node();
+			this.keys = keys;
+			this.children = children;
+			return children[insert];
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package chatbot.phrase;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects phrases at random but never one of the last K selected. The
+ * last K are kept in a ring buffer and marked in a bitset, and a phrase
+ * that is marked is drawn again. K is capped at half the phrases, so on
+ * average fewer than two draws are needed and nothing is allocated per
+ * selection. Selections are serialized so the ring and bitset agree.
+ */
+public class AvoidRecentPhraseSelectionStrategy implements PhraseSelectionStrategy {
+
+	private final int recentCount;
+
+	private Phrases phrases;
+	private int size;
+	private int[] ring;
+	private int ringSize;
+	private int ringNext;
+	private long[] recent;
+
+	public AvoidRecentPhraseSelectionStrategy(int recentCount) {
+		if (recentCount < 0) {
+			throw new IllegalArgumentException("Recent count must not be negative: "
+					+ recentCount);
+		}
+		this.recentCount = recentCount;
+	}
+
+	@Override
+	public synchronized Phrase next(Phrases phrases) {
+		if (phrases != this.phrases || phrases.size() != this.size) {
+			reset(phrases);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int index;
+		do {
+			index = random.nextInt(this.size);
+		} while ((this.recent[index >>> 6] & (1L << index)) != 0);
+		remember(index);
+		return phrases.getPhraseAt(index);
+	}
+
+	private void remember(int index) {
+		if (this.ring.length == 0) {
+			return;
+		}
+		if (this.ringSize == this.ring.length) {
+			int oldest = this.ring[this.ringNext];
+			this.recent[oldest >>> 6] &= ~(1L << oldest);
+		} else {
+			this.ringSize++;
+		}
+		this.ring[this.ringNext] = index;
+		this.recent[index >>> 6] |= 1L << index;
+		this.ringNext = (this.ringNext + 1) % this.ring.length;
+	}
+
+	private void reset(Phrases phrases) {
+		this.phrases = phrases;
+		this.size = phrases.size();
+		this.ring = new int[Math.min(this.recentCount, this.size / 2)];
+		this.ringSize = 0;
+		this.ringNext = 0;
+		this.recent = new long[(this.size + 63) >>> 6];
+	}
+}
@@ -0,0 +1,228 @@
+package chatbot.phrase;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Phrases held in a memory-mapped corpus file instead of on the heap.
+ * The file is a header, the UTF-8 bytes of every phrase back to back and
+ * an index of phrase offsets, written once by {@link #write} or by
+ * running this class as a tool. Opening a corpus only maps it and phrases
+ * are decoded when asked for, so a large corpus costs little heap and
+ * opens in constant time. Use it wherever a list of phrases is expected,
+ * for example {@code new Phrases(MappedPhraseCorpus.open(file))}.
+ *
+ * <p>A corpus file must never be rewritten in place while it is open,
+ * since reading a mapping whose file has been truncated crashes the
+ * reader. Replace it by renaming a new file over it, as {@link #write}
+ * does.</p>
+ */
+public class MappedPhraseCorpus extends AbstractList<Phrase> implements RandomAccess {
+
+	public static final String FILE_SUFFIX = ".corpus";
+
+	private static final int MAGIC = 0x43425048; // "CBPH"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 24;
+	private static final int SEGMENT_BITS = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+	private final File file;
+	private final MappedByteBuffer[] segments;
+	private final int size;
+	private final long indexPosition;
+
+	private MappedPhraseCorpus(File file, MappedByteBuffer[] segments, int size,
+			long indexPosition) {
+		this.file = file;
+		this.segments = segments;
+		this.size = size;
+		this.indexPosition = indexPosition;
+	}
+
+	public static MappedPhraseCorpus open(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			long length = channel.size();
+			if (length < HEADER_SIZE) {
+				throw new IOException("Not a phrase corpus: " + file);
+			}
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+			for (int i = 0; i < segments.length; i++) {
+				long position = (long) i << SEGMENT_BITS;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(SEGMENT_SIZE, length - position));
+			}
+			ByteBuffer header = segments[0];
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				throw new IOException("Not a version " + VERSION + " phrase corpus: " + file);
+			}
+			int size = header.getInt(8);
+			long indexPosition = header.getLong(16);
+			if (size < 0 || indexPosition < HEADER_SIZE
+					|| indexPosition + 8L * (size + 1) != length) {
+				throw new IOException("Corrupt phrase corpus: " + file);
+			}
+			return new MappedPhraseCorpus(file, segments, size, indexPosition);
+		} finally {
+			channel.close();
+		}
+	}
+
+	public File getFile() {
+		return this.file;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Phrase get(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Phrase " + index + " of " + this.size);
+		}
+		long start = readLong(this.indexPosition + 8L * index);
+		long end = readLong(this.indexPosition + 8L * (index + 1));
+		byte[] utf8 = new byte[(int) (end - start)];
+		read(start, utf8);
+		return new Phrase(new String(utf8, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes a corpus of the non-blank lines of a phrase file, lines starting
+	 * with # are comments. Offsets are spooled to a temporary file so that
+	 * building a corpus also needs little heap. The corpus is built beside
+	 * the target and renamed over it, so a reader with the old corpus open
+	 * keeps reading the old file. Returns the phrase count.
+	 */
+	public static int write(BufferedReader phrases, File corpus) throws IOException {
+		File built = File.createTempFile("." + corpus.getName(), ".tmp",
+				corpus.getAbsoluteFile().getParentFile());
+		try {
+			int count = build(phrases, built);
+			Files.move(built.toPath(), corpus.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return count;
+		} finally {
+			built.delete();
+		}
+	}
+
+	private static int build(BufferedReader phrases, File corpus) throws IOException {
+		File offsets = File.createTempFile("phrase-offsets", ".tmp");
+		try {
+			int count = 0;
+			long position = HEADER_SIZE;
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(corpus), 1 << 16));
+			DataOutputStream index = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(offsets), 1 << 16));
+			try {
+				out.write(new byte[HEADER_SIZE]);
+				String line;
+				while ((line = phrases.readLine()) != null) {
+					String phrase = line.trim();
+					if (phrase.length() == 0 || phrase.startsWith("#")) {
+						continue;
+					}
+					byte[] utf8 = phrase.getBytes(StandardCharsets.UTF_8);
+					index.writeLong(position);
+					out.write(utf8);
+					position += utf8.length;
+					count++;
+				}
+				index.writeLong(position);
+				index.close();
+				copy(offsets, out);
+			} finally {
+				index.close();
+				out.close();
+			}
+			writeHeader(corpus, count, position);
+			return count;
+		} finally {
+			offsets.delete();
+		}
+	}
+
+	/** Builds a corpus file from a UTF-8 phrase file, one phrase per line. */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: MappedPhraseCorpus <phrases.txt> <phrases" + FILE_SUFFIX + ">");
+			System.exit(2);
+		}
+		BufferedReader phrases = Files.newBufferedReader(new File(args[0]).toPath(),
+				StandardCharsets.UTF_8);
+		try {
+			int count = write(phrases, new File(args[1]));
+			System.out.println("Wrote " + count + " phrases to " + args[1]);
+		} finally {
+			phrases.close();
+		}
+	}
+
+	private long readLong(long position) {
+		int segment = (int) (position >>> SEGMENT_BITS);
+		int offset = (int) (position & (SEGMENT_SIZE - 1));
+		if (offset + 8 <= this.segments[segment].limit()) {
+			return this.segments[segment].getLong(offset);
+		}
+		byte[] bytes = new byte[8];
+		read(position, bytes);
+		return ByteBuffer.wrap(bytes).getLong();
+	}
+
+	private void read(long position, byte[] bytes) {
+		int copied = 0;
+		while (copied < bytes.length) {
+			long at = position + copied;
+			MappedByteBuffer segment = this.segments[(int) (at >>> SEGMENT_BITS)];
+			int offset = (int) (at & (SEGMENT_SIZE - 1));
+			int length = Math.min(bytes.length - copied, segment.limit() - offset);
+			segment.get(offset, bytes, copied, length);
+			copied += length;
+		}
+	}
+
+	private static void copy(File from, OutputStream to) throws IOException {
+		InputStream in = new FileInputStream(from);
+		try {
+			in.transferTo(to);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void writeHeader(File corpus, int count, long indexPosition)
+			throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(indexPosition);
+		header.flip();
+		FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.WRITE);
+		try {
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		} finally {
+			channel.close();
+		}
+	}
+}
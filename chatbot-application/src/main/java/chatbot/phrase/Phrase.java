@@ -1,15 +1,82 @@
 package chatbot.phrase;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import chatbot.client.Message;
+
+/**
+ * A response, possibly with {user}, {channel} or {time} placeholders.
+ * The template is split into literal and variable segments once, when
+ * the phrase is made; braces around anything else are kept as written.
+ */
 public class Phrase {
 
 	private final String template;
+	private final String[] literals;
+	private final PhraseVariable[] variables;
 	
 	public Phrase(String template) {
 		this.template = template;
+		List<String> literals = new ArrayList<String>();
+		List<PhraseVariable> variables = new ArrayList<PhraseVariable>();
+		int literalStart = 0;
+		int open = template.indexOf('{');
+		while (open >= 0) {
+			int close = template.indexOf('}', open + 1);
+			if (close < 0) {
+				break;
+			}
+			PhraseVariable variable = PhraseVariable.forName(template, open + 1, close);
+			if (variable != null) {
+				literals.add(template.substring(literalStart, open));
+				variables.add(variable);
+				literalStart = close + 1;
+				open = template.indexOf('{', literalStart);
+			} else {
+				open = template.indexOf('{', open + 1);
+			}
+		}
+		if (variables.isEmpty()) {
+			this.literals = null;
+			this.variables = null;
+		} else {
+			literals.add(template.substring(literalStart));
+			this.literals = literals.toArray(new String[literals.size()]);
+			this.variables = variables.toArray(new PhraseVariable[variables.size()]);
+		}
+	}
+	
+	public String getTemplate() {
+		return this.template;
+	}
+	
+	public boolean hasVariables() {
+		return this.variables != null;
+	}
+	
+	/** Appends this phrase with its placeholders filled in for a message. */
+	public StringBuilder render(StringBuilder out, Message message, String channelName) {
+		if (this.variables == null) {
+			return out.append(this.template);
+		}
+		for (int i = 0; i < this.variables.length; i++) {
+			out.append(this.literals[i]);
+			this.variables[i].append(out, message, channelName);
+		}
+		return out.append(this.literals[this.variables.length]);
+	}
+	
+	public String render(Message message, String channelName) {
+		if (this.variables == null) {
+			return this.template;
+		}
+		return render(new StringBuilder(this.template.length() + 16), message,
+				channelName).toString();
 	}
 	
 	@Override
 	public String toString() {
 		return this.template;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,283 @@
+package chatbot.phrase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import chatbot.client.ThreadFactories;
+
+/**
+ * Loads phrase files line by line in text, CSV or JSON lines format.
+ * Duplicate phrases are dropped, keeping the first, and every phrase is
+ * interned while loading so duplicates are garbage as soon as they are
+ * read. Files larger than the minimum chunk size are split at line ends
+ * into chunks that are parsed in parallel. Statistics of the last load,
+ * including its throughput, are kept for reporting.
+ */
+public class PhraseFileLoader {
+
+	public static final long DEFAULT_MINIMUM_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	private PhraseFormat format;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private ThreadFactory threadFactory;
+	private long minimumChunkSize = DEFAULT_MINIMUM_CHUNK_SIZE;
+	private volatile PhraseLoadStatistics statistics;
+
+	public PhraseFileLoader inFormat(PhraseFormat format) {
+		this.format = format;
+		return this;
+	}
+
+	public PhraseFileLoader inParallel(int parallelism, ThreadFactory threadFactory) {
+		this.parallelism = parallelism;
+		this.threadFactory = threadFactory;
+		return this;
+	}
+
+	public PhraseFileLoader withMinimumChunkSize(long bytes) {
+		this.minimumChunkSize = bytes;
+		return this;
+	}
+
+	public PhraseLoadStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	public Phrases load(File file) throws IOException {
+		return new Phrases(loadPhrases(file));
+	}
+
+	public List<Phrase> loadPhrases(File file) throws IOException {
+		long start = System.nanoTime();
+		PhraseFormat format = this.format != null ? this.format : PhraseFormat.forName(file.getName());
+		ConcurrentMap<String, String> interned = new ConcurrentHashMap<String, String>();
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		List<Chunk> chunks;
+		try {
+			chunks = parse(channel, format, interned);
+		} finally {
+			channel.close();
+		}
+		return merge(file.getPath(), chunks, start);
+	}
+
+	public List<Phrase> loadPhrases(BufferedReader reader, PhraseFormat format,
+			String source) throws IOException {
+		long start = System.nanoTime();
+		Chunk chunk = new Chunk(format, new ConcurrentHashMap<String, String>(), true);
+		chunk.read(reader);
+		return merge(source, Collections.singletonList(chunk), start);
+	}
+
+	private List<Chunk> parse(FileChannel channel, PhraseFormat format,
+			ConcurrentMap<String, String> interned) throws IOException {
+		long size = channel.size();
+		int chunkCount = (int) Math.max(1, Math.min(this.parallelism,
+				size / Math.max(1, this.minimumChunkSize)));
+		List<Long> starts = new ArrayList<Long>();
+		starts.add(0L);
+		for (int i = 1; i < chunkCount; i++) {
+			long start = nextLineStart(channel, size * i / chunkCount, size);
+			if (start > starts.get(starts.size() - 1) && start < size) {
+				starts.add(start);
+			}
+		}
+		starts.add(size);
+
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		for (int i = 0; i + 1 < starts.size(); i++) {
+			chunks.add(new Chunk(format, interned, i == 0, channel, starts.get(i), starts.get(i + 1)));
+		}
+		if (chunks.size() == 1) {
+			chunks.get(0).call();
+			return chunks;
+		}
+
+		ThreadFactory threadFactory = this.threadFactory != null ? this.threadFactory
+				: ThreadFactories.platform("phrase-loader");
+		ExecutorService workers = Executors.newFixedThreadPool(chunks.size(), threadFactory);
+		try {
+			List<Future<Chunk>> parsed = new ArrayList<Future<Chunk>>();
+			for (Chunk chunk : chunks) {
+				parsed.add(workers.submit(chunk));
+			}
+			for (Future<Chunk> chunk : parsed) {
+				chunk.get();
+			}
+			return chunks;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException("Unable to load phrases", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading phrases", e);
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private List<Phrase> merge(String source, List<Chunk> chunks, long start) {
+		Set<String> seen = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+		List<Phrase> phrases = new ArrayList<Phrase>();
+		long lines = 0;
+		long rejected = 0;
+		long bytes = 0;
+		long duplicates = 0;
+		for (Chunk chunk : chunks) {
+			for (String phrase : chunk.phrases) {
+				if (seen.add(phrase)) {
+					phrases.add(new Phrase(phrase));
+				} else {
+					duplicates++;
+				}
+			}
+			lines += chunk.lines;
+			rejected += chunk.rejected;
+			bytes += chunk.bytes;
+		}
+		this.statistics = new PhraseLoadStatistics(source, lines, phrases.size(),
+				duplicates, rejected, bytes, System.nanoTime() - start);
+		return Collections.unmodifiableList(phrases);
+	}
+
+	private static long nextLineStart(FileChannel channel, long position, long size)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		long at = position;
+		while (at < size) {
+			buffer.clear();
+			int read = channel.read(buffer, at);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return at + i + 1;
+				}
+			}
+			at += read;
+		}
+		return size;
+	}
+
+	private static final class Chunk implements Callable<Chunk> {
+
+		private final PhraseFormat format;
+		private final ConcurrentMap<String, String> interned;
+		private final boolean first;
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+		private final List<String> phrases = new ArrayList<String>();
+		private long lines;
+		private long rejected;
+		private long bytes;
+
+		private Chunk(PhraseFormat format, ConcurrentMap<String, String> interned,
+				boolean first) {
+			this(format, interned, first, null, 0, 0);
+		}
+
+		private Chunk(PhraseFormat format, ConcurrentMap<String, String> interned,
+				boolean first, FileChannel channel, long start, long end) {
+			this.format = format;
+			this.interned = interned;
+			this.first = first;
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Chunk call() throws IOException {
+			read(new BufferedReader(new InputStreamReader(new RangeInputStream(
+					this.channel, this.start, this.end), StandardCharsets.UTF_8), BUFFER_SIZE));
+			this.bytes = this.end - this.start;
+			return this;
+		}
+
+		private void read(BufferedReader reader) throws IOException {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				boolean firstLine = this.first && this.lines == 0;
+				if (this.channel == null) {
+					// a reader hides its bytes, so count characters instead
+					this.bytes += line.length() + 1;
+				}
+				this.lines++;
+				if (firstLine && line.length() > 0 && line.charAt(0) == BYTE_ORDER_MARK) {
+					line = line.substring(1);
+				}
+				String phrase;
+				try {
+					phrase = this.format.parse(line, firstLine);
+				} catch (IllegalArgumentException e) {
+					this.rejected++;
+					continue;
+				}
+				if (phrase == null || phrase.length() == 0) {
+					continue;
+				}
+				String canonical = this.interned.putIfAbsent(phrase, phrase);
+				this.phrases.add(canonical != null ? canonical : phrase);
+			}
+		}
+	}
+
+	private static final class RangeInputStream extends InputStream {
+
+		private final FileChannel channel;
+		private final long end;
+		private long position;
+
+		private RangeInputStream(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+			return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (this.position >= this.end) {
+				return -1;
+			}
+			int wanted = (int) Math.min(length, this.end - this.position);
+			int read = this.channel.read(ByteBuffer.wrap(bytes, offset, wanted), this.position);
+			if (read > 0) {
+				this.position += read;
+			}
+			return read;
+		}
+	}
+}
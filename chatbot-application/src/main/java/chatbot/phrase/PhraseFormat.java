@@ -0,0 +1,244 @@
+package chatbot.phrase;
+
+import java.util.Locale;
+
+/**
+ * Line formats of phrase files. Each line holds at most one phrase, blank
+ * lines are skipped and so are text lines starting with #.
+ */
+public enum PhraseFormat {
+
+	/** One phrase per line. */
+	TEXT(".txt") {
+		@Override
+		String parse(String line, boolean firstLine) {
+			String phrase = line.trim();
+			return phrase.startsWith("#") ? null : phrase;
+		}
+	},
+
+	/**
+	 * The phrase is the first field, optionally double quoted with "" as an
+	 * escaped quote. A first line whose first field is "phrase" is a header.
+	 * Quoted fields may not span lines.
+	 */
+	CSV(".csv") {
+		@Override
+		String parse(String line, boolean firstLine) {
+			String trimmed = line.trim();
+			String phrase;
+			if (trimmed.startsWith("\"")) {
+				StringBuilder field = new StringBuilder();
+				int i = 1;
+				while (true) {
+					if (i >= trimmed.length()) {
+						throw new IllegalArgumentException("Unterminated quoted field");
+					}
+					char c = trimmed.charAt(i++);
+					if (c == '"') {
+						if (i < trimmed.length() && trimmed.charAt(i) == '"') {
+							field.append('"');
+							i++;
+						} else {
+							break;
+						}
+					} else {
+						field.append(c);
+					}
+				}
+				phrase = field.toString().trim();
+			} else {
+				int comma = trimmed.indexOf(',');
+				phrase = (comma < 0 ? trimmed : trimmed.substring(0, comma)).trim();
+			}
+			if (firstLine && phrase.equalsIgnoreCase("phrase")) {
+				return null;
+			}
+			return phrase;
+		}
+	},
+
+	/**
+	 * One JSON value per line, either a string or an object whose "phrase"
+	 * or, failing that, "text" member is the phrase.
+	 */
+	JSONL(".jsonl") {
+		@Override
+		String parse(String line, boolean firstLine) {
+			JsonLine json = new JsonLine(line);
+			String phrase = json.phrase();
+			return phrase == null ? null : phrase.trim();
+		}
+	};
+
+	private final String suffix;
+
+	private PhraseFormat(String suffix) {
+		this.suffix = suffix;
+	}
+
+	public String getSuffix() {
+		return this.suffix;
+	}
+
+	/** Format for a file name by its suffix, text if the suffix is unknown. */
+	public static PhraseFormat forName(String fileName) {
+		String name = fileName.toLowerCase(Locale.ROOT);
+		for (PhraseFormat format : values()) {
+			if (name.endsWith(format.suffix)) {
+				return format;
+			}
+		}
+		return TEXT;
+	}
+
+	/**
+	 * The phrase on a line, null or empty if the line holds none.
+	 * @throws IllegalArgumentException if the line is malformed
+	 */
+	abstract String parse(String line, boolean firstLine);
+
+	private static final class JsonLine {
+
+		private final String line;
+		private int position;
+
+		private JsonLine(String line) {
+			this.line = line;
+		}
+
+		private String phrase() {
+			skipWhitespace();
+			if (this.position >= this.line.length()) {
+				return null;
+			}
+			if (peek() == '"') {
+				return string();
+			}
+			expect('{');
+			String phrase = null;
+			String text = null;
+			skipWhitespace();
+			if (peek() == '}') {
+				return null;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = string();
+				skipWhitespace();
+				expect(':');
+				skipWhitespace();
+				if (peek() == '"') {
+					String value = string();
+					if (key.equals("phrase")) {
+						phrase = value;
+					} else if (key.equals("text")) {
+						text = value;
+					}
+				} else {
+					skipValue();
+				}
+				skipWhitespace();
+				if (peek() == ',') {
+					this.position++;
+				} else {
+					expect('}');
+					return phrase != null ? phrase : text;
+				}
+			}
+		}
+
+		private String string() {
+			expect('"');
+			StringBuilder value = new StringBuilder();
+			while (true) {
+				char c = next();
+				if (c == '"') {
+					return value.toString();
+				}
+				if (c != '\\') {
+					value.append(c);
+					continue;
+				}
+				char escaped = next();
+				switch (escaped) {
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'u':
+					if (this.position + 4 > this.line.length()) {
+						throw new IllegalArgumentException("Truncated unicode escape");
+					}
+					value.append((char) Integer.parseInt(this.line.substring(
+							this.position, this.position + 4), 16));
+					this.position += 4;
+					break;
+				default:
+					value.append(escaped);
+				}
+			}
+		}
+
+		private void skipValue() {
+			int depth = 0;
+			while (true) {
+				char c = peek();
+				if (c == '"') {
+					string();
+				} else if (c == '{' || c == '[') {
+					depth++;
+					this.position++;
+				} else if (c == '}' || c == ']') {
+					if (depth == 0) {
+						return;
+					}
+					depth--;
+					this.position++;
+				} else if (c == ',' && depth == 0) {
+					return;
+				} else {
+					this.position++;
+				}
+			}
+		}
+
+		private void skipWhitespace() {
+			while (this.position < this.line.length()
+					&& Character.isWhitespace(this.line.charAt(this.position))) {
+				this.position++;
+			}
+		}
+
+		private void expect(char expected) {
+			if (next() != expected) {
+				throw new IllegalArgumentException("Expected " + expected + " at "
+						+ (this.position - 1));
+			}
+		}
+
+		private char peek() {
+			if (this.position >= this.line.length()) {
+				throw new IllegalArgumentException("Unexpected end of line");
+			}
+			return this.line.charAt(this.position);
+		}
+
+		private char next() {
+			char c = peek();
+			this.position++;
+			return c;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package chatbot.phrase;
+
+import java.util.concurrent.TimeUnit;
+
+public class PhraseLoadStatistics {
+
+	private final String source;
+	private final long lines;
+	private final long phrases;
+	private final long duplicates;
+	private final long rejected;
+	private final long bytes;
+	private final long elapsedNanos;
+
+	public PhraseLoadStatistics(String source, long lines, long phrases,
+			long duplicates, long rejected, long bytes, long elapsedNanos) {
+		this.source = source;
+		this.lines = lines;
+		this.phrases = phrases;
+		this.duplicates = duplicates;
+		this.rejected = rejected;
+		this.bytes = bytes;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public String getSource() {
+		return this.source;
+	}
+
+	public long getLines() {
+		return this.lines;
+	}
+
+	public long getPhrases() {
+		return this.phrases;
+	}
+
+	public long getDuplicates() {
+		return this.duplicates;
+	}
+
+	public long getRejected() {
+		return this.rejected;
+	}
+
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	public double getLinesPerSecond() {
+		return perSecond(this.lines);
+	}
+
+	public double getBytesPerSecond() {
+		return perSecond(this.bytes);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Loaded %s [phrases:%d, duplicates:%d, rejected:%d, lines:%d, bytes:%d, ms:%d, lines/s:%.0f, MB/s:%.1f]",
+				this.source, this.phrases, this.duplicates, this.rejected, this.lines,
+				this.bytes, TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos),
+				getLinesPerSecond(), getBytesPerSecond() / (1024 * 1024));
+	}
+
+	private double perSecond(long count) {
+		return this.elapsedNanos == 0 ? 0 : count * 1e9 / this.elapsedNanos;
+	}
+}
@@ -1,5 +1,11 @@
 package chatbot.phrase;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -20,4 +26,31 @@ public class PhraseLoader {
 		}
 		return new Phrases(phrases);
 	}
+
+	public static Phrases load(File file) {
+		try {
+			return new PhraseFileLoader().load(file);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to load phrases: " + file, e);
+		}
+	}
+
+	public static Phrases loadResource(String resource) {
+		InputStream in = PhraseLoader.class.getClassLoader().getResourceAsStream(resource);
+		if (in == null) {
+			throw new IllegalArgumentException("No such resource: " + resource);
+		}
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+					StandardCharsets.UTF_8));
+			try {
+				return new Phrases(new PhraseFileLoader().loadPhrases(reader,
+						PhraseFormat.forName(resource), resource));
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to load phrases: " + resource, e);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package chatbot.phrase;
+
+import java.util.TimeZone;
+
+import chatbot.client.Message;
+
+/**
+ * Placeholders a phrase template may contain, written as {name}.
+ */
+public enum PhraseVariable {
+
+	/** Nickname of the user whose message is being answered. */
+	USER("user") {
+		@Override
+		void append(StringBuilder out, Message message, String channelName) {
+			out.append(message.getOriginatingUsername());
+		}
+	},
+
+	/** Name of the channel the answer goes to. */
+	CHANNEL("channel") {
+		@Override
+		void append(StringBuilder out, Message message, String channelName) {
+			out.append(channelName);
+		}
+	},
+
+	/** Text after the first word of the message, such as the arguments of a command. */
+	ARGUMENTS("arguments") {
+		@Override
+		void append(StringBuilder out, Message message, String channelName) {
+			String payload = message.getPayload();
+			int start = 0;
+			while (start < payload.length() && !Character.isWhitespace(payload.charAt(start))) {
+				start++;
+			}
+			while (start < payload.length() && Character.isWhitespace(payload.charAt(start))) {
+				start++;
+			}
+			int end = payload.length();
+			while (end > start && Character.isWhitespace(payload.charAt(end - 1))) {
+				end--;
+			}
+			out.append(payload, start, end);
+		}
+	},
+
+	/** Local time of day, as HH:mm. */
+	TIME("time") {
+		@Override
+		void append(StringBuilder out, Message message, String channelName) {
+			long now = System.currentTimeMillis();
+			long minuteOfDay = Math.floorMod((now + ZONE.getOffset(now)) / 60000, 24 * 60L);
+			appendTwoDigits(out, (int) (minuteOfDay / 60));
+			out.append(':');
+			appendTwoDigits(out, (int) (minuteOfDay % 60));
+		}
+	};
+
+	private static final TimeZone ZONE = TimeZone.getDefault();
+
+	private final String name;
+
+	private PhraseVariable(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	static PhraseVariable forName(String template, int start, int end) {
+		for (PhraseVariable variable : values()) {
+			if (variable.name.length() == end - start
+					&& template.regionMatches(start, variable.name, 0, end - start)) {
+				return variable;
+			}
+		}
+		return null;
+	}
+
+	abstract void append(StringBuilder out, Message message, String channelName);
+
+	private static void appendTwoDigits(StringBuilder out, int value) {
+		out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+	}
+}
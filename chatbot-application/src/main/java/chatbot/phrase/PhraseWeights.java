@@ -0,0 +1,6 @@
+package chatbot.phrase;
+
+public interface PhraseWeights {
+
+	double weightOf(int index, Phrase phrase);
+}
@@ -6,7 +6,7 @@ public class Phrases {
 
 	private final List<Phrase> phrases;
 
-	private PhraseSelectionStrategy selectionStrategy = new RoundRobinPhraseSelectionStrategy();
+	private volatile PhraseSelectionStrategy selectionStrategy = new RoundRobinPhraseSelectionStrategy();
 	
 	public Phrases(List<Phrase> phrases) {
 		this.phrases = phrases;
@@ -26,6 +26,10 @@ public class Phrases {
 	}
 	
 	public Phrase next() {
-		return this.selectionStrategy.next(this);
+		return this.selectionStrategy.next(snapshot());
+	}
+	
+	protected Phrases snapshot() {
+		return this;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package chatbot.phrase;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class RandomPhraseSelectionStrategy implements PhraseSelectionStrategy {
+
+	@Override
+	public Phrase next(Phrases phrases) {
+		return phrases.getPhraseAt(ThreadLocalRandom.current().nextInt(phrases.size()));
+	}
+}
@@ -0,0 +1,238 @@
+package chatbot.phrase;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chatbot.client.ThreadFactories;
+
+/**
+ * Phrases that follow a phrase file, or a directory of phrase files read
+ * in name order, and reload it when it changes. Changes are noticed by a
+ * WatchService and loaded on a background thread once the source has
+ * been quiet for a moment, then the new phrases are published by a single
+ * volatile write. Each call to next() selects from one published snapshot,
+ * so it never waits for a reload and never sees a partly loaded list. A
+ * reload that fails or finds no phrases keeps the current phrases. Corpus
+ * files are read in place, so they must be replaced by renaming a new
+ * file over them, never rewritten, see MappedPhraseCorpus.
+ */
+public class ReloadablePhrases extends Phrases {
+
+	public static final long DEFAULT_QUIET_MILLIS = 250;
+
+	private final File source;
+	private final PhraseFileLoader loader;
+	private final WatchService watchService;
+	private final Thread watcher;
+	private final AtomicLong reloads = new AtomicLong();
+	private final AtomicLong failedReloads = new AtomicLong();
+	private volatile long quietMillis = DEFAULT_QUIET_MILLIS;
+	private volatile Phrases current;
+	private volatile Exception lastFailure;
+
+	public ReloadablePhrases(File source) throws IOException {
+		this(source, new PhraseFileLoader(), null);
+	}
+
+	public ReloadablePhrases(File source, PhraseFileLoader loader,
+			ThreadFactory threadFactory) throws IOException {
+		this(source, loader, threadFactory, load(source, loader));
+	}
+
+	private ReloadablePhrases(File source, PhraseFileLoader loader,
+			ThreadFactory threadFactory, List<Phrase> phrases) throws IOException {
+		super(Collections.<Phrase> emptyList());
+		this.source = source;
+		this.loader = loader;
+		this.current = new Phrases(phrases);
+		Path watched = (source.isDirectory() ? source : source.getAbsoluteFile()
+				.getParentFile()).toPath();
+		this.watchService = FileSystems.getDefault().newWatchService();
+		watched.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		ThreadFactory factory = threadFactory != null ? threadFactory
+				: ThreadFactories.platform("phrase-reload");
+		this.watcher = factory.newThread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		});
+		this.watcher.setDaemon(true);
+		this.watcher.start();
+	}
+
+	public File getSource() {
+		return this.source;
+	}
+
+	public ReloadablePhrases withQuietPeriod(long millis) {
+		this.quietMillis = millis;
+		return this;
+	}
+
+	public long getReloadCount() {
+		return this.reloads.get();
+	}
+
+	public long getFailedReloadCount() {
+		return this.failedReloads.get();
+	}
+
+	public Exception getLastFailure() {
+		return this.lastFailure;
+	}
+
+	@Override
+	public int size() {
+		return this.current.size();
+	}
+
+	@Override
+	public Phrase getPhraseAt(int index) {
+		return this.current.getPhraseAt(index);
+	}
+
+	@Override
+	protected Phrases snapshot() {
+		return this.current;
+	}
+
+	/** Reloads the source now, on the calling thread. */
+	public boolean reload() {
+		try {
+			List<Phrase> phrases = load(this.source, this.loader);
+			this.current = new Phrases(phrases);
+			this.reloads.incrementAndGet();
+			return true;
+		} catch (IOException e) {
+			reloadFailed(e);
+		} catch (RuntimeException e) {
+			reloadFailed(e);
+		}
+		return false;
+	}
+
+	public void close() {
+		try {
+			this.watchService.close();
+		} catch (IOException e) {
+			// the watcher stops either way
+		}
+		this.watcher.interrupt();
+	}
+
+	private void reloadFailed(Exception e) {
+		this.lastFailure = e;
+		this.failedReloads.incrementAndGet();
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = this.watchService.take();
+				boolean changed = affectsSource(key);
+				key.reset();
+				if (!changed) {
+					continue;
+				}
+				// wait for the writer to finish before reading
+				while ((key = this.watchService.poll(this.quietMillis, TimeUnit.MILLISECONDS)) != null) {
+					key.pollEvents();
+					key.reset();
+				}
+				reload();
+			}
+		} catch (InterruptedException e) {
+			// closed
+		} catch (ClosedWatchServiceException e) {
+			// closed
+		}
+	}
+
+	private boolean affectsSource(WatchKey key) {
+		boolean affected = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || this.source.isDirectory()
+					|| this.source.getName().equals(String.valueOf(event.context()))) {
+				affected = true;
+			}
+		}
+		return affected;
+	}
+
+	private static List<Phrase> load(File source, PhraseFileLoader loader)
+			throws IOException {
+		List<File> files = files(source);
+		if (files.size() == 1 && isCorpus(files.get(0))) {
+			MappedPhraseCorpus corpus = MappedPhraseCorpus.open(files.get(0));
+			if (corpus.isEmpty()) {
+				throw new IOException("No phrases in " + source);
+			}
+			return corpus;
+		}
+		List<Phrase> phrases = new ArrayList<Phrase>();
+		for (File file : files) {
+			if (isCorpus(file)) {
+				phrases.addAll(MappedPhraseCorpus.open(file));
+			} else {
+				phrases.addAll(loader.loadPhrases(file));
+			}
+		}
+		if (phrases.isEmpty()) {
+			throw new IOException("No phrases in " + source);
+		}
+		return Collections.unmodifiableList(phrases);
+	}
+
+	private static List<File> files(File source) throws IOException {
+		if (!source.isDirectory()) {
+			return Collections.singletonList(source);
+		}
+		File[] files = source.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && isPhraseFile(file.getName());
+			}
+		});
+		if (files == null) {
+			throw new IOException("Unable to list " + source);
+		}
+		Arrays.sort(files);
+		return Arrays.asList(files);
+	}
+
+	private static boolean isCorpus(File file) {
+		return file.getName().endsWith(MappedPhraseCorpus.FILE_SUFFIX);
+	}
+
+	private static boolean isPhraseFile(String name) {
+		if (name.startsWith(".")) {
+			return false;
+		}
+		if (name.endsWith(MappedPhraseCorpus.FILE_SUFFIX)) {
+			return true;
+		}
+		for (PhraseFormat format : PhraseFormat.values()) {
+			if (name.endsWith(format.getSuffix())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
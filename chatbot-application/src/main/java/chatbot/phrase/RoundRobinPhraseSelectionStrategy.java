@@ -1,20 +1,19 @@
 package chatbot.phrase;
 
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RoundRobinPhraseSelectionStrategy implements
 		PhraseSelectionStrategy {
 
-	private int currentIndex;
+	private final AtomicInteger selections;
 	
 	public RoundRobinPhraseSelectionStrategy() {
-		this.currentIndex = 0;
+		this.selections = new AtomicInteger();
 	}
 	
 	@Override
 	public Phrase next(Phrases phrases) {
-		if (this.currentIndex >= phrases.size()) {
-			this.currentIndex = 0;
-		}
-		return phrases.getPhraseAt(this.currentIndex++);
+		int selection = this.selections.getAndIncrement() & Integer.MAX_VALUE;
+		return phrases.getPhraseAt(selection % phrases.size());
 	}
-}
\ No newline at end of file
+}
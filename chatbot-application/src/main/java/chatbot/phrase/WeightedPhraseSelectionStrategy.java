@@ -0,0 +1,112 @@
+package chatbot.phrase;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects phrases at random in proportion to their weights, using an
+ * alias table (Vose's method) built the first time a list of phrases is
+ * seen and again whenever the list is replaced, for example by a reload.
+ * Each column of the table packs its probability and alias into one long,
+ * so a selection is two random numbers and one table read, whatever the
+ * number of phrases, and allocates nothing.
+ */
+public class WeightedPhraseSelectionStrategy implements PhraseSelectionStrategy {
+
+	private final PhraseWeights weights;
+	private volatile AliasTable table;
+
+	public WeightedPhraseSelectionStrategy(final double... weights) {
+		this(new PhraseWeights() {
+			@Override
+			public double weightOf(int index, Phrase phrase) {
+				return index < weights.length ? weights[index] : 0;
+			}
+		});
+	}
+
+	public WeightedPhraseSelectionStrategy(PhraseWeights weights) {
+		this.weights = weights;
+	}
+
+	@Override
+	public Phrase next(Phrases phrases) {
+		AliasTable table = this.table;
+		if (table == null || table.phrases != phrases || table.size != phrases.size()) {
+			table = new AliasTable(phrases, this.weights);
+			this.table = table;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int column = random.nextInt(table.size);
+		long entry = table.columns[column];
+		if (random.nextFloat() < Float.intBitsToFloat((int) entry)) {
+			return phrases.getPhraseAt(column);
+		}
+		return phrases.getPhraseAt((int) (entry >>> 32));
+	}
+
+	private static final class AliasTable {
+
+		private final Phrases phrases;
+		private final int size;
+		private final long[] columns;
+
+		private AliasTable(Phrases phrases, PhraseWeights weights) {
+			this.phrases = phrases;
+			this.size = phrases.size();
+			this.columns = new long[this.size];
+
+			double total = 0;
+			double[] scaled = new double[this.size];
+			for (int i = 0; i < this.size; i++) {
+				double weight = weights.weightOf(i, phrases.getPhraseAt(i));
+				if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+					throw new IllegalArgumentException("Invalid weight " + weight
+							+ " for phrase " + i);
+				}
+				scaled[i] = weight;
+				total += weight;
+			}
+			if (total <= 0) {
+				throw new IllegalArgumentException("No phrase has a positive weight");
+			}
+
+			int[] small = new int[this.size];
+			int[] large = new int[this.size];
+			int smallCount = 0;
+			int largeCount = 0;
+			for (int i = 0; i < this.size; i++) {
+				scaled[i] = scaled[i] * this.size / total;
+				if (scaled[i] < 1) {
+					small[smallCount++] = i;
+				} else {
+					large[largeCount++] = i;
+				}
+			}
+			while (smallCount > 0 && largeCount > 0) {
+				int less = small[--smallCount];
+				int more = large[--largeCount];
+				this.columns[less] = column(scaled[less], more);
+				scaled[more] = scaled[more] + scaled[less] - 1;
+				if (scaled[more] < 1) {
+					small[smallCount++] = more;
+				} else {
+					large[largeCount++] = more;
+				}
+			}
+			// whatever is left is 1 give or take rounding
+			while (largeCount > 0) {
+				int index = large[--largeCount];
+				this.columns[index] = column(1, index);
+			}
+			while (smallCount > 0) {
+				int index = small[--smallCount];
+				this.columns[index] = column(1, index);
+			}
+		}
+
+		private static long column(double probability, int alias) {
+			return ((long) alias << 32)
+					| (Float.floatToIntBits((float) probability) & 0xffffffffL);
+		}
+	}
+}
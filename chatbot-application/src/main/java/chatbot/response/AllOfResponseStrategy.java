@@ -0,0 +1,13 @@
+package chatbot.response;
+
+public class AllOfResponseStrategy extends CompositeResponseStrategy {
+
+	public AllOfResponseStrategy(ResponseStrategy... strategies) {
+		super(strategies);
+	}
+
+	@Override
+	protected boolean decidesOn() {
+		return false;
+	}
+}
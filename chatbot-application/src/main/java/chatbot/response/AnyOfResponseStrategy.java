@@ -0,0 +1,13 @@
+package chatbot.response;
+
+public class AnyOfResponseStrategy extends CompositeResponseStrategy {
+
+	public AnyOfResponseStrategy(ResponseStrategy... strategies) {
+		super(strategies);
+	}
+
+	@Override
+	protected boolean decidesOn() {
+		return true;
+	}
+}
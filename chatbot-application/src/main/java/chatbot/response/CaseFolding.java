@@ -0,0 +1,59 @@
+package chatbot.response;
+
+/**
+ * How nicknames are compared when matching users.
+ */
+public enum CaseFolding {
+
+	/** Nicknames must match exactly. */
+	NONE {
+		@Override
+		char fold(char c) {
+			return c;
+		}
+	},
+
+	/** ASCII letters match regardless of case. */
+	ASCII {
+		@Override
+		char fold(char c) {
+			return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		}
+	},
+
+	/**
+	 * IRC nickname rules from RFC 1459: as ASCII, and []\~ are the upper
+	 * case forms of {}|^.
+	 */
+	RFC1459 {
+		@Override
+		char fold(char c) {
+			return c >= 'A' && c <= '^' ? (char) (c + ('a' - 'A')) : c;
+		}
+	},
+
+	/** Letters in any alphabet match regardless of case. */
+	UNICODE {
+		@Override
+		char fold(char c) {
+			return Character.toLowerCase(Character.toUpperCase(c));
+		}
+	};
+
+	abstract char fold(char c);
+
+	/** Folded copy of the text, or the text itself if folding changes nothing. */
+	public String fold(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (fold(c) != c) {
+				char[] folded = text.toCharArray();
+				for (int j = i; j < folded.length; j++) {
+					folded[j] = fold(folded[j]);
+				}
+				return new String(folded);
+			}
+		}
+		return text;
+	}
+}
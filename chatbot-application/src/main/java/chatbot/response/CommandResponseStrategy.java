@@ -4,10 +4,12 @@ import chatbot.client.Message;
 
 public class CommandResponseStrategy implements ResponseStrategy {
 
-	private final String botUsername;
+	private static final char PREFIX = '!';
+
+	private final String command;
 
 	public CommandResponseStrategy(String username) {
-		this.botUsername = username;
+		this.command = PREFIX + username;
 	}
 
 	@Override
@@ -16,10 +18,7 @@ public class CommandResponseStrategy implements ResponseStrategy {
 	}
 
 	private boolean isCommand(String payload) {
-		return payload.equals(commandPrefix());
-	}
-
-	private String commandPrefix() {
-		return String.format("!%s", this.botUsername);
+		return payload.length() > 0 && payload.charAt(0) == PREFIX
+				&& payload.equals(this.command);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,261 @@
+package chatbot.response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import chatbot.client.Message;
+import chatbot.phrase.Phrase;
+import chatbot.phrase.Phrases;
+
+/**
+ * Combines strategies and consults them one at a time until the answer
+ * is known. The selectivity and cost of every branch are measured as
+ * messages are evaluated, and every REORDER_INTERVAL evaluations the
+ * branches are reordered so that the cheap checks most likely to decide
+ * the answer run first. Costs are timed on one evaluation in
+ * SAMPLE_INTERVAL. Stateful strategies keep their position, and a branch
+ * is only ever moved among the branches between the same two stateful
+ * ones, so a stateful strategy is consulted after exactly the branches
+ * it followed in the first place. The statistics are approximate when
+ * the strategy is shared between threads.
+ * <p>
+ * When responding, the phrases come from the branch that decided: the
+ * passing branch of any of, or the first triggered branch consulted of
+ * all of. A composite decided by plain strategies alone responds with
+ * the defaults.
+ */
+public abstract class CompositeResponseStrategy implements TriggeredResponseStrategy {
+
+	public static final int SAMPLE_INTERVAL = 16;
+	public static final int REORDER_INTERVAL = 1024;
+
+	/** Stands in for the defaults when only the answer is wanted. */
+	private static final Phrases RESPOND = new Phrases(Collections.<Phrase> emptyList());
+
+	private final Branch[] branches;
+	private final boolean stateful;
+	private volatile Branch[] order;
+	private int evaluations;
+
+	protected CompositeResponseStrategy(ResponseStrategy... strategies) {
+		if (strategies.length == 0) {
+			throw new IllegalArgumentException("At least one strategy is required");
+		}
+		this.branches = new Branch[strategies.length];
+		boolean stateful = false;
+		for (int i = 0; i < strategies.length; i++) {
+			this.branches[i] = new Branch(strategies[i]);
+			stateful |= this.branches[i].stateful;
+		}
+		this.stateful = stateful;
+		this.order = this.branches.clone();
+	}
+
+	/**
+	 * True if this composite contains a stateful strategy, in which case
+	 * a composite containing it keeps it in place.
+	 */
+	public boolean isStateful() {
+		return this.stateful;
+	}
+
+	/** Branches in the order they are currently consulted. */
+	public List<BranchStatistics> getBranches() {
+		List<BranchStatistics> branches = new ArrayList<BranchStatistics>();
+		for (Branch branch : this.order) {
+			branches.add(new BranchStatistics(branch));
+		}
+		return Collections.unmodifiableList(branches);
+	}
+
+	@Override
+	public boolean shouldRespond(Message message) {
+		return evaluate(message, RESPOND, false) != null;
+	}
+
+	@Override
+	public Phrases respondWith(Message message, Phrases defaults) {
+		Phrases phrases = evaluate(message, defaults != null ? defaults : RESPOND, true);
+		return phrases == RESPOND ? defaults : phrases;
+	}
+
+	private Phrases evaluate(Message message, Phrases defaults, boolean triggered) {
+		int evaluation = ++this.evaluations;
+		boolean decisive = decidesOn();
+		Branch[] order = this.order;
+		boolean sampled = evaluation % SAMPLE_INTERVAL == 0;
+		boolean answer = !decisive;
+		Phrases phrases = null;
+		for (Branch branch : order) {
+			Phrases passed = branch.evaluate(message, sampled, defaults, triggered);
+			if (passed != null && (phrases == null || phrases == defaults)) {
+				phrases = passed;
+			}
+			if ((passed != null) == decisive) {
+				answer = decisive;
+				break;
+			}
+		}
+		if (evaluation % REORDER_INTERVAL == 0) {
+			reorder();
+		}
+		return answer ? phrases : null;
+	}
+
+	/**
+	 * The branch answer that decides the composite answer: false for all
+	 * of, true for any of.
+	 */
+	protected abstract boolean decidesOn();
+
+	private void reorder() {
+		boolean decisive = decidesOn();
+		for (Branch branch : this.branches) {
+			branch.rank(decisive);
+		}
+		Comparator<Branch> byRank = new Comparator<Branch>() {
+			@Override
+			public int compare(Branch first, Branch second) {
+				return Double.compare(first.rank, second.rank);
+			}
+		};
+		// sort each run of movable branches between stateful ones on its own
+		Branch[] order = this.branches.clone();
+		int runStart = 0;
+		for (int i = 0; i <= order.length; i++) {
+			if (i == order.length || order[i].stateful) {
+				Arrays.sort(order, runStart, i, byRank);
+				runStart = i + 1;
+			}
+		}
+		this.order = order;
+		for (Branch branch : this.branches) {
+			branch.decay();
+		}
+	}
+
+	public static final class BranchStatistics {
+
+		private final ResponseStrategy strategy;
+		private final long evaluated;
+		private final long passed;
+		private final double averageCostNanos;
+
+		private BranchStatistics(Branch branch) {
+			this.strategy = branch.strategy;
+			this.evaluated = branch.evaluated;
+			this.passed = branch.passed;
+			this.averageCostNanos = branch.averageCostNanos();
+		}
+
+		public ResponseStrategy getStrategy() {
+			return this.strategy;
+		}
+
+		public long getEvaluated() {
+			return this.evaluated;
+		}
+
+		public long getPassed() {
+			return this.passed;
+		}
+
+		public double getPassRatio() {
+			return this.evaluated == 0 ? 0 : (double) this.passed / this.evaluated;
+		}
+
+		public double getAverageCostNanos() {
+			return this.averageCostNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s [pass ratio:%.3f, cost:%.0fns]", this.strategy.getClass()
+					.getSimpleName(), getPassRatio(), this.averageCostNanos);
+		}
+	}
+
+	private static final class Branch {
+
+		private static final double MIN_PROBABILITY = 0.001;
+
+		private final ResponseStrategy strategy;
+		private final boolean stateful;
+		private long evaluated;
+		private long passed;
+		private long sampledNanos;
+		private long samples;
+		private double rank;
+
+		private Branch(ResponseStrategy strategy) {
+			this.strategy = strategy;
+			this.stateful = isStateful(strategy);
+		}
+
+		private static boolean isStateful(ResponseStrategy strategy) {
+			if (strategy instanceof NotResponseStrategy) {
+				return isStateful(((NotResponseStrategy) strategy).getStrategy());
+			}
+			return strategy instanceof StatefulResponseStrategy
+					|| (strategy instanceof CompositeResponseStrategy
+							&& ((CompositeResponseStrategy) strategy).isStateful());
+		}
+
+		/**
+		 * Consults the strategy, returning the phrases it responds from,
+		 * or null when it does not pass.
+		 */
+		private Phrases evaluate(Message message, boolean sampled, Phrases defaults,
+				boolean triggered) {
+			Phrases phrases;
+			if (sampled) {
+				long start = System.nanoTime();
+				phrases = consult(message, defaults, triggered);
+				this.sampledNanos += System.nanoTime() - start;
+				this.samples++;
+			} else {
+				phrases = consult(message, defaults, triggered);
+			}
+			this.evaluated++;
+			if (phrases != null) {
+				this.passed++;
+			}
+			return phrases;
+		}
+
+		private Phrases consult(Message message, Phrases defaults, boolean triggered) {
+			if (triggered && this.strategy instanceof TriggeredResponseStrategy) {
+				return ((TriggeredResponseStrategy) this.strategy).respondWith(message, defaults);
+			}
+			return this.strategy.shouldRespond(message) ? defaults : null;
+		}
+
+		private double averageCostNanos() {
+			return this.samples == 0 ? 0 : (double) this.sampledNanos / this.samples;
+		}
+
+		/**
+		 * Expected cost of reaching a decision through this branch: the
+		 * cost of consulting it over the probability that it decides.
+		 */
+		private void rank(boolean decisive) {
+			if (this.evaluated == 0) {
+				this.rank = 0;
+				return;
+			}
+			double passRatio = (double) this.passed / this.evaluated;
+			double decides = decisive ? passRatio : 1 - passRatio;
+			this.rank = averageCostNanos() / Math.max(decides, MIN_PROBABILITY);
+		}
+
+		private void decay() {
+			this.evaluated >>= 1;
+			this.passed >>= 1;
+			this.sampledNanos >>= 1;
+			this.samples >>= 1;
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package chatbot.response;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton that finds any of a fixed set of keywords in a
+ * single pass over the text, however many keywords there are. Matching
+ * ignores case. For the ASCII characters that occur in the keywords the
+ * goto and failure functions are folded into one transition table, so
+ * each such character of the text costs one table lookup. Other
+ * characters would make that table as wide as a script, so they follow
+ * sorted edges kept per state, and the failure links where a state has
+ * none for the character.
+ */
+public final class KeywordAutomaton {
+
+	private static final int ROOT = 0;
+	private static final int NONE = -1;
+	private static final int ASCII = 128;
+
+	private final int[] asciiSymbols;
+	private final char[] otherCharacters;
+	private final int width;
+	private final int[] transitions;
+	private final int[] otherStart;
+	private final char[] otherEdges;
+	private final int[] otherTargets;
+	private final int[] keywordAt;
+	private final int[] output;
+	private final int[] fail;
+	private final int[] lengths;
+	private final boolean wholeWords;
+
+	public KeywordAutomaton(List<String> keywords, boolean wholeWords) {
+		this.wholeWords = wholeWords;
+		this.asciiSymbols = new int[ASCII];
+		this.otherCharacters = alphabet(keywords, this.asciiSymbols);
+		this.width = numberAscii(this.asciiSymbols) + 1;
+		this.lengths = new int[keywords.size()];
+
+		int maxStates = 1;
+		for (String keyword : keywords) {
+			if (keyword.length() == 0) {
+				throw new IllegalArgumentException("Keywords must not be empty");
+			}
+			maxStates += keyword.length();
+		}
+		int[] table;
+		try {
+			table = new int[Math.multiplyExact(maxStates, this.width)];
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("Too many keywords: " + keywords.size(), e);
+		}
+		int[] keywordAt = new int[maxStates];
+		Arrays.fill(keywordAt, NONE);
+		// edges on other characters, keyed by state in the high bits and character in the low
+		TreeMap<Long, Integer> otherGoto = new TreeMap<Long, Integer>();
+
+		int states = 1;
+		for (int k = 0; k < keywords.size(); k++) {
+			String keyword = keywords.get(k);
+			int state = ROOT;
+			for (int i = 0; i < keyword.length(); i++) {
+				char c = lower(keyword.charAt(i));
+				if (c < ASCII) {
+					int index = state * this.width + this.asciiSymbols[c];
+					if (table[index] == ROOT) {
+						table[index] = states++;
+					}
+					state = table[index];
+				} else {
+					Long edge = Long.valueOf(((long) state << 16) | c);
+					Integer next = otherGoto.get(edge);
+					if (next == null) {
+						next = Integer.valueOf(states++);
+						otherGoto.put(edge, next);
+					}
+					state = next.intValue();
+				}
+			}
+			if (keywordAt[state] == NONE) {
+				keywordAt[state] = k;
+			}
+			this.lengths[k] = keyword.length();
+		}
+
+		this.transitions = Arrays.copyOf(table, states * this.width);
+		this.keywordAt = Arrays.copyOf(keywordAt, states);
+		this.otherStart = new int[states + 1];
+		this.otherEdges = new char[otherGoto.size()];
+		this.otherTargets = new int[otherGoto.size()];
+		int edge = 0;
+		for (Map.Entry<Long, Integer> entry : otherGoto.entrySet()) {
+			this.otherStart[(int) (entry.getKey().longValue() >>> 16) + 1]++;
+			this.otherEdges[edge] = (char) entry.getKey().longValue();
+			this.otherTargets[edge++] = entry.getValue().intValue();
+		}
+		for (int state = 0; state < states; state++) {
+			this.otherStart[state + 1] += this.otherStart[state];
+		}
+		this.output = new int[states];
+		this.fail = new int[states];
+		link();
+	}
+
+	public int size() {
+		return this.lengths.length;
+	}
+
+	public int getStateCount() {
+		return this.fail.length;
+	}
+
+	/**
+	 * Index of the keyword that ends first in the text, the longest one if
+	 * several end at the same character, or -1 if no keyword occurs.
+	 */
+	public int find(CharSequence text) {
+		int state = ROOT;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c >= ASCII) {
+				c = lower(c);
+			}
+			if (c < ASCII) {
+				state = this.transitions[state * this.width + this.asciiSymbols[c]];
+			} else if (Arrays.binarySearch(this.otherCharacters, c) < 0) {
+				state = ROOT;
+			} else {
+				state = nextOther(state, c);
+			}
+			for (int match = this.output[state]; match != ROOT; match = this.output[this.fail[match]]) {
+				int keyword = this.keywordAt[match];
+				if (!this.wholeWords || isWord(text, i - this.lengths[keyword] + 1, i)) {
+					return keyword;
+				}
+			}
+		}
+		return NONE;
+	}
+
+	/** State reached on a non-ASCII character, following failure links. */
+	private int nextOther(int state, char c) {
+		while (true) {
+			int next = otherEdge(state, c);
+			if (next != NONE) {
+				return next;
+			}
+			if (state == ROOT) {
+				return ROOT;
+			}
+			state = this.fail[state];
+		}
+	}
+
+	private int otherEdge(int state, char c) {
+		int from = this.otherStart[state];
+		int to = this.otherStart[state + 1];
+		if (from == to) {
+			return NONE;
+		}
+		int index = Arrays.binarySearch(this.otherEdges, from, to, c);
+		return index < 0 ? NONE : this.otherTargets[index];
+	}
+
+	private void link() {
+		Queue<Integer> queue = new ArrayDeque<Integer>();
+		for (int symbol = 0; symbol < this.width; symbol++) {
+			int child = this.transitions[symbol];
+			if (child != ROOT) {
+				this.output[child] = this.keywordAt[child] != NONE ? child : ROOT;
+				queue.add(child);
+			}
+		}
+		for (int edge = this.otherStart[ROOT]; edge < this.otherStart[ROOT + 1]; edge++) {
+			int child = this.otherTargets[edge];
+			this.output[child] = this.keywordAt[child] != NONE ? child : ROOT;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.remove();
+			int row = state * this.width;
+			int failRow = this.fail[state] * this.width;
+			for (int symbol = 0; symbol < this.width; symbol++) {
+				int child = this.transitions[row + symbol];
+				if (child == ROOT) {
+					this.transitions[row + symbol] = this.transitions[failRow + symbol];
+					continue;
+				}
+				linkChild(child, this.transitions[failRow + symbol]);
+				queue.add(child);
+			}
+			for (int edge = this.otherStart[state]; edge < this.otherStart[state + 1]; edge++) {
+				int child = this.otherTargets[edge];
+				linkChild(child, nextOther(this.fail[state], this.otherEdges[edge]));
+				queue.add(child);
+			}
+		}
+	}
+
+	private void linkChild(int child, int childFail) {
+		this.fail[child] = childFail;
+		this.output[child] = this.keywordAt[child] != NONE ? child : this.output[childFail];
+	}
+
+	private boolean isWord(CharSequence text, int start, int end) {
+		return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+				&& (end == text.length() - 1 || !Character.isLetterOrDigit(text.charAt(end + 1)));
+	}
+
+	private static char lower(char c) {
+		if (c < ASCII) {
+			return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		}
+		return Character.toLowerCase(c);
+	}
+
+	private static int numberAscii(int[] asciiSymbols) {
+		int symbols = 0;
+		for (char c = 0; c < ASCII; c++) {
+			if (asciiSymbols[c] != 0 && Character.toLowerCase(c) == c) {
+				asciiSymbols[c] = ++symbols;
+			}
+		}
+		for (char c = 0; c < ASCII; c++) {
+			if (Character.toLowerCase(c) != c) {
+				asciiSymbols[c] = asciiSymbols[Character.toLowerCase(c)];
+			}
+		}
+		return symbols;
+	}
+
+	private static char[] alphabet(List<String> keywords, int[] asciiSymbols) {
+		TreeSet<Character> others = new TreeSet<Character>();
+		for (String keyword : keywords) {
+			for (int i = 0; i < keyword.length(); i++) {
+				char c = lower(keyword.charAt(i));
+				if (c < ASCII) {
+					asciiSymbols[c] = 1;
+				} else {
+					others.add(c);
+				}
+			}
+		}
+		char[] characters = new char[others.size()];
+		int i = 0;
+		for (Character c : others) {
+			characters[i++] = c;
+		}
+		return characters;
+	}
+}
@@ -0,0 +1,43 @@
+package chatbot.response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import chatbot.client.Message;
+import chatbot.phrase.Phrases;
+
+public class KeywordResponseStrategy implements TriggeredResponseStrategy {
+
+	private final KeywordAutomaton automaton;
+	private final Phrases[] responses;
+
+	public KeywordResponseStrategy(Map<String, Phrases> triggers) {
+		this(triggers, true);
+	}
+
+	public KeywordResponseStrategy(Map<String, Phrases> triggers, boolean wholeWords) {
+		List<String> keywords = new ArrayList<String>(triggers.size());
+		this.responses = new Phrases[triggers.size()];
+		for (Map.Entry<String, Phrases> trigger : triggers.entrySet()) {
+			this.responses[keywords.size()] = trigger.getValue();
+			keywords.add(trigger.getKey());
+		}
+		this.automaton = new KeywordAutomaton(keywords, wholeWords);
+	}
+
+	public int getTriggerCount() {
+		return this.responses.length;
+	}
+
+	@Override
+	public boolean shouldRespond(Message message) {
+		return this.automaton.find(message.getPayload()) >= 0;
+	}
+
+	@Override
+	public Phrases respondWith(Message message, Phrases defaults) {
+		int keyword = this.automaton.find(message.getPayload());
+		return keyword < 0 ? null : this.responses[keyword];
+	}
+}
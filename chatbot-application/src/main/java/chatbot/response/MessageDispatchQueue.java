@@ -0,0 +1,239 @@
+package chatbot.response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chatbot.client.Message;
+import chatbot.client.MessageListener;
+import chatbot.client.ThreadFactories;
+
+public class MessageDispatchQueue implements MessageListener {
+
+	private final MessageListener target;
+	private final BlockingQueue<QueuedMessage> queue;
+	private final int capacity;
+	private final OverflowPolicy overflowPolicy;
+	private final ThreadFactory threadFactory;
+
+	private final AtomicLong received = new AtomicLong();
+	private final AtomicLong dispatched = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private volatile int maxDepth;
+
+	private Thread worker;
+	private volatile boolean shutdown;
+
+	public MessageDispatchQueue(MessageListener target, int capacity,
+			OverflowPolicy overflowPolicy) {
+		this(target, capacity, overflowPolicy, null);
+	}
+
+	public MessageDispatchQueue(MessageListener target, int capacity,
+			OverflowPolicy overflowPolicy, ThreadFactory threadFactory) {
+		this.target = target;
+		this.queue = new ArrayBlockingQueue<QueuedMessage>(capacity);
+		this.capacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+		this.threadFactory = threadFactory != null ? threadFactory
+				: ThreadFactories.platform("chatbot-dispatch");
+	}
+
+	@Override
+	public void onMessageReceived(Message message) {
+		if (this.shutdown) {
+			this.dropped.incrementAndGet();
+			return;
+		}
+		startWorker();
+		this.received.incrementAndGet();
+		enqueue(new QueuedMessage(message, System.nanoTime()));
+		recordDepth(this.queue.size());
+	}
+
+	/**
+	 * Queues the batch, which the worker takes together with anything else
+	 * already queued and hands on as one batch.
+	 */
+	@Override
+	public void onMessagesReceived(List<Message> messages) {
+		if (this.shutdown) {
+			this.dropped.addAndGet(messages.size());
+			return;
+		}
+		startWorker();
+		this.received.addAndGet(messages.size());
+		long enqueuedNanos = System.nanoTime();
+		for (int i = 0; i < messages.size(); i++) {
+			enqueue(new QueuedMessage(messages.get(i), enqueuedNanos));
+		}
+		recordDepth(this.queue.size());
+	}
+
+	private void enqueue(QueuedMessage queued) {
+		switch (this.overflowPolicy) {
+		case DROP_NEWEST:
+			if (!this.queue.offer(queued)) {
+				this.dropped.incrementAndGet();
+			}
+			break;
+		case DROP_OLDEST:
+			while (!this.queue.offer(queued)) {
+				if (this.queue.poll() != null) {
+					this.dropped.incrementAndGet();
+				}
+			}
+			break;
+		case BLOCK:
+			try {
+				this.queue.put(queued);
+			} catch (InterruptedException e) {
+				this.dropped.incrementAndGet();
+				Thread.currentThread().interrupt();
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Stops the worker. Messages still queued are not dispatched and are
+	 * counted as dropped.
+	 */
+	public void shutdown() {
+		Thread running;
+		synchronized (this) {
+			this.shutdown = true;
+			running = this.worker;
+		}
+		if (running != null) {
+			running.interrupt();
+		}
+		dropQueued();
+	}
+
+	public int getDepth() {
+		return this.queue.size();
+	}
+
+	public int getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	public long getReceivedCount() {
+		return this.received.get();
+	}
+
+	public long getDispatchedCount() {
+		return this.dispatched.get();
+	}
+
+	public long getDroppedCount() {
+		return this.dropped.get();
+	}
+
+	public long getFailedCount() {
+		return this.failed.get();
+	}
+
+	public long getTotalWaitNanos() {
+		return this.totalWaitNanos.get();
+	}
+
+	public long getMaxWaitNanos() {
+		return this.maxWaitNanos.get();
+	}
+
+	public long getAverageWaitNanos() {
+		long count = this.dispatched.get();
+		return count == 0 ? 0 : this.totalWaitNanos.get() / count;
+	}
+
+	private synchronized void startWorker() {
+		if (this.worker == null && !this.shutdown) {
+			this.worker = this.threadFactory.newThread(new Runnable() {
+				@Override
+				public void run() {
+					drain();
+				}
+			});
+			this.worker.start();
+		}
+	}
+
+	private void drain() {
+		List<QueuedMessage> taken = new ArrayList<QueuedMessage>();
+		while (!this.shutdown) {
+			try {
+				taken.add(this.queue.take());
+			} catch (InterruptedException e) {
+				continue;
+			}
+			this.queue.drainTo(taken);
+			long now = System.nanoTime();
+			List<Message> batch = new ArrayList<Message>(taken.size());
+			for (QueuedMessage queued : taken) {
+				recordWait(now - queued.enqueuedNanos);
+				batch.add(queued.message);
+			}
+			taken.clear();
+			try {
+				if (batch.size() == 1) {
+					this.target.onMessageReceived(batch.get(0));
+				} else {
+					this.target.onMessagesReceived(batch);
+				}
+			} catch (RuntimeException e) {
+				this.failed.incrementAndGet();
+				Thread current = Thread.currentThread();
+				current.getUncaughtExceptionHandler().uncaughtException(current, e);
+			}
+			this.dispatched.addAndGet(batch.size());
+		}
+		dropQueued();
+	}
+
+	private void dropQueued() {
+		List<QueuedMessage> left = new ArrayList<QueuedMessage>();
+		this.queue.drainTo(left);
+		this.dropped.addAndGet(left.size());
+	}
+
+	private void recordDepth(int depth) {
+		if (depth > this.maxDepth) {
+			this.maxDepth = depth;
+		}
+	}
+
+	private void recordWait(long waitNanos) {
+		this.totalWaitNanos.addAndGet(waitNanos);
+		long max = this.maxWaitNanos.get();
+		while (waitNanos > max && !this.maxWaitNanos.compareAndSet(max, waitNanos)) {
+			max = this.maxWaitNanos.get();
+		}
+	}
+
+	private static final class QueuedMessage {
+
+		private final Message message;
+		private final long enqueuedNanos;
+
+		private QueuedMessage(Message message, long enqueuedNanos) {
+			this.message = message;
+			this.enqueuedNanos = enqueuedNanos;
+		}
+	}
+}
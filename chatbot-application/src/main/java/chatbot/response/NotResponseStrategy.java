@@ -0,0 +1,21 @@
+package chatbot.response;
+
+import chatbot.client.Message;
+
+public class NotResponseStrategy implements ResponseStrategy {
+
+	private final ResponseStrategy strategy;
+
+	public NotResponseStrategy(ResponseStrategy strategy) {
+		this.strategy = strategy;
+	}
+
+	public ResponseStrategy getStrategy() {
+		return this.strategy;
+	}
+
+	@Override
+	public boolean shouldRespond(Message message) {
+		return !this.strategy.shouldRespond(message);
+	}
+}
@@ -0,0 +1,7 @@
+package chatbot.response;
+
+public enum OverflowPolicy {
+	DROP_OLDEST,
+	DROP_NEWEST,
+	BLOCK;
+}
@@ -2,7 +2,8 @@ package chatbot.response;
 
 import chatbot.client.Message;
 
-public class RespondEveryNTimesStrategy extends AbstractResponseStrategy {
+public class RespondEveryNTimesStrategy extends AbstractResponseStrategy
+		implements StatefulResponseStrategy {
 
 	private int currentCount;
 	private final int respondOnNthTime;
@@ -1,16 +1,17 @@
 package chatbot.response;
 
 import java.util.Arrays;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 import chatbot.client.Message;
 
 public class RespondToSpecificUsersStrategy implements ResponseStrategy{
 
-	private final List<String> usersToRespondTo;
+	private final Set<String> usersToRespondTo;
 	
 	public RespondToSpecificUsersStrategy(String... usersToRespondTo) {
-		this.usersToRespondTo = Arrays.asList(usersToRespondTo);
+		this.usersToRespondTo = new HashSet<String>(Arrays.asList(usersToRespondTo));
 	}
 	
 	@Override
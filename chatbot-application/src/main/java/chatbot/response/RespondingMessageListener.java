@@ -1,5 +1,7 @@
 package chatbot.response;
 
+import java.util.List;
+
 import chatbot.client.Message;
 import chatbot.client.MessageChannel;
 import chatbot.client.MessageListener;
@@ -8,22 +10,97 @@ import chatbot.phrase.Phrases;
 
 public class RespondingMessageListener implements MessageListener {
 
+	private static final int MAX_RETAINED_CAPACITY = 4096;
+
+	private static final ThreadLocal<StringBuilder> RESPONSE = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(256);
+		}
+	};
+
 	private final ResponseStrategy responseStrategy;
+	private final TriggeredResponseStrategy triggeredStrategy;
 	private final Phrases phrases;
 	private final MessageChannel messageChannel;
+	private final String channelName;
+	private final ResponseMetrics metrics;
 
 	public RespondingMessageListener(ResponseStrategy responseStrategy,
 			Phrases phrases, MessageChannel channel) {
+		this(responseStrategy, phrases, channel, "", new ResponseMetrics());
+	}
+
+	public RespondingMessageListener(ResponseStrategy responseStrategy,
+			Phrases phrases, MessageChannel channel, String channelName,
+			ResponseMetrics metrics) {
 		this.responseStrategy = responseStrategy;
+		this.triggeredStrategy = responseStrategy instanceof TriggeredResponseStrategy
+				? (TriggeredResponseStrategy) responseStrategy : null;
 		this.phrases = phrases;
 		this.messageChannel = channel;
+		this.channelName = channelName;
+		this.metrics = metrics;
+	}
+
+	public ResponseMetrics getMetrics() {
+		return this.metrics;
 	}
 
 	@Override
 	public void onMessageReceived(Message message) {
-		if (this.responseStrategy.shouldRespond(message)) {
-			Phrase phrase = this.phrases.next();
-			this.messageChannel.sendMessage(phrase.toString());
+		this.metrics.getEvaluated().increment();
+		Phrases phrases = respondWith(message);
+		if (phrases != null) {
+			Phrase phrase = phrases.next();
+			this.messageChannel.sendMessage(render(phrase, message));
+			this.metrics.getResponded().increment();
+			this.metrics.getLatency().record(System.nanoTime() - message.getReceivedNanos());
 		} 
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Evaluates the strategy over the whole batch, updating the counters
+	 * once for the batch rather than once per message.
+	 */
+	@Override
+	public void onMessagesReceived(List<Message> messages) {
+		int evaluated = 0;
+		int responded = 0;
+		try {
+			for (int i = 0; i < messages.size(); i++) {
+				Message message = messages.get(i);
+				evaluated++;
+				Phrases phrases = respondWith(message);
+				if (phrases != null) {
+					this.messageChannel.sendMessage(render(phrases.next(), message));
+					this.metrics.getLatency().record(System.nanoTime() - message.getReceivedNanos());
+					responded++;
+				}
+			}
+		} finally {
+			this.metrics.getEvaluated().increment(evaluated);
+			this.metrics.getResponded().increment(responded);
+		}
+	}
+
+	private Phrases respondWith(Message message) {
+		if (this.triggeredStrategy != null) {
+			return this.triggeredStrategy.respondWith(message, this.phrases);
+		}
+		return this.responseStrategy.shouldRespond(message) ? this.phrases : null;
+	}
+
+	private String render(Phrase phrase, Message message) {
+		if (!phrase.hasVariables()) {
+			return phrase.getTemplate();
+		}
+		StringBuilder response = RESPONSE.get();
+		response.setLength(0);
+		String rendered = phrase.render(response, message, this.channelName).toString();
+		if (response.capacity() > MAX_RETAINED_CAPACITY) {
+			RESPONSE.remove();
+		}
+		return rendered;
+	}
+}
@@ -0,0 +1,58 @@
+package chatbot.response;
+
+import chatbot.metrics.Counter;
+import chatbot.metrics.Gauge;
+import chatbot.metrics.LatencyHistogram;
+import chatbot.metrics.MetricRegistry;
+
+public class ResponseMetrics {
+
+	public static final String EVALUATED = "chatbot.responses.evaluated";
+	public static final String RESPONDED = "chatbot.responses.sent";
+	public static final String HIT_RATIO = "chatbot.responses.hit.ratio";
+	public static final String LATENCY = "chatbot.response.latency";
+
+	private final Counter evaluated;
+	private final Counter responded;
+	private final LatencyHistogram latency;
+
+	public ResponseMetrics() {
+		this(new Counter(), new Counter(), new LatencyHistogram());
+	}
+
+	public ResponseMetrics(MetricRegistry registry, String bot, String channel) {
+		this(registry.counter(EVALUATED, "bot", bot, "channel", channel),
+				registry.counter(RESPONDED, "bot", bot, "channel", channel),
+				registry.histogram(LATENCY, "bot", bot, "channel", channel));
+		registry.gauge(HIT_RATIO, new Gauge() {
+			@Override
+			public double getValue() {
+				return getHitRatio();
+			}
+		}, "bot", bot, "channel", channel);
+	}
+
+	private ResponseMetrics(Counter evaluated, Counter responded,
+			LatencyHistogram latency) {
+		this.evaluated = evaluated;
+		this.responded = responded;
+		this.latency = latency;
+	}
+
+	public Counter getEvaluated() {
+		return this.evaluated;
+	}
+
+	public Counter getResponded() {
+		return this.responded;
+	}
+
+	public LatencyHistogram getLatency() {
+		return this.latency;
+	}
+
+	public double getHitRatio() {
+		long evaluated = this.evaluated.getCount();
+		return evaluated == 0 ? 0 : (double) this.responded.getCount() / evaluated;
+	}
+}
@@ -0,0 +1,10 @@
+package chatbot.response;
+
+/**
+ * Marks strategies whose answer depends on the messages they have seen
+ * before. Composite strategies never change the order in which such a
+ * strategy is consulted, so it sees the same messages it would have seen
+ * without reordering.
+ */
+public interface StatefulResponseStrategy extends ResponseStrategy {
+}
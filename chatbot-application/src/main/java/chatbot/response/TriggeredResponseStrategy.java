@@ -0,0 +1,14 @@
+package chatbot.response;
+
+import chatbot.client.Message;
+import chatbot.phrase.Phrases;
+
+public interface TriggeredResponseStrategy extends ResponseStrategy {
+
+	/**
+	 * Returns the phrases to respond from, or null not to respond. The
+	 * defaults are used when the strategy decides to respond without a
+	 * trigger of its own, as a composite of plain strategies does.
+	 */
+	Phrases respondWith(Message message, Phrases defaults);
+}
@@ -0,0 +1,65 @@
+package chatbot.response;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import chatbot.client.Message;
+
+/**
+ * Responds to users on an allow list unless they are on a deny list. An
+ * empty allow list allows everyone. Both lists are compiled into
+ * UserMatchers and can be replaced at any time with reload; messages
+ * being evaluated keep using the lists they started with.
+ */
+public class UserListResponseStrategy implements ResponseStrategy {
+
+	private final CaseFolding caseFolding;
+	private volatile Lists lists;
+
+	public UserListResponseStrategy(Collection<String> allow, Collection<String> deny,
+			CaseFolding caseFolding) {
+		this.caseFolding = caseFolding;
+		reload(allow, deny);
+	}
+
+	public static UserListResponseStrategy allowing(Collection<String> allow,
+			CaseFolding caseFolding) {
+		return new UserListResponseStrategy(allow, Collections.<String> emptyList(), caseFolding);
+	}
+
+	public static UserListResponseStrategy denying(Collection<String> deny,
+			CaseFolding caseFolding) {
+		return new UserListResponseStrategy(Collections.<String> emptyList(), deny, caseFolding);
+	}
+
+	public void reload(Collection<String> allow, Collection<String> deny) {
+		this.lists = new Lists(new UserMatcher(allow, this.caseFolding),
+				new UserMatcher(deny, this.caseFolding));
+	}
+
+	public UserMatcher getAllowed() {
+		return this.lists.allow;
+	}
+
+	public UserMatcher getDenied() {
+		return this.lists.deny;
+	}
+
+	@Override
+	public boolean shouldRespond(Message message) {
+		Lists lists = this.lists;
+		String user = message.getOriginatingUsername();
+		return (lists.allow.isEmpty() || lists.allow.matches(user)) && !lists.deny.matches(user);
+	}
+
+	private static final class Lists {
+
+		private final UserMatcher allow;
+		private final UserMatcher deny;
+
+		private Lists(UserMatcher allow, UserMatcher deny) {
+			this.allow = allow;
+			this.deny = deny;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package chatbot.response;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable set of nicknames and wildcard patterns. Plain nicknames are
+ * looked up in a hash set. Patterns may use * for any run of characters
+ * and ? for exactly one, and are grouped by their first character so a
+ * nickname is only compared with the patterns that could match it. IRC
+ * hostmasks are accepted in the form nick!*@*; messages carry only the
+ * sender's nickname, so masks that constrain the user or host part are
+ * rejected.
+ */
+public final class UserMatcher {
+
+	private static final int ASCII = 128;
+	private static final String[] NO_PATTERNS = new String[0];
+
+	private final CaseFolding caseFolding;
+	private final Set<String> nicknames;
+	private final String[][] patternsByFirstCharacter;
+	private final String[] otherPatterns;
+	private final int size;
+
+	public UserMatcher(Collection<String> entries, CaseFolding caseFolding) {
+		this.caseFolding = caseFolding;
+		this.nicknames = new HashSet<String>();
+		List<List<String>> byFirst = new ArrayList<List<String>>(ASCII);
+		for (int i = 0; i < ASCII; i++) {
+			byFirst.add(null);
+		}
+		List<String> others = new ArrayList<String>();
+		for (String entry : entries) {
+			String pattern = caseFolding.fold(nickPart(entry.trim()));
+			if (pattern.length() == 0) {
+				continue;
+			}
+			if (!isPattern(pattern)) {
+				this.nicknames.add(pattern);
+				continue;
+			}
+			char first = pattern.charAt(0);
+			if (first == '*' || first == '?' || first >= ASCII) {
+				others.add(pattern);
+				continue;
+			}
+			if (byFirst.get(first) == null) {
+				byFirst.set(first, new ArrayList<String>());
+			}
+			byFirst.get(first).add(pattern);
+		}
+		this.patternsByFirstCharacter = new String[ASCII][];
+		int patterns = others.size();
+		for (int i = 0; i < ASCII; i++) {
+			List<String> group = byFirst.get(i);
+			this.patternsByFirstCharacter[i] = group == null ? NO_PATTERNS
+					: group.toArray(new String[group.size()]);
+			patterns += this.patternsByFirstCharacter[i].length;
+		}
+		this.otherPatterns = others.toArray(new String[others.size()]);
+		this.size = this.nicknames.size() + patterns;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public boolean matches(String nickname) {
+		if (nickname == null || nickname.length() == 0) {
+			return false;
+		}
+		String folded = this.caseFolding.fold(nickname);
+		if (this.nicknames.contains(folded)) {
+			return true;
+		}
+		char first = folded.charAt(0);
+		if (first < ASCII && matchesAny(this.patternsByFirstCharacter[first], folded)) {
+			return true;
+		}
+		return matchesAny(this.otherPatterns, folded);
+	}
+
+	private static boolean matchesAny(String[] patterns, String nickname) {
+		for (String pattern : patterns) {
+			if (matches(pattern, nickname)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static boolean matches(String pattern, String text) {
+		int p = 0;
+		int t = 0;
+		int star = -1;
+		int resume = 0;
+		while (t < text.length()) {
+			if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == text.charAt(t))) {
+				p++;
+				t++;
+			} else if (p < pattern.length() && pattern.charAt(p) == '*') {
+				star = p++;
+				resume = t;
+			} else if (star >= 0) {
+				p = star + 1;
+				t = ++resume;
+			} else {
+				return false;
+			}
+		}
+		while (p < pattern.length() && pattern.charAt(p) == '*') {
+			p++;
+		}
+		return p == pattern.length();
+	}
+
+	private static boolean isPattern(String entry) {
+		return entry.indexOf('*') >= 0 || entry.indexOf('?') >= 0;
+	}
+
+	private static String nickPart(String entry) {
+		int bang = entry.indexOf('!');
+		if (bang < 0) {
+			return entry;
+		}
+		String mask = entry.substring(bang + 1);
+		int at = mask.indexOf('@');
+		if (at < 0 || !isWildcard(mask.substring(0, at)) || !isWildcard(mask.substring(at + 1))) {
+			throw new IllegalArgumentException("Only nick!*@* hostmasks can be matched: " + entry);
+		}
+		return entry.substring(0, bang);
+	}
+
+	private static boolean isWildcard(String part) {
+		for (int i = 0; i < part.length(); i++) {
+			if (part.charAt(i) != '*') {
+				return false;
+			}
+		}
+		return part.length() > 0;
+	}
+}
@@ -3,14 +3,22 @@ package chatbot.application;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import chatbot.metrics.MetricRegistry;
 import chatbot.phrase.PhraseLoader;
 import chatbot.phrase.Phrases;
+import chatbot.response.KeywordResponseStrategy;
+import chatbot.response.NeverRespondStrategy;
 import chatbot.response.RespondToSpecificUsersStrategy;
+import chatbot.response.ResponseMetrics;
 import chatbot.response.ResponseStrategy;
 
 public class ChatbotTest {
@@ -42,6 +50,12 @@ public class ChatbotTest {
 		assertThat(connection.hasChannel(CHANNEL_NAME), is(false));
 	}
 	
+	@Test
+	public void testCloseClosesTheConnection() {
+		this.connectedChatbot.close();
+		assertThat(this.clientConnection.isClosed(), is(true));
+	}
+
 	@Test
 	public void testChannelIsCreatedIfChatbotHasConnected() {
 		assertThat(this.clientConnection.hasChannel(CHANNEL_NAME), is(true));
@@ -61,6 +75,90 @@ public class ChatbotTest {
 		assertThat(responses.get(0), is(PHRASE));
 	}
 	
+	@Test
+	public void testChatbotFillsInPhraseTemplates() {
+		StubClientConnection connection = new StubClientConnection();
+		new Chatbot(connection, CHANNEL_NAME, new RespondToSpecificUsersStrategy(USER_TO_RESPOND_TO),
+				PhraseLoader.load("Hello {user}, welcome to {channel}")).connect();
+		connection.simulateClientMessage(CHANNEL_NAME, USER_TO_RESPOND_TO, USER_MESSAGE);
+
+		assertThat(connection.responses(CHANNEL_NAME).toString(),
+				is("[Hello " + USER_TO_RESPOND_TO + ", welcome to " + CHANNEL_NAME + "]"));
+	}
+
+	@Test
+	public void testChatbotRespondsToKeywordsWithTheirOwnPhrases() {
+		Map<String, Phrases> triggers = new LinkedHashMap<String, Phrases>();
+		triggers.put("hello", PhraseLoader.load("Hello {user}"));
+		triggers.put("chuck", PhraseLoader.load(PHRASE));
+		StubClientConnection connection = new StubClientConnection();
+		new Chatbot(connection, CHANNEL_NAME, new KeywordResponseStrategy(triggers), null).connect();
+		connection.simulateClientMessage(CHANNEL_NAME, USER_TO_IGNORE, "hello there");
+		connection.simulateClientMessage(CHANNEL_NAME, USER_TO_IGNORE, USER_MESSAGE);
+		connection.simulateClientMessage(CHANNEL_NAME, USER_TO_IGNORE, "where is Chuck?");
+
+		assertThat(connection.responses(CHANNEL_NAME).toString(),
+				is("[Hello " + USER_TO_IGNORE + ", " + PHRASE + "]"));
+	}
+
+	@Test
+	public void testChatbotRecordsResponseMetricsPerChannel() {
+		StubClientConnection connection = new StubClientConnection();
+		MetricRegistry registry = new MetricRegistry();
+		new Chatbot(connection, CHANNEL_NAME, new RespondToSpecificUsersStrategy(USER_TO_RESPOND_TO),
+				PhraseLoader.load(PHRASE)).measuredBy(registry, "groupie").connect();
+		connection.simulateClientMessage(CHANNEL_NAME, USER_TO_RESPOND_TO, USER_MESSAGE);
+		connection.simulateClientMessage(CHANNEL_NAME, USER_TO_IGNORE, USER_MESSAGE);
+
+		String[] tags = { "bot", "groupie", "channel", CHANNEL_NAME };
+		assertThat(registry.counter(ResponseMetrics.EVALUATED, tags).getCount(), is(2L));
+		assertThat(registry.counter(ResponseMetrics.RESPONDED, tags).getCount(), is(1L));
+		assertThat(registry.histogram(ResponseMetrics.LATENCY, tags).getCount(), is(1L));
+		assertThat(registry.getGauges().values().iterator().next().getValue(), is(0.5));
+	}
+
+	@Test
+	public void testChatbotEvaluatesBatchesOfMessages() {
+		StubClientConnection connection = new StubClientConnection();
+		MetricRegistry registry = new MetricRegistry();
+		new Chatbot(connection, CHANNEL_NAME, new KeywordResponseStrategy(Collections.singletonMap(
+				"chuck", PhraseLoader.load(PHRASE))), null).measuredBy(registry, "chuck").connect();
+		connection.simulateClientMessages(CHANNEL_NAME, USER_TO_IGNORE, "where is Chuck?",
+				USER_MESSAGE, "chuck?");
+
+		String[] tags = { "bot", "chuck", "channel", CHANNEL_NAME };
+		assertThat(connection.responses(CHANNEL_NAME).toString(), is("[" + PHRASE + ", " + PHRASE + "]"));
+		assertThat(registry.counter(ResponseMetrics.EVALUATED, tags).getCount(), is(3L));
+		assertThat(registry.counter(ResponseMetrics.RESPONDED, tags).getCount(), is(2L));
+		assertThat(registry.histogram(ResponseMetrics.LATENCY, tags).getCount(), is(2L));
+	}
+
+	@Test
+	public void testChatbotJoinsEveryBoundChannelWithItsOwnStrategyAndPhrases() {
+		StubClientConnection connection = new StubClientConnection();
+		ResponseStrategy respondToUser = new RespondToSpecificUsersStrategy(USER_TO_RESPOND_TO);
+		Chatbot chatbot = new Chatbot(connection, Arrays.asList(
+				new ChannelBinding("developers", respondToUser, PhraseLoader.load("dev phrase")),
+				new ChannelBinding("testers", respondToUser, PhraseLoader.load("test phrase")),
+				new ChannelBinding("managers", new NeverRespondStrategy(), PhraseLoader.load("never"))));
+		chatbot.connect();
+
+		assertThat(chatbot.getJoinedChannelNames().size(), is(3));
+		connection.simulateClientMessage("developers", USER_TO_RESPOND_TO, USER_MESSAGE);
+		connection.simulateClientMessage("testers", USER_TO_RESPOND_TO, USER_MESSAGE);
+		connection.simulateClientMessage("managers", USER_TO_RESPOND_TO, USER_MESSAGE);
+		assertThat(connection.responses("developers").toString(), is("[dev phrase]"));
+		assertThat(connection.responses("testers").toString(), is("[test phrase]"));
+		assertThat(connection.responses("managers").size(), is(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testChannelCannotBeBoundTwice() {
+		new Chatbot(new StubClientConnection(), Arrays.asList(
+				new ChannelBinding(CHANNEL_NAME, null, null),
+				new ChannelBinding(CHANNEL_NAME, null, null)));
+	}
+
 	private List<String> responses() {
 		return this.clientConnection.responses(CHANNEL_NAME);
 	}
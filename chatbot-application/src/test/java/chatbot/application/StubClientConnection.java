@@ -1,8 +1,8 @@
 package chatbot.application;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.Ignore;
 
@@ -13,9 +13,10 @@ import chatbot.client.ConnectionListener;
 public class StubClientConnection implements ClientConnection {
 
 	private final Map<String, StubMessageChannel> messageChannels;
+	private volatile boolean closed;
 
 	public StubClientConnection() {
-		this.messageChannels = new HashMap<String, StubMessageChannel>();
+		this.messageChannels = new ConcurrentHashMap<String, StubMessageChannel>();
 	}
 
 	@Override
@@ -23,6 +24,15 @@ public class StubClientConnection implements ClientConnection {
 		listener.onConnectionSuccessful();
 	}
 
+	@Override
+	public void close() {
+		this.closed = true;
+	}
+
+	public boolean isClosed() {
+		return this.closed;
+	}
+
 	@Override
 	public StubMessageChannel channel(String name) {
 		StubMessageChannel messageChannel = new StubMessageChannel();
@@ -38,6 +48,10 @@ public class StubClientConnection implements ClientConnection {
 		this.messageChannels.get(channelName).simulateMessageFromUser(user, message);
 	}
 
+	public void simulateClientMessages(String channelName, String user, String... messages) {
+		this.messageChannels.get(channelName).simulateMessagesFromUser(user, messages);
+	}
+
 	public List<String> responses(String channelName) {
 		return this.messageChannels.get(channelName).sentMessages();
 	}
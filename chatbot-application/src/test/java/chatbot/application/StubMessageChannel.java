@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import chatbot.client.Message;
 import chatbot.client.MessageChannel;
@@ -29,6 +30,12 @@ public class StubMessageChannel implements MessageChannel {
 		this.sentMessages.add(message);
 	}
 
+	@Override
+	public CompletableFuture<Void> sendMessageAsync(String message) {
+		this.sentMessages.add(message);
+		return CompletableFuture.completedFuture(null);
+	}
+
 	public void simulateMessageFromUser(String user, String payload) {
 		Message message = new Message(user, payload);
 		for (MessageListener listener : this.messageListeners) {
@@ -36,6 +43,16 @@ public class StubMessageChannel implements MessageChannel {
 		}
 	}
 
+	public void simulateMessagesFromUser(String user, String... payloads) {
+		List<Message> messages = new ArrayList<Message>();
+		for (String payload : payloads) {
+			messages.add(new Message(user, payload));
+		}
+		for (MessageListener listener : this.messageListeners) {
+			listener.onMessagesReceived(messages);
+		}
+	}
+
 	public List<String> sentMessages() {
 		return this.sentMessages;
 	}
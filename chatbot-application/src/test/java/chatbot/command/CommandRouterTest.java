@@ -0,0 +1,92 @@
+package chatbot.command;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import chatbot.client.Message;
+import chatbot.phrase.PhraseLoader;
+import chatbot.phrase.Phrases;
+
+public class CommandRouterTest {
+
+	private final Phrases jokes = PhraseLoader.load("Chuck Norris can divide by zero.");
+	private final Phrases help = PhraseLoader.load("Try !joke or !slap <nick>");
+	private final Phrases slaps = PhraseLoader.load("{user} slaps {arguments}");
+	private final List<String> slapped = new ArrayList<String>();
+
+	private CommandRouter router;
+
+	@Before
+	public void before() {
+		this.router = new CommandRouter()
+				.command("joke", this.jokes)
+				.command("jokes", this.help)
+				.command("help", this.help)
+				.command("slap", new CommandHandler() {
+					@Override
+					public Phrases handle(Message message, String arguments, Phrases phrases) {
+						if (arguments.length() == 0) {
+							return null;
+						}
+						slapped.add(arguments);
+						return phrases;
+					}
+				}, this.slaps);
+	}
+
+	@Test
+	public void testCommandsAreRoutedToTheirOwnPhrases() {
+		assertThat(respondWith("!joke"), sameInstance(this.jokes));
+		assertThat(respondWith("!jokes"), sameInstance(this.help));
+		assertThat(respondWith("!help please"), sameInstance(this.help));
+	}
+
+	@Test
+	public void testUnknownCommandsAndPrefixesAreIgnored() {
+		assertThat(respondWith("!jok"), is(nullValue()));
+		assertThat(respondWith("!jokester"), is(nullValue()));
+		assertThat(respondWith("!"), is(nullValue()));
+		assertThat(respondWith(""), is(nullValue()));
+		assertThat(respondWith("joke"), is(nullValue()));
+		assertThat(respondWith("!JOKE"), is(nullValue()));
+	}
+
+	@Test
+	public void testHandlerReceivesTheArguments() {
+		assertThat(respondWith("!slap"), is(nullValue()));
+		assertThat(respondWith("!slap  bob and carol "), sameInstance(this.slaps));
+		assertThat(this.slapped.toString(), is("[bob and carol]"));
+	}
+
+	@Test
+	public void testShouldRespondDoesNotRunTheHandler() {
+		assertThat(this.router.shouldRespond(new Message("andy", "!slap bob")), is(true));
+		assertThat(this.router.shouldRespond(new Message("andy", "!slapper")), is(false));
+		assertThat(this.slapped.isEmpty(), is(true));
+	}
+
+	@Test
+	public void testCustomPrefix() {
+		CommandRouter dotted = new CommandRouter('.').command("joke", this.jokes);
+		assertThat(dotted.shouldRespond(new Message("andy", ".joke")), is(true));
+		assertThat(dotted.shouldRespond(new Message("andy", "!joke")), is(false));
+		assertThat(this.router.getCommandNames().toString(), is("[help, joke, jokes, slap]"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCommandsCannotBeRegisteredTwice() {
+		this.router.command("joke", this.help);
+	}
+
+	private Phrases respondWith(String payload) {
+		return this.router.respondWith(new Message("andy", payload), null);
+	}
+}
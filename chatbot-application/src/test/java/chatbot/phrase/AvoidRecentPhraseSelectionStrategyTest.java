@@ -0,0 +1,44 @@
+package chatbot.phrase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class AvoidRecentPhraseSelectionStrategyTest {
+
+	@Test
+	public void testNoPhraseRepeatsWithinTheLastK() {
+		Phrases phrases = PhraseLoader.load("a", "b", "c", "d", "e", "f", "g", "h")
+				.usingSelectionStrategy(new AvoidRecentPhraseSelectionStrategy(3));
+		LinkedList<String> lastFour = new LinkedList<String>();
+		Set<String> selected = new HashSet<String>();
+		for (int i = 0; i < 10000; i++) {
+			String phrase = phrases.next().toString();
+			assertThat(lastFour.contains(phrase), is(false));
+			lastFour.addLast(phrase);
+			if (lastFour.size() > 3) {
+				lastFour.removeFirst();
+			}
+			selected.add(phrase);
+		}
+		assertThat(selected.size(), is(8));
+	}
+
+	@Test
+	public void testKIsCappedAtHalfThePhrases() {
+		Phrases phrases = PhraseLoader.load("a", "b")
+				.usingSelectionStrategy(new AvoidRecentPhraseSelectionStrategy(10));
+		String previous = phrases.next().toString();
+		for (int i = 0; i < 100; i++) {
+			String phrase = phrases.next().toString();
+			assertThat(phrase, is(not(previous)));
+			previous = phrase;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package chatbot.phrase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedPhraseCorpusTest {
+
+	private File file;
+
+	@Before
+	public void before() throws IOException {
+		this.file = File.createTempFile("phrases", MappedPhraseCorpus.FILE_SUFFIX);
+	}
+
+	@After
+	public void after() {
+		this.file.delete();
+	}
+
+	@Test
+	public void testPhrasesAreReadBackInOrderSkippingBlankAndCommentLines() throws IOException {
+		int written = write("# chuck facts\nChuck Norris can divide by zero.\n\n  Chuck Norris counted to infinity. Twice.  \nJalapeño? Über, naïve.\n");
+		MappedPhraseCorpus corpus = MappedPhraseCorpus.open(this.file);
+
+		assertThat(written, is(3));
+		assertThat(corpus.size(), is(3));
+		assertThat(corpus.get(0).toString(), is("Chuck Norris can divide by zero."));
+		assertThat(corpus.get(1).toString(), is("Chuck Norris counted to infinity. Twice."));
+		assertThat(corpus.get(2).toString(), is("Jalapeño? Über, naïve."));
+	}
+
+	@Test
+	public void testCorpusBacksPhrases() throws IOException {
+		write("Hello\nWorld\n");
+		Phrases phrases = new Phrases(MappedPhraseCorpus.open(this.file));
+
+		assertThat(phrases.next().toString(), is("Hello"));
+		assertThat(phrases.next().toString(), is("World"));
+		assertThat(phrases.next().toString(), is("Hello"));
+	}
+
+	@Test
+	public void testRewritingLeavesAnOpenCorpusIntact() throws IOException {
+		write("Hello\nWorld\n");
+		MappedPhraseCorpus open = MappedPhraseCorpus.open(this.file);
+		write("Goodbye\n");
+
+		assertThat(open.size(), is(2));
+		assertThat(open.get(1).toString(), is("World"));
+		assertThat(MappedPhraseCorpus.open(this.file).get(0).toString(), is("Goodbye"));
+	}
+
+	@Test
+	public void testEmptyCorpus() throws IOException {
+		write("");
+		assertThat(MappedPhraseCorpus.open(this.file).isEmpty(), is(true));
+	}
+
+	@Test(expected = IOException.class)
+	public void testOtherFilesAreRejected() throws IOException {
+		java.nio.file.Files.write(this.file.toPath(), "Hello World, this is not a corpus".getBytes("UTF-8"));
+		MappedPhraseCorpus.open(this.file);
+	}
+
+	private int write(String text) throws IOException {
+		return MappedPhraseCorpus.write(new BufferedReader(new StringReader(text)), this.file);
+	}
+}
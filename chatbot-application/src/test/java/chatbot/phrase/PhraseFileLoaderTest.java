@@ -0,0 +1,88 @@
+package chatbot.phrase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PhraseFileLoaderTest {
+
+	private File file;
+
+	@After
+	public void after() {
+		if (this.file != null) {
+			this.file.delete();
+		}
+	}
+
+	@Test
+	public void testTextFileSkipsBlankCommentAndDuplicateLines() throws IOException {
+		write(".txt", "# facts\nChuck Norris can divide by zero.\n\nChuck Norris can divide by zero.\n  Chuck Norris counted to infinity.  \n");
+		PhraseFileLoader loader = new PhraseFileLoader();
+		List<Phrase> phrases = loader.loadPhrases(this.file);
+
+		assertThat(phrases.toString(), is("[Chuck Norris can divide by zero., Chuck Norris counted to infinity.]"));
+		assertThat(loader.getStatistics().getLines(), is(5L));
+		assertThat(loader.getStatistics().getDuplicates(), is(1L));
+		assertThat(loader.getStatistics().getBytes(), is(this.file.length()));
+	}
+
+	@Test
+	public void testCsvFileUsesTheFirstFieldAndSkipsTheHeader() throws IOException {
+		write(".csv", "phrase,author\n\"Hello, \"\"World\"\"\",andy\nI love toast,calvin\n\"unterminated,bob\n");
+		PhraseFileLoader loader = new PhraseFileLoader();
+		List<Phrase> phrases = loader.loadPhrases(this.file);
+
+		assertThat(phrases.toString(), is("[Hello, \"World\", I love toast]"));
+		assertThat(loader.getStatistics().getRejected(), is(1L));
+	}
+
+	@Test
+	public void testJsonLinesFileUsesThePhraseOrTextMember() throws IOException {
+		write(".jsonl", "{\"id\": 1, \"tags\": [\"a\", {\"b\": \"}\"}], \"phrase\": \"Tab\\there \\u00e9\"}\n"
+				+ "{\"text\": \"from text\"}\n\"a bare string\"\n{\"id\": 2}\nnot json\n");
+		PhraseFileLoader loader = new PhraseFileLoader();
+		List<Phrase> phrases = loader.loadPhrases(this.file);
+
+		assertThat(phrases.toString(), is("[Tab\there é, from text, a bare string]"));
+		assertThat(loader.getStatistics().getRejected(), is(1L));
+	}
+
+	@Test
+	public void testParallelChunksKeepFileOrderAndDropDuplicatesAcrossChunks() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			text.append("phrase ").append(i % 7000).append('\n');
+		}
+		write(".txt", text.toString());
+		PhraseFileLoader loader = new PhraseFileLoader().inParallel(4, null).withMinimumChunkSize(1024);
+		List<Phrase> phrases = loader.loadPhrases(this.file);
+
+		assertThat(phrases.size(), is(7000));
+		for (int i = 0; i < 7000; i++) {
+			assertThat(phrases.get(i).toString(), is("phrase " + i));
+		}
+		assertThat(loader.getStatistics().getLines(), is(10000L));
+		assertThat(loader.getStatistics().getDuplicates(), is(3000L));
+	}
+
+	@Test
+	public void testResourceIsLoaded() {
+		Phrases phrases = PhraseLoader.loadResource("chatbot/phrase/phrases.txt");
+		assertThat(phrases.size(), is(2));
+		assertThat(phrases.getPhraseAt(1).toString(), is("World"));
+	}
+
+	private void write(String suffix, String text) throws IOException {
+		this.file = File.createTempFile("phrases", suffix);
+		Files.write(this.file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,54 @@
+package chatbot.phrase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import chatbot.client.Message;
+
+public class PhraseTest {
+
+	private static final Message MESSAGE = new Message("andy", "!chuck");
+
+	@Test
+	public void testStaticPhraseRendersAsItsTemplate() {
+		Phrase phrase = new Phrase("Chuck Norris can divide by zero.");
+		assertThat(phrase.hasVariables(), is(false));
+		assertThat(phrase.render(MESSAGE, "#java"), sameInstance(phrase.getTemplate()));
+	}
+
+	@Test
+	public void testUserAndChannelAreSubstituted() {
+		Phrase phrase = new Phrase("{user}: welcome to {channel}, {user}!");
+		assertThat(phrase.hasVariables(), is(true));
+		assertThat(phrase.render(MESSAGE, "#java"), is("andy: welcome to #java, andy!"));
+		assertThat(phrase.toString(), is("{user}: welcome to {channel}, {user}!"));
+	}
+
+	@Test
+	public void testUnknownPlaceholdersAndStrayBracesAreKept() {
+		Phrase phrase = new Phrase("{unknown} { {user}} {channel");
+		assertThat(phrase.render(MESSAGE, "#java"), is("{unknown} { andy} {channel"));
+	}
+
+	@Test
+	public void testArgumentsAreTheTextAfterTheFirstWord() {
+		Phrase phrase = new Phrase("{user} slaps [{arguments}]");
+		assertThat(phrase.render(new Message("andy", "!slap  bob "), "#java"), is("andy slaps [bob]"));
+		assertThat(phrase.render(new Message("andy", "!slap"), "#java"), is("andy slaps []"));
+	}
+
+	@Test
+	public void testTimeIsHoursAndMinutes() {
+		assertThat(new Phrase("{time}").render(MESSAGE, "#java").matches("[0-2][0-9]:[0-5][0-9]"), is(true));
+	}
+
+	@Test
+	public void testRenderAppendsToTheGivenBuilder() {
+		StringBuilder out = new StringBuilder("> ");
+		new Phrase("hi {user}").render(out, MESSAGE, "#java");
+		assertThat(out.toString(), is("> hi andy"));
+	}
+}
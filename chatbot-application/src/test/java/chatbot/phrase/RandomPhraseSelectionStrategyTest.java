@@ -0,0 +1,23 @@
+package chatbot.phrase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class RandomPhraseSelectionStrategyTest {
+
+	@Test
+	public void testEveryPhraseIsEventuallySelected() {
+		Phrases phrases = PhraseLoader.load("a", "b", "c").usingSelectionStrategy(
+				new RandomPhraseSelectionStrategy());
+		Set<String> selected = new HashSet<String>();
+		for (int i = 0; i < 1000; i++) {
+			selected.add(phrases.next().toString());
+		}
+		assertThat(selected.size(), is(3));
+	}
+}
@@ -0,0 +1,90 @@
+package chatbot.phrase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReloadablePhrasesTest {
+
+	private File directory;
+	private ReloadablePhrases phrases;
+
+	@Before
+	public void before() throws IOException {
+		this.directory = Files.createTempDirectory("phrases").toFile();
+	}
+
+	@After
+	public void after() {
+		if (this.phrases != null) {
+			this.phrases.close();
+		}
+		for (File file : this.directory.listFiles()) {
+			file.delete();
+		}
+		this.directory.delete();
+	}
+
+	@Test
+	public void testFileChangesArePublished() throws Exception {
+		File file = write("chuck.txt", "Hello\nWorld\n");
+		this.phrases = new ReloadablePhrases(file).withQuietPeriod(50);
+		assertThat(this.phrases.next().toString(), is("Hello"));
+
+		write("chuck.txt", "Goodbye\n");
+		awaitReloads(1);
+		assertThat(this.phrases.size(), is(1));
+		assertThat(this.phrases.next().toString(), is("Goodbye"));
+	}
+
+	@Test
+	public void testDirectoryIsReadInNameOrder() throws Exception {
+		write("b.txt", "second\n");
+		write("a.csv", "phrase\nfirst\n");
+		write("notes.md", "ignored\n");
+		this.phrases = new ReloadablePhrases(this.directory).withQuietPeriod(50);
+		assertThat(this.phrases.size(), is(2));
+		assertThat(this.phrases.getPhraseAt(0).toString(), is("first"));
+
+		write("c.txt", "third\n");
+		awaitReloads(1);
+		assertThat(this.phrases.getPhraseAt(2).toString(), is("third"));
+	}
+
+	@Test
+	public void testFailedReloadKeepsTheCurrentPhrases() throws Exception {
+		File file = write("chuck.txt", "Hello\n");
+		this.phrases = new ReloadablePhrases(file);
+		write("chuck.txt", "# nothing left\n");
+
+		assertThat(this.phrases.reload(), is(false));
+		assertThat(this.phrases.getFailedReloadCount(), is(1L));
+		assertThat(this.phrases.next().toString(), is("Hello"));
+	}
+
+	private File write(String name, String text) throws IOException {
+		File file = new File(this.directory, name);
+		File temporary = new File(this.directory, "." + name + ".tmp");
+		Files.write(temporary.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		return file;
+	}
+
+	private void awaitReloads(long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (this.phrases.getReloadCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.phrases.getReloadCount() >= count, is(true));
+	}
+}
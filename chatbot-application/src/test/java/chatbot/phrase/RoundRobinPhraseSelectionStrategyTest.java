@@ -3,6 +3,13 @@ package chatbot.phrase;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -26,6 +33,31 @@ public class RoundRobinPhraseSelectionStrategyTest {
         assertThat(nextPhrase(), is(PHRASE_2));
     }
     
+    @Test
+    public void testConcurrentSelectionVisitsEveryPhraseEqually() throws Exception {
+		final Phrases shared = PhraseLoader.load("a", "b", "c", "d");
+		final Map<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+		for (String phrase : new String[] { "a", "b", "c", "d" }) {
+			counts.put(phrase, new AtomicInteger());
+		}
+		ExecutorService threads = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			threads.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						counts.get(shared.next().toString()).incrementAndGet();
+					}
+				}
+			});
+		}
+		threads.shutdown();
+		assertThat(threads.awaitTermination(30, TimeUnit.SECONDS), is(true));
+		for (AtomicInteger count : counts.values()) {
+			assertThat(count.get(), is(20000));
+		}
+    }
+    
 	private String nextPhrase() {
 		return this.phrases.next().toString();
 	}
@@ -0,0 +1,48 @@
+package chatbot.phrase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class WeightedPhraseSelectionStrategyTest {
+
+	@Test
+	public void testPhrasesAreSelectedInProportionToTheirWeights() {
+		Phrases phrases = PhraseLoader.load("rare", "never", "common").usingSelectionStrategy(
+				new WeightedPhraseSelectionStrategy(1, 0, 3));
+		int rare = 0;
+		int common = 0;
+		for (int i = 0; i < 100000; i++) {
+			String phrase = phrases.next().toString();
+			assertThat(phrase.equals("never"), is(false));
+			if (phrase.equals("rare")) {
+				rare++;
+			} else {
+				common++;
+			}
+		}
+		assertThat(rare > 23000 && rare < 27000, is(true));
+		assertThat(common > 73000 && common < 77000, is(true));
+	}
+
+	@Test
+	public void testWeightsCanDependOnThePhrase() {
+		Phrases phrases = PhraseLoader.load("short", "a much longer phrase").usingSelectionStrategy(
+				new WeightedPhraseSelectionStrategy(new PhraseWeights() {
+					@Override
+					public double weightOf(int index, Phrase phrase) {
+						return phrase.toString().length() > 10 ? 1 : 0;
+					}
+				}));
+		for (int i = 0; i < 100; i++) {
+			assertThat(phrases.next().toString(), is("a much longer phrase"));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAllZeroWeightsAreRejected() {
+		PhraseLoader.load("a", "b").usingSelectionStrategy(
+				new WeightedPhraseSelectionStrategy(0, 0)).next();
+	}
+}
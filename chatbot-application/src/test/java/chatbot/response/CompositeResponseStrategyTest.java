@@ -0,0 +1,124 @@
+package chatbot.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import chatbot.client.Message;
+import chatbot.command.CommandRouter;
+import chatbot.phrase.PhraseLoader;
+import chatbot.phrase.Phrases;
+
+public class CompositeResponseStrategyTest {
+
+	private static final String BOT_NAME = "Bot";
+
+	private final ResponseStrategy andy = new RespondToSpecificUsersStrategy("andy");
+	private final ResponseStrategy command = new CommandResponseStrategy(BOT_NAME);
+
+	@Test
+	public void testAllOfAnyOfAndNotCombine() {
+		ResponseStrategy rule = new AnyOfResponseStrategy(new AllOfResponseStrategy(this.andy,
+				new NotResponseStrategy(this.command)), this.command);
+
+		assertThat(rule.shouldRespond(new Message("andy", "hello")), is(true));
+		assertThat(rule.shouldRespond(new Message("bob", "hello")), is(false));
+		assertThat(rule.shouldRespond(new Message("bob", "!" + BOT_NAME)), is(true));
+		assertThat(rule.shouldRespond(new Message("andy", "!" + BOT_NAME)), is(true));
+	}
+
+	@Test
+	public void testExpensiveUnselectiveBranchMovesLast() {
+		ResponseStrategy slow = new SlowStrategy(null);
+		AllOfResponseStrategy rule = new AllOfResponseStrategy(slow, this.andy);
+		evaluate(rule, CompositeResponseStrategy.REORDER_INTERVAL);
+
+		assertThat(rule.getBranches().get(0).getStrategy(), sameInstance(this.andy));
+		assertThat(rule.getBranches().get(1).getStrategy(), sameInstance(slow));
+		assertThat(rule.getBranches().get(1).getPassRatio(), is(1.0));
+	}
+
+	@Test
+	public void testAnyOfConsultsTheLikeliestBranchFirst() {
+		ResponseStrategy rarely = new SlowStrategy(this.andy);
+		ResponseStrategy mostly = new SlowStrategy(new RespondToSpecificUsersStrategy("bob"));
+		AnyOfResponseStrategy rule = new AnyOfResponseStrategy(rarely, mostly);
+		evaluate(rule, CompositeResponseStrategy.REORDER_INTERVAL);
+
+		assertThat(rule.getBranches().get(0).getStrategy(), sameInstance(mostly));
+	}
+
+	@Test
+	public void testStatefulStrategiesKeepTheirPlace() {
+		ResponseStrategy slow = new SlowStrategy(null);
+		ResponseStrategy everyOther = new RespondEveryNTimesStrategy(BOT_NAME, 2);
+		AllOfResponseStrategy rule = new AllOfResponseStrategy(slow, everyOther, this.andy);
+		evaluate(rule, CompositeResponseStrategy.REORDER_INTERVAL);
+
+		assertThat(rule.isStateful(), is(true));
+		assertThat(rule.getBranches().get(0).getStrategy(), sameInstance(slow));
+		assertThat(rule.getBranches().get(1).getStrategy(), sameInstance(everyOther));
+		assertThat(rule.getBranches().get(2).getStrategy(), sameInstance(this.andy));
+	}
+
+	@Test
+	public void testBranchesAreOnlyReorderedBetweenStatefulOnes() {
+		ResponseStrategy slowBefore = new SlowStrategy(null);
+		ResponseStrategy slowAfter = new SlowStrategy(null);
+		ResponseStrategy notAndy = new NotResponseStrategy(this.andy);
+		ResponseStrategy everyOther = new RespondEveryNTimesStrategy(BOT_NAME, 2);
+		AllOfResponseStrategy rule = new AllOfResponseStrategy(slowBefore, notAndy, everyOther,
+				slowAfter, this.command);
+		evaluate(rule, CompositeResponseStrategy.REORDER_INTERVAL);
+
+		assertThat(rule.getBranches().get(0).getStrategy(), sameInstance(notAndy));
+		assertThat(rule.getBranches().get(1).getStrategy(), sameInstance(slowBefore));
+		assertThat(rule.getBranches().get(2).getStrategy(), sameInstance(everyOther));
+		assertThat(rule.getBranches().get(3).getStrategy(), sameInstance(this.command));
+		assertThat(rule.getBranches().get(4).getStrategy(), sameInstance(slowAfter));
+	}
+
+	@Test
+	public void testCompositesRespondWithTheDecidingBranchPool() {
+		Phrases defaults = PhraseLoader.load("Hello");
+		Phrases jokes = PhraseLoader.load("Chuck Norris can divide by zero.");
+		CommandRouter router = new CommandRouter().command("joke", jokes);
+		AnyOfResponseStrategy anyOf = new AnyOfResponseStrategy(router, this.andy);
+		AllOfResponseStrategy allOf = new AllOfResponseStrategy(this.andy, router);
+
+		assertThat(anyOf.respondWith(new Message("bob", "!joke"), defaults), sameInstance(jokes));
+		assertThat(anyOf.respondWith(new Message("andy", "hello"), defaults), sameInstance(defaults));
+		assertThat(anyOf.respondWith(new Message("bob", "hello"), defaults), is(nullValue()));
+		assertThat(allOf.respondWith(new Message("andy", "!joke"), defaults), sameInstance(jokes));
+		assertThat(allOf.respondWith(new Message("bob", "!joke"), defaults), is(nullValue()));
+		assertThat(new AnyOfResponseStrategy(allOf).respondWith(new Message("andy", "!joke"),
+				defaults), sameInstance(jokes));
+	}
+
+	private static void evaluate(ResponseStrategy rule, int count) {
+		for (int i = 0; i < count; i++) {
+			rule.shouldRespond(new Message(i % 10 == 0 ? "andy" : "bob", "hello"));
+		}
+	}
+
+	private static class SlowStrategy implements ResponseStrategy {
+
+		private final ResponseStrategy strategy;
+
+		SlowStrategy(ResponseStrategy strategy) {
+			this.strategy = strategy;
+		}
+
+		@Override
+		public boolean shouldRespond(Message message) {
+			long end = System.nanoTime() + 20000;
+			while (System.nanoTime() < end) {
+				Thread.onSpinWait();
+			}
+			return this.strategy == null || this.strategy.shouldRespond(message);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package chatbot.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KeywordAutomatonTest {
+
+	private final KeywordAutomaton automaton = new KeywordAutomaton(
+			Arrays.asList("he", "she", "his", "hers", "chuck norris"), false);
+
+	@Test
+	public void testFindsNothingInUnrelatedText() {
+		assertThat(this.automaton.find("nothing to see"), is(-1));
+		assertThat(this.automaton.find(""), is(-1));
+	}
+
+	@Test
+	public void testFindsTheKeywordThatEndsFirst() {
+		assertThat(this.automaton.find("ushers"), is(1));
+		assertThat(this.automaton.find("this"), is(2));
+		assertThat(this.automaton.find("ahe"), is(0));
+	}
+
+	@Test
+	public void testMatchingIgnoresCase() {
+		assertThat(this.automaton.find("Did you see CHUCK Norris?"), is(4));
+	}
+
+	@Test
+	public void testCapitalizedKeywordOnlyMatchesItself() {
+		KeywordAutomaton hi = new KeywordAutomaton(Arrays.asList("Hi"), false);
+		assertThat(hi.find("so, i agree"), is(-1));
+		assertThat(hi.find("zi"), is(-1));
+		assertThat(hi.find("oh HI there"), is(0));
+		assertThat(hi.find("hi"), is(0));
+	}
+
+	@Test
+	public void testWholeWordsSkipsMatchesInsideWords() {
+		KeywordAutomaton words = new KeywordAutomaton(Arrays.asList("he", "she", "hers"), true);
+		assertThat(words.find("ushers"), is(-1));
+		assertThat(words.find("the hers, "), is(2));
+		assertThat(words.find("she said"), is(1));
+		assertThat(words.find("ashe he"), is(0));
+	}
+
+	@Test
+	public void testNonAsciiKeywords() {
+		KeywordAutomaton words = new KeywordAutomaton(Arrays.asList("crème brûlée", "ÜBER"), true);
+		assertThat(words.find("a CRÈME BRÛLÉE please"), is(0));
+		assertThat(words.find("über alles"), is(1));
+	}
+
+	@Test
+	public void testAgreesWithNaiveSearch() {
+		Random random = new Random(17);
+		List<String> keywords = new ArrayList<String>();
+		for (int i = 0; i < 500; i++) {
+			keywords.add(randomText(random, "abcd", 1 + random.nextInt(6)));
+		}
+		KeywordAutomaton many = new KeywordAutomaton(keywords, false);
+		for (int i = 0; i < 1000; i++) {
+			String text = randomText(random, "abcd", random.nextInt(40));
+			assertThat(text, many.find(text), is(naiveFind(keywords, text)));
+		}
+	}
+
+	@Test
+	public void testAgreesWithNaiveSearchAcrossAsciiAndOtherCharacters() {
+		Random random = new Random(23);
+		List<String> keywords = new ArrayList<String>();
+		for (int i = 0; i < 500; i++) {
+			keywords.add(randomText(random, "ab\u732b\u72ac\u00e9", 1 + random.nextInt(6)));
+		}
+		KeywordAutomaton many = new KeywordAutomaton(keywords, false);
+		for (int i = 0; i < 1000; i++) {
+			String text = randomText(random, "ab\u732b\u72ac\u00e9\u9b5a", random.nextInt(40));
+			assertThat(text, many.find(text), is(naiveFind(keywords, text)));
+		}
+	}
+
+	@Test
+	public void testManyCjkKeywordsKeepTheTableSmall() {
+		Random random = new Random(29);
+		List<String> keywords = new ArrayList<String>();
+		for (int i = 0; i < 20000; i++) {
+			keywords.add(randomText(random, 0x4e00, 20000, 2 + random.nextInt(3)));
+		}
+		KeywordAutomaton many = new KeywordAutomaton(keywords, false);
+		assertThat(many.find("x" + keywords.get(12345) + "y"), is(naiveFind(keywords,
+				"x" + keywords.get(12345) + "y")));
+	}
+
+	private static int naiveFind(List<String> keywords, String text) {
+		for (int end = 1; end <= text.length(); end++) {
+			for (int start = 0; start < end; start++) {
+				int keyword = keywords.indexOf(text.substring(start, end));
+				if (keyword >= 0) {
+					return keyword;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static String randomText(Random random, String alphabet, int length) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return text.toString();
+	}
+
+	private static String randomText(Random random, int first, int count, int length) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			text.append((char) (first + random.nextInt(count)));
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,50 @@
+package chatbot.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import chatbot.client.Message;
+import chatbot.phrase.PhraseLoader;
+import chatbot.phrase.Phrases;
+
+public class KeywordResponseStrategyTest {
+
+	private final Phrases greetings = PhraseLoader.load("Hello {user}");
+	private final Phrases facts = PhraseLoader.load("Chuck Norris can divide by zero.");
+
+	private KeywordResponseStrategy strategy;
+
+	@Before
+	public void before() {
+		Map<String, Phrases> triggers = new LinkedHashMap<String, Phrases>();
+		triggers.put("hello", this.greetings);
+		triggers.put("good morning", this.greetings);
+		triggers.put("chuck", this.facts);
+		this.strategy = new KeywordResponseStrategy(triggers);
+	}
+
+	@Test
+	public void testEachTriggerRespondsWithItsOwnPhrases() {
+		assertThat(respondWith("Good morning everyone"), sameInstance(this.greetings));
+		assertThat(respondWith("tell me about Chuck"), sameInstance(this.facts));
+		assertThat(this.strategy.getTriggerCount(), is(3));
+	}
+
+	@Test
+	public void testNoResponseWithoutATrigger() {
+		assertThat(respondWith("chuckles"), is(nullValue()));
+		assertThat(this.strategy.shouldRespond(new Message("andy", "othello")), is(false));
+	}
+
+	private Phrases respondWith(String payload) {
+		return this.strategy.respondWith(new Message("andy", payload), null);
+	}
+}
@@ -0,0 +1,141 @@
+package chatbot.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import chatbot.client.Message;
+import chatbot.client.MessageListener;
+
+public class MessageDispatchQueueTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final CountDownLatch firstMessageTaken = new CountDownLatch(1);
+	private final List<String> delivered = new CopyOnWriteArrayList<String>();
+	private final List<Integer> batchSizes = new CopyOnWriteArrayList<Integer>();
+
+	private final MessageListener slowListener = new MessageListener() {
+		@Override
+		public void onMessageReceived(Message message) {
+			firstMessageTaken.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			delivered.add(message.getPayload());
+		}
+
+		@Override
+		public void onMessagesReceived(List<Message> messages) {
+			batchSizes.add(messages.size());
+			MessageListener.super.onMessagesReceived(messages);
+		}
+	};
+
+	private MessageDispatchQueue queue;
+
+	@After
+	public void after() {
+		this.release.countDown();
+		this.queue.shutdown();
+	}
+
+	@Test
+	public void testMessagesAreDeliveredOffTheReceivingThread() throws Exception {
+		this.queue = new MessageDispatchQueue(this.slowListener, 10, OverflowPolicy.BLOCK);
+		send("one", "two", "three");
+		this.release.countDown();
+
+		awaitDispatched(3);
+		assertThat(this.delivered.toString(), is("[one, two, three]"));
+		assertThat(this.queue.getDroppedCount(), is(0L));
+	}
+
+	@Test
+	public void testDropNewestKeepsTheMessagesAlreadyQueued() throws Exception {
+		this.queue = new MessageDispatchQueue(this.slowListener, 2, OverflowPolicy.DROP_NEWEST);
+		sendWhileWorkerIsBusy("one", "two", "three", "four");
+		this.release.countDown();
+
+		awaitDispatched(3);
+		assertThat(this.delivered.toString(), is("[one, two, three]"));
+		assertThat(this.queue.getDroppedCount(), is(1L));
+		assertThat(this.queue.getMaxDepth(), is(2));
+	}
+
+	@Test
+	public void testDropOldestKeepsTheLatestMessages() throws Exception {
+		this.queue = new MessageDispatchQueue(this.slowListener, 2, OverflowPolicy.DROP_OLDEST);
+		sendWhileWorkerIsBusy("one", "two", "three", "four");
+		this.release.countDown();
+
+		awaitDispatched(3);
+		assertThat(this.delivered.toString(), is("[one, three, four]"));
+		assertThat(this.queue.getDroppedCount(), is(1L));
+	}
+
+	@Test
+	public void testMessagesQueuedWhileTheWorkerIsBusyAreDeliveredAsOneBatch() throws Exception {
+		this.queue = new MessageDispatchQueue(this.slowListener, 10, OverflowPolicy.BLOCK);
+		sendWhileWorkerIsBusy("one", "two", "three");
+		this.queue.onMessagesReceived(Arrays.asList(new Message("user", "four"),
+				new Message("user", "five")));
+		this.release.countDown();
+
+		awaitDispatched(5);
+		assertThat(this.delivered.toString(), is("[one, two, three, four, five]"));
+		assertThat(this.batchSizes.toString(), is("[4]"));
+		assertThat(this.queue.getReceivedCount(), is(5L));
+	}
+
+	@Test
+	public void testWaitTimeIsRecorded() throws Exception {
+		this.queue = new MessageDispatchQueue(this.slowListener, 10, OverflowPolicy.BLOCK);
+		sendWhileWorkerIsBusy("one", "two");
+		Thread.sleep(20);
+		this.release.countDown();
+
+		awaitDispatched(2);
+		assertThat(this.queue.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(20), is(true));
+		assertThat(this.queue.getAverageWaitNanos() > 0, is(true));
+	}
+
+	@Test
+	public void testMessagesLeftAtShutdownAreCountedAsDropped() throws Exception {
+		this.queue = new MessageDispatchQueue(this.slowListener, 10, OverflowPolicy.BLOCK);
+		sendWhileWorkerIsBusy("one", "two", "three");
+		this.queue.shutdown();
+
+		assertThat(this.queue.getDroppedCount(), is(2L));
+		assertThat(this.queue.getDepth(), is(0));
+	}
+
+	private void sendWhileWorkerIsBusy(String first, String... rest) throws Exception {
+		send(first);
+		assertThat(this.firstMessageTaken.await(5, TimeUnit.SECONDS), is(true));
+		send(rest);
+	}
+
+	private void send(String... payloads) {
+		for (String payload : payloads) {
+			this.queue.onMessageReceived(new Message("user", payload));
+		}
+	}
+
+	private void awaitDispatched(long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.queue.getDispatchedCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(this.queue.getDispatchedCount(), is(count));
+	}
+}
@@ -0,0 +1,46 @@
+package chatbot.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import chatbot.client.Message;
+
+public class UserListResponseStrategyTest {
+
+	@Test
+	public void testDenyListWinsOverAllowList() {
+		UserListResponseStrategy strategy = new UserListResponseStrategy(
+				Arrays.asList("andy", "bob*"), Arrays.asList("bobby"), CaseFolding.ASCII);
+		assertThat(shouldRespondTo(strategy, "Andy"), is(true));
+		assertThat(shouldRespondTo(strategy, "bob"), is(true));
+		assertThat(shouldRespondTo(strategy, "Bobby"), is(false));
+		assertThat(shouldRespondTo(strategy, "carol"), is(false));
+	}
+
+	@Test
+	public void testEmptyAllowListAllowsEveryoneNotDenied() {
+		UserListResponseStrategy strategy = UserListResponseStrategy.denying(
+				Arrays.asList("*bot"), CaseFolding.ASCII);
+		assertThat(shouldRespondTo(strategy, "carol"), is(true));
+		assertThat(shouldRespondTo(strategy, "ChuckBot"), is(false));
+	}
+
+	@Test
+	public void testReloadReplacesBothLists() {
+		UserListResponseStrategy strategy = UserListResponseStrategy.allowing(
+				Arrays.asList("andy"), CaseFolding.NONE);
+		strategy.reload(Arrays.asList("carol"), Collections.<String> emptyList());
+		assertThat(shouldRespondTo(strategy, "andy"), is(false));
+		assertThat(shouldRespondTo(strategy, "carol"), is(true));
+		assertThat(strategy.getAllowed().size(), is(1));
+	}
+
+	private static boolean shouldRespondTo(ResponseStrategy strategy, String user) {
+		return strategy.shouldRespond(new Message(user, "hello"));
+	}
+}
@@ -0,0 +1,58 @@
+package chatbot.response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class UserMatcherTest {
+
+	@Test
+	public void testExactNicknames() {
+		UserMatcher matcher = matcher(CaseFolding.NONE, "andy", "Bob");
+		assertThat(matcher.matches("andy"), is(true));
+		assertThat(matcher.matches("Andy"), is(false));
+		assertThat(matcher.matches("Bob"), is(true));
+		assertThat(matcher.matches("carol"), is(false));
+		assertThat(matcher.size(), is(2));
+	}
+
+	@Test
+	public void testCaseFolding() {
+		assertThat(matcher(CaseFolding.ASCII, "Andy").matches("aNDY"), is(true));
+		assertThat(matcher(CaseFolding.ASCII, "[andy]").matches("{andy}"), is(false));
+		assertThat(matcher(CaseFolding.RFC1459, "[Andy]^").matches("{aNDY}~"), is(true));
+		assertThat(matcher(CaseFolding.UNICODE, "Jürgen").matches("JÜRGEN"), is(true));
+	}
+
+	@Test
+	public void testWildcards() {
+		UserMatcher matcher = matcher(CaseFolding.ASCII, "spam*", "*bot", "guest??", "*x*y*");
+		assertThat(matcher.matches("SpamKing"), is(true));
+		assertThat(matcher.matches("spam"), is(true));
+		assertThat(matcher.matches("chuckbot"), is(true));
+		assertThat(matcher.matches("guest42"), is(true));
+		assertThat(matcher.matches("guest4"), is(false));
+		assertThat(matcher.matches("axbyc"), is(true));
+		assertThat(matcher.matches("ayxb"), is(false));
+		assertThat(matcher.matches("andy"), is(false));
+	}
+
+	@Test
+	public void testHostmasksAreReducedToTheirNickname() {
+		UserMatcher matcher = matcher(CaseFolding.RFC1459, "troll*!*@*", "andy!*@*");
+		assertThat(matcher.matches("Trolling"), is(true));
+		assertThat(matcher.matches("andy"), is(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testHostmasksOnTheHostCannotBeMatched() {
+		matcher(CaseFolding.RFC1459, "*!*@spam.example.com");
+	}
+
+	private static UserMatcher matcher(CaseFolding caseFolding, String... entries) {
+		return new UserMatcher(Arrays.asList(entries), caseFolding);
+	}
+}
@@ -0,0 +1,29 @@
+package chatbot.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import chatbot.client.MessageChannel;
+import chatbot.client.MessageListener;
+
+/**
+ * MessageChannel whose sends go to a JMH Blackhole, so that benchmarks
+ * measure the responding code rather than a transport.
+ */
+public class BlackholeMessageChannel implements MessageChannel {
+
+	private final Blackhole sink;
+
+	public BlackholeMessageChannel(Blackhole sink) {
+		this.sink = sink;
+	}
+
+	@Override
+	public void registerListener(MessageListener listener) {
+		this.sink.consume(listener);
+	}
+
+	@Override
+	public void sendMessage(String message) {
+		this.sink.consume(message);
+	}
+}
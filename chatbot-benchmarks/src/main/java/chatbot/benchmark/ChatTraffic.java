@@ -0,0 +1,39 @@
+package chatbot.benchmark;
+
+import java.util.Random;
+
+import chatbot.client.Message;
+
+/**
+ * Deterministic channel traffic for the chatbot benchmarks: a few users,
+ * mostly chatter and a share of commands addressed to the bot.
+ */
+public class ChatTraffic {
+
+	public static final String BOT_NAME = "chuck";
+	public static final String[] USERS = { "andy", "bob", "carol", "dave", "erin", BOT_NAME };
+
+	private static final String[] CHATTER = {
+			"morning all",
+			"has anyone seen the build go red?",
+			"lunch at noon?",
+			"pushed the fix for the selector leak",
+			"can someone review my pull request please",
+			"the coffee machine is broken again" };
+
+	private ChatTraffic() {
+		super();
+	}
+
+	public static Message[] messages(int count, int commandPercent) {
+		Random random = new Random(42);
+		Message[] messages = new Message[count];
+		for (int i = 0; i < count; i++) {
+			String user = USERS[random.nextInt(USERS.length)];
+			String payload = random.nextInt(100) < commandPercent ? "!" + BOT_NAME
+					: CHATTER[random.nextInt(CHATTER.length)];
+			messages[i] = new Message(user, payload);
+		}
+		return messages;
+	}
+}
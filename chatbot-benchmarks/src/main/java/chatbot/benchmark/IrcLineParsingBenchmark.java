@@ -0,0 +1,73 @@
+package chatbot.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relayirc.chatengine.IRCConnection;
+import org.relayirc.chatengine.IRCConnectionAdapter;
+import org.relayirc.chatengine.IRCMessage;
+
+/**
+ * Parses the recorded server traffic in irc-traffic.log with the old
+ * StringTokenizer loop and with IRCMessage. Each invocation handles the
+ * whole recording, run with "-prof gc" to compare allocation per line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IrcLineParsingBenchmark {
+
+	private String[] traffic;
+	private LegacyIrcLineParser legacyParser;
+	private IRCMessage message;
+	private IRCConnection connection;
+
+	@Setup
+	public void setup() {
+		this.traffic = RecordedTraffic.load(RecordedTraffic.IRC_TRAFFIC);
+		this.legacyParser = new LegacyIrcLineParser();
+		this.message = new IRCMessage();
+		this.connection = new IRCConnection("localhost", 6667, "chuck",
+				"chuck", "chuck", "chuck");
+		this.connection.setIRCConnectionListener(new IRCConnectionAdapter());
+	}
+
+	@Benchmark
+	public void legacyTokenizer(Blackhole sink) {
+		for (String line : this.traffic) {
+			this.legacyParser.parse(line, sink);
+		}
+	}
+
+	@Benchmark
+	public void offsetParser(Blackhole sink) {
+		for (String line : this.traffic) {
+			if (this.message.parse(line)) {
+				sink.consume(this.message.getCommand());
+				sink.consume(this.message.getParamCount());
+			}
+		}
+	}
+
+	@Benchmark
+	public void offsetParserAndDispatch() {
+		for (String line : this.traffic) {
+			if (this.message.parse(line)) {
+				this.connection.dispatch(this.message);
+			}
+		}
+	}
+}
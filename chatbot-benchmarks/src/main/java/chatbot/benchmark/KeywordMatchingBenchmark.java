@@ -0,0 +1,85 @@
+package chatbot.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chatbot.client.Message;
+import chatbot.response.KeywordAutomaton;
+
+/**
+ * Cost of finding the first of many keywords in each message of
+ * ChatTraffic, with a KeywordAutomaton and with the naive loop of
+ * lower-casing the payload and calling contains for each keyword.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordMatchingBenchmark {
+
+	private static final int MESSAGES = 1000;
+
+	@Param({ "automaton", "naive" })
+	public String matcher;
+
+	@Param({ "10", "1000", "10000" })
+	public int keywordCount;
+
+	private Message[] messages;
+	private String[] keywords;
+	private KeywordAutomaton automaton;
+
+	@Setup
+	public void setup() {
+		this.messages = ChatTraffic.messages(MESSAGES, 10);
+		Random random = new Random(42);
+		List<String> keywords = new ArrayList<String>();
+		keywords.add("coffee");
+		while (keywords.size() < this.keywordCount) {
+			StringBuilder keyword = new StringBuilder();
+			for (int length = 4 + random.nextInt(8); length > 0; length--) {
+				keyword.append((char) ('a' + random.nextInt(26)));
+			}
+			keywords.add(keyword.toString());
+		}
+		this.keywords = keywords.toArray(new String[keywords.size()]);
+		this.automaton = new KeywordAutomaton(keywords, false);
+	}
+
+	@Benchmark
+	public void find(Blackhole blackhole) {
+		boolean naive = this.matcher.equals("naive");
+		for (Message message : this.messages) {
+			blackhole.consume(naive ? naiveFind(message.getPayload())
+					: this.automaton.find(message.getPayload()));
+		}
+	}
+
+	private int naiveFind(String payload) {
+		String lower = payload.toLowerCase(Locale.ROOT);
+		for (int i = 0; i < this.keywords.length; i++) {
+			if (lower.contains(this.keywords[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
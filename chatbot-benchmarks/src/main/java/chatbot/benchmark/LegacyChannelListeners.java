@@ -0,0 +1,47 @@
+package chatbot.benchmark;
+
+import java.util.Vector;
+
+import org.relayirc.chatengine.Channel;
+import org.relayirc.chatengine.ChannelEvent;
+import org.relayirc.chatengine.ChannelListener;
+
+/**
+ * Copy of the synchronized Vector listener list and per-event anonymous
+ * notifier that Channel used before ListenerRegistry, kept as the
+ * baseline for ListenerDispatchBenchmark.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class LegacyChannelListeners {
+
+	interface ChannelEventNotifier {
+		void notify(ChannelListener listener);
+	}
+
+	private final Vector listeners = new Vector();
+
+	public synchronized void addChannelListener(ChannelListener listener) {
+		this.listeners.addElement(listener);
+	}
+
+	public synchronized void removeChannelListener(ChannelListener listener) {
+		this.listeners.removeElement(listener);
+	}
+
+	public void activate(Channel source) {
+		final ChannelEvent event = new ChannelEvent(source);
+		notifyListeners(new ChannelEventNotifier() {
+			@Override
+			public void notify(ChannelListener listener) {
+				listener.onActivation(event);
+			}
+		});
+	}
+
+	private synchronized void notifyListeners(ChannelEventNotifier notifier) {
+		for (int i = 0; i < this.listeners.size(); i++) {
+			ChannelListener listener = (ChannelListener) this.listeners.elementAt(i);
+			notifier.notify(listener);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package chatbot.benchmark;
+
+import java.util.NoSuchElementException;
+import java.util.StringTokenizer;
+import java.util.Vector;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Copy of the StringTokenizer/Vector parsing that IRCConnection.run() used
+ * before IRCMessage, kept as the baseline for IrcLineParsingBenchmark. The
+ * strings each branch extracted are handed to a Blackhole instead of the
+ * connection listener.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class LegacyIrcLineParser {
+
+	private static class Tok {
+		String token;
+		int index;
+	}
+
+	public void parse(String message, Blackhole sink) {
+		int pos = 0;
+		String origin = new String("");
+		String command = new String("");
+		Vector tokens = new Vector();
+
+		StringTokenizer toker1 = new StringTokenizer(message);
+		try {
+			for (int i = 0; i < 6; i++) {
+				Tok t = new Tok();
+				t.token = toker1.nextToken();
+				t.index = pos;
+				tokens.addElement(t);
+				pos += t.token.length() + 1;
+			}
+		} catch (NoSuchElementException e) {
+			// is ok
+		}
+
+		if (tokens.size() > 0) {
+			if (tok(tokens, 0).token.substring(0, 1).equals(":")) {
+				origin = tok(tokens, 0).token.substring(1);
+				command = tok(tokens, 1).token;
+			} else {
+				command = tok(tokens, 0).token;
+			}
+		}
+
+		if (command.equals("PING")) {
+			sink.consume(message.substring(message.indexOf("PING") + 4));
+		} else if (command.equals("PRIVMSG")) {
+			String channel = tok(tokens, 2).token;
+			String text = message.substring(tok(tokens, 3).index).trim();
+			String orgnick = parseOrgnick(origin);
+			if (orgnick != null) {
+				if (text.indexOf("\001VERSION") != -1) {
+					sink.consume(orgnick);
+				} else if (text.indexOf("\001SOURCE") != -1) {
+					sink.consume(orgnick);
+				} else if (text.indexOf("\001CLIENTINFO") != -1) {
+					sink.consume(orgnick);
+				} else if (text.indexOf("ACTION") != -1) {
+					sink.consume(channel);
+					sink.consume(text.substring(9));
+				} else {
+					sink.consume(channel);
+					sink.consume(text.substring(1));
+				}
+			}
+		} else if (command.equals("NOTICE")) {
+			String orgnick = parseOrgnick(origin);
+			String text = message.substring(tok(tokens, 3).index).trim();
+			sink.consume(orgnick);
+			sink.consume(text);
+		} else if (command.equals("MODE")) {
+			sink.consume("MODE: " + message);
+			String orgnick = parseOrgnick(origin);
+			if (orgnick != null) {
+				sink.consume(tok(tokens, 2).token);
+				sink.consume(tok(tokens, 3).token);
+				sink.consume(tok(tokens, 4).token);
+			}
+		} else if (command.equals("JOIN")) {
+			String channel = tok(tokens, 2).token;
+			sink.consume(parseOrgnick(origin));
+			sink.consume(channel.substring(1));
+		} else if (command.equals("PART")) {
+			sink.consume(tok(tokens, 2).token);
+			sink.consume(parseOrgnick(origin));
+		} else if (command.equals("KICK")) {
+			sink.consume(parseOrgnick(origin));
+			sink.consume(tok(tokens, 2).token);
+			sink.consume(tok(tokens, 3).token);
+			sink.consume(tok(tokens, 4).token);
+		} else if (command.equals("QUIT")) {
+			sink.consume(tok(tokens, 2).token);
+			sink.consume(message.substring(tok(tokens, 2).index + 1));
+			sink.consume(parseOrgnick(origin));
+		} else if (command.equals("NICK")) {
+			sink.consume(parseOrgnick(origin));
+			sink.consume(tok(tokens, 2).token.substring(1));
+		} else if (command.equals("TOPIC")) {
+			sink.consume(tok(tokens, 2).token);
+			sink.consume(tok(tokens, 3).token.substring(1));
+		} else if (command.equals("MSG")) {
+			sink.consume(message);
+		} else {
+			int cmdid;
+			try {
+				cmdid = Integer.parseInt(command);
+			} catch (Exception e) {
+				sink.consume(message);
+				return;
+			}
+			sink.consume(cmdid);
+			if (tokens.size() > 3) {
+				sink.consume(message.substring(tok(tokens, 3).index));
+			}
+		}
+	}
+
+	private static Tok tok(Vector tokens, int index) {
+		return (Tok) tokens.elementAt(index);
+	}
+
+	private static String parseOrgnick(String origin) {
+		String orgnick = null;
+		if (origin.length() > 0) {
+			StringTokenizer toker2 = new StringTokenizer(origin, "!");
+			try {
+				orgnick = toker2.nextToken();
+			} catch (NoSuchElementException e) {
+				orgnick = null;
+			}
+		}
+		return orgnick;
+	}
+}
@@ -0,0 +1,23 @@
+package chatbot.benchmark;
+
+import chatbot.phrase.Phrase;
+import chatbot.phrase.PhraseSelectionStrategy;
+import chatbot.phrase.Phrases;
+
+/**
+ * Copy of the unsynchronized round-robin selection used before the
+ * strategies were made thread-safe, kept as the single-threaded baseline
+ * for PhraseSelectionBenchmark. It is not safe to share between threads.
+ */
+public class LegacyRoundRobinPhraseSelectionStrategy implements PhraseSelectionStrategy {
+
+	private int currentIndex;
+
+	@Override
+	public Phrase next(Phrases phrases) {
+		if (this.currentIndex >= phrases.size()) {
+			this.currentIndex = 0;
+		}
+		return phrases.getPhraseAt(this.currentIndex++);
+	}
+}
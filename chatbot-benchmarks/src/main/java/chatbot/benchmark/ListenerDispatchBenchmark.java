@@ -0,0 +1,108 @@
+package chatbot.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.relayirc.chatengine.Channel;
+import org.relayirc.chatengine.ChannelAdapter;
+import org.relayirc.chatengine.ChannelEvent;
+
+/**
+ * Delivers channel events from several threads while another thread keeps
+ * adding and removing listeners, across many channels with many listeners
+ * each. Compares Channel's copy-on-write registry with the synchronized
+ * Vector it replaced.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+
+	@Param({ "64" })
+	public int channelCount;
+
+	@Param({ "16" })
+	public int listenersPerChannel;
+
+	private Channel[] channels;
+	private LegacyChannelListeners[] legacyChannels;
+	private final CountingListener churnListener = new CountingListener();
+
+	@Setup
+	public void setup() {
+		this.channels = new Channel[this.channelCount];
+		this.legacyChannels = new LegacyChannelListeners[this.channelCount];
+		for (int c = 0; c < this.channelCount; c++) {
+			this.channels[c] = new Channel("#channel" + c);
+			this.legacyChannels[c] = new LegacyChannelListeners();
+			for (int l = 0; l < this.listenersPerChannel; l++) {
+				CountingListener listener = new CountingListener();
+				this.channels[c].addChannelListener(listener);
+				this.legacyChannels[c].addChannelListener(listener);
+			}
+		}
+	}
+
+	@Benchmark
+	@Group("copyOnWrite")
+	@GroupThreads(3)
+	public void copyOnWriteDeliver() {
+		this.channels[randomChannel()].activate();
+	}
+
+	@Benchmark
+	@Group("copyOnWrite")
+	@GroupThreads(1)
+	public void copyOnWriteChurn() {
+		Channel channel = this.channels[randomChannel()];
+		channel.addChannelListener(this.churnListener);
+		channel.removeChannelListener(this.churnListener);
+	}
+
+	@Benchmark
+	@Group("synchronizedVector")
+	@GroupThreads(3)
+	public void synchronizedVectorDeliver() {
+		int index = randomChannel();
+		this.legacyChannels[index].activate(this.channels[index]);
+	}
+
+	@Benchmark
+	@Group("synchronizedVector")
+	@GroupThreads(1)
+	public void synchronizedVectorChurn() {
+		LegacyChannelListeners channel = this.legacyChannels[randomChannel()];
+		channel.addChannelListener(this.churnListener);
+		channel.removeChannelListener(this.churnListener);
+	}
+
+	private int randomChannel() {
+		return ThreadLocalRandom.current().nextInt(this.channelCount);
+	}
+
+	private static class CountingListener extends ChannelAdapter {
+
+		private int activations;
+
+		@Override
+		public void onActivation(ChannelEvent event) {
+			this.activations++;
+		}
+	}
+}
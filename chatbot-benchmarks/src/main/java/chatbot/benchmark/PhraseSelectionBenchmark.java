@@ -0,0 +1,91 @@
+package chatbot.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatbot.phrase.AvoidRecentPhraseSelectionStrategy;
+import chatbot.phrase.Phrase;
+import chatbot.phrase.PhraseLoader;
+import chatbot.phrase.PhraseSelectionStrategy;
+import chatbot.phrase.PhraseWeights;
+import chatbot.phrase.Phrases;
+import chatbot.phrase.RandomPhraseSelectionStrategy;
+import chatbot.phrase.RoundRobinPhraseSelectionStrategy;
+import chatbot.phrase.WeightedPhraseSelectionStrategy;
+
+/**
+ * Cost of Phrases.next() with each PhraseSelectionStrategy over phrase
+ * lists of different sizes, on one thread. SharedPhraseSelectionBenchmark
+ * measures the strategies that may be shared between threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhraseSelectionBenchmark {
+
+	@Param({ "legacyRoundRobin", "roundRobin", "random", "weighted", "avoidRecent" })
+	public String strategy;
+
+	@Param({ "10", "10000", "1000000" })
+	public int phraseCount;
+
+	private Phrases phrases;
+
+	@Setup
+	public void setup() {
+		List<String> raw = new ArrayList<String>();
+		for (int i = 0; i < this.phraseCount; i++) {
+			raw.add("Phrase number " + i);
+		}
+		this.phrases = PhraseLoader.load(raw).usingSelectionStrategy(strategy());
+	}
+
+	@Benchmark
+	public Phrase next() {
+		return this.phrases.next();
+	}
+
+	private PhraseSelectionStrategy strategy() {
+		return strategy(this.strategy);
+	}
+
+	static PhraseSelectionStrategy strategy(String name) {
+		if (name.equals("legacyRoundRobin")) {
+			return new LegacyRoundRobinPhraseSelectionStrategy();
+		}
+		if (name.equals("roundRobin")) {
+			return new RoundRobinPhraseSelectionStrategy();
+		}
+		if (name.equals("random")) {
+			return new RandomPhraseSelectionStrategy();
+		}
+		if (name.equals("weighted")) {
+			return new WeightedPhraseSelectionStrategy(new PhraseWeights() {
+				@Override
+				public double weightOf(int index, Phrase phrase) {
+					return 1 + index % 5;
+				}
+			});
+		}
+		if (name.equals("avoidRecent")) {
+			return new AvoidRecentPhraseSelectionStrategy(5);
+		}
+		throw new IllegalArgumentException("Unknown strategy: " + name);
+	}
+}
@@ -0,0 +1,43 @@
+package chatbot.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecordedTraffic {
+
+	public static final String IRC_TRAFFIC = "/irc-traffic.log";
+
+	private RecordedTraffic() {
+		super();
+	}
+
+	public static String[] load(String resource) {
+		InputStream stream = RecordedTraffic.class.getResourceAsStream(resource);
+		if (stream == null) {
+			throw new IllegalStateException("Missing recorded traffic: " + resource);
+		}
+		List<String> lines = new ArrayList<String>();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					stream, "UTF-8"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.length() > 0) {
+						lines.add(line);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read recorded traffic: "
+					+ resource, e);
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+}
@@ -0,0 +1,108 @@
+package chatbot.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chatbot.client.Message;
+import chatbot.command.CommandRouter;
+import chatbot.phrase.PhraseLoader;
+import chatbot.phrase.Phrases;
+import chatbot.response.AllOfResponseStrategy;
+import chatbot.response.AnyOfResponseStrategy;
+import chatbot.response.CommandResponseStrategy;
+import chatbot.response.NeverRespondStrategy;
+import chatbot.response.RespondEveryNTimesStrategy;
+import chatbot.response.RespondToSpecificUsersStrategy;
+import chatbot.response.RespondingMessageListener;
+import chatbot.response.ResponseMetrics;
+import chatbot.response.ResponseStrategy;
+
+/**
+ * Feeds a batch of channel messages through RespondingMessageListener
+ * with each ResponseStrategy and with static or templated phrases,
+ * responses go to a Blackhole.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RespondingMessageListenerBenchmark {
+
+	private static final int MESSAGES = 1000;
+
+	@Param({ "command", "router", "rule", "never", "everyN", "specificUsers" })
+	public String strategy;
+
+	@Param({ "10" })
+	public int commandPercent;
+
+	@Param({ "static", "templated" })
+	public String phrases;
+
+	private Message[] messages;
+	private RespondingMessageListener listener;
+
+	@Setup
+	public void setup(Blackhole sink) {
+		this.messages = ChatTraffic.messages(MESSAGES, this.commandPercent);
+		Phrases phrases = this.phrases.equals("templated") ? PhraseLoader.load(
+				"{user}, Chuck Norris can divide by zero.",
+				"Chuck Norris knows the last digit of PI, {user}.",
+				"At {time} Chuck Norris accessed the private methods of {channel}.")
+				: PhraseLoader.load("Chuck Norris can divide by zero.",
+						"Chuck Norris knows the last digit of PI.",
+						"Chuck Norris can access private methods.");
+		this.listener = new RespondingMessageListener(strategy(phrases), phrases,
+				new BlackholeMessageChannel(sink), "#chatroom", new ResponseMetrics());
+	}
+
+	@Benchmark
+	public void onMessageReceived() {
+		for (Message message : this.messages) {
+			this.listener.onMessageReceived(message);
+		}
+	}
+
+	private ResponseStrategy strategy(Phrases phrases) {
+		if (this.strategy.equals("command")) {
+			return new CommandResponseStrategy(ChatTraffic.BOT_NAME);
+		}
+		if (this.strategy.equals("router")) {
+			CommandRouter router = new CommandRouter().command(ChatTraffic.BOT_NAME, phrases);
+			for (int i = 0; i < 100; i++) {
+				router.command("command" + i, phrases);
+			}
+			return router;
+		}
+		if (this.strategy.equals("rule")) {
+			return new AnyOfResponseStrategy(new AllOfResponseStrategy(
+					new RespondEveryNTimesStrategy(ChatTraffic.BOT_NAME, 5),
+					new RespondToSpecificUsersStrategy("andy", "carol", "erin")),
+					new CommandResponseStrategy(ChatTraffic.BOT_NAME));
+		}
+		if (this.strategy.equals("never")) {
+			return new NeverRespondStrategy();
+		}
+		if (this.strategy.equals("everyN")) {
+			return new RespondEveryNTimesStrategy(ChatTraffic.BOT_NAME, 5);
+		}
+		if (this.strategy.equals("specificUsers")) {
+			return new RespondToSpecificUsersStrategy("andy", "carol", "erin");
+		}
+		throw new IllegalArgumentException("Unknown strategy: " + this.strategy);
+	}
+}
@@ -0,0 +1,59 @@
+package chatbot.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chatbot.phrase.Phrase;
+import chatbot.phrase.PhraseLoader;
+import chatbot.phrase.Phrases;
+
+/**
+ * Phrases.next() on one Phrases shared by several threads, as happens
+ * when a channel's messages are handled on more than one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SharedPhraseSelectionBenchmark {
+
+	@Param({ "roundRobin", "random", "weighted", "avoidRecent" })
+	public String strategy;
+
+	@Param({ "1000" })
+	public int phraseCount;
+
+	private Phrases phrases;
+
+	@Setup
+	public void setup() {
+		List<String> raw = new ArrayList<String>();
+		for (int i = 0; i < this.phraseCount; i++) {
+			raw.add("Phrase number " + i);
+		}
+		this.phrases = PhraseLoader.load(raw).usingSelectionStrategy(
+				PhraseSelectionBenchmark.strategy(this.strategy));
+	}
+
+	@Benchmark
+	public Phrase next() {
+		return this.phrases.next();
+	}
+}
@@ -0,0 +1,74 @@
+package chatbot.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chatbot.client.Message;
+import chatbot.response.CaseFolding;
+import chatbot.response.UserListResponseStrategy;
+
+/**
+ * Cost of deciding whether to answer the senders of ChatTraffic against
+ * user lists of different sizes: with List.contains, as
+ * RespondToSpecificUsersStrategy used to do, and with a
+ * UserListResponseStrategy folding case and holding a few wildcard
+ * patterns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMatchingBenchmark {
+
+	private static final int MESSAGES = 1000;
+
+	@Param({ "list", "userList" })
+	public String matcher;
+
+	@Param({ "10", "10000", "50000" })
+	public int userCount;
+
+	private Message[] messages;
+	private List<String> list;
+	private UserListResponseStrategy userList;
+
+	@Setup
+	public void setup() {
+		this.messages = ChatTraffic.messages(MESSAGES, 10);
+		List<String> users = new ArrayList<String>();
+		for (int i = 0; users.size() < this.userCount; i++) {
+			users.add("nick" + i);
+		}
+		users.set(users.size() - 1, "carol");
+		this.list = users;
+		List<String> entries = new ArrayList<String>(users);
+		entries.addAll(Arrays.asList("*bot", "guest??", "spam*"));
+		this.userList = UserListResponseStrategy.allowing(entries, CaseFolding.RFC1459);
+	}
+
+	@Benchmark
+	public void shouldRespond(Blackhole blackhole) {
+		boolean list = this.matcher.equals("list");
+		for (Message message : this.messages) {
+			blackhole.consume(list ? this.list.contains(message.getOriginatingUsername())
+					: this.userList.shouldRespond(message));
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package chatbot.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.smack.packet.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chatbot.adapter.xmpp.XmppMessageListenerAdapter;
+import chatbot.client.MessageListener;
+
+/**
+ * Converts multi-user chat packets into chatbot messages through
+ * XmppMessageListenerAdapter.processPacket, the converted messages go
+ * to a Blackhole.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmppPacketConversionBenchmark {
+
+	private static final int PACKETS = 1000;
+
+	private Message[] packets;
+	private XmppMessageListenerAdapter adapter;
+
+	@Setup
+	public void setup(final Blackhole sink) {
+		chatbot.client.Message[] traffic = ChatTraffic.messages(PACKETS, 10);
+		this.packets = new Message[PACKETS];
+		for (int i = 0; i < PACKETS; i++) {
+			Message packet = new Message("chatroom@conference.localhost", Message.Type.groupchat);
+			packet.setFrom("chatroom@conference.localhost/" + traffic[i].getOriginatingUsername());
+			packet.setBody(traffic[i].getPayload());
+			this.packets[i] = packet;
+		}
+		this.adapter = new XmppMessageListenerAdapter(new MessageListener() {
+			@Override
+			public void onMessageReceived(chatbot.client.Message message) {
+				sink.consume(message);
+			}
+		});
+	}
+
+	@Benchmark
+	public void processPacket() {
+		for (Message packet : this.packets) {
+			this.adapter.processPacket(packet);
+		}
+	}
+}
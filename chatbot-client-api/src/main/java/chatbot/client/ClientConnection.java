@@ -5,4 +5,12 @@ public interface ClientConnection {
 	void connect(ConnectionListener listener);
 	
 	MessageChannel channel(String name);
+
+	/**
+	 * Leaves the server, after writing what is already queued where the
+	 * protocol allows, and stops the connection's own threads. Connections
+	 * holding nothing open need not override it.
+	 */
+	default void close() {
+	}
 }
\ No newline at end of file
@@ -3,4 +3,12 @@ package chatbot.client;
 public interface ConnectionListener {
 
 	void onConnectionSuccessful();
+
+	/**
+	 * Called when an open connection closes, or when an attempt to open
+	 * one that was reported as started fails later. Does nothing by
+	 * default.
+	 */
+	default void onDisconnected() {
+	}
 }
\ No newline at end of file
@@ -9,10 +9,16 @@ public class Message {
 	
 	private final String originatingUsername;
 	private final String payload;
+	private final long receivedNanos;
 	
 	public Message(String username, String payload) {
+		this(username, payload, System.nanoTime());
+	}
+	
+	public Message(String username, String payload, long receivedNanos) {
 		this.originatingUsername = username;
 		this.payload = payload;
+		this.receivedNanos = receivedNanos;
 	}
 	
 	public String getOriginatingUsername() {
@@ -23,6 +29,10 @@ public class Message {
 		return this.payload;
 	}
 	
+	public long getReceivedNanos() {
+		return this.receivedNanos;
+	}
+	
 	public User fromBot(String botUsername) {
 		if (this.originatingUsername.equals(botUsername)) {
 			return User.BOT;
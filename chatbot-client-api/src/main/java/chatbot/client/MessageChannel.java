@@ -1,8 +1,25 @@
 package chatbot.client;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface MessageChannel {
 	
 	void registerListener(MessageListener listener);
 	
 	void sendMessage(String message);
+
+	/**
+	 * Sends a message without waiting for it to be written. The future
+	 * completes once the message has been flushed to the server, or fails
+	 * with the reason it could not be. Channels that cannot tell when a
+	 * message is written send it here and now.
+	 */
+	default CompletableFuture<Void> sendMessageAsync(String message) {
+		try {
+			sendMessage(message);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return CompletableFuture.completedFuture(null);
+	}
 }
\ No newline at end of file
@@ -1,6 +1,19 @@
 package chatbot.client;
 
+import java.util.List;
+
 public interface MessageListener {
 
 	void onMessageReceived(Message message);
-}
\ No newline at end of file
+
+	/**
+	 * Messages that arrived together, in the order they arrived. Adapters
+	 * deliver everything read from the server at once through here, so
+	 * listeners that can handle a batch in one go should override it.
+	 */
+	default void onMessagesReceived(List<Message> messages) {
+		for (Message message : messages) {
+			onMessageReceived(message);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package chatbot.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exponential backoff with full jitter: the delay before a reconnect
+ * attempt is drawn uniformly between zero and a ceiling that doubles
+ * with every failed attempt, up to a maximum. Bots that lost the same
+ * server at the same moment therefore spread their attempts over the
+ * whole window instead of retrying in lockstep.
+ */
+public class ReconnectPolicy {
+
+	public static final long DEFAULT_INITIAL_DELAY_MILLIS = 1000;
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 300000;
+
+	private final long initialDelayNanos;
+	private final long maxDelayNanos;
+
+	public ReconnectPolicy() {
+		this(DEFAULT_INITIAL_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	public ReconnectPolicy(long initialDelay, long maxDelay, TimeUnit unit) {
+		if (initialDelay <= 0 || maxDelay < initialDelay) {
+			throw new IllegalArgumentException("Expected 0 < initial delay <= max delay, not "
+					+ initialDelay + " and " + maxDelay);
+		}
+		this.initialDelayNanos = unit.toNanos(initialDelay);
+		this.maxDelayNanos = unit.toNanos(maxDelay);
+	}
+
+	public long getInitialDelayNanos() {
+		return this.initialDelayNanos;
+	}
+
+	public long getMaxDelayNanos() {
+		return this.maxDelayNanos;
+	}
+
+	/** Longest delay before the given attempt, counting failed attempts from zero. */
+	public long getCeilingNanos(int attempt) {
+		long ceiling = this.initialDelayNanos;
+		for (int i = 0; i < attempt && ceiling < this.maxDelayNanos; i++) {
+			ceiling *= 2;
+		}
+		return Math.min(ceiling, this.maxDelayNanos);
+	}
+
+	public long getDelayNanos(int attempt) {
+		return ThreadLocalRandom.current().nextLong(getCeilingNanos(attempt) + 1);
+	}
+}
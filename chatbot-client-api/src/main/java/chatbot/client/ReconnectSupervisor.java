@@ -0,0 +1,54 @@
+package chatbot.client;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Shares one scheduler between the connections it supervises, so any
+ * number of bots can be kept connected by a few threads. Reconnect
+ * attempts run on the scheduler threads; the thread factory decides
+ * whether they are daemons.
+ */
+public class ReconnectSupervisor {
+
+	private static ReconnectSupervisor shared;
+
+	private final ReconnectPolicy policy;
+	private final ScheduledExecutorService scheduler;
+
+	public ReconnectSupervisor(ReconnectPolicy policy, int threads, ThreadFactory threadFactory) {
+		this.policy = policy;
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(threads, threadFactory);
+		// started now rather than on the first reconnect, so a non-daemon
+		// thread is already there to keep the JVM up when one is needed
+		scheduler.prestartAllCoreThreads();
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Supervisor with the default policy and one thread, for standalone
+	 * bots. The thread is not a daemon: Smack's and the selector's threads
+	 * may all be gone while a connection waits to be reopened, and the
+	 * JVM must not exit then. Call shutdown() to let it exit.
+	 */
+	public static synchronized ReconnectSupervisor shared() {
+		if (shared == null) {
+			shared = new ReconnectSupervisor(new ReconnectPolicy(), 1,
+					ThreadFactories.platform("reconnect", false));
+		}
+		return shared;
+	}
+
+	public ReconnectPolicy getPolicy() {
+		return this.policy;
+	}
+
+	public SupervisedClientConnection supervise(ClientConnection connection) {
+		return new SupervisedClientConnection(connection, this.policy, this.scheduler);
+	}
+
+	public void shutdown() {
+		this.scheduler.shutdownNow();
+	}
+}
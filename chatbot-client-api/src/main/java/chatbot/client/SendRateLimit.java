@@ -0,0 +1,69 @@
+package chatbot.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How fast a SendScheduler may write to a connection or a channel: a
+ * burst of messages at once, then one message per interval. Messages
+ * waiting for their turn are queued up to a capacity, the oldest being
+ * dropped beyond it, and are dropped once they are older than the
+ * maximum age, since an answer that late no longer fits the conversation.
+ */
+public class SendRateLimit {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 32;
+	public static final long DEFAULT_MAX_AGE_MILLIS = 30000;
+
+	/** Stays under the flood limits of common IRC servers: 5 at once, then one every 2 s. */
+	public static final SendRateLimit IRC = new SendRateLimit(5, 2, TimeUnit.SECONDS);
+
+	/** Stays under the default traffic shapers of common XMPP servers. */
+	public static final SendRateLimit XMPP = new SendRateLimit(10, 200, TimeUnit.MILLISECONDS);
+
+	private final int burst;
+	private final long intervalNanos;
+	private final int queueCapacity;
+	private final long maxAgeNanos;
+
+	public SendRateLimit(int burst, long interval, TimeUnit unit) {
+		this(burst, unit.toNanos(interval), DEFAULT_QUEUE_CAPACITY,
+				TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_AGE_MILLIS), TimeUnit.NANOSECONDS);
+	}
+
+	public SendRateLimit(int burst, long interval, int queueCapacity, long maxAge,
+			TimeUnit unit) {
+		if (burst < 1 || interval <= 0 || queueCapacity < 1 || maxAge <= 0) {
+			throw new IllegalArgumentException("Expected a positive burst, interval, queue capacity"
+					+ " and maximum age, not " + burst + ", " + interval + ", " + queueCapacity
+					+ " and " + maxAge);
+		}
+		this.burst = burst;
+		this.intervalNanos = unit.toNanos(interval);
+		this.queueCapacity = queueCapacity;
+		this.maxAgeNanos = unit.toNanos(maxAge);
+	}
+
+	public int getBurst() {
+		return this.burst;
+	}
+
+	public long getIntervalNanos() {
+		return this.intervalNanos;
+	}
+
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	public long getMaxAgeNanos() {
+		return this.maxAgeNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "SendRateLimit [burst:" + this.burst + ", interval:"
+				+ TimeUnit.NANOSECONDS.toMillis(this.intervalNanos) + "ms, queue:"
+				+ this.queueCapacity + ", max age:"
+				+ TimeUnit.NANOSECONDS.toMillis(this.maxAgeNanos) + "ms]";
+	}
+}
@@ -0,0 +1,204 @@
+package chatbot.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import chatbot.metrics.ChannelMetrics;
+
+/**
+ * Paces the messages sent on one connection so that the server never
+ * sees more than its SendRateLimit allows. Channels it throttles queue
+ * their messages, and a single thread writes them in turn, one channel
+ * after another, as soon as the connection's token bucket and the
+ * channel's own, if it has a limit of its own, hold a token. The thread
+ * only exists while there is something to send.
+ */
+public class SendScheduler {
+
+	public static final String QUEUE_DEPTH = "chatbot.send.queue.depth";
+
+	private static final long IDLE_SECONDS = 30;
+
+	private final SendRateLimit limit;
+	private final TokenBucket bucket;
+	private final Map<String, SendRateLimit> channelLimits;
+	private final List<ThrottledMessageChannel> channels;
+	private final ScheduledThreadPoolExecutor executor;
+	private final Runnable drain;
+
+	private ScheduledFuture<?> pendingDrain;
+	private long pendingDrainAtNanos;
+	private int nextChannel;
+	private int queued;
+	private boolean shutdown;
+
+	public SendScheduler(SendRateLimit limit) {
+		this(limit, ThreadFactories.platform("send", true));
+	}
+
+	public SendScheduler(SendRateLimit limit, ThreadFactory threadFactory) {
+		this.limit = limit;
+		this.bucket = new TokenBucket(limit, System.nanoTime());
+		this.channelLimits = new ConcurrentHashMap<String, SendRateLimit>();
+		this.channels = new ArrayList<ThrottledMessageChannel>();
+		this.executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+		this.executor.setKeepAliveTime(IDLE_SECONDS, TimeUnit.SECONDS);
+		this.executor.allowCoreThreadTimeOut(true);
+		this.executor.setRemoveOnCancelPolicy(true);
+		this.drain = new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		};
+	}
+
+	public SendRateLimit getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * Gives a channel a limit of its own, on top of the connection's, for
+	 * the channels throttled from now on.
+	 */
+	public SendScheduler limitChannel(String name, SendRateLimit limit) {
+		this.channelLimits.put(name, limit);
+		return this;
+	}
+
+	/**
+	 * Channel whose messages are sent through this scheduler. Throttling
+	 * a channel name again, as happens when it is rejoined after a
+	 * reconnect, points the existing throttled channel at the new one, so
+	 * the messages still queued are sent there.
+	 */
+	public synchronized MessageChannel throttle(String name, MessageChannel channel,
+			ChannelMetrics metrics) {
+		for (ThrottledMessageChannel throttled : this.channels) {
+			if (throttled.getName().equals(name)) {
+				throttled.setChannel(channel);
+				return throttled;
+			}
+		}
+		SendRateLimit channelLimit = this.channelLimits.get(name);
+		ThrottledMessageChannel throttled = new ThrottledMessageChannel(this, name, channel,
+				metrics, channelLimit != null ? channelLimit : this.limit,
+				channelLimit != null ? new TokenBucket(channelLimit, System.nanoTime()) : null);
+		this.channels.add(throttled);
+		return throttled;
+	}
+
+	public synchronized int getQueuedCount() {
+		return this.queued;
+	}
+
+	public synchronized void shutdown() {
+		this.shutdown = true;
+		for (ThrottledMessageChannel channel : this.channels) {
+			channel.clear();
+		}
+		this.queued = 0;
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Queues a message on a throttled channel, returning the future that
+	 * follows it when it was given one.
+	 */
+	synchronized CompletableFuture<Void> submit(ThrottledMessageChannel channel, String message,
+			CompletableFuture<Void> sent) {
+		if (this.shutdown) {
+			throw new IllegalStateException("Send scheduler is shut down");
+		}
+		long now = System.nanoTime();
+		int size = channel.size();
+		CompletableFuture<Void> following = channel.enqueue(message, sent, now);
+		this.queued += channel.size() - size;
+		schedule(now, 0);
+		return following;
+	}
+
+	private void drain() {
+		synchronized (this) {
+			this.pendingDrain = null;
+		}
+		while (true) {
+			ThrottledMessageChannel channel;
+			ThrottledMessageChannel.Pending message;
+			synchronized (this) {
+				long now = System.nanoTime();
+				channel = nextReady(now);
+				if (channel == null) {
+					return;
+				}
+				message = channel.take(now);
+				this.bucket.take(now);
+				this.queued--;
+			}
+			try {
+				channel.send(message);
+			} catch (RuntimeException e) {
+				// the adapter has counted the failure, carry on with the next message
+			}
+		}
+	}
+
+	/**
+	 * Channel whose oldest message may be sent now, taking turns between
+	 * channels. When there is none the drain is scheduled for the moment
+	 * one will be.
+	 */
+	private ThrottledMessageChannel nextReady(long now) {
+		for (ThrottledMessageChannel channel : this.channels) {
+			this.queued -= channel.dropStale(now);
+		}
+		if (this.queued == 0) {
+			return null;
+		}
+		long wait = Long.MAX_VALUE;
+		int count = this.channels.size();
+		for (int i = 0; i < count; i++) {
+			int index = (this.nextChannel + i) % count;
+			ThrottledMessageChannel channel = this.channels.get(index);
+			if (channel.isEmpty()) {
+				continue;
+			}
+			long channelWait = channel.getWaitNanos(now);
+			if (channelWait == 0) {
+				long connectionWait = this.bucket.getWaitNanos(now);
+				if (connectionWait > 0) {
+					schedule(now, connectionWait);
+					return null;
+				}
+				this.nextChannel = (index + 1) % count;
+				return channel;
+			}
+			wait = Math.min(wait, channelWait);
+		}
+		schedule(now, Math.max(wait, this.bucket.getWaitNanos(now)));
+		return null;
+	}
+
+	private void schedule(long now, long delayNanos) {
+		if (this.shutdown || (this.pendingDrain != null && this.pendingDrainAtNanos <= now + delayNanos)) {
+			return;
+		}
+		if (this.pendingDrain != null) {
+			this.pendingDrain.cancel(false);
+		}
+		try {
+			this.pendingDrain = this.executor.schedule(this.drain, delayNanos, TimeUnit.NANOSECONDS);
+			this.pendingDrainAtNanos = now + delayNanos;
+		} catch (RejectedExecutionException e) {
+			this.pendingDrain = null;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package chatbot.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection that reconnects whenever the connection it wraps fails to
+ * open or is lost, waiting as its ReconnectPolicy says between attempts,
+ * and rejoins every channel it has handed out. The listener passed to
+ * connect hears of the first successful connection only; later ones are
+ * handled here, and the channels it was given keep working across
+ * reconnects.
+ */
+public class SupervisedClientConnection implements ClientConnection {
+
+	private final ClientConnection connection;
+	private final ReconnectPolicy policy;
+	private final ScheduledExecutorService scheduler;
+	private final Map<String, SupervisedMessageChannel> channels;
+	private final ConnectionListener relay;
+
+	private ConnectionListener listener;
+	private boolean connected;
+	private boolean everConnected;
+	private boolean retryPending;
+	private boolean closed;
+	private int failedAttempts;
+	private long reconnects;
+	private Exception lastFailure;
+
+	SupervisedClientConnection(ClientConnection connection, ReconnectPolicy policy,
+			ScheduledExecutorService scheduler) {
+		this.connection = connection;
+		this.policy = policy;
+		this.scheduler = scheduler;
+		this.channels = new ConcurrentHashMap<String, SupervisedMessageChannel>();
+		this.relay = new ConnectionListener() {
+			@Override
+			public void onConnectionSuccessful() {
+				connected();
+			}
+
+			@Override
+			public void onDisconnected() {
+				disconnected();
+			}
+		};
+	}
+
+	public ClientConnection getConnection() {
+		return this.connection;
+	}
+
+	public synchronized boolean isConnected() {
+		return this.connected;
+	}
+
+	public synchronized int getFailedAttempts() {
+		return this.failedAttempts;
+	}
+
+	public synchronized long getReconnectCount() {
+		return this.reconnects;
+	}
+
+	public synchronized Exception getLastFailure() {
+		return this.lastFailure;
+	}
+
+	@Override
+	public void connect(ConnectionListener listener) {
+		synchronized (this) {
+			this.listener = listener;
+		}
+		attempt();
+	}
+
+	@Override
+	public MessageChannel channel(String name) {
+		SupervisedMessageChannel channel = new SupervisedMessageChannel(name,
+				this.connection.channel(name));
+		this.channels.put(name, channel);
+		return channel;
+	}
+
+	/** Stops reconnecting and closes the wrapped connection. */
+	@Override
+	public void close() {
+		synchronized (this) {
+			this.closed = true;
+		}
+		this.connection.close();
+	}
+
+	private void attempt() {
+		synchronized (this) {
+			this.retryPending = false;
+			if (this.closed || this.connected) {
+				return;
+			}
+		}
+		try {
+			this.connection.connect(this.relay);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	private void connected() {
+		boolean first;
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.connected = true;
+			this.failedAttempts = 0;
+			first = !this.everConnected;
+			this.everConnected = true;
+			if (!first) {
+				this.reconnects++;
+			}
+		}
+		if (first) {
+			this.listener.onConnectionSuccessful();
+		} else {
+			rejoin();
+		}
+	}
+
+	private void disconnected() {
+		synchronized (this) {
+			this.connected = false;
+		}
+		for (SupervisedMessageChannel channel : this.channels.values()) {
+			channel.markStale();
+		}
+		scheduleRetry();
+	}
+
+	private void failed(Exception failure) {
+		synchronized (this) {
+			this.lastFailure = failure;
+		}
+		scheduleRetry();
+	}
+
+	private void rejoin() {
+		for (SupervisedMessageChannel channel : this.channels.values()) {
+			if (!channel.isStale()) {
+				continue;
+			}
+			try {
+				channel.rejoin(this.connection.channel(channel.getName()));
+			} catch (RuntimeException e) {
+				scheduleRejoin(e);
+				return;
+			}
+		}
+	}
+
+	private synchronized void scheduleRetry() {
+		if (this.closed || this.connected || this.retryPending) {
+			return;
+		}
+		this.retryPending = schedule(new Runnable() {
+			@Override
+			public void run() {
+				attempt();
+			}
+		});
+	}
+
+	private synchronized void scheduleRejoin(Exception failure) {
+		this.lastFailure = failure;
+		if (this.closed) {
+			return;
+		}
+		schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (isConnected()) {
+					rejoin();
+				}
+			}
+		});
+	}
+
+	private boolean schedule(Runnable task) {
+		try {
+			this.scheduler.schedule(task, this.policy.getDelayNanos(this.failedAttempts++),
+					TimeUnit.NANOSECONDS);
+			return true;
+		} catch (RejectedExecutionException e) {
+			// the supervisor has been shut down
+			return false;
+		}
+	}
+}
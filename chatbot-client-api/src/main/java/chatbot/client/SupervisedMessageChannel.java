@@ -0,0 +1,60 @@
+package chatbot.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Channel handed out by a SupervisedClientConnection. It remembers its
+ * listeners so that they can be registered again on the channel joined
+ * after a reconnect.
+ */
+class SupervisedMessageChannel implements MessageChannel {
+
+	private final String name;
+	private final List<MessageListener> listeners;
+	private volatile MessageChannel channel;
+	private volatile boolean stale;
+
+	SupervisedMessageChannel(String name, MessageChannel channel) {
+		this.name = name;
+		this.listeners = new ArrayList<MessageListener>();
+		this.channel = channel;
+	}
+
+	String getName() {
+		return this.name;
+	}
+
+	boolean isStale() {
+		return this.stale;
+	}
+
+	void markStale() {
+		this.stale = true;
+	}
+
+	synchronized void rejoin(MessageChannel channel) {
+		for (MessageListener listener : this.listeners) {
+			channel.registerListener(listener);
+		}
+		this.channel = channel;
+		this.stale = false;
+	}
+
+	@Override
+	public synchronized void registerListener(MessageListener listener) {
+		this.listeners.add(listener);
+		this.channel.registerListener(listener);
+	}
+
+	@Override
+	public void sendMessage(String message) {
+		this.channel.sendMessage(message);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendMessageAsync(String message) {
+		return this.channel.sendMessageAsync(message);
+	}
+}
@@ -0,0 +1,71 @@
+package chatbot.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ThreadFactories {
+
+	public static final String MODE_PROPERTY = "chatbot.threads";
+	public static final String PLATFORM = "platform";
+	public static final String VIRTUAL = "virtual";
+
+	private ThreadFactories() {
+	}
+
+	public static ThreadFactory platform(final String name) {
+		final AtomicInteger count = new AtomicInteger();
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable, name + "-" + count.getAndIncrement());
+			}
+		};
+	}
+
+	public static ThreadFactory platform(String name, final boolean daemon) {
+		final ThreadFactory platform = platform(name);
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = platform.newThread(runnable);
+				thread.setDaemon(daemon);
+				return thread;
+			}
+		};
+	}
+
+	public static ThreadFactory virtual(String name) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Method setName = builderType.getMethod("name", String.class, long.class);
+			builder = setName.invoke(builder, name + "-", 0L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException(
+					"Virtual threads need Java 21 or later, running on "
+							+ System.getProperty("java.version"), e);
+		}
+	}
+
+	public static boolean virtualThreadsSupported() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	public static ThreadFactory configured(String name) {
+		String mode = System.getProperty(MODE_PROPERTY);
+		if (VIRTUAL.equals(mode)) {
+			return virtual(name);
+		}
+		if (PLATFORM.equals(mode)) {
+			return platform(name);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,197 @@
+package chatbot.client;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import chatbot.metrics.ChannelMetrics;
+
+/**
+ * Channel handed out by a SendScheduler. Messages sent to it are queued
+ * and written to the channel it wraps when the scheduler's rate limits
+ * allow. The queue is guarded by the scheduler. Messages sent with
+ * sendMessageAsync carry a future that follows the message to the
+ * channel it wraps, and fails if the message is dropped on the way.
+ */
+class ThrottledMessageChannel implements MessageChannel {
+
+	private final SendScheduler scheduler;
+	private final String name;
+	private final ChannelMetrics metrics;
+	private final SendRateLimit limit;
+	private final TokenBucket bucket;
+	private final ArrayDeque<Pending> queue;
+	private volatile MessageChannel channel;
+
+	ThrottledMessageChannel(SendScheduler scheduler, String name, MessageChannel channel,
+			ChannelMetrics metrics, SendRateLimit limit, TokenBucket bucket) {
+		this.scheduler = scheduler;
+		this.name = name;
+		this.channel = channel;
+		this.metrics = metrics;
+		this.limit = limit;
+		this.bucket = bucket;
+		this.queue = new ArrayDeque<Pending>();
+	}
+
+	String getName() {
+		return this.name;
+	}
+
+	MessageChannel getChannel() {
+		return this.channel;
+	}
+
+	void setChannel(MessageChannel channel) {
+		this.channel = channel;
+	}
+
+	ChannelMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	@Override
+	public void registerListener(MessageListener listener) {
+		this.channel.registerListener(listener);
+	}
+
+	@Override
+	public void sendMessage(String message) {
+		this.scheduler.submit(this, message, null);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendMessageAsync(String message) {
+		try {
+			return this.scheduler.submit(this, message, new CompletableFuture<Void>());
+		} catch (IllegalStateException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	boolean isEmpty() {
+		return this.queue.isEmpty();
+	}
+
+	int size() {
+		return this.queue.size();
+	}
+
+	/**
+	 * Queues a message, returning the future that follows it, which is
+	 * that of the message already waiting when there is one, since a
+	 * message is not queued twice. A full queue drops its oldest message.
+	 */
+	CompletableFuture<Void> enqueue(String message, CompletableFuture<Void> sent,
+			long nowNanos) {
+		for (Pending pending : this.queue) {
+			if (pending.message.equals(message)) {
+				this.metrics.getSendCoalesced().increment();
+				if (sent == null) {
+					return pending.sent;
+				}
+				if (pending.sent == null) {
+					pending.sent = sent;
+				} else {
+					forward(pending.sent, sent);
+				}
+				return pending.sent;
+			}
+		}
+		if (this.queue.size() >= this.limit.getQueueCapacity()) {
+			drop(this.queue.pollFirst(), "Send queue is full");
+			this.metrics.getSendDropped().increment();
+		}
+		this.queue.addLast(new Pending(message, sent, nowNanos));
+		return sent;
+	}
+
+	/** Drops the messages older than the maximum age, returning how many. */
+	int dropStale(long nowNanos) {
+		int dropped = 0;
+		Iterator<Pending> queued = this.queue.iterator();
+		while (queued.hasNext()) {
+			Pending pending = queued.next();
+			if (nowNanos - pending.queuedAtNanos <= this.limit.getMaxAgeNanos()) {
+				break;
+			}
+			queued.remove();
+			drop(pending, "Message waited too long to be sent");
+			dropped++;
+		}
+		if (dropped > 0) {
+			this.metrics.getSendDropped().increment(dropped);
+		}
+		return dropped;
+	}
+
+	long getWaitNanos(long nowNanos) {
+		return this.bucket == null ? 0 : this.bucket.getWaitNanos(nowNanos);
+	}
+
+	/** Takes the oldest message, recording how long it waited. */
+	Pending take(long nowNanos) {
+		if (this.bucket != null) {
+			this.bucket.take(nowNanos);
+		}
+		Pending pending = this.queue.pollFirst();
+		this.metrics.getSendWait().record(nowNanos - pending.queuedAtNanos);
+		return pending;
+	}
+
+	/** Sends a message taken from the queue to the channel this one wraps. */
+	void send(Pending pending) {
+		if (pending.sent == null) {
+			this.channel.sendMessage(pending.message);
+			return;
+		}
+		CompletableFuture<Void> sending;
+		try {
+			sending = this.channel.sendMessageAsync(pending.message);
+		} catch (RuntimeException e) {
+			pending.sent.completeExceptionally(e);
+			return;
+		}
+		forward(sending, pending.sent);
+	}
+
+	void clear() {
+		for (Pending pending : this.queue) {
+			drop(pending, "Send scheduler is shut down");
+		}
+		this.queue.clear();
+	}
+
+	private static void drop(Pending pending, String reason) {
+		if (pending.sent != null) {
+			pending.sent.completeExceptionally(new IllegalStateException(reason));
+		}
+	}
+
+	private static void forward(CompletableFuture<Void> from, final CompletableFuture<Void> to) {
+		from.whenComplete(new BiConsumer<Void, Throwable>() {
+			@Override
+			public void accept(Void result, Throwable failure) {
+				if (failure == null) {
+					to.complete(null);
+				} else {
+					to.completeExceptionally(failure);
+				}
+			}
+		});
+	}
+
+	static class Pending {
+
+		private final String message;
+		private final long queuedAtNanos;
+		private CompletableFuture<Void> sent;
+
+		Pending(String message, CompletableFuture<Void> sent, long queuedAtNanos) {
+			this.message = message;
+			this.sent = sent;
+			this.queuedAtNanos = queuedAtNanos;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package chatbot.client;
+
+/**
+ * Token bucket holding up to burst tokens and refilled with one token
+ * per interval. Rather than a token count it keeps the time at which
+ * every token taken so far will have been refilled, so there is no
+ * refill step and taking a token is a single addition. Not thread safe.
+ */
+class TokenBucket {
+
+	private final long intervalNanos;
+	private final long burstNanos;
+	private long refilledAtNanos;
+
+	TokenBucket(int burst, long intervalNanos, long nowNanos) {
+		this.intervalNanos = intervalNanos;
+		this.burstNanos = (burst - 1) * intervalNanos;
+		this.refilledAtNanos = nowNanos;
+	}
+
+	TokenBucket(SendRateLimit limit, long nowNanos) {
+		this(limit.getBurst(), limit.getIntervalNanos(), nowNanos);
+	}
+
+	/** How long until a token can be taken, zero if one can be taken now. */
+	long getWaitNanos(long nowNanos) {
+		return Math.max(0, this.refilledAtNanos - this.burstNanos - nowNanos);
+	}
+
+	void take(long nowNanos) {
+		this.refilledAtNanos = Math.max(this.refilledAtNanos, nowNanos) + this.intervalNanos;
+	}
+}
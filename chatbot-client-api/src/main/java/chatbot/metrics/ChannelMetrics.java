@@ -0,0 +1,74 @@
+package chatbot.metrics;
+
+/**
+ * The metrics a protocol adapter records for one channel, looked up once
+ * when the channel is joined.
+ */
+public class ChannelMetrics {
+
+	public static final String RECEIVED = "chatbot.messages.received";
+	public static final String SENT = "chatbot.messages.sent";
+	public static final String SEND_FAILURES = "chatbot.messages.send.failures";
+	public static final String SEND_WAIT = "chatbot.messages.send.wait";
+	public static final String SEND_DROPPED = "chatbot.messages.send.dropped";
+	public static final String SEND_COALESCED = "chatbot.messages.send.coalesced";
+
+	private final Counter received;
+	private final Counter sent;
+	private final Counter sendFailures;
+	private final LatencyHistogram sendWait;
+	private final Counter sendDropped;
+	private final Counter sendCoalesced;
+
+	public ChannelMetrics() {
+		this(new Counter(), new Counter(), new Counter(), new LatencyHistogram(),
+				new Counter(), new Counter());
+	}
+
+	public ChannelMetrics(MetricRegistry registry, String protocol, String bot,
+			String channel) {
+		this(registry.counter(RECEIVED, "protocol", protocol, "bot", bot, "channel", channel),
+				registry.counter(SENT, "protocol", protocol, "bot", bot, "channel", channel),
+				registry.counter(SEND_FAILURES, "protocol", protocol, "bot", bot, "channel", channel),
+				registry.histogram(SEND_WAIT, "protocol", protocol, "bot", bot, "channel", channel),
+				registry.counter(SEND_DROPPED, "protocol", protocol, "bot", bot, "channel", channel),
+				registry.counter(SEND_COALESCED, "protocol", protocol, "bot", bot, "channel", channel));
+	}
+
+	private ChannelMetrics(Counter received, Counter sent, Counter sendFailures,
+			LatencyHistogram sendWait, Counter sendDropped, Counter sendCoalesced) {
+		this.received = received;
+		this.sent = sent;
+		this.sendFailures = sendFailures;
+		this.sendWait = sendWait;
+		this.sendDropped = sendDropped;
+		this.sendCoalesced = sendCoalesced;
+	}
+
+	public Counter getReceived() {
+		return this.received;
+	}
+
+	public Counter getSent() {
+		return this.sent;
+	}
+
+	public Counter getSendFailures() {
+		return this.sendFailures;
+	}
+
+	/** Time messages spent queued by a SendScheduler before being written. */
+	public LatencyHistogram getSendWait() {
+		return this.sendWait;
+	}
+
+	/** Messages a SendScheduler dropped because they went stale or its queue was full. */
+	public Counter getSendDropped() {
+		return this.sendDropped;
+	}
+
+	/** Messages a SendScheduler did not queue because the same message was already waiting. */
+	public Counter getSendCoalesced() {
+		return this.sendCoalesced;
+	}
+}
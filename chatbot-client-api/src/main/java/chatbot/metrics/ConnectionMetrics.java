@@ -0,0 +1,71 @@
+package chatbot.metrics;
+
+/**
+ * Connection lifecycle metrics a protocol adapter records for one bot.
+ */
+public class ConnectionMetrics {
+
+	public static final String CONNECTS = "chatbot.connects";
+	public static final String DISCONNECTS = "chatbot.disconnects";
+	public static final String RECONNECTS = "chatbot.reconnects";
+	public static final String PARSE_ERRORS = "chatbot.parse.errors";
+
+	private final MetricRegistry registry;
+	private final String protocol;
+	private final String bot;
+	private final Counter connects;
+	private final Counter disconnects;
+	private final Counter reconnects;
+
+	public ConnectionMetrics(MetricRegistry registry, String protocol, String bot) {
+		this.registry = registry;
+		this.protocol = protocol;
+		this.bot = bot;
+		this.connects = registry.counter(CONNECTS, "protocol", protocol, "bot", bot);
+		this.disconnects = registry.counter(DISCONNECTS, "protocol", protocol, "bot", bot);
+		this.reconnects = registry.counter(RECONNECTS, "protocol", protocol, "bot", bot);
+	}
+
+	public MetricRegistry getRegistry() {
+		return this.registry;
+	}
+
+	public String getProtocol() {
+		return this.protocol;
+	}
+
+	public String getBot() {
+		return this.bot;
+	}
+
+	public void connected() {
+		if (this.connects.getCount() > 0) {
+			this.reconnects.increment();
+		}
+		this.connects.increment();
+	}
+
+	public void disconnected() {
+		this.disconnects.increment();
+	}
+
+	public ChannelMetrics channel(String channel) {
+		return new ChannelMetrics(this.registry, this.protocol, this.bot, channel);
+	}
+
+	public Counter counter(String name) {
+		return this.registry.counter(name, "protocol", this.protocol, "bot", this.bot);
+	}
+
+	public LatencyHistogram histogram(String name) {
+		return this.registry.histogram(name, "protocol", this.protocol, "bot", this.bot);
+	}
+
+	public void counter(String name, Gauge source) {
+		this.registry.counter(name, source, "protocol", this.protocol, "bot", this.bot);
+	}
+
+	public void gauge(String name, Gauge gauge) {
+		this.registry.gauge(name, gauge, "protocol", this.protocol, "bot", this.bot);
+	}
+}
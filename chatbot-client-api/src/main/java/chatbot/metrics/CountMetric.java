@@ -0,0 +1,10 @@
+package chatbot.metrics;
+
+/**
+ * Metric exported as a count that only goes up, either a Counter or a
+ * FunctionCounter reading a count kept elsewhere.
+ */
+public interface CountMetric {
+
+	long getCount();
+}
@@ -0,0 +1,21 @@
+package chatbot.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements CountMetric {
+
+	private final LongAdder count = new LongAdder();
+
+	public void increment() {
+		this.count.increment();
+	}
+
+	public void increment(long amount) {
+		this.count.add(amount);
+	}
+
+	@Override
+	public long getCount() {
+		return this.count.sum();
+	}
+}
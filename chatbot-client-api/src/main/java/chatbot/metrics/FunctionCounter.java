@@ -0,0 +1,20 @@
+package chatbot.metrics;
+
+/**
+ * Count read from a count kept elsewhere, for example by a library that
+ * already counts its own events. It is exported like a Counter but,
+ * having nothing to increment, is not one.
+ */
+public class FunctionCounter implements CountMetric {
+
+	private final Gauge source;
+
+	public FunctionCounter(Gauge source) {
+		this.source = source;
+	}
+
+	@Override
+	public long getCount() {
+		return (long) this.source.getValue();
+	}
+}
@@ -0,0 +1,6 @@
+package chatbot.metrics;
+
+public interface Gauge {
+
+	double getValue();
+}
@@ -0,0 +1,68 @@
+package chatbot.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public final class MetricId implements Comparable<MetricId> {
+
+	private final String name;
+	private final SortedMap<String, String> tags;
+	private final String text;
+
+	public MetricId(String name, String... tags) {
+		if (tags.length % 2 != 0) {
+			throw new IllegalArgumentException("Tags must be key value pairs: " + name);
+		}
+		SortedMap<String, String> sorted = new TreeMap<String, String>();
+		for (int i = 0; i < tags.length; i += 2) {
+			sorted.put(tags[i], tags[i + 1]);
+		}
+		this.name = name;
+		this.tags = Collections.unmodifiableSortedMap(sorted);
+		this.text = text(name, sorted);
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public SortedMap<String, String> getTags() {
+		return this.tags;
+	}
+
+	@Override
+	public int compareTo(MetricId other) {
+		return this.text.compareTo(other.text);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof MetricId && this.text.equals(((MetricId) other).text);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.text.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.text;
+	}
+
+	private static String text(String name, SortedMap<String, String> tags) {
+		if (tags.isEmpty()) {
+			return name;
+		}
+		StringBuilder text = new StringBuilder(name).append('{');
+		for (Map.Entry<String, String> tag : tags.entrySet()) {
+			if (text.charAt(text.length() - 1) != '{') {
+				text.append(',');
+			}
+			text.append(tag.getKey()).append('=').append(tag.getValue());
+		}
+		return text.append('}').toString();
+	}
+}
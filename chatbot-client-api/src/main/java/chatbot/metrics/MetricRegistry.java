@@ -0,0 +1,99 @@
+package chatbot.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process registry of counters, gauges and latency histograms keyed by
+ * name and tags. Looking a metric up costs a map lookup, so callers on a
+ * hot path look their metrics up once and keep them.
+ */
+public class MetricRegistry {
+
+	private final ConcurrentMap<MetricId, Object> metrics = new ConcurrentHashMap<MetricId, Object>();
+
+	/**
+	 * Counter registered under the name and tags, created on first use.
+	 * Fails if a function counter is registered there, since it cannot
+	 * be incremented.
+	 */
+	public Counter counter(String name, String... tags) {
+		return metric(new MetricId(name, tags), Counter.class);
+	}
+
+	public LatencyHistogram histogram(String name, String... tags) {
+		return metric(new MetricId(name, tags), LatencyHistogram.class);
+	}
+
+	/**
+	 * Registers a gauge, replacing any gauge already registered under the
+	 * same name and tags.
+	 */
+	public void gauge(String name, Gauge gauge, String... tags) {
+		register(new MetricId(name, tags), gauge, Gauge.class);
+	}
+
+	/**
+	 * Registers a counter that reads its count from source, replacing any
+	 * function counter already registered under the same name and tags.
+	 */
+	public void counter(String name, Gauge source, String... tags) {
+		register(new MetricId(name, tags), new FunctionCounter(source), FunctionCounter.class);
+	}
+
+	public boolean remove(String name, String... tags) {
+		return this.metrics.remove(new MetricId(name, tags)) != null;
+	}
+
+	/** Counters and function counters, which are exported alike. */
+	public SortedMap<MetricId, CountMetric> getCounters() {
+		return snapshot(CountMetric.class);
+	}
+
+	public SortedMap<MetricId, Gauge> getGauges() {
+		return snapshot(Gauge.class);
+	}
+
+	public SortedMap<MetricId, LatencyHistogram> getHistograms() {
+		return snapshot(LatencyHistogram.class);
+	}
+
+	private <M> M metric(MetricId id, Class<M> type) {
+		Object metric = this.metrics.get(id);
+		if (metric == null) {
+			Object created = type == Counter.class ? new Counter() : new LatencyHistogram();
+			metric = this.metrics.putIfAbsent(id, created);
+			if (metric == null) {
+				metric = created;
+			}
+		}
+		if (!type.isInstance(metric)) {
+			throw new IllegalArgumentException("Metric " + id + " is not a "
+					+ type.getSimpleName());
+		}
+		return type.cast(metric);
+	}
+
+	private void register(MetricId id, Object metric, Class<?> type) {
+		Object existing = this.metrics.get(id);
+		if (existing != null && !type.isInstance(existing)) {
+			throw new IllegalArgumentException("Metric " + id + " is not a "
+					+ type.getSimpleName());
+		}
+		this.metrics.put(id, metric);
+	}
+
+	private <M> SortedMap<MetricId, M> snapshot(Class<M> type) {
+		SortedMap<MetricId, M> snapshot = new TreeMap<MetricId, M>();
+		for (Map.Entry<MetricId, Object> metric : this.metrics.entrySet()) {
+			if (type.isInstance(metric.getValue())) {
+				snapshot.put(metric.getKey(), type.cast(metric.getValue()));
+			}
+		}
+		return Collections.unmodifiableSortedMap(snapshot);
+	}
+}
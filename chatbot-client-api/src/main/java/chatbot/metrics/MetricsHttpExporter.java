@@ -0,0 +1,78 @@
+package chatbot.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import chatbot.client.ThreadFactories;
+
+/**
+ * Serves a registry in the Prometheus text format at /metrics on the
+ * loopback interface.
+ */
+public class MetricsHttpExporter {
+
+	public static final String PATH = "/metrics";
+
+	private final MetricRegistry registry;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	public MetricsHttpExporter(MetricRegistry registry, int port) throws IOException {
+		this(registry, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+				ThreadFactories.platform("metrics-http"));
+	}
+
+	public MetricsHttpExporter(MetricRegistry registry, InetSocketAddress address,
+			ThreadFactory threadFactory) throws IOException {
+		this.registry = registry;
+		this.server = HttpServer.create(address, 0);
+		this.executor = Executors.newSingleThreadExecutor(threadFactory);
+		this.server.setExecutor(this.executor);
+		this.server.createContext(PATH, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange);
+			}
+		});
+	}
+
+	public void start() {
+		this.server.start();
+	}
+
+	public void stop() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	private void respond(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = PrometheusFormat.format(this.registry).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+			out.close();
+		} finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package chatbot.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes a registry as a single read-only MBean. Every counter and
+ * gauge is an attribute named after its metric id, every histogram adds
+ * count, p50, p99 and max attributes in nanoseconds.
+ */
+public class MetricsJmxExporter implements DynamicMBean {
+
+	public static final String DEFAULT_OBJECT_NAME = "chatbot:type=Metrics";
+
+	private final MetricRegistry registry;
+	private final MBeanServer server;
+	private final ObjectName objectName;
+
+	public MetricsJmxExporter(MetricRegistry registry) {
+		this(registry, ManagementFactory.getPlatformMBeanServer(), DEFAULT_OBJECT_NAME);
+	}
+
+	public MetricsJmxExporter(MetricRegistry registry, MBeanServer server, String objectName) {
+		this.registry = registry;
+		this.server = server;
+		try {
+			this.objectName = new ObjectName(objectName);
+		} catch (JMException e) {
+			throw new IllegalArgumentException("Invalid object name: " + objectName, e);
+		}
+	}
+
+	public void start() {
+		try {
+			this.server.registerMBean(this, this.objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to register " + this.objectName, e);
+		}
+	}
+
+	public void stop() {
+		try {
+			if (this.server.isRegistered(this.objectName)) {
+				this.server.unregisterMBean(this.objectName);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to unregister " + this.objectName, e);
+		}
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		for (Map.Entry<MetricId, CountMetric> counter : this.registry.getCounters().entrySet()) {
+			if (counter.getKey().toString().equals(attribute)) {
+				return counter.getValue().getCount();
+			}
+		}
+		for (Map.Entry<MetricId, Gauge> gauge : this.registry.getGauges().entrySet()) {
+			if (gauge.getKey().toString().equals(attribute)) {
+				return gauge.getValue().getValue();
+			}
+		}
+		for (Map.Entry<MetricId, LatencyHistogram> histogram : this.registry.getHistograms().entrySet()) {
+			String prefix = histogram.getKey().toString() + ".";
+			if (attribute.startsWith(prefix)) {
+				Long value = histogramAttribute(histogram.getValue(),
+						attribute.substring(prefix.length()));
+				if (value != null) {
+					return value;
+				}
+			}
+		}
+		throw new AttributeNotFoundException(attribute);
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			try {
+				list.add(new Attribute(attribute, getAttribute(attribute)));
+			} catch (AttributeNotFoundException e) {
+				// leave it out, as the DynamicMBean contract allows
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException("No operations: " + actionName);
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (MetricId id : this.registry.getCounters().keySet()) {
+			attributes.add(attribute(id.toString(), "long", "Counter"));
+		}
+		for (MetricId id : this.registry.getGauges().keySet()) {
+			attributes.add(attribute(id.toString(), "double", "Gauge"));
+		}
+		for (MetricId id : this.registry.getHistograms().keySet()) {
+			for (String suffix : new String[] { "count", "p50", "p99", "max" }) {
+				attributes.add(attribute(id + "." + suffix, "long", "Latency histogram, nanoseconds"));
+			}
+		}
+		return new MBeanInfo(getClass().getName(), "Chatbot metrics",
+				attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, null, null);
+	}
+
+	private static MBeanAttributeInfo attribute(String name, String type, String description) {
+		return new MBeanAttributeInfo(name, type, description, true, false, false);
+	}
+
+	private static Long histogramAttribute(LatencyHistogram histogram, String suffix) {
+		if (suffix.equals("count")) {
+			return histogram.getCount();
+		}
+		if (suffix.equals("p50")) {
+			return histogram.getQuantileNanos(0.5);
+		}
+		if (suffix.equals("p99")) {
+			return histogram.getQuantileNanos(0.99);
+		}
+		if (suffix.equals("max")) {
+			return histogram.getMaxNanos();
+		}
+		return null;
+	}
+}
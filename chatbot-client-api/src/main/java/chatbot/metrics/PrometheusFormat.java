@@ -0,0 +1,120 @@
+package chatbot.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes a registry in the Prometheus text exposition format. Dots in
+ * metric names become underscores, counters get a _total suffix and
+ * histograms are written as summaries in seconds, with their maximum in
+ * a gauge family of its own, since a summary may hold nothing else.
+ */
+public class PrometheusFormat {
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private PrometheusFormat() {
+		super();
+	}
+
+	public static String format(MetricRegistry registry) {
+		StringBuilder out = new StringBuilder();
+		try {
+			write(registry, out);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return out.toString();
+	}
+
+	public static void write(MetricRegistry registry, Appendable out) throws IOException {
+		String type = null;
+		for (Map.Entry<MetricId, CountMetric> counter : registry.getCounters().entrySet()) {
+			String name = name(counter.getKey()) + "_total";
+			type = type(out, type, name, "counter");
+			sample(out, name, counter.getKey(), null, counter.getValue().getCount());
+		}
+		for (Map.Entry<MetricId, Gauge> gauge : registry.getGauges().entrySet()) {
+			String name = name(gauge.getKey());
+			type = type(out, type, name, "gauge");
+			sample(out, name, gauge.getKey(), null, gauge.getValue().getValue());
+		}
+		for (Map.Entry<MetricId, LatencyHistogram> histogram : registry.getHistograms().entrySet()) {
+			String name = name(histogram.getKey()) + "_seconds";
+			LatencyHistogram latencies = histogram.getValue();
+			type = type(out, type, name, "summary");
+			for (double quantile : QUANTILES) {
+				sample(out, name, histogram.getKey(), String.valueOf(quantile),
+						seconds(latencies.getQuantileNanos(quantile)));
+			}
+			sample(out, name + "_sum", histogram.getKey(), null, seconds(latencies.getTotalNanos()));
+			sample(out, name + "_count", histogram.getKey(), null, latencies.getCount());
+		}
+		for (Map.Entry<MetricId, LatencyHistogram> histogram : registry.getHistograms().entrySet()) {
+			String name = name(histogram.getKey()) + "_seconds_max";
+			type = type(out, type, name, "gauge");
+			sample(out, name, histogram.getKey(), null, seconds(histogram.getValue().getMaxNanos()));
+		}
+	}
+
+	private static String type(Appendable out, String previous, String name, String type)
+			throws IOException {
+		if (!name.equals(previous)) {
+			out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		}
+		return name;
+	}
+
+	private static void sample(Appendable out, String name, MetricId id, String quantile,
+			double value) throws IOException {
+		out.append(name);
+		if (!id.getTags().isEmpty() || quantile != null) {
+			out.append('{');
+			boolean first = true;
+			for (Map.Entry<String, String> tag : id.getTags().entrySet()) {
+				if (!first) {
+					out.append(',');
+				}
+				label(out, tag.getKey(), tag.getValue());
+				first = false;
+			}
+			if (quantile != null) {
+				if (!first) {
+					out.append(',');
+				}
+				label(out, "quantile", quantile);
+			}
+			out.append('}');
+		}
+		out.append(' ');
+		if (value == Math.rint(value) && !Double.isInfinite(value)) {
+			out.append(Long.toString((long) value));
+		} else {
+			out.append(Double.toString(value));
+		}
+		out.append('\n');
+	}
+
+	private static void label(Appendable out, String key, String value) throws IOException {
+		out.append(key.replace('.', '_')).append("=\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				out.append('\\').append(c);
+			} else if (c == '\n') {
+				out.append("\\n");
+			} else {
+				out.append(c);
+			}
+		}
+		out.append('"');
+	}
+
+	private static String name(MetricId id) {
+		return id.getName().replace('.', '_').replace('-', '_');
+	}
+
+	private static double seconds(long nanos) {
+		return nanos / 1e9;
+	}
+}
@@ -0,0 +1,41 @@
+package chatbot.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ReconnectPolicyTest {
+
+	private final ReconnectPolicy policy = new ReconnectPolicy(1, 60, TimeUnit.SECONDS);
+
+	@Test
+	public void testCeilingDoublesUpToTheMaximum() {
+		assertThat(this.policy.getCeilingNanos(0), is(TimeUnit.SECONDS.toNanos(1)));
+		assertThat(this.policy.getCeilingNanos(3), is(TimeUnit.SECONDS.toNanos(8)));
+		assertThat(this.policy.getCeilingNanos(6), is(TimeUnit.SECONDS.toNanos(60)));
+		assertThat(this.policy.getCeilingNanos(Integer.MAX_VALUE), is(TimeUnit.SECONDS.toNanos(60)));
+	}
+
+	@Test
+	public void testDelaysAreSpreadBelowTheCeiling() {
+		long ceiling = this.policy.getCeilingNanos(4);
+		long min = Long.MAX_VALUE;
+		long max = 0;
+		for (int i = 0; i < 1000; i++) {
+			long delay = this.policy.getDelayNanos(4);
+			assertThat(delay >= 0 && delay <= ceiling, is(true));
+			min = Math.min(min, delay);
+			max = Math.max(max, delay);
+		}
+		assertThat(min < ceiling / 10, is(true));
+		assertThat(max > ceiling - ceiling / 10, is(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaximumMustNotBeBelowInitialDelay() {
+		new ReconnectPolicy(10, 5, TimeUnit.SECONDS);
+	}
+}
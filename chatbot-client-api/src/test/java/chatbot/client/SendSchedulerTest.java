@@ -0,0 +1,195 @@
+package chatbot.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import chatbot.metrics.ChannelMetrics;
+
+public class SendSchedulerTest {
+
+	private final List<String> written = new CopyOnWriteArrayList<String>();
+	private final List<Long> writtenAt = new CopyOnWriteArrayList<Long>();
+	private final ChannelMetrics metrics = new ChannelMetrics();
+	private SendScheduler scheduler;
+
+	@After
+	public void after() {
+		this.scheduler.shutdown();
+	}
+
+	@Test
+	public void testMessagesBeyondTheBurstArePaced() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(2, 50, TimeUnit.MILLISECONDS));
+		MessageChannel channel = throttle("developers");
+		long start = System.nanoTime();
+		send(channel, "one", "two", "three", "four");
+
+		awaitWritten(4);
+		assertThat(this.written.toString(), is("[developers:one, developers:two, developers:three, developers:four]"));
+		assertThat(this.writtenAt.get(3) - start >= TimeUnit.MILLISECONDS.toNanos(100), is(true));
+		assertThat(this.metrics.getSendWait().getCount(), is(4L));
+		assertThat(this.metrics.getSendWait().getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(90), is(true));
+		assertThat(this.scheduler.getQueuedCount(), is(0));
+	}
+
+	@Test
+	public void testChannelsTakeTurns() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(1, 10, TimeUnit.MILLISECONDS));
+		MessageChannel developers = throttle("developers");
+		MessageChannel chatroom = throttle("chatroom");
+		send(developers, "one", "two", "three");
+		send(chatroom, "four");
+
+		awaitWritten(4);
+		assertThat(this.written.get(1), is("chatroom:four"));
+	}
+
+	@Test
+	public void testChannelLimitsApplyOnTopOfTheConnectionLimit() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(10, 1, TimeUnit.MILLISECONDS));
+		this.scheduler.limitChannel("slow", new SendRateLimit(1, 1, TimeUnit.HOURS));
+		MessageChannel slow = throttle("slow");
+		MessageChannel fast = throttle("fast");
+		send(slow, "one", "two");
+		send(fast, "three", "four");
+
+		awaitWritten(3);
+		Thread.sleep(20);
+		assertThat(this.written.toString(), is("[slow:one, fast:three, fast:four]"));
+		assertThat(this.scheduler.getQueuedCount(), is(1));
+	}
+
+	@Test
+	public void testIdenticalWaitingMessagesAreCoalesced() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(1, 1, TimeUnit.HOURS));
+		MessageChannel channel = throttle("developers");
+		send(channel, "one");
+		awaitWritten(1);
+		send(channel, "two", "two", "three", "two");
+
+		assertThat(this.scheduler.getQueuedCount(), is(2));
+		assertThat(this.metrics.getSendCoalesced().getCount(), is(2L));
+	}
+
+	@Test
+	public void testFullQueueDropsTheOldestMessage() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(1, 1, 2, 1, TimeUnit.HOURS));
+		MessageChannel channel = throttle("developers");
+		send(channel, "one");
+		awaitWritten(1);
+		send(channel, "two", "three", "four");
+
+		assertThat(this.scheduler.getQueuedCount(), is(2));
+		assertThat(this.metrics.getSendDropped().getCount(), is(1L));
+	}
+
+	@Test
+	public void testStaleMessagesAreDropped() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(1, 100, 10, 30, TimeUnit.MILLISECONDS));
+		MessageChannel channel = throttle("developers");
+		send(channel, "one", "two", "three");
+
+		Thread.sleep(200);
+		assertThat(this.written.toString(), is("[developers:one]"));
+		assertThat(this.metrics.getSendDropped().getCount(), is(2L));
+		assertThat(this.scheduler.getQueuedCount(), is(0));
+	}
+
+	@Test
+	public void testQueuedMessagesFollowARejoinedChannel() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(1, 50, TimeUnit.MILLISECONDS));
+		MessageChannel channel = throttle("developers");
+		send(channel, "one", "two");
+		awaitWritten(1);
+		MessageChannel rejoined = this.scheduler.throttle("developers", new RecordingChannel(
+				"rejoined"), this.metrics);
+
+		awaitWritten(2);
+		assertThat(rejoined == channel, is(true));
+		assertThat(this.written.toString(), is("[developers:one, rejoined:two]"));
+	}
+
+	@Test
+	public void testAsyncSendCompletesOnceWritten() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(1, 50, TimeUnit.MILLISECONDS));
+		MessageChannel channel = throttle("developers");
+		CompletableFuture<Void> one = channel.sendMessageAsync("one");
+		CompletableFuture<Void> two = channel.sendMessageAsync("two");
+		CompletableFuture<Void> twoAgain = channel.sendMessageAsync("two");
+
+		two.get(5, TimeUnit.SECONDS);
+		assertThat(one.isDone(), is(true));
+		assertThat(twoAgain.isDone(), is(true));
+		assertThat(this.written.toString(), is("[developers:one, developers:two]"));
+	}
+
+	@Test
+	public void testAsyncSendFailsWhenTheMessageIsDropped() throws Exception {
+		this.scheduler = scheduler(new SendRateLimit(1, 1, 1, 1, TimeUnit.HOURS));
+		MessageChannel channel = throttle("developers");
+		channel.sendMessage("one");
+		awaitWritten(1);
+		CompletableFuture<Void> two = channel.sendMessageAsync("two");
+		CompletableFuture<Void> three = channel.sendMessageAsync("three");
+
+		assertThat(two.isCompletedExceptionally(), is(true));
+		this.scheduler.shutdown();
+		try {
+			three.get();
+		} catch (ExecutionException e) {
+			assertThat(e.getCause() instanceof IllegalStateException, is(true));
+		}
+		assertThat(three.isCompletedExceptionally(), is(true));
+		assertThat(channel.sendMessageAsync("four").isCompletedExceptionally(), is(true));
+	}
+
+	private SendScheduler scheduler(SendRateLimit limit) {
+		return new SendScheduler(limit, ThreadFactories.platform("send-test", true));
+	}
+
+	private MessageChannel throttle(String name) {
+		return this.scheduler.throttle(name, new RecordingChannel(name), this.metrics);
+	}
+
+	private void send(MessageChannel channel, String... messages) {
+		for (String message : messages) {
+			channel.sendMessage(message);
+		}
+	}
+
+	private void awaitWritten(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.written.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(this.written.size(), is(count));
+	}
+
+	private class RecordingChannel implements MessageChannel {
+
+		private final String name;
+
+		RecordingChannel(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void registerListener(MessageListener listener) {
+		}
+
+		@Override
+		public void sendMessage(String message) {
+			writtenAt.add(System.nanoTime());
+			written.add(this.name + ":" + message);
+		}
+	}
+}
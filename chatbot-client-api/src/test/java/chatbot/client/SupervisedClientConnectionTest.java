@@ -0,0 +1,172 @@
+package chatbot.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SupervisedClientConnectionTest {
+
+	private final ReconnectSupervisor supervisor = new ReconnectSupervisor(new ReconnectPolicy(1,
+			5, TimeUnit.MILLISECONDS), 1, ThreadFactories.platform("reconnect-test", true));
+	private final FlakyConnection flaky = new FlakyConnection();
+	private final AtomicInteger successes = new AtomicInteger();
+	private final List<String> received = new CopyOnWriteArrayList<String>();
+
+	@After
+	public void after() {
+		this.supervisor.shutdown();
+	}
+
+	@Test
+	public void testFailedConnectsAreRetried() throws Exception {
+		this.flaky.failuresLeft = 3;
+		SupervisedClientConnection connection = connect();
+
+		awaitConnected(connection);
+		assertThat(this.flaky.attempts.get(), is(4));
+		assertThat(this.successes.get(), is(1));
+		assertThat(connection.getFailedAttempts(), is(0));
+		assertThat(connection.getLastFailure().getMessage(), is("refused"));
+	}
+
+	@Test
+	public void testChannelsAreRejoinedWithTheirListenersAfterReconnect() throws Exception {
+		final SupervisedClientConnection connection = connect();
+		awaitConnected(connection);
+		MessageChannel channel = connection.channel("developers");
+		channel.registerListener(new MessageListener() {
+			@Override
+			public void onMessageReceived(Message message) {
+				received.add(message.getPayload());
+			}
+		});
+
+		this.flaky.failuresLeft = 2;
+		this.flaky.drop();
+		awaitConnected(connection);
+		awaitRejoined();
+		this.flaky.deliver("developers", "hello again");
+		channel.sendMessage("still here");
+
+		assertThat(this.successes.get(), is(1));
+		assertThat(connection.getReconnectCount(), is(1L));
+		assertThat(this.flaky.channels.size(), is(2));
+		assertThat(this.received.toString(), is("[hello again]"));
+		assertThat(this.flaky.channels.get(1).sent.toString(), is("[still here]"));
+	}
+
+	@Test
+	public void testClosedConnectionIsNotReconnected() throws Exception {
+		SupervisedClientConnection connection = connect();
+		awaitConnected(connection);
+		connection.close();
+		this.flaky.drop();
+		Thread.sleep(50);
+
+		assertThat(connection.isConnected(), is(false));
+		assertThat(this.flaky.attempts.get(), is(1));
+	}
+
+	private SupervisedClientConnection connect() {
+		SupervisedClientConnection connection = this.supervisor.supervise(this.flaky);
+		connection.connect(new ConnectionListener() {
+			@Override
+			public void onConnectionSuccessful() {
+				successes.incrementAndGet();
+			}
+
+			@Override
+			public void onDisconnected() {
+			}
+		});
+		return connection;
+	}
+
+	private static void awaitConnected(SupervisedClientConnection connection)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!connection.isConnected() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(connection.isConnected(), is(true));
+	}
+
+	private void awaitRejoined() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((this.flaky.channels.size() < 2 || this.flaky.channels.get(1).listeners.isEmpty())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static class FlakyConnection implements ClientConnection {
+
+		private final AtomicInteger attempts = new AtomicInteger();
+		private final List<RecordingChannel> channels = new CopyOnWriteArrayList<RecordingChannel>();
+		private volatile int failuresLeft;
+		private volatile ConnectionListener listener;
+
+		@Override
+		public void connect(ConnectionListener listener) {
+			this.attempts.incrementAndGet();
+			this.listener = listener;
+			if (this.failuresLeft > 0) {
+				this.failuresLeft--;
+				throw new IllegalStateException("refused");
+			}
+			listener.onConnectionSuccessful();
+		}
+
+		@Override
+		public MessageChannel channel(String name) {
+			RecordingChannel channel = new RecordingChannel(name);
+			this.channels.add(channel);
+			return channel;
+		}
+
+		void drop() {
+			this.listener.onDisconnected();
+		}
+
+		void deliver(String channelName, String payload) {
+			RecordingChannel latest = null;
+			for (RecordingChannel channel : this.channels) {
+				if (channel.name.equals(channelName)) {
+					latest = channel;
+				}
+			}
+			for (MessageListener listener : latest.listeners) {
+				listener.onMessageReceived(new Message("andy", payload));
+			}
+		}
+	}
+
+	private static class RecordingChannel implements MessageChannel {
+
+		private final String name;
+		private final List<MessageListener> listeners = new CopyOnWriteArrayList<MessageListener>();
+		private final List<String> sent = new ArrayList<String>();
+
+		RecordingChannel(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void registerListener(MessageListener listener) {
+			this.listeners.add(listener);
+		}
+
+		@Override
+		public void sendMessage(String message) {
+			this.sent.add(message);
+		}
+	}
+}
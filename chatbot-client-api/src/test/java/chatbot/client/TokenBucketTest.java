@@ -0,0 +1,42 @@
+package chatbot.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+	private final TokenBucket bucket = new TokenBucket(3, 100, 1000);
+
+	@Test
+	public void testBurstIsAvailableAtOnce() {
+		for (int i = 0; i < 3; i++) {
+			assertThat(this.bucket.getWaitNanos(1000), is(0L));
+			this.bucket.take(1000);
+		}
+		assertThat(this.bucket.getWaitNanos(1000), is(100L));
+		assertThat(this.bucket.getWaitNanos(1040), is(60L));
+	}
+
+	@Test
+	public void testOneTokenIsRefilledPerInterval() {
+		takeAll(1000);
+		assertThat(this.bucket.getWaitNanos(1100), is(0L));
+		this.bucket.take(1100);
+		assertThat(this.bucket.getWaitNanos(1100), is(100L));
+	}
+
+	@Test
+	public void testRefillStopsWhenTheBucketIsFull() {
+		takeAll(1000);
+		takeAll(10000);
+		assertThat(this.bucket.getWaitNanos(10000), is(100L));
+	}
+
+	private void takeAll(long now) {
+		while (this.bucket.getWaitNanos(now) == 0) {
+			this.bucket.take(now);
+		}
+	}
+}
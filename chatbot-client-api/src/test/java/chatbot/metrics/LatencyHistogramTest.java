@@ -0,0 +1,43 @@
+package chatbot.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	public void testEmptyHistogramReportsZero() {
+		assertThat(this.histogram.getCount(), is(0L));
+		assertThat(this.histogram.getQuantileNanos(0.99), is(0L));
+		assertThat(this.histogram.getAverageNanos(), is(0L));
+	}
+
+	@Test
+	public void testQuantilesAreWithinABucketOfTheRecordedValues() {
+		for (int i = 1; i <= 1000; i++) {
+			this.histogram.record(i * 1000L);
+		}
+		assertThat(this.histogram.getCount(), is(1000L));
+		assertThat(this.histogram.getMaxNanos(), is(1000000L));
+		assertWithinOneEighth(this.histogram.getQuantileNanos(0.5), 500000L);
+		assertWithinOneEighth(this.histogram.getQuantileNanos(0.99), 990000L);
+		assertThat(this.histogram.getQuantileNanos(1.0), is(1000000L));
+	}
+
+	@Test
+	public void testEveryBucketUpperBoundMapsBackToItsBucket() {
+		for (int bucket = 0; bucket < LatencyHistogram.bucket(Long.MAX_VALUE); bucket++) {
+			assertThat(LatencyHistogram.bucket(LatencyHistogram.upperBound(bucket)), is(bucket));
+			assertThat(LatencyHistogram.bucket(LatencyHistogram.upperBound(bucket) + 1), is(bucket + 1));
+		}
+	}
+
+	private static void assertWithinOneEighth(long actual, long expected) {
+		assertThat(actual + " near " + expected, actual >= expected
+				&& actual <= expected + expected / 8, is(true));
+	}
+}
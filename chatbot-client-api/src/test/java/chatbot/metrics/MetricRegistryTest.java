@@ -0,0 +1,93 @@
+package chatbot.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class MetricRegistryTest {
+
+	private final MetricRegistry registry = new MetricRegistry();
+
+	@Test
+	public void testSameNameAndTagsGiveTheSameCounter() {
+		Counter counter = this.registry.counter("chatbot.messages.received", "channel", "#java", "bot", "chuck");
+		counter.increment();
+		assertThat(this.registry.counter("chatbot.messages.received", "bot", "chuck", "channel", "#java"),
+				sameInstance(counter));
+		assertThat(this.registry.getCounters().size(), is(1));
+		assertThat(this.registry.getCounters().firstKey().toString(),
+				is("chatbot.messages.received{bot=chuck,channel=#java}"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testANameCannotBeReusedForAnotherType() {
+		this.registry.counter("chatbot.response.latency");
+		this.registry.histogram("chatbot.response.latency");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAFunctionCounterIsNotHandedOutAsACounter() {
+		this.registry.counter("chatbot.parse.errors", new Gauge() {
+			@Override
+			public double getValue() {
+				return 2;
+			}
+		});
+		this.registry.counter("chatbot.parse.errors");
+	}
+
+	@Test
+	public void testPrometheusFormat() {
+		this.registry.counter("chatbot.messages.sent", "channel", "#java").increment(3);
+		this.registry.counter("chatbot.parse.errors", new Gauge() {
+			@Override
+			public double getValue() {
+				return 2;
+			}
+		});
+		this.registry.gauge("chatbot.responses.hit.ratio", new Gauge() {
+			@Override
+			public double getValue() {
+				return 0.25;
+			}
+		});
+		this.registry.histogram("chatbot.response.latency").record(1000);
+
+		String text = PrometheusFormat.format(this.registry);
+		assertThat(text.startsWith("# TYPE chatbot_messages_sent_total counter\n"
+				+ "chatbot_messages_sent_total{channel=\"#java\"} 3\n"
+				+ "# TYPE chatbot_parse_errors_total counter\n"
+				+ "chatbot_parse_errors_total 2\n"
+				+ "# TYPE chatbot_responses_hit_ratio gauge\n"
+				+ "chatbot_responses_hit_ratio 0.25\n"
+				+ "# TYPE chatbot_response_latency_seconds summary\n"
+				+ "chatbot_response_latency_seconds{quantile=\"0.5\"} 1.0E-6\n"), is(true));
+		assertThat(text.contains("chatbot_response_latency_seconds_count 1\n"), is(true));
+	}
+
+	@Test
+	public void testPrometheusFormatWritesHistogramMaxAsItsOwnFamily() {
+		this.registry.histogram("chatbot.response.latency", "bot", "andy").record(1000);
+		this.registry.histogram("chatbot.response.latency", "bot", "chuck").record(2000);
+
+		assertThat(PrometheusFormat.format(this.registry),
+				is("# TYPE chatbot_response_latency_seconds summary\n"
+						+ "chatbot_response_latency_seconds{bot=\"andy\",quantile=\"0.5\"} 1.0E-6\n"
+						+ "chatbot_response_latency_seconds{bot=\"andy\",quantile=\"0.9\"} 1.0E-6\n"
+						+ "chatbot_response_latency_seconds{bot=\"andy\",quantile=\"0.99\"} 1.0E-6\n"
+						+ "chatbot_response_latency_seconds{bot=\"andy\",quantile=\"0.999\"} 1.0E-6\n"
+						+ "chatbot_response_latency_seconds_sum{bot=\"andy\"} 1.0E-6\n"
+						+ "chatbot_response_latency_seconds_count{bot=\"andy\"} 1\n"
+						+ "chatbot_response_latency_seconds{bot=\"chuck\",quantile=\"0.5\"} 2.0E-6\n"
+						+ "chatbot_response_latency_seconds{bot=\"chuck\",quantile=\"0.9\"} 2.0E-6\n"
+						+ "chatbot_response_latency_seconds{bot=\"chuck\",quantile=\"0.99\"} 2.0E-6\n"
+						+ "chatbot_response_latency_seconds{bot=\"chuck\",quantile=\"0.999\"} 2.0E-6\n"
+						+ "chatbot_response_latency_seconds_sum{bot=\"chuck\"} 2.0E-6\n"
+						+ "chatbot_response_latency_seconds_count{bot=\"chuck\"} 1\n"
+						+ "# TYPE chatbot_response_latency_seconds_max gauge\n"
+						+ "chatbot_response_latency_seconds_max{bot=\"andy\"} 1.0E-6\n"
+						+ "chatbot_response_latency_seconds_max{bot=\"chuck\"} 2.0E-6\n"));
+	}
+}
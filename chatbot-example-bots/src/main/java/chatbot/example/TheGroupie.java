@@ -2,6 +2,7 @@ package chatbot.example;
 import chatbot.adapter.xmpp.XmppClientConnection;
 import chatbot.application.Chatbot;
 import chatbot.client.ClientConnection;
+import chatbot.client.ReconnectSupervisor;
 import chatbot.phrase.PhraseLoader;
 import chatbot.phrase.Phrases;
 import chatbot.response.RespondEveryNTimesStrategy;
@@ -14,8 +15,9 @@ public class TheGroupie {
 	private final Chatbot chatbot;
 	
 	public static void main(String[] args) throws Exception {
-		ClientConnection clientConnection = new XmppClientConnection(
-				"localhost", 5222, "chatbot.user", "chatbot.user", NICKNAME);
+		ClientConnection clientConnection = ReconnectSupervisor.shared().supervise(
+				new XmppClientConnection("localhost", 5222, "chatbot.user",
+						"chatbot.user", NICKNAME));
 		TheGroupie theGroupie = new TheGroupie(clientConnection, "chatroom");
 		theGroupie.start();
 	}
@@ -0,0 +1,77 @@
+package chatbot.host;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AccountingThreadFactory implements ThreadFactory {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final ThreadFactory delegate;
+	private final Set<Thread> liveThreads;
+	private final AtomicInteger threadsStarted;
+	private final AtomicLong finishedCpuNanos;
+
+	public AccountingThreadFactory(ThreadFactory delegate) {
+		this.delegate = delegate;
+		this.liveThreads = ConcurrentHashMap.newKeySet();
+		this.threadsStarted = new AtomicInteger();
+		this.finishedCpuNanos = new AtomicLong();
+	}
+
+	@Override
+	public Thread newThread(final Runnable runnable) {
+		this.threadsStarted.incrementAndGet();
+		return this.delegate.newThread(new Runnable() {
+			@Override
+			public void run() {
+				Thread current = Thread.currentThread();
+				liveThreads.add(current);
+				try {
+					runnable.run();
+				} finally {
+					liveThreads.remove(current);
+					long cpuNanos = cpuNanos(current);
+					if (cpuNanos > 0) {
+						finishedCpuNanos.addAndGet(cpuNanos);
+					}
+				}
+			}
+		});
+	}
+
+	public int getThreadsStarted() {
+		return this.threadsStarted.get();
+	}
+
+	public int getLiveThreadCount() {
+		return this.liveThreads.size();
+	}
+
+	public long getCpuNanos() {
+		long total = this.finishedCpuNanos.get();
+		for (Thread thread : this.liveThreads) {
+			long cpuNanos = cpuNanos(thread);
+			if (cpuNanos > 0) {
+				total += cpuNanos;
+			}
+		}
+		return total;
+	}
+
+	private static long cpuNanos(Thread thread) {
+		if (!THREADS.isThreadCpuTimeSupported()) {
+			return -1;
+		}
+		try {
+			return THREADS.getThreadCpuTime(thread.getId());
+		} catch (UnsupportedOperationException e) {
+			return -1;
+		}
+	}
+}
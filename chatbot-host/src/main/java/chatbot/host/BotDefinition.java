@@ -0,0 +1,66 @@
+package chatbot.host;
+
+import java.util.Collections;
+import java.util.List;
+
+public class BotDefinition {
+
+	public enum Protocol {
+		IRC,
+		XMPP;
+	}
+
+	private final String name;
+	private final Protocol protocol;
+	private final String server;
+	private final int port;
+	private final String username;
+	private final String password;
+	private final String nickname;
+	private final List<ChannelDefinition> channels;
+
+	public BotDefinition(String name, Protocol protocol, String server,
+			int port, String username, String password, String nickname,
+			List<ChannelDefinition> channels) {
+		this.name = name;
+		this.protocol = protocol;
+		this.server = server;
+		this.port = port;
+		this.username = username;
+		this.password = password;
+		this.nickname = nickname;
+		this.channels = Collections.unmodifiableList(channels);
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public Protocol getProtocol() {
+		return this.protocol;
+	}
+
+	public String getServer() {
+		return this.server;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	public String getUsername() {
+		return this.username;
+	}
+
+	public String getPassword() {
+		return this.password;
+	}
+
+	public String getNickname() {
+		return this.nickname;
+	}
+
+	public List<ChannelDefinition> getChannels() {
+		return this.channels;
+	}
+}
@@ -0,0 +1,255 @@
+package chatbot.host;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.relayirc.chatengine.IRCSelector;
+
+import chatbot.adapter.irc.IrcClientConnection;
+import chatbot.adapter.xmpp.XmppClientConnection;
+import chatbot.adapter.xmpp.XmppHeartbeat;
+import chatbot.client.ClientConnection;
+import chatbot.client.ReconnectPolicy;
+import chatbot.client.ReconnectSupervisor;
+import chatbot.client.ThreadFactories;
+import chatbot.metrics.MetricRegistry;
+import chatbot.metrics.MetricsHttpExporter;
+import chatbot.metrics.MetricsJmxExporter;
+import chatbot.phrase.PhraseLoadStatistics;
+
+public class BotHost {
+
+	/** How long IRC connections get to write their QUIT on shutdown. */
+	private static final long QUIT_TIMEOUT_MILLIS = 2000;
+
+	private final HostConfiguration configuration;
+	private final PhraseStore phraseStore;
+	private final List<HostedBot> bots;
+	private final Map<String, RuntimeException> failures;
+	private final MetricRegistry metricRegistry;
+	private IRCSelector ircSelector;
+	private XmppHeartbeat xmppHeartbeat;
+	private ReconnectSupervisor reconnectSupervisor;
+	private ScheduledExecutorService reporter;
+	private MetricsHttpExporter httpExporter;
+	private MetricsJmxExporter jmxExporter;
+
+	public BotHost(HostConfiguration configuration) {
+		this.configuration = configuration;
+		this.phraseStore = new PhraseStore(configuration.getBaseDirectory());
+		this.bots = new ArrayList<HostedBot>();
+		this.failures = new LinkedHashMap<String, RuntimeException>();
+		this.metricRegistry = new MetricRegistry();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: BotHost <bots.properties>");
+			System.exit(2);
+		}
+		final BotHost host = new BotHost(HostConfiguration.load(new File(args[0])));
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				host.shutdown();
+			}
+		}, "bot-host-shutdown"));
+		host.startExporting();
+		host.start();
+		for (PhraseLoadStatistics statistics : host.getPhraseLoadStatistics()) {
+			System.out.println(statistics);
+		}
+		host.startReporting(System.out);
+	}
+
+	public synchronized void start() {
+		for (BotDefinition definition : this.configuration.getBots()) {
+			try {
+				AccountingThreadFactory threadFactory = new AccountingThreadFactory(
+						threadFactory("bot-" + definition.getName()));
+				HostedBot bot = new HostedBot(definition, supervised(connection(definition,
+						threadFactory)), threadFactory, this.phraseStore,
+						this.configuration, this.metricRegistry);
+				this.bots.add(bot);
+				bot.start();
+			} catch (RuntimeException e) {
+				this.failures.put(definition.getName(), e);
+			}
+		}
+	}
+
+	public synchronized void startReporting(final PrintStream out) {
+		if (this.reporter != null || this.configuration.getReportIntervalSeconds() <= 0) {
+			return;
+		}
+		this.reporter = Executors.newSingleThreadScheduledExecutor(
+				ThreadFactories.platform("bot-host-report"));
+		int interval = this.configuration.getReportIntervalSeconds();
+		this.reporter.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				out.print(report());
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+	}
+
+	public synchronized void startExporting() throws IOException {
+		if (this.httpExporter == null
+				&& this.configuration.getMetricsHttpPort() != HostConfiguration.METRICS_HTTP_DISABLED) {
+			this.httpExporter = new MetricsHttpExporter(this.metricRegistry,
+					this.configuration.getMetricsHttpPort());
+			this.httpExporter.start();
+		}
+		if (this.jmxExporter == null && this.configuration.isMetricsJmx()) {
+			this.jmxExporter = new MetricsJmxExporter(this.metricRegistry);
+			this.jmxExporter.start();
+		}
+	}
+
+	public synchronized void shutdown() {
+		if (this.reporter != null) {
+			this.reporter.shutdownNow();
+			this.reporter = null;
+		}
+		if (this.httpExporter != null) {
+			this.httpExporter.stop();
+			this.httpExporter = null;
+		}
+		if (this.jmxExporter != null) {
+			this.jmxExporter.stop();
+			this.jmxExporter = null;
+		}
+		for (HostedBot bot : this.bots) {
+			try {
+				bot.stop();
+			} catch (RuntimeException e) {
+				// carry on closing the other bots
+			}
+		}
+		if (this.ircSelector != null) {
+			this.ircSelector.shutdown(QUIT_TIMEOUT_MILLIS);
+			this.ircSelector = null;
+		}
+		if (this.reconnectSupervisor != null) {
+			this.reconnectSupervisor.shutdown();
+			this.reconnectSupervisor = null;
+		}
+		if (this.xmppHeartbeat != null) {
+			this.xmppHeartbeat.shutdown();
+			this.xmppHeartbeat = null;
+		}
+	}
+
+	public synchronized List<BotUsage> usage() {
+		List<BotUsage> usage = new ArrayList<BotUsage>();
+		for (HostedBot bot : this.bots) {
+			usage.add(bot.usage());
+		}
+		return usage;
+	}
+
+	public Collection<PhraseLoadStatistics> getPhraseLoadStatistics() {
+		return this.phraseStore.getLoadStatistics();
+	}
+
+	public MetricRegistry getMetricRegistry() {
+		return this.metricRegistry;
+	}
+
+	public synchronized Map<String, RuntimeException> getFailures() {
+		return Collections.unmodifiableMap(new LinkedHashMap<String, RuntimeException>(
+				this.failures));
+	}
+
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("Bot host [bots:%d, failed:%d, phrase sources:%d, phrases:%d]%n",
+				this.configuration.getBots().size(), getFailures().size(),
+				this.phraseStore.getSourceCount(), this.phraseStore.getPhraseCount()));
+		for (BotUsage usage : usage()) {
+			report.append("  ").append(usage).append(String.format("%n"));
+		}
+		for (Map.Entry<String, RuntimeException> failure : getFailures().entrySet()) {
+			report.append("  ").append(failure.getKey()).append(" failed: ")
+					.append(failure.getValue().getMessage()).append(String.format("%n"));
+		}
+		return report.toString();
+	}
+
+	private ThreadFactory threadFactory(String name) {
+		if (ThreadFactories.VIRTUAL.equals(this.configuration.getThreads())) {
+			return ThreadFactories.virtual(name);
+		}
+		return ThreadFactories.platform(name);
+	}
+
+	private ClientConnection connection(BotDefinition definition,
+			ThreadFactory threadFactory) {
+		switch (definition.getProtocol()) {
+		case IRC:
+			IrcClientConnection irc = new IrcClientConnection(definition.getServer(),
+					definition.getPort(), definition.getNickname(),
+					definition.getPassword(), ircSelector(), threadFactory);
+			irc.setMetricRegistry(this.metricRegistry, definition.getName());
+			if (this.configuration.isSendThrottle()) {
+				irc.throttleSending(this.configuration.getSendRateLimit(definition.getProtocol()));
+			}
+			return irc;
+		case XMPP:
+			XmppClientConnection xmpp = new XmppClientConnection(definition.getServer(),
+					definition.getPort(), definition.getUsername(),
+					definition.getPassword(), definition.getNickname(),
+					xmppHeartbeat());
+			xmpp.setMetricRegistry(this.metricRegistry, definition.getName());
+			if (this.configuration.isSendThrottle()) {
+				xmpp.throttleSending(this.configuration.getSendRateLimit(definition.getProtocol()));
+			}
+			return xmpp;
+		default:
+			throw new IllegalArgumentException("Unsupported protocol: "
+					+ definition.getProtocol());
+		}
+	}
+
+	private ClientConnection supervised(ClientConnection connection) {
+		if (!this.configuration.isReconnect()) {
+			return connection;
+		}
+		if (this.reconnectSupervisor == null) {
+			this.reconnectSupervisor = new ReconnectSupervisor(new ReconnectPolicy(
+					this.configuration.getReconnectInitialDelayMillis(),
+					this.configuration.getReconnectMaxDelayMillis(), TimeUnit.MILLISECONDS),
+					2, ThreadFactories.platform("bot-host-reconnect", true));
+		}
+		return this.reconnectSupervisor.supervise(connection);
+	}
+
+	private XmppHeartbeat xmppHeartbeat() {
+		if (this.xmppHeartbeat == null) {
+			this.xmppHeartbeat = new XmppHeartbeat("bot-host-xmpp-heartbeat", false);
+		}
+		return this.xmppHeartbeat;
+	}
+
+	private IRCSelector ircSelector() {
+		if (this.ircSelector == null) {
+			try {
+				this.ircSelector = new IRCSelector(threadFactory("bot-host-irc-selector"));
+			} catch (IOException e) {
+				throw new IllegalStateException("Unable to open IRC selector", e);
+			}
+		}
+		return this.ircSelector;
+	}
+}
@@ -0,0 +1,83 @@
+package chatbot.host;
+
+import java.util.concurrent.TimeUnit;
+
+public class BotUsage {
+
+	private final String botName;
+	private final boolean running;
+	private final int channelsBound;
+	private final int channelsJoined;
+	private final long messagesReceived;
+	private final long messagesDispatched;
+	private final long messagesDropped;
+	private final int queuedMessages;
+	private final int liveThreads;
+	private final long cpuNanos;
+
+	public BotUsage(String botName, boolean running, int channelsBound,
+			int channelsJoined, long messagesReceived, long messagesDispatched,
+			long messagesDropped, int queuedMessages, int liveThreads,
+			long cpuNanos) {
+		this.botName = botName;
+		this.running = running;
+		this.channelsBound = channelsBound;
+		this.channelsJoined = channelsJoined;
+		this.messagesReceived = messagesReceived;
+		this.messagesDispatched = messagesDispatched;
+		this.messagesDropped = messagesDropped;
+		this.queuedMessages = queuedMessages;
+		this.liveThreads = liveThreads;
+		this.cpuNanos = cpuNanos;
+	}
+
+	public String getBotName() {
+		return this.botName;
+	}
+
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	public int getChannelsBound() {
+		return this.channelsBound;
+	}
+
+	public int getChannelsJoined() {
+		return this.channelsJoined;
+	}
+
+	public long getMessagesReceived() {
+		return this.messagesReceived;
+	}
+
+	public long getMessagesDispatched() {
+		return this.messagesDispatched;
+	}
+
+	public long getMessagesDropped() {
+		return this.messagesDropped;
+	}
+
+	public int getQueuedMessages() {
+		return this.queuedMessages;
+	}
+
+	public int getLiveThreads() {
+		return this.liveThreads;
+	}
+
+	public long getCpuNanos() {
+		return this.cpuNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%s [running:%s, channels:%d/%d, received:%d, dispatched:%d, dropped:%d, queued:%d, threads:%d, cpu:%dms]",
+				this.botName, this.running, this.channelsJoined, this.channelsBound,
+				this.messagesReceived, this.messagesDispatched, this.messagesDropped,
+				this.queuedMessages, this.liveThreads,
+				TimeUnit.NANOSECONDS.toMillis(this.cpuNanos));
+	}
+}
@@ -0,0 +1,27 @@
+package chatbot.host;
+
+public class ChannelDefinition {
+
+	private final String channelName;
+	private final String strategy;
+	private final String phraseSource;
+
+	public ChannelDefinition(String channelName, String strategy,
+			String phraseSource) {
+		this.channelName = channelName;
+		this.strategy = strategy;
+		this.phraseSource = phraseSource;
+	}
+
+	public String getChannelName() {
+		return this.channelName;
+	}
+
+	public String getStrategy() {
+		return this.strategy;
+	}
+
+	public String getPhraseSource() {
+		return this.phraseSource;
+	}
+}
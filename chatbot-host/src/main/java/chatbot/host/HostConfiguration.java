@@ -0,0 +1,234 @@
+package chatbot.host;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import chatbot.client.SendRateLimit;
+import chatbot.client.ThreadFactories;
+import chatbot.host.BotDefinition.Protocol;
+import chatbot.response.OverflowPolicy;
+
+public class HostConfiguration {
+
+	public static final int DEFAULT_IRC_PORT = 6667;
+	public static final int DEFAULT_XMPP_PORT = 5222;
+	public static final int DEFAULT_DISPATCH_CAPACITY = 256;
+	public static final int DEFAULT_JOIN_PARALLELISM = 16;
+	public static final int DEFAULT_REPORT_INTERVAL_SECONDS = 60;
+	public static final int METRICS_HTTP_DISABLED = -1;
+	public static final int DEFAULT_RECONNECT_INITIAL_DELAY_MILLIS = 1000;
+	public static final int DEFAULT_RECONNECT_MAX_DELAY_MILLIS = 300000;
+	public static final int PROTOCOL_DEFAULT = 0;
+
+	private final String threads;
+	private final int dispatchCapacity;
+	private final OverflowPolicy overflowPolicy;
+	private final int joinParallelism;
+	private final int reportIntervalSeconds;
+	private final int metricsHttpPort;
+	private final boolean metricsJmx;
+	private final boolean reconnect;
+	private final int reconnectInitialDelayMillis;
+	private final int reconnectMaxDelayMillis;
+	private final boolean sendThrottle;
+	private final int sendBurst;
+	private final int sendIntervalMillis;
+	private final int sendQueueCapacity;
+	private final int sendMaxAgeMillis;
+	private final File baseDirectory;
+	private final List<BotDefinition> bots;
+
+	public HostConfiguration(Properties properties, File baseDirectory) {
+		this.threads = properties.getProperty("host.threads", ThreadFactories.PLATFORM);
+		if (!ThreadFactories.PLATFORM.equals(this.threads)
+				&& !ThreadFactories.VIRTUAL.equals(this.threads)) {
+			throw new IllegalArgumentException("host.threads must be "
+					+ ThreadFactories.PLATFORM + " or " + ThreadFactories.VIRTUAL
+					+ ", not " + this.threads);
+		}
+		this.dispatchCapacity = intProperty(properties, "host.dispatch.capacity",
+				DEFAULT_DISPATCH_CAPACITY);
+		this.overflowPolicy = OverflowPolicy.valueOf(properties.getProperty(
+				"host.dispatch.overflow", OverflowPolicy.DROP_OLDEST.name())
+				.trim().toUpperCase(Locale.ROOT));
+		this.joinParallelism = intProperty(properties, "host.join.parallelism",
+				DEFAULT_JOIN_PARALLELISM);
+		this.reportIntervalSeconds = intProperty(properties,
+				"host.report.interval.seconds", DEFAULT_REPORT_INTERVAL_SECONDS);
+		this.metricsHttpPort = intProperty(properties, "host.metrics.http.port",
+				METRICS_HTTP_DISABLED);
+		this.metricsJmx = Boolean.parseBoolean(properties.getProperty(
+				"host.metrics.jmx", "false").trim());
+		this.reconnect = Boolean.parseBoolean(properties.getProperty(
+				"host.reconnect", "true").trim());
+		this.reconnectInitialDelayMillis = intProperty(properties,
+				"host.reconnect.initial.delay.ms", DEFAULT_RECONNECT_INITIAL_DELAY_MILLIS);
+		this.reconnectMaxDelayMillis = intProperty(properties,
+				"host.reconnect.max.delay.ms", DEFAULT_RECONNECT_MAX_DELAY_MILLIS);
+		this.sendThrottle = Boolean.parseBoolean(properties.getProperty(
+				"host.send.throttle", "true").trim());
+		this.sendBurst = intProperty(properties, "host.send.burst", PROTOCOL_DEFAULT);
+		this.sendIntervalMillis = intProperty(properties, "host.send.interval.ms",
+				PROTOCOL_DEFAULT);
+		this.sendQueueCapacity = intProperty(properties, "host.send.queue.capacity",
+				PROTOCOL_DEFAULT);
+		this.sendMaxAgeMillis = intProperty(properties, "host.send.max.age.ms",
+				PROTOCOL_DEFAULT);
+		this.baseDirectory = baseDirectory;
+
+		List<BotDefinition> definitions = new ArrayList<BotDefinition>();
+		for (String name : list(required(properties, "bots"))) {
+			definitions.add(bot(properties, name));
+		}
+		this.bots = Collections.unmodifiableList(definitions);
+	}
+
+	public static HostConfiguration load(File file) throws IOException {
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		try {
+			properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+		} finally {
+			in.close();
+		}
+		return new HostConfiguration(properties, file.getAbsoluteFile().getParentFile());
+	}
+
+	public String getThreads() {
+		return this.threads;
+	}
+
+	public int getDispatchCapacity() {
+		return this.dispatchCapacity;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	public int getJoinParallelism() {
+		return this.joinParallelism;
+	}
+
+	public int getReportIntervalSeconds() {
+		return this.reportIntervalSeconds;
+	}
+
+	public int getMetricsHttpPort() {
+		return this.metricsHttpPort;
+	}
+
+	public boolean isMetricsJmx() {
+		return this.metricsJmx;
+	}
+
+	public boolean isReconnect() {
+		return this.reconnect;
+	}
+
+	public int getReconnectInitialDelayMillis() {
+		return this.reconnectInitialDelayMillis;
+	}
+
+	public int getReconnectMaxDelayMillis() {
+		return this.reconnectMaxDelayMillis;
+	}
+
+	public boolean isSendThrottle() {
+		return this.sendThrottle;
+	}
+
+	/**
+	 * The send rate limit for connections of the given protocol, its
+	 * SendRateLimit default with the host.send settings applied, or null
+	 * when sending is not throttled.
+	 */
+	public SendRateLimit getSendRateLimit(Protocol protocol) {
+		if (!this.sendThrottle) {
+			return null;
+		}
+		SendRateLimit defaults = protocol == Protocol.IRC ? SendRateLimit.IRC : SendRateLimit.XMPP;
+		return new SendRateLimit(
+				this.sendBurst != PROTOCOL_DEFAULT ? this.sendBurst : defaults.getBurst(),
+				this.sendIntervalMillis != PROTOCOL_DEFAULT ? TimeUnit.MILLISECONDS
+						.toNanos(this.sendIntervalMillis) : defaults.getIntervalNanos(),
+				this.sendQueueCapacity != PROTOCOL_DEFAULT ? this.sendQueueCapacity
+						: defaults.getQueueCapacity(),
+				this.sendMaxAgeMillis != PROTOCOL_DEFAULT ? TimeUnit.MILLISECONDS
+						.toNanos(this.sendMaxAgeMillis) : defaults.getMaxAgeNanos(),
+				TimeUnit.NANOSECONDS);
+	}
+
+	public File getBaseDirectory() {
+		return this.baseDirectory;
+	}
+
+	public List<BotDefinition> getBots() {
+		return this.bots;
+	}
+
+	private static BotDefinition bot(Properties properties, String name) {
+		String prefix = "bot." + name + ".";
+		Protocol protocol = Protocol.valueOf(required(properties,
+				prefix + "protocol").toUpperCase(Locale.ROOT));
+		int defaultPort = protocol == Protocol.IRC ? DEFAULT_IRC_PORT : DEFAULT_XMPP_PORT;
+		String nickname = properties.getProperty(prefix + "nickname", name).trim();
+		String username = properties.getProperty(prefix + "username", nickname).trim();
+		String password = properties.getProperty(prefix + "password", "");
+		String strategy = required(properties, prefix + "strategy");
+		String phrases = required(properties, prefix + "phrases");
+
+		List<ChannelDefinition> channels = new ArrayList<ChannelDefinition>();
+		for (String channel : list(required(properties, prefix + "channels"))) {
+			String channelPrefix = prefix + "channel." + channel + ".";
+			channels.add(new ChannelDefinition(channel,
+					properties.getProperty(channelPrefix + "strategy", strategy).trim(),
+					properties.getProperty(channelPrefix + "phrases", phrases).trim()));
+		}
+
+		return new BotDefinition(name, protocol, required(properties, prefix + "server"),
+				intProperty(properties, prefix + "port", defaultPort), username,
+				password, nickname, channels);
+	}
+
+	private static String required(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value == null || value.trim().length() == 0) {
+			throw new IllegalArgumentException("Missing property: " + key);
+		}
+		return value.trim();
+	}
+
+	private static int intProperty(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Property " + key
+					+ " must be a number, not " + value, e);
+		}
+	}
+
+	private static List<String> list(String value) {
+		List<String> items = new ArrayList<String>();
+		for (String item : value.split(",")) {
+			if (item.trim().length() > 0) {
+				items.add(item.trim());
+			}
+		}
+		return items;
+	}
+}
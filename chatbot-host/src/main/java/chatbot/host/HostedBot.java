@@ -0,0 +1,84 @@
+package chatbot.host;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chatbot.application.ChannelBinding;
+import chatbot.application.Chatbot;
+import chatbot.client.ClientConnection;
+import chatbot.metrics.MetricRegistry;
+import chatbot.response.MessageDispatchQueue;
+
+public class HostedBot {
+
+	private final BotDefinition definition;
+	private final AccountingThreadFactory threadFactory;
+	private final Chatbot chatbot;
+	private volatile boolean running;
+
+	public HostedBot(BotDefinition definition, ClientConnection connection,
+			AccountingThreadFactory threadFactory, PhraseStore phraseStore,
+			HostConfiguration configuration, MetricRegistry metricRegistry) {
+		this.definition = definition;
+		this.threadFactory = threadFactory;
+
+		List<ChannelBinding> bindings = new ArrayList<ChannelBinding>();
+		for (ChannelDefinition channel : definition.getChannels()) {
+			bindings.add(new ChannelBinding(channel.getChannelName(),
+					ResponseStrategies.create(channel.getStrategy(), definition.getNickname()),
+					phraseStore.phrases(channel.getPhraseSource())));
+		}
+		this.chatbot = new Chatbot(connection, bindings).joiningInParallel(
+				configuration.getJoinParallelism(), threadFactory).measuredBy(
+				metricRegistry, definition.getName());
+		if (configuration.getDispatchCapacity() > 0) {
+			this.chatbot.dispatchingAsynchronously(configuration.getDispatchCapacity(),
+					configuration.getOverflowPolicy(), threadFactory);
+		}
+	}
+
+	public void start() {
+		this.chatbot.connect();
+		this.running = true;
+	}
+
+	/** Closes the bot's dispatch queues, send scheduler and connection. */
+	public void stop() {
+		this.running = false;
+		this.chatbot.close();
+	}
+
+	public String getName() {
+		return this.definition.getName();
+	}
+
+	public BotDefinition getDefinition() {
+		return this.definition;
+	}
+
+	public Chatbot getChatbot() {
+		return this.chatbot;
+	}
+
+	public BotUsage usage() {
+		long received = 0;
+		long dispatched = 0;
+		long dropped = 0;
+		int queued = 0;
+		for (String channelName : this.chatbot.getJoinedChannelNames()) {
+			MessageDispatchQueue queue = this.chatbot.getDispatchQueue(channelName);
+			if (queue != null) {
+				received += queue.getReceivedCount();
+				dispatched += queue.getDispatchedCount();
+				dropped += queue.getDroppedCount();
+				queued += queue.getDepth();
+			}
+		}
+		return new BotUsage(getName(), this.running,
+				this.chatbot.getChannelNames().size(),
+				this.chatbot.getJoinedChannelNames().size(), received,
+				dispatched, dropped, queued,
+				this.threadFactory.getLiveThreadCount(),
+				this.threadFactory.getCpuNanos());
+	}
+}
@@ -0,0 +1,122 @@
+package chatbot.host;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import chatbot.phrase.MappedPhraseCorpus;
+import chatbot.phrase.Phrase;
+import chatbot.phrase.PhraseFileLoader;
+import chatbot.phrase.PhraseFormat;
+import chatbot.phrase.PhraseLoadStatistics;
+import chatbot.phrase.Phrases;
+
+public class PhraseStore {
+
+	public static final String CLASSPATH_PREFIX = "classpath:";
+
+	private final File baseDirectory;
+	private final ConcurrentMap<String, List<Phrase>> phrasesBySource;
+	private final ConcurrentMap<String, PhraseLoadStatistics> statistics;
+
+	public PhraseStore(File baseDirectory) {
+		this.baseDirectory = baseDirectory;
+		this.phrasesBySource = new ConcurrentHashMap<String, List<Phrase>>();
+		this.statistics = new ConcurrentHashMap<String, PhraseLoadStatistics>();
+	}
+
+	public Phrases phrases(String source) {
+		List<Phrase> phrases = this.phrasesBySource.get(source);
+		if (phrases == null) {
+			List<Phrase> loaded = load(source);
+			phrases = this.phrasesBySource.putIfAbsent(source, loaded);
+			if (phrases == null) {
+				phrases = loaded;
+			}
+		}
+		return new Phrases(phrases);
+	}
+
+	public int getSourceCount() {
+		return this.phrasesBySource.size();
+	}
+
+	public int getPhraseCount() {
+		int count = 0;
+		for (List<Phrase> phrases : this.phrasesBySource.values()) {
+			count += phrases.size();
+		}
+		return count;
+	}
+
+	public Collection<PhraseLoadStatistics> getLoadStatistics() {
+		return Collections.unmodifiableCollection(this.statistics.values());
+	}
+
+	private List<Phrase> load(String source) {
+		if (source.endsWith(MappedPhraseCorpus.FILE_SUFFIX)
+				&& !source.startsWith(CLASSPATH_PREFIX)) {
+			return loadCorpus(source);
+		}
+		PhraseFileLoader loader = new PhraseFileLoader();
+		List<Phrase> phrases;
+		try {
+			phrases = readPhrases(loader, source);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to load phrases: " + source, e);
+		}
+		if (phrases.isEmpty()) {
+			throw new IllegalStateException("No phrases in " + source);
+		}
+		this.statistics.put(source, loader.getStatistics());
+		return phrases;
+	}
+
+	private List<Phrase> loadCorpus(String source) {
+		MappedPhraseCorpus corpus;
+		try {
+			corpus = MappedPhraseCorpus.open(file(source));
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open phrase corpus: " + source, e);
+		}
+		if (corpus.isEmpty()) {
+			throw new IllegalStateException("No phrases in " + source);
+		}
+		return corpus;
+	}
+
+	private List<Phrase> readPhrases(PhraseFileLoader loader, String source)
+			throws IOException {
+		if (source.startsWith(CLASSPATH_PREFIX)) {
+			String resource = source.substring(CLASSPATH_PREFIX.length());
+			InputStream in = PhraseStore.class.getClassLoader().getResourceAsStream(resource);
+			if (in == null) {
+				throw new IOException("No such resource: " + resource);
+			}
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+					StandardCharsets.UTF_8));
+			try {
+				return loader.loadPhrases(reader, PhraseFormat.forName(resource), source);
+			} finally {
+				reader.close();
+			}
+		}
+		return loader.loadPhrases(file(source));
+	}
+
+	private File file(String source) {
+		File file = new File(source);
+		if (!file.isAbsolute() && this.baseDirectory != null) {
+			file = new File(this.baseDirectory, source);
+		}
+		return file;
+	}
+}
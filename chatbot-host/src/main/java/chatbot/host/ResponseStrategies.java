@@ -0,0 +1,37 @@
+package chatbot.host;
+
+import chatbot.response.CommandResponseStrategy;
+import chatbot.response.NeverRespondStrategy;
+import chatbot.response.RespondEveryNTimesStrategy;
+import chatbot.response.RespondToSpecificUsersStrategy;
+import chatbot.response.ResponseStrategy;
+
+public final class ResponseStrategies {
+
+	private ResponseStrategies() {
+	}
+
+	public static ResponseStrategy create(String spec, String nickname) {
+		int separator = spec.indexOf(':');
+		String name = separator < 0 ? spec : spec.substring(0, separator);
+		String argument = separator < 0 ? "" : spec.substring(separator + 1);
+
+		if (name.equals("command")) {
+			return new CommandResponseStrategy(nickname);
+		}
+		if (name.equals("never")) {
+			return new NeverRespondStrategy();
+		}
+		if (name.equals("every")) {
+			try {
+				return new RespondEveryNTimesStrategy(nickname, Integer.parseInt(argument));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Expected every:<n>, not " + spec, e);
+			}
+		}
+		if (name.equals("users")) {
+			return new RespondToSpecificUsersStrategy(argument.split(";"));
+		}
+		throw new IllegalArgumentException("Unknown response strategy: " + spec);
+	}
+}
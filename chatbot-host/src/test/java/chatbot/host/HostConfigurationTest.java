@@ -0,0 +1,106 @@
+package chatbot.host;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import chatbot.client.SendRateLimit;
+import chatbot.host.BotDefinition.Protocol;
+import chatbot.response.CommandResponseStrategy;
+import chatbot.response.OverflowPolicy;
+import chatbot.response.RespondEveryNTimesStrategy;
+import chatbot.response.RespondToSpecificUsersStrategy;
+
+public class HostConfigurationTest {
+
+	private HostConfiguration configuration;
+
+	@Before
+	public void before() throws Exception {
+		File file = new File(getClass().getClassLoader().getResource("bots.properties").toURI());
+		this.configuration = HostConfiguration.load(file);
+	}
+
+	@Test
+	public void testHostSettingsAreRead() {
+		assertThat(this.configuration.getThreads(), is("platform"));
+		assertThat(this.configuration.getDispatchCapacity(), is(64));
+		assertThat(this.configuration.getOverflowPolicy(), is(OverflowPolicy.DROP_NEWEST));
+		assertThat(this.configuration.getJoinParallelism(), is(HostConfiguration.DEFAULT_JOIN_PARALLELISM));
+		assertThat(this.configuration.getReportIntervalSeconds(), is(30));
+		assertThat(this.configuration.getMetricsHttpPort(), is(9404));
+		assertThat(this.configuration.isMetricsJmx(), is(true));
+		assertThat(this.configuration.isReconnect(), is(true));
+		assertThat(this.configuration.getReconnectInitialDelayMillis(),
+				is(HostConfiguration.DEFAULT_RECONNECT_INITIAL_DELAY_MILLIS));
+		assertThat(this.configuration.getReconnectMaxDelayMillis(), is(60000));
+	}
+
+	@Test
+	public void testSendSettingsOverrideProtocolDefaults() {
+		SendRateLimit irc = this.configuration.getSendRateLimit(Protocol.IRC);
+		assertThat(irc.getBurst(), is(SendRateLimit.IRC.getBurst()));
+		assertThat(irc.getIntervalNanos(), is(TimeUnit.SECONDS.toNanos(3)));
+		assertThat(irc.getQueueCapacity(), is(SendRateLimit.DEFAULT_QUEUE_CAPACITY));
+
+		SendRateLimit xmpp = this.configuration.getSendRateLimit(Protocol.XMPP);
+		assertThat(xmpp.getBurst(), is(SendRateLimit.XMPP.getBurst()));
+		assertThat(xmpp.getIntervalNanos(), is(TimeUnit.SECONDS.toNanos(3)));
+	}
+
+	@Test
+	public void testBotDefaultsComeFromProtocolAndName() {
+		BotDefinition chuck = this.configuration.getBots().get(0);
+		assertThat(chuck.getName(), is("chuck"));
+		assertThat(chuck.getProtocol(), is(Protocol.XMPP));
+		assertThat(chuck.getPort(), is(HostConfiguration.DEFAULT_XMPP_PORT));
+		assertThat(chuck.getNickname(), is("chuck"));
+		assertThat(chuck.getUsername(), is("chatbot.user"));
+
+		BotDefinition groupie = this.configuration.getBots().get(1);
+		assertThat(groupie.getProtocol(), is(Protocol.IRC));
+		assertThat(groupie.getPort(), is(6697));
+		assertThat(groupie.getUsername(), is("groupie"));
+	}
+
+	@Test
+	public void testChannelSettingsOverrideBotSettings() {
+		BotDefinition chuck = this.configuration.getBots().get(0);
+		assertThat(chuck.getChannels().size(), is(2));
+		assertThat(chuck.getChannels().get(0).getStrategy(), is("command"));
+		assertThat(chuck.getChannels().get(1).getChannelName(), is("developers"));
+		assertThat(chuck.getChannels().get(1).getStrategy(), is("every:3"));
+		assertThat(chuck.getChannels().get(1).getPhraseSource(), is("chuck.txt"));
+	}
+
+	@Test
+	public void testStrategySpecsCreateStrategies() {
+		assertThat(ResponseStrategies.create("command", "chuck"), instanceOf(CommandResponseStrategy.class));
+		assertThat(ResponseStrategies.create("every:3", "chuck"), instanceOf(RespondEveryNTimesStrategy.class));
+		assertThat(ResponseStrategies.create("users:alice;bob", "chuck"),
+				instanceOf(RespondToSpecificUsersStrategy.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownStrategyIsRejected() {
+		ResponseStrategies.create("sometimes", "chuck");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingServerIsRejected() {
+		Properties properties = new Properties();
+		properties.setProperty("bots", "chuck");
+		properties.setProperty("bot.chuck.protocol", "xmpp");
+		properties.setProperty("bot.chuck.channels", "chatroom");
+		properties.setProperty("bot.chuck.strategy", "command");
+		properties.setProperty("bot.chuck.phrases", "chuck.txt");
+		new HostConfiguration(properties, null);
+	}
+}
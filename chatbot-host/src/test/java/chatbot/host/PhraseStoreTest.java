@@ -0,0 +1,69 @@
+package chatbot.host;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import chatbot.phrase.MappedPhraseCorpus;
+import chatbot.phrase.Phrases;
+
+public class PhraseStoreTest {
+
+	private PhraseStore store;
+
+	@Before
+	public void before() throws Exception {
+		File base = new File(getClass().getClassLoader().getResource("bots.properties").toURI())
+				.getParentFile();
+		this.store = new PhraseStore(base);
+	}
+
+	@Test
+	public void testFileSourceSkipsBlankAndCommentLines() {
+		Phrases phrases = this.store.phrases("chuck.txt");
+		assertThat(phrases.size(), is(2));
+		assertThat(phrases.getPhraseAt(0).toString(), is("Chuck Norris can divide by zero."));
+	}
+
+	@Test
+	public void testClasspathSourceIsLoaded() {
+		assertThat(this.store.phrases("classpath:groupie.txt").size(), is(2));
+	}
+
+	@Test
+	public void testSourceIsLoadedOnceAndSharedButSelectionIsNot() {
+		Phrases first = this.store.phrases("chuck.txt");
+		Phrases second = this.store.phrases("chuck.txt");
+		assertThat(first.getPhraseAt(0) == second.getPhraseAt(0), is(true));
+		assertThat(this.store.getSourceCount(), is(1));
+		assertThat(this.store.getPhraseCount(), is(2));
+
+		first.next();
+		assertThat(second.next().toString(), is("Chuck Norris can divide by zero."));
+	}
+
+	@Test
+	public void testCorpusSourceIsMapped() throws Exception {
+		File corpus = File.createTempFile("chuck", MappedPhraseCorpus.FILE_SUFFIX);
+		try {
+			MappedPhraseCorpus.write(new BufferedReader(new StringReader(
+					"Chuck Norris can divide by zero.\n")), corpus);
+			Phrases phrases = this.store.phrases(corpus.getAbsolutePath());
+			assertThat(phrases.size(), is(1));
+			assertThat(phrases.next().toString(), is("Chuck Norris can divide by zero."));
+		} finally {
+			corpus.delete();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMissingSourceIsReported() {
+		this.store.phrases("missing.txt");
+	}
+}
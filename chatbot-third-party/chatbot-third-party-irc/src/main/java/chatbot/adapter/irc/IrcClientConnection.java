@@ -1,21 +1,126 @@
 package chatbot.adapter.irc;
 
+import java.util.concurrent.ThreadFactory;
+
 import org.relayirc.chatengine.Channel;
 import org.relayirc.chatengine.ChatEngine;
+import org.relayirc.chatengine.ChatEngineAdapter;
+import org.relayirc.chatengine.ChatEngineEvent;
 import org.relayirc.chatengine.IChatEngine;
+import org.relayirc.chatengine.IRCSelector;
 
 import chatbot.client.ClientConnection;
 import chatbot.client.ConnectionListener;
 import chatbot.client.MessageChannel;
+import chatbot.client.SendRateLimit;
+import chatbot.client.SendScheduler;
+import chatbot.client.ThreadFactories;
+import chatbot.metrics.ChannelMetrics;
+import chatbot.metrics.ConnectionMetrics;
+import chatbot.metrics.Gauge;
+import chatbot.metrics.MetricRegistry;
 
 public class IrcClientConnection implements ClientConnection {
 
+	public static final String PROTOCOL = "irc";
+	public static final String OUTPUT_QUEUE_DEPTH = "chatbot.irc.output.depth";
+	public static final String OUTPUT_REJECTED = "chatbot.irc.output.rejected";
+
 	private final IChatEngine chatEngine;
+	private final ChatEngine engine;
+	private volatile ConnectionMetrics metrics;
+	private volatile boolean connected;
+	private volatile SendScheduler sendScheduler;
+	private IrcConnectionListenerAdapter connectionListener;
 
 	public IrcClientConnection(String server, int port, String username,
 			String password) {
-		this.chatEngine = new ChatEngine(server, port, username, username,
-				username, username);
+		this(server, port, username, password, null);
+	}
+
+	public IrcClientConnection(String server, int port, String username,
+			String password, IRCSelector selector) {
+		this(server, port, username, password, selector, ThreadFactories
+				.configured("irc-" + username));
+	}
+
+	public IrcClientConnection(String server, int port, String username,
+			String password, IRCSelector selector, ThreadFactory threadFactory) {
+		ChatEngine engine = new ChatEngine(server, port, username, username,
+				username, username, selector);
+		engine.setThreadFactory(threadFactory);
+		engine.setListenerThreadFactory(threadFactory);
+		engine.addChatEngineListener(new ChatEngineAdapter() {
+			@Override
+			public void onConnection(ChatEngineEvent event) {
+				IrcClientConnection.this.connected = true;
+				IrcClientConnection.this.metrics.connected();
+			}
+
+			@Override
+			public void onDisconnection(ChatEngineEvent event) {
+				if (IrcClientConnection.this.connected) {
+					IrcClientConnection.this.connected = false;
+					IrcClientConnection.this.metrics.disconnected();
+				}
+			}
+		});
+		this.engine = engine;
+		this.chatEngine = engine;
+		setMetricRegistry(new MetricRegistry(), username);
+	}
+
+	public void setMetricRegistry(MetricRegistry registry, String botName) {
+		ConnectionMetrics metrics = new ConnectionMetrics(registry, PROTOCOL, botName);
+		metrics.gauge(OUTPUT_QUEUE_DEPTH, new Gauge() {
+			@Override
+			public double getValue() {
+				return IrcClientConnection.this.engine.getOutputQueue().size();
+			}
+		});
+		metrics.counter(OUTPUT_REJECTED, new Gauge() {
+			@Override
+			public double getValue() {
+				return IrcClientConnection.this.engine.getOutputQueue().getLinesRejected();
+			}
+		});
+		metrics.counter(ConnectionMetrics.PARSE_ERRORS, new Gauge() {
+			@Override
+			public double getValue() {
+				return IrcClientConnection.this.engine.getParsingErrorCount();
+			}
+		});
+		metrics.gauge(SendScheduler.QUEUE_DEPTH, new Gauge() {
+			@Override
+			public double getValue() {
+				SendScheduler sendScheduler = IrcClientConnection.this.sendScheduler;
+				return sendScheduler == null ? 0 : sendScheduler.getQueuedCount();
+			}
+		});
+		this.metrics = metrics;
+	}
+
+	public MetricRegistry getMetricRegistry() {
+		return this.metrics.getRegistry();
+	}
+
+	/**
+	 * Paces the messages sent on the channels joined from now on, see
+	 * SendRateLimit.IRC. The scheduler returned can give channels limits
+	 * of their own. May only be called once.
+	 */
+	public synchronized SendScheduler throttleSending(SendRateLimit limit) {
+		if (this.sendScheduler != null) {
+			// replacing it would strand the channels it already throttles
+			throw new IllegalStateException("Sending is already throttled");
+		}
+		this.sendScheduler = new SendScheduler(limit, ThreadFactories.platform(PROTOCOL
+				+ "-send-" + this.metrics.getBot(), true));
+		return this.sendScheduler;
+	}
+
+	public SendScheduler getSendScheduler() {
+		return this.sendScheduler;
 	}
 
 	@Override
@@ -25,15 +130,37 @@ public class IrcClientConnection implements ClientConnection {
 
 	}
 
+	/** Stops the send scheduler and leaves the server with a QUIT. */
+	@Override
+	public void close() {
+		SendScheduler sendScheduler = this.sendScheduler;
+		if (sendScheduler != null) {
+			sendScheduler.shutdown();
+		}
+		if (this.chatEngine.isConnected()) {
+			this.chatEngine.disconnect();
+		}
+	}
+
 	@Override
 	public MessageChannel channel(String name) {
 		Channel bareIrcChannel = new Channel(name, this.chatEngine);
 		bareIrcChannel.connect();
-		return new IrcMessageChannelAdapter(bareIrcChannel);
+		ChannelMetrics channelMetrics = this.metrics.channel(name);
+		MessageChannel channel = new IrcMessageChannelAdapter(bareIrcChannel, channelMetrics);
+		SendScheduler sendScheduler = this.sendScheduler;
+		return sendScheduler == null ? channel : sendScheduler.throttle(name, channel,
+				channelMetrics);
 	}
 	
-	private void registerConnectionListener(ConnectionListener listener) {
-		IrcConnectionListenerAdapter connectionListenerAdapter = new IrcConnectionListenerAdapter(listener);
-		this.chatEngine.addChatEngineListener(connectionListenerAdapter);
+	private synchronized void registerConnectionListener(ConnectionListener listener) {
+		if (this.connectionListener != null) {
+			if (this.connectionListener.getConnectionListener() == listener) {
+				return;
+			}
+			this.chatEngine.removeChatEngineListener(this.connectionListener);
+		}
+		this.connectionListener = new IrcConnectionListenerAdapter(listener);
+		this.chatEngine.addChatEngineListener(this.connectionListener);
 	}
-}
\ No newline at end of file
+}
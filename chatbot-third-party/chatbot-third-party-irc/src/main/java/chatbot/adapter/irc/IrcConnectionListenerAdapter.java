@@ -17,4 +17,13 @@ public class IrcConnectionListenerAdapter extends ChatEngineAdapter {
 	public void onConnection(ChatEngineEvent event) {
 		this.chatbotListener.onConnectionSuccessful();
 	}
+
+	@Override
+	public void onDisconnection(ChatEngineEvent event) {
+		this.chatbotListener.onDisconnected();
+	}
+
+	public ConnectionListener getConnectionListener() {
+		return this.chatbotListener;
+	}
 }
\ No newline at end of file
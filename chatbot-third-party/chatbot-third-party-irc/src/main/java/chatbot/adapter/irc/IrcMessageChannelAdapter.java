@@ -1,27 +1,53 @@
 package chatbot.adapter.irc;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
 import org.relayirc.chatengine.Channel;
 
 import chatbot.client.MessageChannel;
 import chatbot.client.MessageListener;
+import chatbot.metrics.ChannelMetrics;
 
 public class IrcMessageChannelAdapter implements MessageChannel {
 
 	private final Channel ircChannel;
+	private final ChannelMetrics metrics;
 
 	public IrcMessageChannelAdapter(Channel channel) {
+		this(channel, new ChannelMetrics());
+	}
+
+	public IrcMessageChannelAdapter(Channel channel, ChannelMetrics metrics) {
 		this.ircChannel = channel;
+		this.metrics = metrics;
 	}
 
 	@Override
 	public void registerListener(MessageListener listener) {
 		IrcMessageListenerAdapter listenerAdapter = new IrcMessageListenerAdapter(
-				listener);
+				listener, this.metrics);
 		this.ircChannel.addChannelListener(listenerAdapter);
 	}
 
 	@Override
 	public void sendMessage(String message) {
-		this.ircChannel.sendMessage(message);
+		sendMessageAsync(message);
+	}
+
+	/** Completes once the line has been flushed to the server. */
+	@Override
+	public CompletableFuture<Void> sendMessageAsync(String message) {
+		return this.ircChannel.sendMessageAsync(message).whenComplete(
+				new BiConsumer<Void, Throwable>() {
+					@Override
+					public void accept(Void result, Throwable failure) {
+						if (failure == null) {
+							IrcMessageChannelAdapter.this.metrics.getSent().increment();
+						} else {
+							IrcMessageChannelAdapter.this.metrics.getSendFailures().increment();
+						}
+					}
+				});
 	}
-}
\ No newline at end of file
+}
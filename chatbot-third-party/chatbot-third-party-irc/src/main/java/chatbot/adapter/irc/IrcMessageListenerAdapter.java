@@ -1,24 +1,51 @@
 package chatbot.adapter.irc;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.relayirc.chatengine.ChannelAdapter;
 import org.relayirc.chatengine.ChannelEvent;
 
 import chatbot.client.Message;
 import chatbot.client.MessageListener;
+import chatbot.metrics.ChannelMetrics;
 
 public class IrcMessageListenerAdapter extends ChannelAdapter {
 
 	private MessageListener messageListener;
+	private final ChannelMetrics metrics;
 	
 	public IrcMessageListenerAdapter(MessageListener listener) {
+		this(listener, new ChannelMetrics());
+	}
+	
+	public IrcMessageListenerAdapter(MessageListener listener, ChannelMetrics metrics) {
 		this.messageListener = listener;
+		this.metrics = metrics;
 	}
 	
 	@Override
 	public void onMessage(ChannelEvent event) {
-		String payload = (String) event.getValue();
-		Message message = new Message(event.getOriginNick(),
-				payload);
-		this.messageListener.onMessageReceived(message);
+		this.metrics.getReceived().increment();
+		this.messageListener.onMessageReceived(toMessage(event, System.nanoTime()));
+	}
+
+	@Override
+	public void onMessages(ChannelEvent[] events) {
+		if (events.length == 1) {
+			onMessage(events[0]);
+			return;
+		}
+		this.metrics.getReceived().increment(events.length);
+		List<Message> messages = new ArrayList<Message>(events.length);
+		long receivedNanos = System.nanoTime();
+		for (ChannelEvent event : events) {
+			messages.add(toMessage(event, receivedNanos));
+		}
+		this.messageListener.onMessagesReceived(messages);
+	}
+
+	private Message toMessage(ChannelEvent event, long receivedNanos) {
+		return new Message(event.getOriginNick(), (String) event.getValue(), receivedNanos);
 	}
-}
\ No newline at end of file
+}
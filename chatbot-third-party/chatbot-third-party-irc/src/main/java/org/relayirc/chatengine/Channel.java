@@ -26,7 +26,11 @@ import java.beans.PropertyChangeSupport;
 import java.io.IOException;
 import java.io.NotActiveException;
 import java.io.Serializable;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.relayirc.util.ListenerRegistry;
 
 ///////////////////////////////////////////////////////////////////////////
 /** 
@@ -38,7 +42,9 @@ import java.util.Vector;
 public class Channel implements Serializable {
 
    private transient IChatEngine _engine = null;
-   private transient Vector      _listeners = new Vector();
+   private transient ListenerRegistry<ChannelListener> _listeners = newListenerRegistry();
+   private transient ArrayList<ChannelEvent> _pendingMessages = new ArrayList<ChannelEvent>();
+   private transient volatile boolean _messagesPending = false;
    private transient boolean     _isConnected = false;
 	private String                _name = null;
 	private String                _topic = new String();
@@ -75,21 +81,116 @@ public class Channel implements Serializable {
    // Thread safe notification architecture
    //
    interface _ChannelEventNotifier {
-      public void notify(ChannelListener listener);
+      public void notify(ChannelListener listener, ChannelEvent event);
+   }
+   // Stateless notifiers, one per listener method
+   private static final _ChannelEventNotifier NOTIFY_ACTIVATION = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onActivation(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_ACTION = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onAction(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_CONNECT = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onConnect(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_DISCONNECT = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onDisconnect(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_JOIN = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onJoin(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_JOINS = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onJoins(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_PART = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onPart(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_BAN = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onBan(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_KICK = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onKick(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_NICK = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onNick(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_OP = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onOp(e);}
+   };
+   private static final _ChannelEventNotifier NOTIFY_QUIT = new _ChannelEventNotifier() {
+      public void notify(ChannelListener l, ChannelEvent e) {l.onQuit(e);}
+   };
+   /**
+    * Notify the listeners registered now, on this thread or through the
+    * engine's listener executor. Takes no lock, the registry is copy-on-write.
+    */
+   private void notifyListeners(final _ChannelEventNotifier notifier,
+      final ChannelEvent event) {
+
+      flushMessages();
+      final ChannelListener[] listeners = _listeners.getListeners();
+      if (listeners.length == 0) {
+         return;
+      }
+      Executor executor = (_engine != null) ? _engine.getListenerExecutor() : null;
+      if (executor == null) {
+         fireNotifier(listeners,notifier,event);
+         return;
+      }
+      executor.execute(new Runnable() {
+         public void run() {fireNotifier(listeners,notifier,event);}
+      });
    }
-   private synchronized void notifyListeners(_ChannelEventNotifier notifier) {
-      for (int i=0; i<_listeners.size(); i++) {
-         ChannelListener listener = (ChannelListener)_listeners.elementAt(i);
-         notifier.notify(listener);
+   /**
+    * Deliver the messages queued since the last read from the server as
+    * one batch. Other events flush the batch first, so listeners see
+    * every event in the order it arrived.
+    */
+   private void flushMessages() {
+      if (!_messagesPending) {
+         return;
+      }
+      final ChannelEvent[] events;
+      synchronized (_pendingMessages) {
+         if (_pendingMessages.isEmpty()) {
+            return;
+         }
+         events = _pendingMessages.toArray(new ChannelEvent[_pendingMessages.size()]);
+         _pendingMessages.clear();
+         _messagesPending = false;
+      }
+      final ChannelListener[] listeners = _listeners.getListeners();
+      if (listeners.length == 0) {
+         return;
+      }
+      Executor executor = (_engine != null) ? _engine.getListenerExecutor() : null;
+      if (executor == null) {
+         fireMessages(listeners,events);
+         return;
+      }
+      executor.execute(new Runnable() {
+         public void run() {fireMessages(listeners,events);}
+      });
+   }
+   private static void fireMessages(ChannelListener[] listeners,
+      ChannelEvent[] events) {
+      for (int i=0; i<listeners.length; i++) {
+         listeners[i].onMessages(events);
+      }
+   }
+   private static void fireNotifier(ChannelListener[] listeners,
+      _ChannelEventNotifier notifier, ChannelEvent event) {
+      for (int i=0; i<listeners.length; i++) {
+         notifier.notify(listeners[i],event);
       }      
    }
    /** Channel listener support. */
-   public synchronized void addChannelListener(ChannelListener listener) {
-      _listeners.addElement(listener);
+   public void addChannelListener(ChannelListener listener) {
+      _listeners.add(listener);
    }
    /** Channel listener support. */
-   public synchronized void removeChannelListener(ChannelListener listener) {
-      _listeners.removeElement(listener);
+   public void removeChannelListener(ChannelListener listener) {
+      _listeners.remove(listener);
    }
    //==================================================================
    /** Property change support. */
@@ -133,10 +234,7 @@ public class Channel implements Serializable {
          _engine.sendJoin(this);
 
          final ChannelEvent event = new ChannelEvent(this);
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onConnect(event);}
-         });
+         notifyListeners(NOTIFY_CONNECT,event);
       }
    }
    //------------------------------------------------------------------
@@ -147,10 +245,7 @@ public class Channel implements Serializable {
          setConnected(false);
 
          final ChannelEvent event = new ChannelEvent(this);
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onDisconnect(event);}
-         });
+         notifyListeners(NOTIFY_DISCONNECT,event);
       }
    }
    //------------------------------------------------------------------
@@ -217,11 +312,11 @@ public class Channel implements Serializable {
 	 * brought-to-front. */
    public void activate() {
       final ChannelEvent event = new ChannelEvent(this);
-      notifyListeners(new _ChannelEventNotifier() { 
-         public void notify(ChannelListener listener) {
-			   listener.onActivation(event);
-		   }
-      });
+      notifyListeners(NOTIFY_ACTIVATION,event);
+   }
+   //-------------------------------------------------------------------
+   private static ListenerRegistry<ChannelListener> newListenerRegistry() {
+      return new ListenerRegistry<ChannelListener>(new ChannelListener[0]);
    }
    //-------------------------------------------------------------------
    private void readObject(java.io.ObjectInputStream in)
@@ -230,7 +325,8 @@ public class Channel implements Serializable {
       try {in.defaultReadObject();} 
 		catch (NotActiveException e) {e.printStackTrace();}
       _propChangeSupport = new PropertyChangeSupport(this);
-      _listeners = new Vector();
+      _listeners = newListenerRegistry();
+      _pendingMessages = new ArrayList<ChannelEvent>();
    }
    //------------------------------------------------------------------
 	/** Send an action to this channel. */
@@ -273,6 +369,11 @@ public class Channel implements Serializable {
    public void sendMessage(String str) {
       _engine.sendMessage(str,_name);
    }
+   //------------------------------------------------------------------
+   /** Send private message to server, completing once it has been written. */
+   public CompletableFuture<Void> sendMessageAsync(String str) {
+      return _engine.sendMessageAsync(str,_name);
+   }
    //------------------------------------------------------------------
 	/** Give operator rights to a user. */
    public void sendOp(String nick) {
@@ -285,11 +386,7 @@ public class Channel implements Serializable {
       _isConnected = false;
 
       final ChannelEvent event = new ChannelEvent(this);
-      notifyListeners(new _ChannelEventNotifier() { 
-         public void notify(ChannelListener listener) {
-			   listener.onDisconnect(event);
-		   }
-      });
+      notifyListeners(NOTIFY_DISCONNECT,event);
    }  
    //------------------------------------------------------------------
 	/** Request version information for a user. */
@@ -305,10 +402,7 @@ public class Channel implements Serializable {
       public void onAction(String user, String channel, String txt) {
          
          final ChannelEvent event = new ChannelEvent(Channel.this,txt);
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onAction(event);}
-         });
+         notifyListeners(NOTIFY_ACTION,event);
       }
       //------------------------------------------------------------------
       public void onBan(String banned, String chan, String banner) {
@@ -316,10 +410,7 @@ public class Channel implements Serializable {
          final ChannelEvent event = new ChannelEvent(
 			   Channel.this,banner,"",banned,"","");
 
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onBan(event);}
-         });
+         notifyListeners(NOTIFY_BAN,event);
    
          // Was it something I said?
          if (banned.equals(_engine.getNick())) {
@@ -336,19 +427,13 @@ public class Channel implements Serializable {
          final ChannelEvent event = 
 			   new ChannelEvent(Channel.this,nick,user,"");
 
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onJoin(event);}
-         });
+         notifyListeners(NOTIFY_JOIN,event);
       }
       //------------------------------------------------------------------
       public void onJoins(String users, String chans) {
          
          final ChannelEvent event = new ChannelEvent(Channel.this,users);
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onJoins(event);}
-         });
+         notifyListeners(NOTIFY_JOINS,event);
       }
       //------------------------------------------------------------------
       public void onKick(String kicked, String chan, String kicker, String txt)       
@@ -357,10 +442,7 @@ public class Channel implements Serializable {
          final ChannelEvent event 
 			   = new ChannelEvent(Channel.this,kicker,"",kicked,"",txt);
 
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onAction(event);}
-         });
+         notifyListeners(NOTIFY_KICK,event);
    
          // Was it something I said?
          if (kicked.equals(_engine.getNick())) {
@@ -382,10 +464,15 @@ public class Channel implements Serializable {
          final ChannelEvent event = 
 			   new ChannelEvent(Channel.this,orgnick,"",txt);
 
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onMessage(event);}
-         });
+         // Delivered with the rest of the batch on read complete
+         synchronized (_pendingMessages) {
+            _pendingMessages.add(event);
+            _messagesPending = true;
+         }
+      }
+      //------------------------------------------------------------------
+      public void onReadComplete() {
+         flushMessages();
       }
       //------------------------------------------------------------------
       public void onNick(String user, String oldnick, String newnick) {
@@ -393,10 +480,7 @@ public class Channel implements Serializable {
          final ChannelEvent event = 
 			   new ChannelEvent(Channel.this,oldnick,user,newnick);
 
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onNick(event);}
-         });
+         notifyListeners(NOTIFY_NICK,event);
       }
       //------------------------------------------------------------------
       public void onPart(String user, String nick, String chan) {
@@ -404,10 +488,7 @@ public class Channel implements Serializable {
          final ChannelEvent event = 
 			   new ChannelEvent(Channel.this,nick,user,"");
 
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onPart(event);}
-         });
+         notifyListeners(NOTIFY_PART,event);
       }
       //------------------------------------------------------------------
       public void onOp(String oper, String chan, String oped) {
@@ -415,19 +496,13 @@ public class Channel implements Serializable {
          final ChannelEvent event = 
 			   new ChannelEvent(Channel.this,oper,"",oped,"","");
 
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onOp(event);}
-         });
+         notifyListeners(NOTIFY_OP,event);
       }
       //------------------------------------------------------------------
       public void onQuit(String user, String nick, String txt) {
    
          final ChannelEvent event = new ChannelEvent(Channel.this,nick,"",txt);
-         notifyListeners(new _ChannelEventNotifier() { 
-            public void notify(ChannelListener listener) 
-				   {listener.onQuit(event);}
-         });
+         notifyListeners(NOTIFY_QUIT,event);
       }
    }
 }
@@ -26,6 +26,7 @@ package org.relayirc.chatengine;
 
 /**
  * Provides a default do-nothing implementation of ChannelListener.
+ * Batches of messages are passed to onMessage one at a time.
  * @author David M. Johnson
  */
 public class ChannelAdapter implements ChannelListener {
@@ -34,6 +35,11 @@ public class ChannelAdapter implements ChannelListener {
    public void onConnect(ChannelEvent event) {}
    public void onDisconnect(ChannelEvent event) {}
    public void onMessage(ChannelEvent event) {}
+   public void onMessages(ChannelEvent[] events) {
+      for (int i=0; i<events.length; i++) {
+         onMessage(events[i]);
+      }
+   }
    public void onJoin(ChannelEvent event) {}
    public void onJoins(ChannelEvent event) {}
    public void onPart(ChannelEvent event) {}
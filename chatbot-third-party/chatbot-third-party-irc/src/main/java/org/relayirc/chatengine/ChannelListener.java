@@ -51,6 +51,10 @@ public interface ChannelListener {
    /** A user has spoken. Event includes origin nick, origin address and the 
 	 * value is a string containing the text of the user's message. */
    abstract public void onMessage(ChannelEvent event);
+
+   /** Users have spoken. The messages read from the server together,
+	 * in order, each event as for onMessage. */
+   abstract public void onMessages(ChannelEvent[] events);
    
    /** A user has joined the channel. Event includes origin nick, 
 	 * origin address and the value is a string containing the 
@@ -20,12 +20,18 @@
  * Contributor(s): No contributors to this file.
  */
 package org.relayirc.chatengine;
+import java.io.IOException;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.StringTokenizer;
-import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.relayirc.util.ListenerRegistry;
 import org.relayirc.util.RCTest;
+import org.relayirc.util.SerialExecutor;
 
 ///////////////////////////////////////////////////////////////////////////
 /** 
@@ -42,6 +48,13 @@ import org.relayirc.util.RCTest;
  * a ChannelListener to the channel object so that you can repond 
  * to messages, bans, kicks, etc. from that channel.</p>
  *
+ * <p>Threads are made by plain Thread constructors unless a factory is
+ * given with setThreadFactory(), for example one making virtual threads.
+ * Listeners are notified on the thread that read the message unless a
+ * factory is given with setListenerThreadFactory(), in which case the
+ * engine and its channels notify listeners, still in order, on threads
+ * from that factory so a slow listener does not hold up the reader.</p>
+ *
  * @see org.relayirc.chatengine.ChatEngineListener
  * @see org.relayirc.chatengine.Server
  * @see org.relayirc.chatengine.Channel
@@ -64,11 +77,15 @@ public class ChatEngine implements IChatEngine {
    private IRCConnection _connection;       // Chat connection
    private ChannelSearch _search = null;    // Current search, if one exists
    private IdentServer   _identd;           // One-shot identd server 
+   private ThreadFactory _threadFactory;    // Makes identd thread, null for plain Thread
+   private volatile Executor _listenerExecutor; // Delivers notifications, null for reader thread
+   private final AtomicLong _parsingErrors = new AtomicLong(); // Lines the server sent we could not parse
   
 	// Channel-specific IRCConnectionListener objects, keyed by name
    private Hashtable _channels = new Hashtable(); 
 
-   private Vector    _listeners = new Vector();
+   private final ListenerRegistry<ChatEngineListener> _listeners
+      = new ListenerRegistry<ChatEngineListener>(new ChatEngineListener[0]);
 
    private String    _appName = "Relay IRC chat-engine";
    private String    _appVersion = "Unknown version";
@@ -91,6 +108,18 @@ public class ChatEngine implements IChatEngine {
      */
    public ChatEngine(String serverName, int serverPort,
       String nick, String altNick, String userName, String fullName) { 
+      this(serverName,serverPort,nick,altNick,userName,fullName,null);
+   }
+   //------------------------------------------------------------------
+   /** 
+     * Construct a chat engine whose connection is served by a shared
+     * selector instead of its own message loop thread.
+     * @param selector    Event loop shared with other engines, or null.
+     * @see org.relayirc.chatengine.IRCSelector
+     */
+   public ChatEngine(String serverName, int serverPort,
+      String nick, String altNick, String userName, String fullName,
+      IRCSelector selector) { 
 
       _server = new Server(serverName,serverPort);
 
@@ -101,7 +130,7 @@ public class ChatEngine implements IChatEngine {
 
       _connection = new IRCConnection(
         _server.getName(),_server.getPort(),
-        _nick,_altNick,_userName,_fullName);
+        _nick,_altNick,_userName,_fullName,selector);
 
       _connection.setIRCConnectionListener(_mux);
    }
@@ -110,24 +139,61 @@ public class ChatEngine implements IChatEngine {
    //================================================================
 
    interface _EngineEventNotifier {
-      public void notify(ChatEngineListener listener);
+      public void notify(ChatEngineListener listener, ChatEngineEvent event);
    }
+   // Stateless notifiers, one per listener method
+   private static final _EngineEventNotifier NOTIFY_CONNECTION = new _EngineEventNotifier() {
+      public void notify(ChatEngineListener l, ChatEngineEvent e) {l.onConnection(e);}
+   };
+   private static final _EngineEventNotifier NOTIFY_DISCONNECTION = new _EngineEventNotifier() {
+      public void notify(ChatEngineListener l, ChatEngineEvent e) {l.onDisconnection(e);}
+   };
+   private static final _EngineEventNotifier NOTIFY_CHANNEL_JOIN = new _EngineEventNotifier() {
+      public void notify(ChatEngineListener l, ChatEngineEvent e) {l.onChannelJoin(e);}
+   };
+   private static final _EngineEventNotifier NOTIFY_CHANNEL_PART = new _EngineEventNotifier() {
+      public void notify(ChatEngineListener l, ChatEngineEvent e) {l.onChannelPart(e);}
+   };
+   private static final _EngineEventNotifier NOTIFY_STATUS = new _EngineEventNotifier() {
+      public void notify(ChatEngineListener l, ChatEngineEvent e) {l.onStatus(e);}
+   };
    //------------------------------------------------------------------
-   private synchronized void notifyListeners(_EngineEventNotifier notifier) {
-      for (int i=0; i<_listeners.size(); i++) {
-         ChatEngineListener listener = (ChatEngineListener)_listeners.elementAt(i);
-         notifier.notify(listener);
+   /**
+    * Notify the listeners registered now, on this thread or through the
+    * listener executor. Takes no lock, the registry is copy-on-write.
+    */
+   private void notifyListeners(final _EngineEventNotifier notifier, 
+      final ChatEngineEvent event) {
+
+      final ChatEngineListener[] listeners = _listeners.getListeners();
+      if (listeners.length == 0) {
+         return;
+      }
+      Executor executor = _listenerExecutor;
+      if (executor == null) {
+         fireNotifier(listeners,notifier,event);
+         return;
+      }
+      executor.execute(new Runnable() {
+         public void run() {fireNotifier(listeners,notifier,event);}
+      });
+   }
+   //------------------------------------------------------------------
+   private static void fireNotifier(ChatEngineListener[] listeners, 
+      _EngineEventNotifier notifier, ChatEngineEvent event) {
+      for (int i=0; i<listeners.length; i++) {
+         notifier.notify(listeners[i],event);
       }      
    }
    //------------------------------------------------------------------
    /** Add a chat engine listener. */
-   public synchronized void addChatEngineListener(ChatEngineListener listener) {
-      _listeners.addElement(listener);
+   public void addChatEngineListener(ChatEngineListener listener) {
+      _listeners.add(listener);
    }
    //------------------------------------------------------------------
    /** Remove a chat engine listener. */
-   public synchronized void removeChatEngineListener(ChatEngineListener listener) {
-      _listeners.removeElement(listener);
+   public void removeChatEngineListener(ChatEngineListener listener) {
+      _listeners.remove(listener);
    }
 
    //================================================================
@@ -146,6 +212,36 @@ public class ChatEngine implements IChatEngine {
    /** Set app verion to be reported to version queries. */ 
    public void setAppVersion(String version) {_appVersion = version;}
 
+   /** Get queue of lines waiting to be written to the server. */ 
+   public IRCOutputQueue getOutputQueue() {return _connection.getOutputQueue();}
+
+   /** Get number of lines from the server that could not be parsed. */ 
+   public long getParsingErrorCount() {return _parsingErrors.get();}
+
+   /** Get factory for the message loop and identd threads, may be null. */ 
+   public ThreadFactory getThreadFactory() {return _threadFactory;}
+
+   /** 
+    * Set factory for the message loop and identd threads, null for plain
+    * threads. Takes effect on the next connect().
+    */ 
+   public void setThreadFactory(ThreadFactory factory) {
+      _threadFactory = factory;
+      _connection.setThreadFactory(factory);
+   }
+
+   /** Get executor that delivers listener notifications, may be null. */ 
+   public Executor getListenerExecutor() {return _listenerExecutor;}
+
+   /** 
+    * Deliver listener notifications of this engine and its channels on 
+    * threads from factory, one at a time and in order. Null notifies on
+    * the thread that read the message.
+    */ 
+   public void setListenerThreadFactory(ThreadFactory factory) {
+      _listenerExecutor = (factory != null) ? new SerialExecutor(factory) : null;
+   }
+
    //------------------------------------------------------------------
    /** Check connection status and returns true if connected. */
    public boolean isConnected() {
@@ -177,7 +273,7 @@ public class ChatEngine implements IChatEngine {
    /** Connect to IRC server that was specified in the constructor. */
    public void connect() {
       if (!isConnected() && !isConnecting()) {
-         _identd = new IdentServer(this,_userName);
+         _identd = new IdentServer(this,_userName,_threadFactory);
          _connection.open();
       }
       else {
@@ -203,9 +299,7 @@ public class ChatEngine implements IChatEngine {
    /** Send status message to all ChatEngineListeners. */
    public void fireStatusEvent(String msg) {
       final ChatEngineEvent event = new ChatEngineEvent(this,msg);
-      notifyListeners(new _EngineEventNotifier() { 
-         public void notify(ChatEngineListener listener) {listener.onStatus(event);}
-      });
+      notifyListeners(NOTIFY_STATUS,event);
    }
    //------------------------------------------------------------------
    /** 
@@ -233,6 +327,7 @@ public class ChatEngine implements IChatEngine {
          // Normal message
          sendMessage(txt,chan);
          _mux.onPrivateMessage(_connection.getNick(),chan,txt);
+         getChannel(chan,true).getChannelMux().onReadComplete();
       }
    }
    //------------------------------------------------------------------
@@ -241,7 +336,10 @@ public class ChatEngine implements IChatEngine {
       if (isConnected()) {
          try {
             RCTest.println("ChatEngine: sending command "+str);
-            _connection.writeln(str+"\r\n");
+            if (!_connection.writeln(str)) {
+               fireStatusEvent("Error sending command: output queue full");
+               return;
+            }
             //RCTest.println("ChatEngine: sent command ");
 
             try {
@@ -279,11 +377,7 @@ public class ChatEngine implements IChatEngine {
 
       // Notify listeners that channel has been joined
       final ChatEngineEvent event = new ChatEngineEvent(this,chan);
-      notifyListeners(new _EngineEventNotifier() { 
-         public void notify(ChatEngineListener listener) {
-            listener.onChannelJoin(event);}
-         }
-      );
+      notifyListeners(NOTIFY_CHANNEL_JOIN,event);
    }
    //------------------------------------------------------------------
    /** 
@@ -309,9 +403,7 @@ public class ChatEngine implements IChatEngine {
 
          // Notify listeners that channel has been joined
          final ChatEngineEvent event = new ChatEngineEvent(this,chan);
-         notifyListeners(new _EngineEventNotifier() { 
-            public void notify(ChatEngineListener listener) {listener.onChannelJoin(event);}
-         });
+         notifyListeners(NOTIFY_CHANNEL_JOIN,event);
          
       }
       else {
@@ -329,6 +421,22 @@ public class ChatEngine implements IChatEngine {
       sendCommand("PRIVMSG "+chan+" "+":"+str);
    }
    //------------------------------------------------------------------
+   /** 
+    * Send a PRIVMSG message to server. The future completes once the
+    * message has been flushed to the server, or fails with the reason
+    * it could not be.
+    */
+   public CompletableFuture<Void> sendMessageAsync(String str, String chan) {
+      IRCConnection connection = _connection;
+      if (connection == null || !isConnected()) {
+         CompletableFuture<Void> failed = new CompletableFuture<Void>();
+         failed.completeExceptionally(new IOException("Not connected"));
+         return failed;
+      }
+      RCTest.println("ChatEngine: sending message to "+chan);
+      return connection.writelnAsync("PRIVMSG "+chan+" "+":"+str);
+   }
+   //------------------------------------------------------------------
    /** Send channel part, notify listeners and remove channel. */
    public void sendPart(Channel chan) {
       sendPart(chan.getName());
@@ -341,11 +449,7 @@ public class ChatEngine implements IChatEngine {
       chan.getChannelMux().onPart(_userName,_nick,chanName);
 
       final ChatEngineEvent event = new ChatEngineEvent(this,chan);
-      notifyListeners(new _EngineEventNotifier() { 
-         public void notify(ChatEngineListener listener) {
-            listener.onChannelPart(event);}
-         }
-      );
+      notifyListeners(NOTIFY_CHANNEL_PART,event);
       _channels.remove(chan);
    }
    //------------------------------------------------------------------
@@ -422,10 +526,7 @@ public class ChatEngine implements IChatEngine {
 
          // Notify listeners that channel has been joined
          final ChatEngineEvent event = new ChatEngineEvent(this,chan);
-         notifyListeners(new _EngineEventNotifier() { 
-            public void notify(ChatEngineListener listener) 
-				   {listener.onChannelJoin(event);}
-         });
+         notifyListeners(NOTIFY_CHANNEL_JOIN,event);
          
       }   
       else if (chan==null) {
@@ -480,18 +581,16 @@ public class ChatEngine implements IChatEngine {
       //----------------------------------------------------------------------
       public void onConnect() { 
          final ChatEngineEvent event = new ChatEngineEvent(ChatEngine.this);
-         notifyListeners(new _EngineEventNotifier() { 
-            public void notify(ChatEngineListener listener) 
-				   {listener.onConnection(event);}
-         });
+         notifyListeners(NOTIFY_CONNECTION,event);
       }
       //----------------------------------------------------------------------
       public void onDisconnect() {
          final ChatEngineEvent event = new ChatEngineEvent(ChatEngine.this);
-         notifyListeners(new _EngineEventNotifier() { 
-            public void notify(ChatEngineListener listener) 
-				   {listener.onDisconnection(event);}
-         });
+         notifyListeners(NOTIFY_DISCONNECTION,event);
+      }
+      //------------------------------------------------------------------
+      public void onErrorWrite(String message) {
+         fireStatusEvent("\nERROR: Unable to write to server: "+message+"\n");
       }
       //------------------------------------------------------------------
       public void onJoin( String user, String nick, String chan, boolean create ) {
@@ -514,6 +613,12 @@ public class ChatEngine implements IChatEngine {
          getChannel(chan,true).getChannelMux().onPrivateMessage(orgnick,chan,txt);
       }
       //------------------------------------------------------------------
+      public void onReadComplete() {
+         for (Enumeration e = _channels.elements() ; e.hasMoreElements() ;) {
+            ((Channel)e.nextElement()).getChannelMux().onReadComplete();
+         }
+      }
+      //------------------------------------------------------------------
       public void onNick( String user, String oldnick, String newnick ) {
          fireStatusEvent(oldnick+" now known as "+newnick);
          for (Enumeration e = _channels.elements() ; e.hasMoreElements() ;) {
@@ -535,11 +640,12 @@ public class ChatEngine implements IChatEngine {
       }
       //------------------------------------------------------------------
       public void onParsingError(String message) {
+         _parsingErrors.incrementAndGet();
          fireStatusEvent("Error parsing message: "+message);
       }
       //------------------------------------------------------------------
       public void onPing(String params) {
-         _connection.writeln("PONG "+params+"\r\n");
+         _connection.writeln("PONG "+params);
       }
       //------------------------------------------------------------------
       public void onStatus(String msg) {
@@ -21,6 +21,8 @@
  * Contributor(s): No contributors to this file.''
  */
 package org.relayirc.chatengine;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 ///////////////////////////////////////////////////////////////////////
 
@@ -32,6 +34,12 @@ package org.relayirc.chatengine;
  */
 public interface IChatEngine {
 
+   /** 
+    * Executor on which listener notifications are delivered, in order, 
+    * or null if listeners are notified on the thread that read the message.
+    */
+   public Executor getListenerExecutor();
+
    /** Add a chat engine listener. */
    public void addChatEngineListener(ChatEngineListener listener);
 
@@ -71,6 +79,9 @@ public interface IChatEngine {
    /** Send private message to server. */
    abstract public void sendMessage(String msg, String chan);
 
+   /** Send private message to server, completing once it has been written. */
+   abstract public CompletableFuture<Void> sendMessageAsync(String msg, String chan);
+
    /** Send version information to server. */
    abstract public void sendVersion(String msg);
 
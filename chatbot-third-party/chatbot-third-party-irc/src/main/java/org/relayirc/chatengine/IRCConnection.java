@@ -21,14 +21,16 @@
  * Contributor(s): No contributors to this file.
  */
 package org.relayirc.chatengine;
-import java.io.BufferedReader;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.util.NoSuchElementException;
-import java.util.StringTokenizer;
-import java.util.Vector;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.relayirc.util.RCTest;
 /** 
@@ -36,6 +38,18 @@ import org.relayirc.util.RCTest;
  * Parses incoming IRC messages, replies, commands and errors 
  * and notifies all listeners of such. Also provides a writeln()
  * method for sending commands to the IRC server.</p>
+ *
+ * <p>Outgoing lines go through a bounded IRCOutputQueue. Lines queued
+ * while another thread is writing are coalesced into that thread's next
+ * write, so a burst of commands costs one socket write rather than one
+ * per line. Write failures are reported through onErrorWrite().</p>
+ *
+ * <p>By default each open connection runs its own message loop thread
+ * over a blocking socket. A connection constructed with an IRCSelector
+ * instead uses a non-blocking socket served by the selector's thread,
+ * which may be shared by many connections. Listeners see the same
+ * events either way. The message loop thread comes from the thread
+ * factory given to setThreadFactory(), which may make virtual threads.</p>
  * 
  * FIX: Currently, only one listener is allowed.<br>
  *
@@ -61,18 +75,17 @@ public class IRCConnection implements Runnable, IRCConstants {
    private Socket    _socket;                                  
    private String    _localHost;          // = _socket.getLocalAddress().getHostName()
    private Thread    _messageLoopThread; 
-   private BufferedReader        _inputStream;   // Input from server socket
-   private DataOutputStream      _outputStream;  // Output to server socket
+   private ThreadFactory _threadFactory;  // Makes message loop thread, null for plain Thread
+   private IRCLineReader         _inputStream;   // Input from server socket
+   private volatile OutputStream _outputStream;  // Output to server socket
+   private volatile IRCOutputQueue _outputQueue = new IRCOutputQueue(); // Of the latest connection
+   private final ReentrantLock   _writeLock = new ReentrantLock();
    private IRCConnectionListener _listener;      // FIX: support arbitrary num. of listeners!
+   private IRCSelector           _selector;      // Shared event loop, null for a thread per connection
+   private volatile IRCSocketSession _session;   // Non-blocking socket when using a selector
 
    // Don't expose an IRCConnectionListener interface, but do use one internally.
    private _IRCConnectionMux  _mux = new _IRCConnectionMux();
-   
-   /** Used in parsing. */
-   private class _tok {
-      String token;
-      int index;
-   }
 
    //------------------------------------------------------------------
    /**
@@ -86,6 +99,19 @@ public class IRCConnection implements Runnable, IRCConstants {
     */
    public IRCConnection(String server, int port, 
       String nick, String altNick, String userName, String fullName)
+   {
+      this(server,port,nick,altNick,userName,fullName,null);
+   }
+   //------------------------------------------------------------------
+   /**
+    * Construct, but do not open, an IRC connection that is served by a
+    * shared selector rather than its own message loop thread.
+    * @param selector   Event loop to use, or null for a message loop thread.
+    * @see #IRCConnection(String,int,String,String,String,String)
+    */
+   public IRCConnection(String server, int port, 
+      String nick, String altNick, String userName, String fullName,
+      IRCSelector selector)
    {
       _server     = server; 
       _port       = port;    
@@ -93,6 +119,7 @@ public class IRCConnection implements Runnable, IRCConstants {
       _altNick    = altNick; 
       _userName   = userName; 
       _fullName   = fullName;
+      _selector   = selector;
 
       // Use do-nothing listener until we get a real one
       _listener = new IRCConnectionAdapter();
@@ -108,42 +135,105 @@ public class IRCConnection implements Runnable, IRCConstants {
 		_state = state;
 	}
    //------------------------------------------------------------------
+   /** Get factory used to make the message loop thread, may be null. */
+   public ThreadFactory getThreadFactory() {
+      return _threadFactory;
+   }
+   //------------------------------------------------------------------
    /** 
-    * Opens socket connection to IRC server. Starts message loop thread
-    * and starts firing events to listeners.
+    * Set factory used to make the message loop thread, takes effect on
+    * the next open(). Null means a plain platform Thread.
+    */
+   public void setThreadFactory(ThreadFactory factory) {
+      _threadFactory = factory;
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Opens socket connection to IRC server. Starts message loop thread,
+    * or hands the socket to the selector, and starts firing events to 
+    * listeners.
     */
    public void open() {
       if (getState() == DISCONNECTED) {
 		   setState(CONNECTING);
-         _messageLoopThread = new Thread(this);
-         _messageLoopThread.start();
+         // A session still closing keeps writing its own queue
+         _outputQueue = new IRCOutputQueue(_outputQueue);
+         if (_selector != null) {
+            openSession();
+         }
+         else {
+            ThreadFactory factory = _threadFactory;
+            _messageLoopThread = (factory != null) 
+               ? factory.newThread(this) : new Thread(this);
+            _messageLoopThread.start();
+         }
       }
    }
    //------------------------------------------------------------------
-   /** Close socket connection to IRC server and close down message loop thread. */
+   /** Start a non-blocking connect through the selector. */
+   private void openSession() {
+      _mux.onStatus("Contacting server ["+_server+":"+_port+"]");
+      try {
+         // Keep the session before the selector thread can report on it
+         IRCSocketSession session = _selector.connect(this,_server,_port);
+         _session = session;
+         session.start();
+      }
+      catch (IOException e) { // UnknownHostException or IOException
+         _mux.onStatus("Unable to contact server ["+_server+":"+_port+"]");
+         _session = null;
+         setState(DISCONNECTED);
+         _mux.onDisconnect();
+      }
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Close socket connection to IRC server and close down message loop 
+    * thread. Listeners are told of the disconnection whether the
+    * connection was open or still being opened.
+    */
    public void close() {
-      if (getState() == CONNECTED) {
+      int state = getState();
+      if (state == CONNECTED || state == CONNECTING) {
 		   setState(DISCONNECTING);
 
          _mux.onStatus("Closing connection");
 
+         if (_session != null) {
+            // The selector writes QUIT and then closes the socket
+            if (state == CONNECTED) {
+               writeln("QUIT");
+            }
+            _session.close();
+            _session = null;
+
+            setState(DISCONNECTED);
+            _mux.onDisconnect();
+            return;
+         }
+
          // Try to disconnect as gracefully as possible
+         if (state == CONNECTED) {
+            writeln("QUIT");
+         }
          try { 
-			   _outputStream.writeBytes("QUIT"); 
-			} catch (Exception e) {}
-         try { 
-			   _socket.close(); 
+			   if (_socket != null) _socket.close(); 
 			} catch (Exception e) {}
          _socket = null;
+         _outputStream = null;
 
-         // Wait for the message loop thread to die
-         try {
-            _messageLoopThread.join();
-         }
-         catch (InterruptedException e) {
-            // I think we can safely ignore this
+         // Wait for the message loop thread to die, unless this is it
+         if (_messageLoopThread != null && _messageLoopThread != Thread.currentThread()) {
+            try {
+               _messageLoopThread.join();
+            }
+            catch (InterruptedException e) {
+               // I think we can safely ignore this
+            }
          }
 
+         _outputQueue.close(new IOException("Connection closed"));
+
 		   setState(DISCONNECTED);
          _mux.onDisconnect();
       }
@@ -160,6 +250,14 @@ public class IRCConnection implements Runnable, IRCConstants {
       return (getState() == CONNECTED);
    }
    //------------------------------------------------------------------
+   /**
+    * Queue of lines waiting to be written to the latest connection,
+    * with write counters for the lifetime of this object.
+    */
+   public IRCOutputQueue getOutputQueue() {
+      return _outputQueue;
+   }
+   //------------------------------------------------------------------
    /** For now, only one listener is supported. */
    public void setIRCConnectionListener(IRCConnectionListener listener) {
       _listener = listener;
@@ -176,29 +274,15 @@ public class IRCConnection implements Runnable, IRCConstants {
     */
    public void sendNick(String nick) {
       _nick = nick;
-      writeln("NICK "+_nick+"\r\n");
+      writeln("NICK "+_nick);
    }   
    //------------------------------------------------------------------
-   /** Parses nick name of origin */
-   private String parseOrgnick( String origin ) {
-      String orgnick = null;
-      if (origin.length() > 0) {
-         StringTokenizer toker2 = new StringTokenizer(origin,"!");
-         try {
-            orgnick = toker2.nextToken();
-         }
-         catch (NoSuchElementException e) {
-            orgnick = null;
-         }
-      }
-      return orgnick;
-   }
-   //------------------------------------------------------------------
    /** 
     * The main message loop. Opens a socket connection to the IRC
     * server, sends logon information and enters message loop. The 
-    * message loop parses each incoming message into a command string
-    * or opcode and arguments and calls the appropriate method on the mux.
+    * message loop reads each incoming message into a reusable IRCMessage
+    * and passes it to dispatch(), which calls the appropriate method on
+    * the mux.
     */
    public void run() {
 
@@ -220,17 +304,12 @@ public class IRCConnection implements Runnable, IRCConstants {
          // OPEN IO STREAMS AND LOG IN TO SERVER. 
          //           
          _mux.onStatus("Opening IO streams to server ["+_server+":"+_port+"]");
-         _inputStream = new BufferedReader(
-            new InputStreamReader(new DataInputStream(_socket.getInputStream())));
-         _outputStream = new DataOutputStream(_socket.getOutputStream());
+         _inputStream = new IRCLineReader(
+            new InputStreamReader(new DataInputStream(_socket.getInputStream()),
+               StandardCharsets.UTF_8));
+         _outputStream = _socket.getOutputStream();
 
-         // Register nick 
-         _mux.onStatus("Registering nick ["+_nick+"] with server ["+_server+":"+_port+"]");
-         writeln("NICK "+getNick()+"\r\n"); 
-
-         // Register user name
-         _mux.onStatus("Registering user name ["+_userName+"] with server ["+_server+":"+_port+"]");
-         writeln( "USER "+_userName+" "+_localHost+" "+_server+" :"+_fullName+"\r\n");
+         register();
       }
       catch (Exception e) { // IOException
          _mux.onStatus("Unable to send login message to server  ["+_server+":"+_port+"]");
@@ -239,361 +318,23 @@ public class IRCConnection implements Runnable, IRCConstants {
       }
 
       try {
-         String message;  // The full message 
-         String origin;   // User who sent the message (nick!email@host)
-         String command;  // Message's command
-         String response; // Response to be sent
-         
-			int nicktries = 1;
-         boolean terminate = false;
+         IRCMessage message = new IRCMessage();
 
          //-----------------------------------------------------------------------------
          // MESSAGE LOOP. Loops until either there is no more to read, the user requests
          // disconnection or an exception we can't handle blows us out of the loop.
+         // The same message object is reused for every line.
          //
          _mux.onStatus("Waiting for response from server ["+_server+":"+_port+"]");
-         while ((message = _inputStream.readLine()) != null) {
-            RCTest.println("message="+message);
-
-            int pos=0;
-            origin = new String("");
-            command = new String(""); 
-            Vector tokens = new Vector();
-
-            // Parse message into a vector of strings
-            StringTokenizer toker1 = new StringTokenizer(message);
-            try {
-               for (int i=0; i<6; i++) {
-                  _tok t = new _tok();
-                  t.token = toker1.nextToken();
-                  t.index = pos;
-                  tokens.addElement(t);
-                  pos += t.token.length()+1;
-               }
-            }
-            catch ( NoSuchElementException e ) {} // is ok
-            catch ( Exception e ) {e.printStackTrace(); } // is not ok
-            
-            // Get origin, if there is one, and the command
-            if (tokens.size() > 0) {
-               if (((_tok)tokens.elementAt(0)).token.substring(0,1).equals(":")) {
-
-                  // token 0 begins with ":" so assume it's the origin
-                  origin = ((_tok)tokens.elementAt(0)).token.substring(1);
-                  command = ((_tok)tokens.elementAt(1)).token;
-               }
-               else {
-                  // assume token 0 is the command
-                  command = ((_tok)tokens.elementAt(0)).token;
-               }
-            }
-
-            //--------------------------------------------------------------------------
-            // MESSAGE SWITCH. First handle commands. Parse the command arguments and 
-            // pass them off to the appropriate handler method.            
-            //
-            if (command.equals("PING")) {
-               String params = message.substring( message.indexOf("PING")+4 );
-               _mux.onPing(params);
-            } 
-
-            else if (command.equals("PRIVMSG")) {
-               String channel = ((_tok)tokens.elementAt(2)).token;
-               String text = message.substring( ((_tok)tokens.elementAt(3)).index ).trim();
-               String orgnick = parseOrgnick(origin); 
-               if ( orgnick != null) {
-                  if (text.indexOf("\001VERSION") != -1) {
-                     _mux.onClientVersion(orgnick);
-                  }
-                  else if (text.indexOf("\001SOURCE") != -1) {
-                     _mux.onClientSource(orgnick);
-                  }
-                  else if (text.indexOf("\001CLIENTINFO") != -1) {
-                     _mux.onClientInfo(orgnick);
-                  }
-                  else if (text.indexOf("ACTION") != -1) {
-                     _mux.onAction(orgnick,channel,text.substring(9));
-                  }
-                  else {
-                     _mux.onPrivateMessage(orgnick,channel,text.substring(1));
-                  }
-               }
-            }
-
-            else if (command.equals("NOTICE")) {
-               String orgnick = parseOrgnick(origin); 
-               String text = message.substring( ((_tok)tokens.elementAt(3)).index ).trim();
-					try {	
-                  if (text.substring(0,9).equals(":\001VERSION")) {
-                     _mux.onVersionNotice(orgnick,origin,text.substring(9));
-						} 
-						else {
-                     _mux.onNotice(text);
-						}
-					}
-					catch (StringIndexOutOfBoundsException e) {
-					   // ignore
-               }
-            }
-
-            else if (command.equals("MODE")) {
-               _mux.onStatus("MODE: "+message);
-               String orgnick = parseOrgnick(origin); 
-               if ( orgnick != null) {
-                  String chan = ((_tok)tokens.elementAt(2)).token;
-                  String mode = ((_tok)tokens.elementAt(3)).token;
-                  if (mode.equals("+o")) {
-                     String oped = ((_tok)tokens.elementAt(4)).token;
-                     _mux.onOp(orgnick,chan,oped);
-                  }
-                  else if (mode.equals("+b")) {
-                     String banned = ((_tok)tokens.elementAt(4)).token;
-                     _mux.onBan(banned,chan,orgnick);
-                  }
-               }
-            }
-
-            else if (command.equals("JOIN")) {
-               String channel = ((_tok)tokens.elementAt(2)).token;
-               String orgnick = parseOrgnick(origin); 
-               if ( orgnick != null) {
-                  _mux.onJoin(origin,orgnick,channel.substring(1),false);
-               }
-            }
-
-            else if (command.equals("PART")) {
-               RCTest.println("PART: "+message);
-               String channel = ((_tok)tokens.elementAt(2)).token;
-               String orgnick = parseOrgnick(origin); 
-               if ( orgnick != null ) {
-                  _mux.onPart(origin,orgnick,channel);
-               }
-            }
-
-            else if (command.equals("KICK")) {
-               RCTest.println("KICK: "+message);
-               try {
-                  String orgnick = parseOrgnick(origin); 
-                  String channel = ((_tok)tokens.elementAt(2)).token;
-                  String kicked = ((_tok)tokens.elementAt(3)).token;
-                  String reason = ((_tok)tokens.elementAt(4)).token;
-                  if ( orgnick != null) {
-                     _mux.onKick(kicked,channel,orgnick,reason);
-                  }
-               }
-               catch ( NoSuchElementException e ) {} // is ok
-               catch ( Exception e ) {e.printStackTrace(); } // is not ok
-            }  
-
-            else if (command.equals("QUIT")) {
-               String channel = ((_tok)tokens.elementAt(2)).token;
-               String text = message.substring( ((_tok)tokens.elementAt(2)).index+1 );
-               String orgnick = parseOrgnick(origin); 
-               if ( orgnick != null) {
-                  _mux.onQuit(origin,orgnick,text);
-               }
-            }
-
-            else if (command.equals("NICK")) {
-               String channel = ((_tok)tokens.elementAt(2)).token;
-               String orgnick = parseOrgnick(origin); 
-               if ( orgnick != null) {
-                  _mux.onNick(origin,orgnick,channel.substring(1));
-               }
-            }
-
-            else if (command.equals("TOPIC")) {
-               String channel = ((_tok)tokens.elementAt(2)).token;
-               String topic = (((_tok)tokens.elementAt(3)).token).substring(1);
-               _mux.onTopic(channel,topic);
-				}
-
-            else if (command.equals("MSG")) {
-               _mux.onMessage(message);
-				}
-
-            //--------------------------------------------------------------------------
-            // MESSAGE SWITCH. Next handle replies and errors. Parse the reply arguments 
-            // and pass them off to the appropriate handler method.            
-            //
-            else {
-
-               // Parse command ID into integer
-               int cmdid = -1;
-               try {cmdid = Integer.parseInt(command);}
-               catch (Exception e) {
-                  cmdid = -1;
-                  _mux.onParsingError(message);
-                  continue;
-               }
-
-               switch (cmdid) {
-
-                  case RPL_VERSION:
-                     _mux.onReplyVersion(((_tok)tokens.elementAt(3)).token);
-                     break;
-
-                  case RPL_LUSERCHANNELS:
-                     int channelCount = 0;
-                     try {
-                        channelCount = Integer.parseInt(((_tok)tokens.elementAt(3)).token);
-                        _mux.onReplyListUserChannels(channelCount);
-                     }
-                     catch (Exception e) {
-                        _mux.onParsingError(message);
-                     }
-                     break;
-                  
-                  case RPL_LISTSTART:
-                     _mux.onReplyListStart();
-                     break;
-
-                  case RPL_LIST:
-                     // "<channel> <# visible> :<topic>"
-                     String channel = ((_tok)tokens.elementAt(3)).token;
-                     int userCount = 0;
-                     try {userCount = Integer.parseInt(((_tok)tokens.elementAt(4)).token);}
-                     catch (Exception e) {}
-                     String topic = message.substring(((_tok)tokens.elementAt(5)).index+1);
-                     _mux.onReplyList(channel,userCount,topic);
-                     break;
-
-                  case RPL_LISTEND:
-                     _mux.onReplyListEnd();
-                     break;
-
-                  case RPL_LUSERCLIENT: {
-                        String msg = message.substring(((_tok)tokens.elementAt(3)).index+1);
-                        _mux.onReplyListUserClient(msg);
-                        break;
-                     }
-
-                  case RPL_WHOISUSER:
-                     // "<nick> <user> <host> * :<real name>"
-                     String user = ((_tok)tokens.elementAt(3)).token;
-                     String rest = message.substring(((_tok)tokens.elementAt(4)).index);
-                     _mux.onReplyWhoIsUser(user,rest);
-                     break;
-
-                  case RPL_WHOISSERVER:
-                     // "<nick> <server> :<server info>"
-                     String info = message.substring(((_tok)tokens.elementAt(3)).index);
-                     _mux.onReplyWhoIsServer(info);
-                     break;
-
-                  case RPL_WHOISOPERATOR:
-                     // "<nick> :is an IRC operator"
-                     String opmsg = message.substring(((_tok)tokens.elementAt(3)).index);
-                     _mux.onReplyWhoIsOperator(opmsg);
-                     break;
-
-                  case RPL_WHOISIDLE:
-                     // "<nick> <integer> :seconds idle"
-                     String secs = ((_tok)tokens.elementAt(3)).token;
-                     _mux.onReplyWhoIsIdle("Idle for "+secs);
-                     break;
-
-                  case RPL_ENDOFWHOIS:
-                     // "<nick> :End of /WHOIS list"
-                     _mux.onReplyEndOfWhoIs();
-                     break;
-
-                  case RPL_WHOISCHANNELS:
-                     // "<nick> :{[@|+]<channel><space>}"
-                     String chans = message.substring(((_tok)tokens.elementAt(4)).index);
-                     String orgnick = parseOrgnick(origin); 
-                     _mux.onStatus("On channels "+chans.substring(1));
-                     _mux.onReplyWhoIsChannels(orgnick,chans.substring(1));
-                     break;
-
-                  case RPL_MOTDSTART:
-                     // Assume that MOTD indicates we are connected,   
-                     // registered and ready to start chatting.
-                     _mux.onConnect();
-                     _mux.onReplyMOTDStart();
-                     break;
-
-                  case RPL_MOTD: {
-                     String msg = message.substring(((_tok)tokens.elementAt(3)).index);
-                     _mux.onReplyMOTD(msg);
-                     break;
-                  }
-
-                  case RPL_ENDOFMOTD: {
-                     String msg = message.substring(((_tok)tokens.elementAt(3)).index);
-                     _mux.onReplyMOTDEnd();
-                     break;
-                  }
-
-                  case RPL_TOPIC: {
-                     String chan1 = ((_tok)tokens.elementAt(3)).token;
-                     String top = message.substring(((_tok)tokens.elementAt(4)).index).substring(1);
-                     _mux.onReplyTopic(chan1,top);
-                     break;
-                  }
-                  case RPL_NAMREPLY: 
-                     // "<channel> :[[@|+]<nick> [[@|+]<nick> [...]]]"
-                     String chn = ((_tok)tokens.elementAt(4)).token;
-                     String users = message.substring(((_tok)tokens.elementAt(5)).index);
-                     RCTest.println("Channel "+chn+" Users ("+users.substring(1)+")\n");
-                     _mux.onReplyNameReply(chn,users.substring(1));
-                     break;
-
-                  case ERR_NOMOTD:
-                     _mux.onConnect();
-                     _mux.onErrorNoMOTD();
-                     break;
-
- 					   case ERR_NONICKNAMEGIVEN:
-						   _mux.onErrorNoNicknameGiven();
-                     break;
-
- 					   case ERR_NEEDMOREPARAMS:
-						   _mux.onErrorNeedMoreParams();
-                     break;
-
-						case ERR_NICKNAMEINUSE:
-                     _mux.onErrorNickNameInUse();
-                     break;
-
-						case ERR_NICKCOLLISION:
-						   _mux.onErrorNickCollision();
-						   break;
-
-						case ERR_ERRONEUSNICKNAME:
-                     _mux.onErrorErroneusNickname();
-						   break;
-
-						case ERR_ALREADYREGISTRED: 
-						   _mux.onErrorAlreadyRegistered();
-						   break;
-
-                  // Some IRC servers use 001 - 004 for welcome message
-                  case 001:
-                  case 002:
-                  case 003:
-                  case 004:
-                     // Welcome message indicates that we are connected.
-                     _mux.onConnect();
-                     if (tokens.size()>3) {
-                        _mux.onStatus( message.substring(((_tok)tokens.elementAt(3)).index+1) );
-                     }
-                     break;
-
-                  // Unsupported commands and replies
-                  case RPL_LUSERME:
-                  case RPL_ENDOFNAMES:
-                  case 250:
-                  case 252:
-                  case 333:
-                     _mux.onErrorUnsupported(message+"\n");
-                     break;
-
-                  // Unknown command or reply
-	               default:
-                     _mux.onErrorUnknown(message+"\n");
-                     break;
-               }
+         while (_inputStream.readLine(message)) {
+            if (RCTest.isDebug()) {
+               RCTest.println("message="+message);
+            }
+            if (message.parse()) {
+               dispatch(message);
+            }
+            if (!_inputStream.hasLine()) {
+               readComplete();
             }
          }
       } 
@@ -606,10 +347,451 @@ public class IRCConnection implements Runnable, IRCConstants {
       close();  
    }
    //------------------------------------------------------------------
-   /** Write directly to the IRC chat server, refer to RFC-1459 for valid commands. */
-   public void writeln(String message) {
-      try {_outputStream.writeBytes(message+"\r\n");}catch (Exception e){}
+   /** Send nick and user name to the server. */
+   private void register() {
+      // Register nick 
+      _mux.onStatus("Registering nick ["+_nick+"] with server ["+_server+":"+_port+"]");
+      writeln("NICK "+getNick()); 
+
+      // Register user name
+      _mux.onStatus("Registering user name ["+_userName+"] with server ["+_server+":"+_port+"]");
+      writeln( "USER "+_userName+" "+_localHost+" "+_server+" :"+_fullName);
+   }
+   //------------------------------------------------------------------
+   /** Called on the selector thread once the non-blocking connect completes. */
+   void onSocketConnected(IRCSocketSession session, String localHost) {
+      if (session != _session) {
+         return;
+      }
+      _localHost = localHost;
+      _mux.onStatus("Contacted server ["+_server+":"+_port+"]");
+      register();
+      _mux.onStatus("Waiting for response from server ["+_server+":"+_port+"]");
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Called on the selector thread when the socket has been closed, either
+    * by close() or because the server went away.
+    */
+   void onSocketClosed(IRCSocketSession session, Exception cause) {
+      if (session != _session) {
+         return;
+      }
+      if (cause != null) {
+         _mux.onStatus("Closing connection dues to exception: "+cause.getMessage());
+      }
+      if (getState() == CONNECTED || getState() == CONNECTING) {
+         close();
+      }
+      else {
+         _session = null;
+         setState(DISCONNECTED);
+      }
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Tell listeners that every line read so far has been dispatched, so
+    * that messages they have batched up can be delivered. Called after
+    * each read from the server, public like dispatch() for replay.
+    */
+   public void readComplete() {
+      _mux.onReadComplete();
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Pass a parsed message to the appropriate method on the mux. Strings
+    * are only created for the arguments a handler actually receives.
+    * Normally called by the message loop, public so that recorded 
+    * server traffic can be replayed through a connection.
+    */
+   public void dispatch(IRCMessage message) {
+      int params = message.getParamCount();
+
+      switch (message.getCommand()) {
+
+         //--------------------------------------------------------------------------
+         // MESSAGE SWITCH. First handle commands. 
+         //
+         case IRCMessage.PING:
+            if (params > 0) {
+               _mux.onPing(message.getRawParams(0));
+            }
+            else {
+               _mux.onPing("");
+            }
+            break;
+
+         case IRCMessage.PRIVMSG: {
+            String orgnick = message.getNick();
+            if (orgnick == null) {
+               break;
+            }
+            if (params < 2) {
+               _mux.onParsingError(message.toString());
+               break;
+            }
+            String channel = message.getParam(0);
+            if (message.paramStartsWith(1,"\001VERSION")) {
+               _mux.onClientVersion(orgnick);
+            }
+            else if (message.paramStartsWith(1,"\001SOURCE")) {
+               _mux.onClientSource(orgnick);
+            }
+            else if (message.paramStartsWith(1,"\001CLIENTINFO")) {
+               _mux.onClientInfo(orgnick);
+            }
+            else if (message.paramStartsWith(1,"\001ACTION")) {
+               _mux.onAction(orgnick,channel,message.getCtcpArgument(1,8));
+            }
+            else {
+               _mux.onPrivateMessage(orgnick,channel,message.getParam(1));
+            }
+            break;
+         }
+
+         case IRCMessage.NOTICE: {
+            if (params < 2) {
+               break;
+            }
+            if (message.paramStartsWith(1,"\001VERSION")) {
+               _mux.onVersionNotice(message.getNick(),message.getPrefix(),
+                  message.getCtcpArgument(1,8));
+            }
+            else {
+               _mux.onNotice(message.getParam(1));
+            }
+            break;
+         }
+
+         case IRCMessage.MODE: {
+            _mux.onStatus("MODE: "+message);
+            String orgnick = message.getNick();
+            if (orgnick == null || params < 3) {
+               break;
+            }
+            if (message.paramEquals(1,"+o")) {
+               _mux.onOp(orgnick,message.getParam(0),message.getParam(2));
+            }
+            else if (message.paramEquals(1,"+b")) {
+               _mux.onBan(message.getParam(2),message.getParam(0),orgnick);
+            }
+            break;
+         }
+
+         case IRCMessage.JOIN: {
+            String orgnick = message.getNick();
+            if (orgnick != null && params > 0) {
+               _mux.onJoin(message.getPrefix(),orgnick,message.getParam(0),false);
+            }
+            break;
+         }
+
+         case IRCMessage.PART: {
+            String orgnick = message.getNick();
+            if (orgnick != null && params > 0) {
+               _mux.onPart(message.getPrefix(),orgnick,message.getParam(0));
+            }
+            break;
+         }
+
+         case IRCMessage.KICK: {
+            String orgnick = message.getNick();
+            if (orgnick != null && params > 1) {
+               String reason = params > 2 ? message.getParam(2) : "";
+               _mux.onKick(message.getParam(1),message.getParam(0),orgnick,reason);
+            }
+            break;
+         }
+
+         case IRCMessage.QUIT: {
+            String orgnick = message.getNick();
+            if (orgnick != null) {
+               String text = params > 0 ? message.getParam(0) : "";
+               _mux.onQuit(message.getPrefix(),orgnick,text);
+            }
+            break;
+         }
+
+         case IRCMessage.NICK: {
+            String orgnick = message.getNick();
+            if (orgnick != null && params > 0) {
+               _mux.onNick(message.getPrefix(),orgnick,message.getParam(0));
+            }
+            break;
+         }
+
+         case IRCMessage.TOPIC:
+            if (params > 1) {
+               _mux.onTopic(message.getParam(0),message.getParam(1));
+            }
+            break;
+
+         case IRCMessage.MSG:
+            _mux.onMessage(message.toString());
+            break;
+
+         case IRCMessage.UNKNOWN:
+            _mux.onParsingError(message.toString());
+            break;
+
+         //--------------------------------------------------------------------------
+         // MESSAGE SWITCH. Next handle replies and errors. Parameter 0 of every 
+         // reply is our own nick, so reply arguments start at parameter 1.
+         //
+         case RPL_VERSION:
+            // "<version>.<debuglevel> <server> :<comments>"
+            if (params > 1) {
+               _mux.onReplyVersion(message.getParam(1));
+            }
+            break;
+
+         case RPL_LUSERCHANNELS: {
+            int channelCount = message.getParamAsInt(1,-1);
+            if (channelCount < 0) {
+               _mux.onParsingError(message.toString());
+            }
+            else {
+               _mux.onReplyListUserChannels(channelCount);
+            }
+            break;
+         }
+
+         case RPL_LISTSTART:
+            _mux.onReplyListStart();
+            break;
+
+         case RPL_LIST:
+            // "<channel> <# visible> :<topic>"
+            if (params > 1) {
+               String topic = params > 3 ? message.getParam(3) : "";
+               _mux.onReplyList(message.getParam(1),
+                  message.getParamAsInt(2,0),topic);
+            }
+            break;
+
+         case RPL_LISTEND:
+            _mux.onReplyListEnd();
+            break;
+
+         case RPL_LUSERCLIENT:
+            // ":There are <integer> users and <integer> invisible on <integer> servers"
+            if (params > 1) {
+               _mux.onReplyListUserClient(message.getParam(1));
+            }
+            break;
+
+         case RPL_WHOISUSER:
+            // "<nick> <user> <host> * :<real name>"
+            if (params > 2) {
+               _mux.onReplyWhoIsUser(message.getParam(1),message.getRawParams(2));
+            }
+            break;
+
+         case RPL_WHOISSERVER:
+            // "<nick> <server> :<server info>"
+            if (params > 1) {
+               _mux.onReplyWhoIsServer(message.getRawParams(1));
+            }
+            break;
+
+         case RPL_WHOISOPERATOR:
+            // "<nick> :is an IRC operator"
+            if (params > 1) {
+               _mux.onReplyWhoIsOperator(message.getRawParams(1));
+            }
+            break;
+
+         case RPL_WHOISIDLE:
+            // "<nick> <integer> :seconds idle"
+            if (params > 2) {
+               _mux.onReplyWhoIsIdle("Idle for "+message.getParam(2));
+            }
+            break;
+
+         case RPL_ENDOFWHOIS:
+            // "<nick> :End of /WHOIS list"
+            _mux.onReplyEndOfWhoIs();
+            break;
+
+         case RPL_WHOISCHANNELS:
+            // "<nick> :{[@|+]<channel><space>}"
+            if (params > 2) {
+               String chans = message.getParam(2);
+               _mux.onStatus("On channels "+chans);
+               _mux.onReplyWhoIsChannels(message.getParam(1),chans);
+            }
+            break;
+
+         case RPL_MOTDSTART:
+            // Assume that MOTD indicates we are connected,   
+            // registered and ready to start chatting.
+            _mux.onConnect();
+            _mux.onReplyMOTDStart();
+            break;
+
+         case RPL_MOTD:
+            if (params > 1) {
+               _mux.onReplyMOTD(message.getParam(1));
+            }
+            break;
+
+         case RPL_ENDOFMOTD:
+            _mux.onReplyMOTDEnd();
+            break;
+
+         case RPL_TOPIC:
+            // "<channel> :<topic>"
+            if (params > 2) {
+               _mux.onReplyTopic(message.getParam(1),message.getParam(2));
+            }
+            break;
+
+         case RPL_NAMREPLY: 
+            // "( "=" / "*" / "@" ) <channel> :[[@|+]<nick> [[@|+]<nick> [...]]]"
+            if (params > 3) {
+               _mux.onReplyNameReply(message.getParam(2),message.getParam(3));
+            }
+            break;
+
+         case ERR_NOMOTD:
+            _mux.onConnect();
+            _mux.onErrorNoMOTD();
+            break;
+
+         case ERR_NONICKNAMEGIVEN:
+            _mux.onErrorNoNicknameGiven();
+            break;
+
+         case ERR_NEEDMOREPARAMS:
+            _mux.onErrorNeedMoreParams();
+            break;
+
+         case ERR_NICKNAMEINUSE:
+            _mux.onErrorNickNameInUse();
+            break;
+
+         case ERR_NICKCOLLISION:
+            _mux.onErrorNickCollision();
+            break;
+
+         case ERR_ERRONEUSNICKNAME:
+            _mux.onErrorErroneusNickname();
+            break;
+
+         case ERR_ALREADYREGISTRED: 
+            _mux.onErrorAlreadyRegistered();
+            break;
+
+         // Some IRC servers use 001 - 004 for welcome message
+         case 001:
+         case 002:
+         case 003:
+         case 004:
+            // Welcome message indicates that we are connected.
+            _mux.onConnect();
+            if (params > 1) {
+               _mux.onStatus(message.getParam(1));
+            }
+            break;
+
+         // Unsupported commands and replies
+         case RPL_LUSERME:
+         case RPL_ENDOFNAMES:
+         case 250:
+         case RPL_LUSEROP:
+         case 333:
+            _mux.onErrorUnsupported(message+"\n");
+            break;
+
+         // Unknown command or reply
+         default:
+            _mux.onErrorUnknown(message+"\n");
+            break;
+      }
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Write to the IRC chat server, refer to RFC-1459 for valid commands. 
+    * The CR-LF terminator is added here. Returns false if the line was 
+    * not accepted because the connection is not open or too many lines 
+    * are already waiting to be written.
+    */
+   public boolean writeln(String message) {
+      return write(message,null);
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Like writeln(), but returns a future that completes once the line
+    * has been flushed to the server, or fails with the reason it was
+    * not accepted or could not be written.
+    */
+   public CompletableFuture<Void> writelnAsync(String message) {
+      CompletableFuture<Void> written = new CompletableFuture<Void>();
+      if (!write(message,written)) {
+         written.completeExceptionally(new IOException(
+            getState() == CONNECTED ? "Too many lines waiting to be written" : "Not connected"));
+      }
+      return written;
+   }
+   //------------------------------------------------------------------
+   private boolean write(String message, CompletableFuture<Void> written) {
+      IRCSocketSession session = _session;
+      if (session == null && _outputStream == null) {
+         return false;
+      }
+      IRCOutputQueue queue = (session != null) ? session.getOutputQueue() : _outputQueue;
+      boolean offered = (written != null)
+         ? queue.offer(message,written) : queue.offer(message);
+      if (!offered) {
+         return false;
+      }
+      if (session != null) {
+         session.flushLater();
+      }
+      else {
+         flushQueue(queue);
+      }
+      return true;
    }  
+   //------------------------------------------------------------------
+   /** 
+    * Write queued lines to the blocking socket. Whichever thread gets
+    * the write lock writes everything queued so far, including lines
+    * offered by threads that found the lock taken.
+    */
+   private void flushQueue(IRCOutputQueue queue) {
+      while (!queue.isEmpty() && _writeLock.tryLock()) {
+         try {
+            OutputStream out = _outputStream;
+            ByteBuffer batch;
+            while ((batch = queue.drain()) != null) {
+               out.write(batch.array(),0,batch.limit());
+               out.flush();
+               queue.flushed(batch.limit());
+            }
+         }
+         catch (Exception e) {
+            queue.fail(e);
+            _mux.onErrorWrite(e.toString());
+
+            // Let the message loop notice and close down
+            try { 
+               _socket.close(); 
+            } catch (Exception e2) {}
+            return;
+         }
+         finally {
+            _writeLock.unlock();
+         }
+      }
+   }
+   //------------------------------------------------------------------
+   /** Called on the selector thread when the non-blocking socket fails to write. */
+   void onSocketWriteError(IRCSocketSession session, Exception cause) {
+      if (session == _session) {
+         _mux.onErrorWrite(cause.toString());
+      }
+   }
     
    ////////////////////////////////////////////////////////////////////////////////////
    
@@ -655,6 +837,9 @@ public class IRCConnection implements Runnable, IRCConstants {
       public void onPrivateMessage(String orgnick, String chan, String txt) {
          _listener.onPrivateMessage(orgnick, chan, txt);
       }
+      public void onReadComplete() {
+         _listener.onReadComplete();
+      }
       public void onNick( String user, String oldnick, String newnick ) {
          _listener.onNick( user, oldnick, newnick );
       }
@@ -763,5 +948,8 @@ public class IRCConnection implements Runnable, IRCConstants {
       public void onErrorUnsupported(String message) {
          _listener.onErrorUnsupported(message);
       }
+      public void onErrorWrite(String message) {
+         _listener.onErrorWrite(message);
+      }
    }
 }
@@ -52,6 +52,7 @@ public class IRCConnectionAdapter implements IRCConnectionListener {
    public void onTopic(String chanName, String newTopic) {}
    public void onVersionNotice(String orgnick, String origin, String version) {}
    public void onQuit( String user, String nick, String txt ) {}
+   public void onReadComplete() {}
    public void onReplyVersion(String version) {}
    public void onReplyListUserChannels(int channelCount) {}
    public void onReplyListStart() {}
@@ -79,4 +80,5 @@ public class IRCConnectionAdapter implements IRCConnectionListener {
    public void onErrorAlreadyRegistered() {}
    public void onErrorUnknown(String message) {}
    public void onErrorUnsupported(String messag) {}
+   public void onErrorWrite(String message) {}
 }
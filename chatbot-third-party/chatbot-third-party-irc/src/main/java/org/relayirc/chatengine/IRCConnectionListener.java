@@ -54,6 +54,8 @@ public interface IRCConnectionListener {
    public void onTopic(String chanName, String newTopic);
    public void onVersionNotice(String orgnick, String origin, String version);
    public void onQuit( String user, String nick, String txt );
+   /** Every line read from the server so far has been dispatched. */
+   public void onReadComplete();
    public void onReplyVersion(String version);
    public void onReplyListUserChannels(int channelCount);
    public void onReplyListStart();
@@ -81,4 +83,5 @@ public interface IRCConnectionListener {
    public void onErrorAlreadyRegistered();
    public void onErrorUnknown(String message);
    public void onErrorUnsupported(String messag);
+   public void onErrorWrite(String message);
 }
@@ -0,0 +1,99 @@
+/*
+ * FILE: IRCLineReader.java
+ *
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is Relay IRC chat client.
+ *
+ * The Initial Developer of the Original Code is David M. Johnson.
+ * Portions created by David M. Johnson are Copyright (C) 1998.
+ * All Rights Reserved.
+ *
+ * Contributor(s): No contributors to this file.
+ */
+package org.relayirc.chatengine;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads CR-LF terminated lines from the server straight into the buffer
+ * of a reusable IRCMessage, so that no String is created per line.
+ * Lines longer than MAX_LINE_LENGTH are truncated.
+ * @see org.relayirc.chatengine.IRCMessage
+ */
+public class IRCLineReader {
+
+   /** Longest line kept, generous enough for IRCv3 message tags. */
+   public static final int MAX_LINE_LENGTH = 8704;
+
+   private final Reader _in;
+   private final char[] _chunk = new char[8192];
+   private int          _pos = 0;
+   private int          _limit = 0;
+
+   //------------------------------------------------------------------
+   /** Construct a line reader over a character stream from the server. */
+   public IRCLineReader(Reader in) {
+      _in = in;
+   }
+   //------------------------------------------------------------------
+   /**
+    * Read the next line into message, replacing its previous contents.
+    * Returns false once the stream is exhausted.
+    */
+   public boolean readLine(IRCMessage message) throws IOException {
+      message.clear();
+      boolean readAny = false;
+
+      while (true) {
+         if (_pos >= _limit) {
+            _limit = _in.read(_chunk,0,_chunk.length);
+            _pos = 0;
+            if (_limit <= 0) {
+               _limit = 0;
+               return readAny;
+            }
+         }
+         readAny = true;
+
+         int start = _pos;
+         while (_pos < _limit && _chunk[_pos] != '\n') {
+            _pos++;
+         }
+         int room = MAX_LINE_LENGTH-message.length();
+         message.append(_chunk,start,Math.min(_pos-start,room));
+
+         if (_pos < _limit) {
+            _pos++; // consume '\n'
+            int len = message.length();
+            if (len > 0 && message.charAt(len-1) == '\r') {
+               message.setLength(len-1);
+            }
+            return true;
+         }
+      }
+   }
+   //------------------------------------------------------------------
+   /** True if a whole line is buffered, so readLine will not block. */
+   public boolean hasLine() {
+      for (int i=_pos; i<_limit; i++) {
+         if (_chunk[i] == '\n') {
+            return true;
+         }
+      }
+      return false;
+   }
+   //------------------------------------------------------------------
+   /** Close the underlying stream. */
+   public void close() throws IOException {
+      _in.close();
+   }
+}
@@ -0,0 +1,398 @@
+/*
+ * FILE: IRCMessage.java
+ *
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is Relay IRC chat client.
+ *
+ * The Initial Developer of the Original Code is David M. Johnson.
+ * Portions created by David M. Johnson are Copyright (C) 1998.
+ * All Rights Reserved.
+ *
+ * Contributor(s): No contributors to this file.
+ */
+package org.relayirc.chatengine;
+
+/**
+ * <p>A reusable, offset-based view of one RFC-1459 message line. The
+ * raw characters live in a single buffer that is kept between lines;
+ * the prefix, command and parameters are recorded as index ranges into
+ * that buffer, so parsing a line allocates nothing. Strings are only
+ * created when a caller asks for one.</p>
+ *
+ * <p>Numeric replies are decoded straight from the buffer and returned
+ * by getCommand() as their reply number. Commands understood by the
+ * message loop are returned as one of the negative constants below,
+ * anything else as UNKNOWN.</p>
+ *
+ * <p>Instances are not thread safe, each message loop owns one.</p>
+ *
+ * @see org.relayirc.chatengine.IRCConnection
+ */
+public final class IRCMessage {
+
+   /** Maximum number of parameters allowed by RFC-1459. */
+   public static final int MAX_PARAMS = 15;
+
+   public static final int UNKNOWN =   0;
+   public static final int PING    =  -1;
+   public static final int PRIVMSG =  -2;
+   public static final int NOTICE  =  -3;
+   public static final int MODE    =  -4;
+   public static final int JOIN    =  -5;
+   public static final int PART    =  -6;
+   public static final int KICK    =  -7;
+   public static final int QUIT    =  -8;
+   public static final int NICK    =  -9;
+   public static final int TOPIC   = -10;
+   public static final int MSG     = -11;
+
+   private static final int INITIAL_CAPACITY = 512;
+
+   private char[]      _buf = new char[INITIAL_CAPACITY];
+   private int         _length;
+   private int         _prefixStart;
+   private int         _prefixEnd;
+   private int         _commandStart;
+   private int         _commandEnd;
+   private int         _command;
+   private int         _paramCount;
+   private boolean     _hasTrailing;
+   private final int[] _paramStart = new int[MAX_PARAMS];
+   private final int[] _paramEnd = new int[MAX_PARAMS];
+
+   //------------------------------------------------------------------
+   /** Copy a line into the buffer and parse it. */
+   public boolean parse(CharSequence line) {
+      clear();
+      int len = line.length();
+      ensureCapacity(len);
+      if (line instanceof String) {
+         ((String)line).getChars(0,len,_buf,0);
+      }
+      else {
+         for (int i=0; i<len; i++) {
+            _buf[i] = line.charAt(i);
+         }
+      }
+      _length = len;
+      return parse();
+   }
+   //------------------------------------------------------------------
+   /**
+    * Parse the characters currently held in the buffer. Returns false
+    * if the line is blank and so carries no command.
+    */
+   public boolean parse() {
+      _prefixStart = -1;
+      _prefixEnd = -1;
+      _commandStart = 0;
+      _commandEnd = 0;
+      _command = UNKNOWN;
+      _paramCount = 0;
+      _hasTrailing = false;
+
+      int end = _length;
+      int pos = skipSpaces(0);
+      if (pos >= end) {
+         return false;
+      }
+
+      // Optional ":<prefix>"
+      if (_buf[pos] == ':') {
+         _prefixStart = pos+1;
+         pos = skipWord(pos);
+         _prefixEnd = pos;
+         pos = skipSpaces(pos);
+         if (pos >= end) {
+            return false;
+         }
+      }
+
+      _commandStart = pos;
+      pos = skipWord(pos);
+      _commandEnd = pos;
+      _command = decodeCommand();
+
+      // Middle parameters, then an optional ":<trailing>" parameter.
+      while (_paramCount < MAX_PARAMS) {
+         pos = skipSpaces(pos);
+         if (pos >= end) {
+            break;
+         }
+         if (_buf[pos] == ':' || _paramCount == MAX_PARAMS-1) {
+            if (_buf[pos] == ':') {
+               pos++;
+               _hasTrailing = true;
+            }
+            _paramStart[_paramCount] = pos;
+            _paramEnd[_paramCount] = end;
+            _paramCount++;
+            break;
+         }
+         _paramStart[_paramCount] = pos;
+         pos = skipWord(pos);
+         _paramEnd[_paramCount] = pos;
+         _paramCount++;
+      }
+      return true;
+   }
+   //------------------------------------------------------------------
+   /** Command code, either a reply number or one of the constants above. */
+   public int getCommand() {
+      return _command;
+   }
+   //------------------------------------------------------------------
+   /** True if the command is a three digit numeric reply. */
+   public boolean isNumeric() {
+      return _command > 0;
+   }
+   //------------------------------------------------------------------
+   /** Command exactly as sent by the server (e.g. PRIVMSG or 001). */
+   public String getCommandName() {
+      return new String(_buf,_commandStart,_commandEnd-_commandStart);
+   }
+   //------------------------------------------------------------------
+   /** True if the line started with a ":<prefix>". */
+   public boolean hasPrefix() {
+      return _prefixStart >= 0;
+   }
+   //------------------------------------------------------------------
+   /** Origin of the message (e.g. nick!user@host), or "" if none. */
+   public String getPrefix() {
+      if (_prefixStart < 0) {
+         return "";
+      }
+      return new String(_buf,_prefixStart,_prefixEnd-_prefixStart);
+   }
+   //------------------------------------------------------------------
+   /** Nick part of the prefix, or null if the line has no prefix. */
+   public String getNick() {
+      if (_prefixStart < 0 || _prefixEnd == _prefixStart) {
+         return null;
+      }
+      int end = _prefixStart;
+      while (end < _prefixEnd && _buf[end] != '!') {
+         end++;
+      }
+      return new String(_buf,_prefixStart,end-_prefixStart);
+   }
+   //------------------------------------------------------------------
+   /** Number of parameters, including the trailing one. */
+   public int getParamCount() {
+      return _paramCount;
+   }
+   //------------------------------------------------------------------
+   /** Parameter at index, without the leading ':' of a trailing parameter. */
+   public String getParam(int index) {
+      checkParam(index);
+      return new String(_buf,_paramStart[index],_paramEnd[index]-_paramStart[index]);
+   }
+   //------------------------------------------------------------------
+   /**
+    * Raw text of the line from the start of the parameter at index to
+    * the end of the line, including the ':' of any trailing parameter.
+    */
+   public String getRawParams(int index) {
+      checkParam(index);
+      int start = _paramStart[index];
+      if (_hasTrailing && index == _paramCount-1) {
+         start--;
+      }
+      return new String(_buf,start,_length-start);
+   }
+   //------------------------------------------------------------------
+   /**
+    * Decode a parameter as a non-negative decimal number, returning
+    * defaultValue if it is not one.
+    */
+   public int getParamAsInt(int index, int defaultValue) {
+      if (index < 0 || index >= _paramCount) {
+         return defaultValue;
+      }
+      int start = _paramStart[index];
+      int end = _paramEnd[index];
+      if (start == end || end-start > 9) {
+         return defaultValue;
+      }
+      int value = 0;
+      for (int i=start; i<end; i++) {
+         char c = _buf[i];
+         if (c < '0' || c > '9') {
+            return defaultValue;
+         }
+         value = value*10 + (c-'0');
+      }
+      return value;
+   }
+   //------------------------------------------------------------------
+   /** True if the parameter at index starts with the given text. */
+   public boolean paramStartsWith(int index, String text) {
+      if (index < 0 || index >= _paramCount) {
+         return false;
+      }
+      int start = _paramStart[index];
+      return _paramEnd[index]-start >= text.length()
+         && regionMatches(start,text);
+   }
+   //------------------------------------------------------------------
+   /** True if the parameter at index is exactly the given text. */
+   public boolean paramEquals(int index, String text) {
+      return paramStartsWith(index,text)
+         && _paramEnd[index]-_paramStart[index] == text.length();
+   }
+   //------------------------------------------------------------------
+   /**
+    * Text of the parameter at index after skipping offset characters,
+    * with a closing CTCP delimiter (\001) removed.
+    */
+   public String getCtcpArgument(int index, int offset) {
+      checkParam(index);
+      int start = Math.min(_paramStart[index]+offset,_paramEnd[index]);
+      int end = _paramEnd[index];
+      if (end > start && _buf[end-1] == '\001') {
+         end--;
+      }
+      return new String(_buf,start,end-start);
+   }
+   //------------------------------------------------------------------
+   /** The whole line as received, without line terminator. */
+   public String toString() {
+      return new String(_buf,0,_length);
+   }
+
+   //==================================================================
+   // Buffer management, for use by the line reader
+   //==================================================================
+
+   /** Discard the current line. */
+   void clear() {
+      _length = 0;
+   }
+   //------------------------------------------------------------------
+   /** Number of characters in the buffer. */
+   int length() {
+      return _length;
+   }
+   //------------------------------------------------------------------
+   /** Drop characters from the end of the buffer. */
+   void setLength(int length) {
+      _length = length;
+   }
+   //------------------------------------------------------------------
+   /** Character at index in the buffer. */
+   char charAt(int index) {
+      return _buf[index];
+   }
+   //------------------------------------------------------------------
+   /** Append characters to the line held in the buffer. */
+   void append(char[] src, int offset, int count) {
+      ensureCapacity(_length+count);
+      System.arraycopy(src,offset,_buf,_length,count);
+      _length += count;
+   }
+
+   //==================================================================
+   // Internals
+   //==================================================================
+
+   private void ensureCapacity(int capacity) {
+      if (capacity > _buf.length) {
+         char[] larger = new char[Math.max(capacity,_buf.length*2)];
+         System.arraycopy(_buf,0,larger,0,_length);
+         _buf = larger;
+      }
+   }
+   //------------------------------------------------------------------
+   private int skipSpaces(int pos) {
+      while (pos < _length && _buf[pos] == ' ') {
+         pos++;
+      }
+      return pos;
+   }
+   //------------------------------------------------------------------
+   private int skipWord(int pos) {
+      while (pos < _length && _buf[pos] != ' ') {
+         pos++;
+      }
+      return pos;
+   }
+   //------------------------------------------------------------------
+   private void checkParam(int index) {
+      if (index < 0 || index >= _paramCount) {
+         throw new IndexOutOfBoundsException(
+            "Parameter "+index+" of "+_paramCount);
+      }
+   }
+   //------------------------------------------------------------------
+   private boolean regionMatches(int start, String text) {
+      for (int i=0; i<text.length(); i++) {
+         if (_buf[start+i] != text.charAt(i)) {
+            return false;
+         }
+      }
+      return true;
+   }
+   //------------------------------------------------------------------
+   /** Map the command to a reply number or command constant, no allocation. */
+   private int decodeCommand() {
+      int start = _commandStart;
+      int len = _commandEnd-start;
+
+      if (len == 3 && isDigit(start) && isDigit(start+1) && isDigit(start+2)) {
+         return (_buf[start]-'0')*100 + (_buf[start+1]-'0')*10 + (_buf[start+2]-'0');
+      }
+
+      switch (len) {
+         case 3:
+            if (regionMatches(start,"MSG")) return MSG;
+            break;
+         case 4:
+            switch (_buf[start]) {
+               case 'P':
+                  if (regionMatches(start,"PING")) return PING;
+                  if (regionMatches(start,"PART")) return PART;
+                  break;
+               case 'M':
+                  if (regionMatches(start,"MODE")) return MODE;
+                  break;
+               case 'J':
+                  if (regionMatches(start,"JOIN")) return JOIN;
+                  break;
+               case 'K':
+                  if (regionMatches(start,"KICK")) return KICK;
+                  break;
+               case 'Q':
+                  if (regionMatches(start,"QUIT")) return QUIT;
+                  break;
+               case 'N':
+                  if (regionMatches(start,"NICK")) return NICK;
+                  break;
+            }
+            break;
+         case 5:
+            if (regionMatches(start,"TOPIC")) return TOPIC;
+            break;
+         case 6:
+            if (regionMatches(start,"NOTICE")) return NOTICE;
+            break;
+         case 7:
+            if (regionMatches(start,"PRIVMSG")) return PRIVMSG;
+            break;
+      }
+      return UNKNOWN;
+   }
+   //------------------------------------------------------------------
+   private boolean isDigit(int index) {
+      char c = _buf[index];
+      return c >= '0' && c <= '9';
+   }
+}
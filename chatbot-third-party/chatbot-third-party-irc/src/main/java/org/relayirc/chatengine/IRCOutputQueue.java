@@ -0,0 +1,338 @@
+/*
+ * FILE: IRCOutputQueue.java
+ *
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is Relay IRC chat client.
+ *
+ * The Initial Developer of the Original Code is David M. Johnson.
+ * Portions created by David M. Johnson are Copyright (C) 1998.
+ * All Rights Reserved.
+ *
+ * Contributor(s): No contributors to this file.
+ */
+package org.relayirc.chatengine;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Bounded queue of lines waiting to be written to an IRC server. Any
+ * thread may offer a line; offer() returns false instead of blocking
+ * when the queue is full, so callers see backpressure explicitly.</p>
+ *
+ * <p>The thread that writes to the socket calls drain() to coalesce as
+ * many queued lines as fit into one UTF-8 encoded buffer, each ended by
+ * a single CR-LF, and then reports the write with flushed(). Only one
+ * thread may drain at a time.</p>
+ *
+ * <p>A line may be offered with a future, which completes once the
+ * write holding the line has been flushed, or fails if the line is
+ * discarded or the write fails.</p>
+ *
+ * <p>Every connection attempt gets a queue of its own, so lines meant
+ * for one socket are never written to another. Once the connection
+ * closes, close() fails the waiting lines and any line offered
+ * afterwards is refused.</p>
+ *
+ * <p>Counters for bytes, lines, flushes and rejected lines are kept
+ * for the lifetime of the queue, and carried on by the queue of the
+ * next connection.</p>
+ *
+ * @see org.relayirc.chatengine.IRCConnection#writeln(String)
+ */
+public class IRCOutputQueue {
+
+   /** Default number of lines that may wait to be written. */
+   public static final int DEFAULT_CAPACITY = 1024;
+
+   private static final int BATCH_SIZE = 8192;
+
+   @SuppressWarnings("unchecked")
+   private static final CompletableFuture<Void>[] NONE_WAITING = new CompletableFuture[0];
+
+   // Holds a String, or a _Line when someone waits for it to be written
+   private final BlockingQueue<Object> _queue;
+   private final int                   _capacity;
+   private ByteBuffer                  _batch = ByteBuffer.allocate(BATCH_SIZE);
+   private int                         _batchLines = 0;
+
+   // Guarded by itself, futures of the lines in the last drained batch.
+   // Lines are only removed from _queue while holding it too.
+   private final ArrayList<CompletableFuture<Void>> _batchWritten =
+      new ArrayList<CompletableFuture<Void>>();
+
+   private final AtomicLong _bytesWritten;
+   private final AtomicLong _linesWritten;
+   private final AtomicLong _flushes;
+   private final AtomicLong _linesRejected;
+
+   // Why the connection closed, null while lines are accepted
+   private volatile Throwable _closed = null;
+
+   //------------------------------------------------------------------
+   /** Construct a queue holding up to DEFAULT_CAPACITY lines. */
+   public IRCOutputQueue() {
+      this(DEFAULT_CAPACITY);
+   }
+   //------------------------------------------------------------------
+   /** Construct a queue holding up to capacity lines. */
+   public IRCOutputQueue(int capacity) {
+      _capacity = capacity;
+      _queue = new ArrayBlockingQueue<Object>(capacity);
+      _bytesWritten = new AtomicLong();
+      _linesWritten = new AtomicLong();
+      _flushes = new AtomicLong();
+      _linesRejected = new AtomicLong();
+   }
+   //------------------------------------------------------------------
+   /**
+    * Construct an empty queue for the next connection, with the
+    * capacity of the previous one and carrying on its counters.
+    */
+   IRCOutputQueue(IRCOutputQueue previous) {
+      _capacity = previous._capacity;
+      _queue = new ArrayBlockingQueue<Object>(_capacity);
+      _bytesWritten = previous._bytesWritten;
+      _linesWritten = previous._linesWritten;
+      _flushes = previous._flushes;
+      _linesRejected = previous._linesRejected;
+   }
+   //------------------------------------------------------------------
+   /**
+    * Queue a line, without terminator, for the server. Returns false
+    * and counts the line as rejected if the queue is full.
+    */
+   public boolean offer(String line) {
+      return offerElement(line);
+   }
+   //------------------------------------------------------------------
+   /**
+    * Queue a line and complete written once it has been flushed to the
+    * server. Returns false, leaving written alone, if the queue is full.
+    */
+   public boolean offer(String line, CompletableFuture<Void> written) {
+      return offerElement(new _Line(line,written));
+   }
+   //------------------------------------------------------------------
+   private boolean offerElement(Object element) {
+      if (_closed != null) {
+         return false;
+      }
+      if (!_queue.offer(element)) {
+         _linesRejected.incrementAndGet();
+         return false;
+      }
+      // Closed while offering, nobody will drain the line
+      Throwable closed = _closed;
+      if (closed != null) {
+         fail(closed);
+         return false;
+      }
+      return true;
+   }
+   //------------------------------------------------------------------
+   /** Number of lines waiting to be written. */
+   public int size() {
+      return _queue.size();
+   }
+   //------------------------------------------------------------------
+   /** Maximum number of lines that may wait to be written. */
+   public int getCapacity() {
+      return _capacity;
+   }
+   //------------------------------------------------------------------
+   /** True if no lines are waiting. */
+   public boolean isEmpty() {
+      return _queue.isEmpty();
+   }
+   //------------------------------------------------------------------
+   /**
+    * Fail all waiting lines with the given cause and refuse lines
+    * offered from now on.
+    */
+   public void close(Throwable cause) {
+      _closed = cause;
+      fail(cause);
+   }
+   //------------------------------------------------------------------
+   /** Discard all waiting lines, failing the futures of any that had one. */
+   public void clear() {
+      fail(new IOException("Line discarded before it was written"));
+   }
+   //------------------------------------------------------------------
+   /**
+    * Discard all waiting lines and the last drained batch, failing the
+    * futures of the lines with the given cause.
+    */
+   public void fail(Throwable cause) {
+      CompletableFuture<Void>[] failed;
+      synchronized (_batchWritten) {
+         Object element;
+         while ((element = _queue.poll()) != null) {
+            if (element instanceof _Line) {
+               _batchWritten.add(((_Line)element)._written);
+            }
+         }
+         failed = takeBatchWritten();
+      }
+      for (int i=0; i<failed.length; i++) {
+         failed[i].completeExceptionally(cause);
+      }
+   }
+   //------------------------------------------------------------------
+   /** Total bytes written to the server. */
+   public long getBytesWritten() {
+      return _bytesWritten.get();
+   }
+   //------------------------------------------------------------------
+   /** Total lines written to the server. */
+   public long getLinesWritten() {
+      return _linesWritten.get();
+   }
+   //------------------------------------------------------------------
+   /** Total number of buffers written, each holding one or more lines. */
+   public long getFlushes() {
+      return _flushes.get();
+   }
+   //------------------------------------------------------------------
+   /** Total lines refused because the queue was full. */
+   public long getLinesRejected() {
+      return _linesRejected.get();
+   }
+   //------------------------------------------------------------------
+   /**
+    * Encode waiting lines into the batch buffer until it is full or the
+    * queue is empty. Returns the buffer ready for writing, or null if
+    * nothing was waiting. The buffer is reused by the next call.
+    */
+   ByteBuffer drain() {
+      _batch.clear();
+      _batchLines = 0;
+      synchronized (_batchWritten) {
+         Object element;
+         while ((element = _queue.peek()) != null) {
+            String line = (element instanceof _Line) ? ((_Line)element)._text : (String)element;
+            if (!encode(line)) {
+               if (_batchLines > 0) {
+                  break;
+               }
+               // A single line larger than the buffer, grow to fit it
+               _batch = ByteBuffer.allocate(maxEncodedLength(line));
+               encode(line);
+            }
+            _queue.poll();
+            _batchLines++;
+            if (element instanceof _Line) {
+               _batchWritten.add(((_Line)element)._written);
+            }
+         }
+      }
+      if (_batchLines == 0) {
+         return null;
+      }
+      _batch.flip();
+      return _batch;
+   }
+   //------------------------------------------------------------------
+   /** Record that the buffer returned by the last drain() was written. */
+   void flushed(int bytes) {
+      _bytesWritten.addAndGet(bytes);
+      _linesWritten.addAndGet(_batchLines);
+      _flushes.incrementAndGet();
+      CompletableFuture<Void>[] written = takeBatchWritten();
+      for (int i=0; i<written.length; i++) {
+         written[i].complete(null);
+      }
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Futures of the last drained batch, taken out of the batch before
+    * they are completed, since whatever waits on them may write again.
+    */
+   @SuppressWarnings("unchecked")
+   private CompletableFuture<Void>[] takeBatchWritten() {
+      synchronized (_batchWritten) {
+         if (_batchWritten.isEmpty()) {
+            return NONE_WAITING;
+         }
+         CompletableFuture<Void>[] futures =
+            _batchWritten.toArray(new CompletableFuture[_batchWritten.size()]);
+         _batchWritten.clear();
+         return futures;
+      }
+   }
+   //------------------------------------------------------------------
+   /**
+    * UTF-8 encode a line followed by CR-LF into the batch buffer. Any
+    * terminator already on the line is dropped. Returns false, leaving
+    * the buffer untouched, if the line might not fit.
+    */
+   private boolean encode(String line) {
+      if (_batch.remaining() < maxEncodedLength(line)) {
+         return false;
+      }
+      int end = line.length();
+      while (end > 0 && (line.charAt(end-1) == '\n' || line.charAt(end-1) == '\r')) {
+         end--;
+      }
+      for (int i=0; i<end; i++) {
+         char c = line.charAt(i);
+         if (c < 0x80) {
+            _batch.put((byte)c);
+         }
+         else if (c < 0x800) {
+            _batch.put((byte)(0xC0 | (c >> 6)));
+            _batch.put((byte)(0x80 | (c & 0x3F)));
+         }
+         else if (Character.isHighSurrogate(c) && i+1 < end
+            && Character.isLowSurrogate(line.charAt(i+1))) {
+            int cp = Character.toCodePoint(c,line.charAt(++i));
+            _batch.put((byte)(0xF0 | (cp >> 18)));
+            _batch.put((byte)(0x80 | ((cp >> 12) & 0x3F)));
+            _batch.put((byte)(0x80 | ((cp >> 6) & 0x3F)));
+            _batch.put((byte)(0x80 | (cp & 0x3F)));
+         }
+         else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+            _batch.put((byte)'?');
+         }
+         else {
+            _batch.put((byte)(0xE0 | (c >> 12)));
+            _batch.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+            _batch.put((byte)(0x80 | (c & 0x3F)));
+         }
+      }
+      _batch.put((byte)'\r');
+      _batch.put((byte)'\n');
+      return true;
+   }
+   //------------------------------------------------------------------
+   private static int maxEncodedLength(String line) {
+      return line.length()*3+2;
+   }
+
+   ////////////////////////////////////////////////////////////////////
+
+   /** A line with the future to complete once it has been written. */
+   private static final class _Line {
+      private final String                  _text;
+      private final CompletableFuture<Void> _written;
+
+      _Line(String text, CompletableFuture<Void> written) {
+         _text = text;
+         _written = written;
+      }
+   }
+}
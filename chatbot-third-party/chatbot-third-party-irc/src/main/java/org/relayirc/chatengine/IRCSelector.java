@@ -0,0 +1,232 @@
+/*
+ * FILE: IRCSelector.java
+ *
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is Relay IRC chat client.
+ *
+ * The Initial Developer of the Original Code is David M. Johnson.
+ * Portions created by David M. Johnson are Copyright (C) 1998.
+ * All Rights Reserved.
+ *
+ * Contributor(s): No contributors to this file.
+ */
+package org.relayirc.chatengine;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A non-blocking event loop that serves any number of IRC connections
+ * from a single thread. Give the same selector to every IRCConnection
+ * (or ChatEngine) that should share it; connections without a selector
+ * keep using a message loop thread each.</p>
+ *
+ * <p>All reading, line framing and listener notification for the
+ * connections of a selector happens on the selector thread, so listeners
+ * must not block. Writes may come from any thread.</p>
+ *
+ * <p>The selector thread is started by the first connection and, like the
+ * message loop threads, is not a daemon unless the thread factory given
+ * at construction makes it one. Call shutdown() to stop it.</p>
+ *
+ * @see org.relayirc.chatengine.IRCConnection
+ */
+public class IRCSelector implements Runnable {
+
+   private static int      _instances = 0;
+
+   private final Selector  _selector;
+   private final String    _name;
+   private final ThreadFactory _threadFactory; // Makes the selector thread, null for plain Thread
+   private final Queue<IRCSocketSession> _pending
+      = new ConcurrentLinkedQueue<IRCSocketSession>();
+   private Thread          _thread;
+   private volatile boolean _running = false;
+   private volatile boolean _shutdown = false;
+   private final AtomicInteger _connections = new AtomicInteger();
+
+   //------------------------------------------------------------------
+   /** Construct a selector, its thread is started on first use. */
+   public IRCSelector() throws IOException {
+      this(null);
+   }
+   //------------------------------------------------------------------
+   /**
+    * Construct a selector whose thread, started on first use, is made
+    * by the given factory. Null means a plain platform Thread.
+    */
+   public IRCSelector(ThreadFactory factory) throws IOException {
+      _threadFactory = factory;
+      _selector = Selector.open();
+      synchronized (IRCSelector.class) {
+         _name = "IRCSelector-"+(_instances++);
+      }
+   }
+   //------------------------------------------------------------------
+   /** Number of connections currently registered with this selector. */
+   public int getConnectionCount() {
+      return _connections.get();
+   }
+   //------------------------------------------------------------------
+   /** True if the selector thread is running. */
+   public boolean isRunning() {
+      return _running;
+   }
+   //------------------------------------------------------------------
+   /**
+    * Stop the selector thread, closing every connection it serves.
+    * Connections are closed abruptly, use IRCConnection.close() first
+    * for a graceful QUIT.
+    */
+   public void shutdown() {
+      Thread thread;
+      synchronized (this) {
+         _running = false;
+         _shutdown = true;
+         thread = _thread;
+      }
+      if (thread == null) {
+         try {
+            _selector.close();
+         }
+         catch (IOException e) {
+            // nothing left to do
+         }
+         return;
+      }
+      _selector.wakeup();
+      if (thread != Thread.currentThread()) {
+         try {
+            thread.join();
+         }
+         catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+   //------------------------------------------------------------------
+   /**
+    * Wait up to timeout milliseconds for the connections of the selector
+    * to close, so that those closed with IRCConnection.close() get their
+    * QUIT written, then stop the selector thread.
+    */
+   public void shutdown(long timeout) {
+      long deadline = System.currentTimeMillis()+timeout;
+      while (_connections.get() > 0 && System.currentTimeMillis() < deadline) {
+         try {
+            Thread.sleep(10);
+         }
+         catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+         }
+      }
+      shutdown();
+   }
+   //------------------------------------------------------------------
+   /**
+    * Start a non-blocking connect to the server for a connection. The
+    * host name is resolved on the calling thread. The session is not
+    * served until its start() is called, so the connection can keep it
+    * before the selector thread reports anything about it.
+    */
+   IRCSocketSession connect(IRCConnection connection, String server, int port)
+      throws IOException {
+
+      if (_shutdown) {
+         throw new IOException(_name+" has been shut down");
+      }
+      SocketChannel channel = SocketChannel.open();
+      boolean connected;
+      try {
+         channel.configureBlocking(false);
+         // May finish at once, on loopback in particular
+         connected = channel.connect(new InetSocketAddress(server,port));
+      }
+      catch (IOException e) {
+         channel.close();
+         throw e;
+      }
+      IRCSocketSession session = new IRCSocketSession(this,connection,channel,connected);
+      _connections.incrementAndGet();
+      return session;
+   }
+   //------------------------------------------------------------------
+   /** Ask the selector thread to look at a session's pending work. */
+   void schedule(IRCSocketSession session) {
+      _pending.add(session);
+      start();
+      if (Thread.currentThread() != _thread) {
+         _selector.wakeup();
+      }
+   }
+   //------------------------------------------------------------------
+   /** Called by a session once its channel has been closed. */
+   void closed(IRCSocketSession session) {
+      _connections.decrementAndGet();
+   }
+   //------------------------------------------------------------------
+   private synchronized void start() {
+      if (_thread == null && !_shutdown) {
+         _running = true;
+         ThreadFactory factory = _threadFactory;
+         _thread = (factory != null) ? factory.newThread(this) : new Thread(this,_name);
+         _thread.start();
+      }
+   }
+   //------------------------------------------------------------------
+   /** The event loop. */
+   public void run() {
+      while (_running) {
+         try {
+            _selector.select();
+         }
+         catch (IOException e) {
+            e.printStackTrace();
+            break;
+         }
+
+         IRCSocketSession session;
+         while ((session = _pending.poll()) != null) {
+            session.update(_selector);
+         }
+
+         Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+         while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            ((IRCSocketSession)key.attachment()).handle(key);
+         }
+      }
+
+      IRCSocketSession unregistered;
+      while ((unregistered = _pending.poll()) != null) {
+         unregistered.closeNow(null);
+      }
+      for (SelectionKey key : _selector.keys()) {
+         ((IRCSocketSession)key.attachment()).closeNow(null);
+      }
+      try {
+         _selector.close();
+      }
+      catch (IOException e) {
+         // nothing left to do
+      }
+   }
+}
@@ -0,0 +1,268 @@
+/*
+ * FILE: IRCSocketSession.java
+ *
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is Relay IRC chat client.
+ *
+ * The Initial Developer of the Original Code is David M. Johnson.
+ * Portions created by David M. Johnson are Copyright (C) 1998.
+ * All Rights Reserved.
+ *
+ * Contributor(s): No contributors to this file.
+ */
+package org.relayirc.chatengine;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The non-blocking socket of one IRCConnection served by an IRCSelector.
+ * Bytes are read into a direct buffer, decoded into a reusable character
+ * buffer and framed into lines in the connection's IRCMessage, which is
+ * then dispatched on the selector thread. Lines written to the connection
+ * are taken from its IRCOutputQueue in coalesced batches when the socket
+ * is writable.
+ * @see org.relayirc.chatengine.IRCSelector
+ */
+class IRCSocketSession {
+
+   private static final int    BUFFER_SIZE = 8192;
+
+   private final IRCSelector   _selector;
+   private final IRCConnection _connection;
+   private final SocketChannel _channel;
+   private final ByteBuffer    _in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+   private final CharBuffer    _chars = CharBuffer.allocate(BUFFER_SIZE);
+   private final CharsetDecoder _decoder;
+   private final IRCMessage    _message = new IRCMessage();
+   private final IRCOutputQueue _queue;
+   private ByteBuffer          _pendingWrite = null; // Batch partly written
+   private SelectionKey        _key;
+   private boolean             _connected = false;
+   private boolean             _closed = false;
+
+   // Guarded by this, written from any thread
+   private boolean             _closeRequested = false;
+
+   //------------------------------------------------------------------
+   IRCSocketSession(IRCSelector selector, IRCConnection connection,
+      SocketChannel channel, boolean connected) {
+      _selector = selector;
+      _connection = connection;
+      _channel = channel;
+      _connected = connected;
+      _queue = connection.getOutputQueue();
+      // UTF-8 both ways, as IRCOutputQueue encodes
+      _decoder = StandardCharsets.UTF_8.newDecoder()
+         .onMalformedInput(CodingErrorAction.REPLACE)
+         .onUnmappableCharacter(CodingErrorAction.REPLACE);
+   }
+
+   //==================================================================
+   // Called from any thread
+   //==================================================================
+
+   /** Lines waiting to be written to this session's socket. */
+   IRCOutputQueue getOutputQueue() {
+      return _queue;
+   }
+   //------------------------------------------------------------------
+   /** Hand the session to the selector thread, which finishes the connect. */
+   void start() {
+      _selector.schedule(this);
+   }
+   //------------------------------------------------------------------
+   /** Ask the selector to write whatever is in the output queue. */
+   void flushLater() {
+      _selector.schedule(this);
+   }
+   //------------------------------------------------------------------
+   /** Close the socket once everything already queued has been written. */
+   void close() {
+      synchronized (this) {
+         _closeRequested = true;
+      }
+      _selector.schedule(this);
+   }
+
+   //==================================================================
+   // Called from the selector thread
+   //==================================================================
+
+   /** Register with the selector and bring interest ops up to date. */
+   void update(Selector selector) {
+      if (_closed) {
+         return;
+      }
+      try {
+         if (_key == null) {
+            _key = _channel.register(selector,
+               _connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT,this);
+            if (_connected) {
+               // The connect finished at once, OP_CONNECT will never fire
+               connected();
+            }
+         }
+         if (!_connected) {
+            return;
+         }
+         boolean pending = _pendingWrite != null || !_queue.isEmpty();
+         synchronized (this) {
+            if (!pending && _closeRequested) {
+               closeNow(null);
+               return;
+            }
+         }
+         _key.interestOps(SelectionKey.OP_READ
+            | (pending ? SelectionKey.OP_WRITE : 0));
+      }
+      catch (Exception e) {
+         closeNow(e);
+      }
+   }
+   //------------------------------------------------------------------
+   /** Handle readiness reported by the selector. */
+   void handle(SelectionKey key) {
+      try {
+         if (key.isValid() && key.isConnectable()) {
+            finishConnect();
+         }
+         if (key.isValid() && key.isReadable()) {
+            read();
+         }
+         if (key.isValid() && key.isWritable()) {
+            write();
+         }
+      }
+      catch (Exception e) {
+         closeNow(e);
+      }
+   }
+   //------------------------------------------------------------------
+   /** Close the socket straight away and tell the connection. */
+   void closeNow(Exception cause) {
+      if (_closed) {
+         return;
+      }
+      _closed = true;
+      if (_key != null) {
+         _key.cancel();
+      }
+      try {
+         _channel.close();
+      }
+      catch (IOException e) {
+         // already closing
+      }
+      _selector.closed(this);
+      _queue.close(cause != null ? cause : new IOException("Connection closed"));
+      _connection.onSocketClosed(this,cause);
+   }
+   //------------------------------------------------------------------
+   private void finishConnect() throws IOException {
+      if (_channel.finishConnect()) {
+         _connected = true;
+         _key.interestOps(SelectionKey.OP_READ);
+         connected();
+         update(null);
+      }
+   }
+   //------------------------------------------------------------------
+   private void connected() throws IOException {
+      String localHost = _channel.socket().getLocalAddress().getHostName();
+      _connection.onSocketConnected(this,localHost);
+   }
+   //------------------------------------------------------------------
+   private void read() throws IOException {
+      int count = _channel.read(_in);
+      if (count < 0) {
+         throw new EOFException("Server closed connection");
+      }
+      _in.flip();
+      try {
+         while (true) {
+            CoderResult result = _decoder.decode(_in,_chars,false);
+            _chars.flip();
+            frameLines();
+            _chars.clear();
+            if (!result.isOverflow()) {
+               break;
+            }
+         }
+      }
+      finally {
+         _connection.readComplete();
+      }
+      _in.compact();
+   }
+   //------------------------------------------------------------------
+   /** Split decoded characters into lines and dispatch each one. */
+   private void frameLines() {
+      char[] chars = _chars.array();
+      int pos = _chars.position();
+      int limit = _chars.limit();
+      while (pos < limit) {
+         int start = pos;
+         while (pos < limit && chars[pos] != '\n') {
+            pos++;
+         }
+         int room = IRCLineReader.MAX_LINE_LENGTH-_message.length();
+         _message.append(chars,start,Math.min(pos-start,room));
+         if (pos < limit) {
+            pos++; // consume '\n'
+            int len = _message.length();
+            if (len > 0 && _message.charAt(len-1) == '\r') {
+               _message.setLength(len-1);
+            }
+            if (_message.parse()) {
+               _connection.dispatch(_message);
+            }
+            _message.clear();
+            if (_closed) {
+               return;
+            }
+         }
+      }
+   }
+   //------------------------------------------------------------------
+   private void write() throws IOException {
+      try {
+         while (true) {
+            if (_pendingWrite == null) {
+               _pendingWrite = _queue.drain();
+               if (_pendingWrite == null) {
+                  break;
+               }
+            }
+            _channel.write(_pendingWrite);
+            if (_pendingWrite.hasRemaining()) {
+               return; // socket buffer is full, wait for OP_WRITE
+            }
+            _queue.flushed(_pendingWrite.limit());
+            _pendingWrite = null;
+         }
+      }
+      catch (IOException e) {
+         _connection.onSocketWriteError(this,e);
+         throw e;
+      }
+      update(null);
+   }
+}
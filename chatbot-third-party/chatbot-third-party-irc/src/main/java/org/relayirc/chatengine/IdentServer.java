@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ThreadFactory;
 
 /** 
  * Implments a "one-shot" ident authentication server. This is needed
@@ -43,8 +44,16 @@ public class IdentServer implements Runnable {
     * chat options.
     */
    public IdentServer( IChatEngine ctl, String userName) {
+      this(ctl,userName,null);
+   }
+   //------------------------------------------------------------------
+   /** 
+    * Construct identity server that runs on a thread from factory, or 
+    * on a plain Thread if factory is null.
+    */
+   public IdentServer( IChatEngine ctl, String userName, ThreadFactory factory) {
       _userName = userName;
-      Thread t = new Thread(this);
+      Thread t = (factory != null) ? factory.newThread(this) : new Thread(this);
       t.start();
    }
    //------------------------------------------------------------------
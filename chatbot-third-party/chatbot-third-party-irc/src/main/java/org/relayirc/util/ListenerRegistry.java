@@ -0,0 +1,91 @@
+/*
+ * FILE: ListenerRegistry.java
+ *
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is Relay IRC chat client.
+ *
+ * The Initial Developer of the Original Code is David M. Johnson.
+ * Portions created by David M. Johnson are Copyright (C) 1998.
+ * All Rights Reserved.
+ *
+ * Contributor(s): No contributors to this file.
+ */
+package org.relayirc.util;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+///////////////////////////////////////////////////////////////////////////
+
+/**
+ * Lock-free list of listeners. The listeners are held in an immutable
+ * array that is replaced by compare-and-set whenever a listener is added
+ * or removed, so notifying listeners is a volatile read of the current
+ * array with no locking and no copying. Registration is expected to be
+ * rare compared to notification.
+ */
+public class ListenerRegistry<L> {
+
+   private final AtomicReference<L[]> _listeners;
+
+   //------------------------------------------------------------------
+   /** Construct empty registry, empty is a zero length array of listeners. */
+   public ListenerRegistry(L[] empty) {
+      _listeners = new AtomicReference<L[]>(empty);
+   }
+   //------------------------------------------------------------------
+   /**
+    * Current listeners, in the order they were added. The array is
+    * shared and must not be modified.
+    */
+   public L[] getListeners() {
+      return _listeners.get();
+   }
+   //------------------------------------------------------------------
+   /** True if there are no listeners. */
+   public boolean isEmpty() {
+      return _listeners.get().length == 0;
+   }
+   //------------------------------------------------------------------
+   /** Add a listener, a listener may be added more than once. */
+   public void add(L listener) {
+      while (true) {
+         L[] current = _listeners.get();
+         L[] updated = Arrays.copyOf(current,current.length+1);
+         updated[current.length] = listener;
+         if (_listeners.compareAndSet(current,updated)) {
+            return;
+         }
+      }
+   }
+   //------------------------------------------------------------------
+   /** Remove the first occurrence of a listener, returns false if absent. */
+   public boolean remove(L listener) {
+      while (true) {
+         L[] current = _listeners.get();
+         int index = -1;
+         for (int i=0; i<current.length; i++) {
+            if (current[i].equals(listener)) {
+               index = i;
+               break;
+            }
+         }
+         if (index < 0) {
+            return false;
+         }
+         L[] updated = Arrays.copyOf(current,current.length-1);
+         System.arraycopy(current,index+1,updated,index,current.length-index-1);
+         if (_listeners.compareAndSet(current,updated)) {
+            return true;
+         }
+      }
+   }
+}
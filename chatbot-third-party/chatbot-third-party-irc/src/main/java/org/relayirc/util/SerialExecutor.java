@@ -0,0 +1,90 @@
+/*
+ * FILE: SerialExecutor.java
+ *
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * The Original Code is Relay IRC chat client.
+ *
+ * The Initial Developer of the Original Code is David M. Johnson.
+ * Portions created by David M. Johnson are Copyright (C) 1998.
+ * All Rights Reserved.
+ *
+ * Contributor(s): No contributors to this file.
+ */
+package org.relayirc.util;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+///////////////////////////////////////////////////////////////////////////
+
+/**
+ * Executor that runs tasks one at a time, in the order they were
+ * submitted, on threads made by a ThreadFactory. A thread is only kept
+ * while tasks are waiting, so with a virtual thread factory an idle
+ * executor costs nothing. A task that throws does not stop later tasks.
+ */
+public class SerialExecutor implements Executor {
+
+   private final ThreadFactory    _factory;
+   private final LinkedList<Runnable> _tasks = new LinkedList<Runnable>();
+   private boolean                _running = false;
+
+   //------------------------------------------------------------------
+   /** Construct executor that runs its tasks on threads from factory. */
+   public SerialExecutor(ThreadFactory factory) {
+      _factory = factory;
+   }
+   //------------------------------------------------------------------
+   /** Queue a task, starting a thread to run it if none is running. */
+   public void execute(Runnable task) {
+      synchronized (this) {
+         _tasks.addLast(task);
+         if (_running) {
+            return;
+         }
+         _running = true;
+      }
+      try {
+         _factory.newThread(new _Drainer()).start();
+      }
+      catch (RuntimeException e) {
+         synchronized (this) {
+            _running = false;
+         }
+         throw e;
+      }
+   }
+   //------------------------------------------------------------------
+   private Runnable next() {
+      synchronized (this) {
+         if (_tasks.isEmpty()) {
+            _running = false;
+            return null;
+         }
+         return _tasks.removeFirst();
+      }
+   }
+   //------------------------------------------------------------------
+   private class _Drainer implements Runnable {
+      public void run() {
+         Runnable task;
+         while ((task = next()) != null) {
+            try {
+               task.run();
+            }
+            catch (Throwable t) {
+               t.printStackTrace();
+            }
+         }
+      }
+   }
+}
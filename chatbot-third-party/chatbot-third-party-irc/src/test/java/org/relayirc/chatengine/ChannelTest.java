@@ -0,0 +1,75 @@
+package org.relayirc.chatengine;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChannelTest {
+
+	private final List<String> events = new ArrayList<String>();
+	private Channel channel;
+	private IRCConnectionListener mux;
+
+	@Before
+	public void before() {
+		this.channel = new Channel("#developers");
+		this.channel.addChannelListener(new ChannelAdapter() {
+			@Override
+			public void onMessages(ChannelEvent[] batch) {
+				StringBuilder text = new StringBuilder();
+				for (ChannelEvent event : batch) {
+					text.append(text.length() == 0 ? "" : ",").append(event.getValue());
+				}
+				events.add("messages:" + text);
+			}
+
+			@Override
+			public void onPart(ChannelEvent event) {
+				events.add("part:" + event.getOriginNick());
+			}
+		});
+		this.mux = this.channel.getChannelMux();
+	}
+
+	@Test
+	public void testMessagesReadTogetherAreDeliveredAsOneBatch() {
+		this.mux.onPrivateMessage("alice", "#developers", "one");
+		this.mux.onPrivateMessage("bob", "#developers", "two");
+		assertThat(this.events.size(), is(0));
+
+		this.mux.onReadComplete();
+		this.mux.onReadComplete();
+		assertThat(this.events.toString(), is("[messages:one,two]"));
+	}
+
+	@Test
+	public void testOtherEventsFlushTheBatchFirst() {
+		this.mux.onPrivateMessage("alice", "#developers", "one");
+		this.mux.onPart("alice!a@h", "alice", "#developers");
+		this.mux.onPrivateMessage("bob", "#developers", "two");
+		this.mux.onReadComplete();
+
+		assertThat(this.events.toString(), is("[messages:one, part:alice, messages:two]"));
+	}
+
+	@Test
+	public void testAdapterPassesBatchesToOnMessageOneAtATime() {
+		final List<Object> messages = new ArrayList<Object>();
+		this.channel.addChannelListener(new ChannelAdapter() {
+			@Override
+			public void onMessage(ChannelEvent event) {
+				messages.add(event.getValue());
+			}
+		});
+		this.mux.onPrivateMessage("alice", "#developers", "one");
+		this.mux.onPrivateMessage("bob", "#developers", "two");
+		this.mux.onReadComplete();
+
+		assertThat(messages.toString(), is("[one, two]"));
+	}
+}
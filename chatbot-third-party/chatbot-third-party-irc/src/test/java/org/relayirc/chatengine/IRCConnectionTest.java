@@ -0,0 +1,89 @@
+package org.relayirc.chatengine;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class IRCConnectionTest {
+
+	@Test
+	public void testFailedConnectIsReportedAsDisconnect() throws Exception {
+		ServerSocket closed = new ServerSocket(0);
+		int port = closed.getLocalPort();
+		closed.close();
+
+		CountDownLatch disconnected = new CountDownLatch(1);
+		IRCConnection connection = connection(port, null, disconnected);
+		connection.open();
+
+		assertThat(disconnected.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(connection.getState(), is(IRCConnection.DISCONNECTED));
+	}
+
+	@Test
+	public void testServerClosingTheSocketIsReportedAsDisconnect() throws Exception {
+		final ServerSocket server = new ServerSocket(0);
+		Thread acceptor = new Thread(new Runnable() {
+			public void run() {
+				try {
+					Socket socket = server.accept();
+					OutputStream out = socket.getOutputStream();
+					out.write(":irc.example.net 001 bot :Welcome\r\n".getBytes("ISO-8859-1"));
+					out.flush();
+					Thread.sleep(100);
+					socket.close();
+				} catch (Exception e) {
+					// test over
+				}
+			}
+		});
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		CountDownLatch connected = new CountDownLatch(1);
+		CountDownLatch disconnected = new CountDownLatch(1);
+		IRCConnection connection = connection(server.getLocalPort(), connected, disconnected);
+		connection.open();
+
+		assertThat(connected.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(disconnected.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(connection.getState(), is(IRCConnection.DISCONNECTED));
+		server.close();
+	}
+
+	@Test
+	public void testAsyncWriteFailsWhenNotConnected() throws Exception {
+		IRCConnection connection = new IRCConnection("localhost", 6667, "bot", "bot",
+				"bot", "Bot");
+		CompletableFuture<Void> written = connection.writelnAsync("PRIVMSG #developers :hi");
+
+		assertThat(written.isCompletedExceptionally(), is(true));
+		assertThat(connection.getOutputQueue().isEmpty(), is(true));
+	}
+
+	private static IRCConnection connection(int port, final CountDownLatch connected,
+			final CountDownLatch disconnected) {
+		IRCConnection connection = new IRCConnection("localhost", port, "bot", "bot",
+				"bot", "Bot");
+		connection.setIRCConnectionListener(new IRCConnectionAdapter() {
+			public void onConnect() {
+				if (connected != null) {
+					connected.countDown();
+				}
+			}
+
+			public void onDisconnect() {
+				disconnected.countDown();
+			}
+		});
+		return connection;
+	}
+}
@@ -0,0 +1,107 @@
+package org.relayirc.chatengine;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IRCMessageTest {
+
+	private IRCMessage message;
+
+	@Before
+	public void before() {
+		this.message = new IRCMessage();
+	}
+
+	@Test
+	public void testPrivateMessageIsSplitIntoPrefixCommandAndParams() {
+		parse(":andy!andy@office.example.com PRIVMSG #developers :morning all");
+		assertThat(this.message.getCommand(), is(IRCMessage.PRIVMSG));
+		assertThat(this.message.getPrefix(), is("andy!andy@office.example.com"));
+		assertThat(this.message.getNick(), is("andy"));
+		assertThat(this.message.getParamCount(), is(2));
+		assertThat(this.message.getParam(0), is("#developers"));
+		assertThat(this.message.getParam(1), is("morning all"));
+		assertThat(this.message.getRawParams(1), is(":morning all"));
+	}
+
+	@Test
+	public void testMessageWithoutPrefixHasNoNick() {
+		parse("PING :irc.example.net");
+		assertThat(this.message.getCommand(), is(IRCMessage.PING));
+		assertThat(this.message.hasPrefix(), is(false));
+		assertThat(this.message.getNick(), is(nullValue()));
+		assertThat(this.message.getParam(0), is("irc.example.net"));
+	}
+
+	@Test
+	public void testNumericReplyIsDecoded() {
+		parse(":irc.example.net 254 chuck 412 :channels formed");
+		assertThat(this.message.isNumeric(), is(true));
+		assertThat(this.message.getCommand(), is(IRCConstants.RPL_LUSERCHANNELS));
+		assertThat(this.message.getParamAsInt(1, -1), is(412));
+		assertThat(this.message.getParamAsInt(2, -1), is(-1));
+	}
+
+	@Test
+	public void testUnknownCommandIsReportedAsUnknown() {
+		parse(":irc.example.net WALLOPS :hello");
+		assertThat(this.message.getCommand(), is(IRCMessage.UNKNOWN));
+		assertThat(this.message.getCommandName(), is("WALLOPS"));
+	}
+
+	@Test
+	public void testBlankLineIsNotParsed() {
+		assertThat(this.message.parse("   "), is(false));
+	}
+
+	@Test
+	public void testCtcpArgumentDropsClosingDelimiter() {
+		parse(":mummy!m@home PRIVMSG #developers :\001ACTION is making toast\001");
+		assertThat(this.message.paramStartsWith(1, "\001ACTION"), is(true));
+		assertThat(this.message.getCtcpArgument(1, 8), is("is making toast"));
+	}
+
+	@Test
+	public void testMessageIsReusedAcrossLines() {
+		parse(":a!a@h PRIVMSG #one :first line is the longer of the two");
+		parse(":b!b@h PART #two");
+		assertThat(this.message.getCommand(), is(IRCMessage.PART));
+		assertThat(this.message.getNick(), is("b"));
+		assertThat(this.message.getParamCount(), is(1));
+		assertThat(this.message.toString(), is(":b!b@h PART #two"));
+	}
+
+	@Test
+	public void testLineReaderStripsLineTerminators() throws Exception {
+		IRCLineReader reader = new IRCLineReader(new StringReader(
+				"PING :one\r\n:x!x@h JOIN :#chan\r\nNOTICE AUTH :last"));
+		assertThat(reader.readLine(this.message), is(true));
+		assertThat(this.message.toString(), is("PING :one"));
+		assertThat(reader.readLine(this.message), is(true));
+		assertThat(this.message.toString(), is(":x!x@h JOIN :#chan"));
+		assertThat(reader.readLine(this.message), is(true));
+		assertThat(this.message.toString(), is("NOTICE AUTH :last"));
+		assertThat(reader.readLine(this.message), is(false));
+	}
+
+	@Test
+	public void testLineReaderKnowsWhenAWholeLineIsBuffered() throws Exception {
+		IRCLineReader reader = new IRCLineReader(new StringReader(
+				"PING :one\r\nPING :two\r\nPING :thr"));
+		assertThat(reader.hasLine(), is(false));
+		assertThat(reader.readLine(this.message), is(true));
+		assertThat(reader.hasLine(), is(true));
+		assertThat(reader.readLine(this.message), is(true));
+		assertThat(reader.hasLine(), is(false));
+	}
+
+	private void parse(String line) {
+		assertThat(this.message.parse(line), is(true));
+	}
+}
@@ -0,0 +1,180 @@
+package org.relayirc.chatengine;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class IRCOutputQueueTest {
+
+	@Test
+	public void testQueuedLinesAreCoalescedIntoOneBatch() {
+		IRCOutputQueue queue = new IRCOutputQueue();
+		queue.offer("NICK chuck");
+		queue.offer("USER chuck localhost irc.example.net :Chuck");
+
+		ByteBuffer batch = queue.drain();
+		assertThat(text(batch), is("NICK chuck\r\nUSER chuck localhost irc.example.net :Chuck\r\n"));
+		queue.flushed(batch.limit());
+
+		assertThat(queue.isEmpty(), is(true));
+		assertThat(queue.getLinesWritten(), is(2L));
+		assertThat(queue.getFlushes(), is(1L));
+		assertThat(queue.getBytesWritten(), is((long) batch.limit()));
+		assertThat(queue.drain(), is(nullValue()));
+	}
+
+	@Test
+	public void testExistingTerminatorIsNotDoubled() {
+		IRCOutputQueue queue = new IRCOutputQueue();
+		queue.offer("PONG :irc.example.net\r\n");
+		assertThat(text(queue.drain()), is("PONG :irc.example.net\r\n"));
+	}
+
+	@Test
+	public void testLinesAreEncodedAsUtf8() {
+		IRCOutputQueue queue = new IRCOutputQueue();
+		queue.offer("PRIVMSG #cafe :caf\u00e9 \u263a");
+		assertThat(text(queue.drain()), is("PRIVMSG #cafe :caf\u00e9 \u263a\r\n"));
+	}
+
+	@Test
+	public void testFullQueueRejectsLines() {
+		IRCOutputQueue queue = new IRCOutputQueue(2);
+		assertThat(queue.offer("one"), is(true));
+		assertThat(queue.offer("two"), is(true));
+		assertThat(queue.offer("three"), is(false));
+		assertThat(queue.size(), is(2));
+		assertThat(queue.getLinesRejected(), is(1L));
+	}
+
+	@Test
+	public void testLineLargerThanBatchIsStillWritten() {
+		StringBuilder longLine = new StringBuilder("PRIVMSG #big :");
+		while (longLine.length() < 10000) {
+			longLine.append("spam ");
+		}
+		IRCOutputQueue queue = new IRCOutputQueue();
+		queue.offer(longLine.toString());
+		queue.offer("QUIT");
+
+		assertThat(text(queue.drain()), is(longLine + "\r\nQUIT\r\n"));
+	}
+
+	@Test
+	public void testLineFutureCompletesOnceItsBatchIsFlushed() {
+		IRCOutputQueue queue = new IRCOutputQueue();
+		CompletableFuture<Void> written = new CompletableFuture<Void>();
+		queue.offer("PRIVMSG #developers :hi", written);
+		queue.offer("PRIVMSG #developers :there");
+
+		ByteBuffer batch = queue.drain();
+		assertThat(text(batch), is("PRIVMSG #developers :hi\r\nPRIVMSG #developers :there\r\n"));
+		assertThat(written.isDone(), is(false));
+		queue.flushed(batch.limit());
+		assertThat(written.isDone(), is(true));
+		assertThat(written.isCompletedExceptionally(), is(false));
+	}
+
+	@Test
+	public void testFailedWriteFailsDrainedAndWaitingLines() {
+		IRCOutputQueue queue = new IRCOutputQueue();
+		CompletableFuture<Void> drained = new CompletableFuture<Void>();
+		queue.offer("PRIVMSG #developers :hi", drained);
+		queue.drain();
+		CompletableFuture<Void> waiting = new CompletableFuture<Void>();
+		queue.offer("PRIVMSG #developers :there", waiting);
+
+		IOException cause = new IOException("Broken pipe");
+		queue.fail(cause);
+		assertThat(drained.isCompletedExceptionally(), is(true));
+		assertThat(waiting.isCompletedExceptionally(), is(true));
+		assertThat(queue.isEmpty(), is(true));
+		try {
+			waiting.join();
+		} catch (java.util.concurrent.CompletionException e) {
+			assertThat(e.getCause() == cause, is(true));
+		}
+	}
+
+	@Test
+	public void testClearFailsWaitingLines() {
+		IRCOutputQueue queue = new IRCOutputQueue();
+		CompletableFuture<Void> waiting = new CompletableFuture<Void>();
+		queue.offer("PRIVMSG #developers :hi", waiting);
+		queue.clear();
+		assertThat(waiting.isCompletedExceptionally(), is(true));
+	}
+
+	@Test
+	public void testClosedQueueRefusesLines() {
+		IRCOutputQueue queue = new IRCOutputQueue();
+		CompletableFuture<Void> waiting = new CompletableFuture<Void>();
+		queue.offer("PRIVMSG #developers :hi", waiting);
+		queue.close(new IOException("Connection closed"));
+		assertThat(waiting.isCompletedExceptionally(), is(true));
+		assertThat(queue.offer("PRIVMSG #developers :anyone?"), is(false));
+		assertThat(queue.isEmpty(), is(true));
+		assertThat(queue.getLinesRejected(), is(0L));
+	}
+
+	@Test
+	public void testNextQueueCarriesOnTheCounters() {
+		IRCOutputQueue queue = new IRCOutputQueue(1);
+		queue.offer("PRIVMSG #developers :hi");
+		queue.offer("PRIVMSG #developers :rejected");
+		queue.flushed(queue.drain().limit());
+		queue.close(new IOException("Connection closed"));
+
+		IRCOutputQueue next = new IRCOutputQueue(queue);
+		assertThat(next.offer("PRIVMSG #developers :back"), is(true));
+		assertThat(next.getCapacity(), is(1));
+		assertThat(next.getLinesWritten(), is(1L));
+		assertThat(next.getLinesRejected(), is(1L));
+	}
+
+	@Test
+	public void testFailingWhileDrainingSettlesEveryLineOnce() throws Exception {
+		final IRCOutputQueue queue = new IRCOutputQueue(64);
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+		for (int round = 0; round < 200; round++) {
+			for (int i = 0; i < 64; i++) {
+				CompletableFuture<Void> written = new CompletableFuture<Void>();
+				queue.offer("PRIVMSG #developers :line " + i, written);
+				futures.add(written);
+			}
+			Thread drainer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					ByteBuffer batch;
+					while ((batch = queue.drain()) != null) {
+						queue.flushed(batch.limit());
+					}
+				}
+			});
+			drainer.start();
+			queue.fail(new IOException("Connection closed"));
+			drainer.join();
+			assertThat(queue.isEmpty(), is(true));
+		}
+		for (CompletableFuture<Void> future : futures) {
+			assertThat(future.isDone(), is(true));
+		}
+		assertThat(queue.getLinesWritten() <= futures.size(), is(true));
+	}
+
+	private String text(ByteBuffer batch) {
+		try {
+			return new String(batch.array(), 0, batch.limit(), "UTF-8");
+		} catch (java.io.UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
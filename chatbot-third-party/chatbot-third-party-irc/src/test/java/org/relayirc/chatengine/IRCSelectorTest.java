@@ -0,0 +1,221 @@
+package org.relayirc.chatengine;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IRCSelectorTest {
+
+	private static final int CONNECTIONS = 2;
+
+	private ServerSocket serverSocket;
+	private IRCSelector selector;
+	private final List<String> linesFromClients = Collections
+			.synchronizedList(new ArrayList<String>());
+
+	@Before
+	public void before() throws Exception {
+		this.serverSocket = new ServerSocket(0);
+		this.selector = new IRCSelector();
+		startFakeServer();
+	}
+
+	@After
+	public void after() throws Exception {
+		this.selector.shutdown();
+		this.serverSocket.close();
+	}
+
+	@Test
+	public void testConnectionsShareOneSelectorAndReceiveMessages() throws Exception {
+		final CountDownLatch connected = new CountDownLatch(CONNECTIONS);
+		final CountDownLatch messages = new CountDownLatch(CONNECTIONS);
+		final List<String> received = Collections
+				.synchronizedList(new ArrayList<String>());
+
+		for (int i = 0; i < CONNECTIONS; i++) {
+			IRCConnection connection = new IRCConnection("localhost",
+					this.serverSocket.getLocalPort(), "bot" + i, "bot" + i,
+					"bot", "Bot", this.selector);
+			connection.setIRCConnectionListener(new IRCConnectionAdapter() {
+				public void onConnect() {
+					connected.countDown();
+				}
+
+				public void onPrivateMessage(String orgnick, String chan, String txt) {
+					received.add(orgnick + " " + chan + " " + txt);
+					messages.countDown();
+				}
+			});
+			connection.open();
+		}
+
+		assertThat(connected.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(messages.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(this.selector.getConnectionCount(), is(CONNECTIONS));
+		assertThat(received.get(0), is("andy #developers hello bots"));
+		assertThat(this.linesFromClients.contains("NICK bot0"), is(true));
+		assertThat(this.linesFromClients.contains("NICK bot1"), is(true));
+	}
+
+	@Test
+	public void testShutdownWaitsForClosedConnectionsToQuit() throws Exception {
+		final CountDownLatch connected = new CountDownLatch(1);
+		IRCConnection connection = new IRCConnection("localhost",
+				this.serverSocket.getLocalPort(), "bot", "bot", "bot", "Bot", this.selector);
+		connection.setIRCConnectionListener(new IRCConnectionAdapter() {
+			public void onConnect() {
+				connected.countDown();
+			}
+		});
+		connection.open();
+		assertThat(connected.await(5, TimeUnit.SECONDS), is(true));
+
+		connection.close();
+		this.selector.shutdown(5000);
+
+		assertThat(this.selector.getConnectionCount(), is(0));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!this.linesFromClients.contains("QUIT") && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(this.linesFromClients.contains("QUIT"), is(true));
+	}
+
+	@Test
+	public void testReopeningAtOnceLeavesBothConnectionsIntact() throws Exception {
+		final CountDownLatch first = new CountDownLatch(1);
+		final CountDownLatch second = new CountDownLatch(2);
+		IRCConnection connection = new IRCConnection("localhost",
+				this.serverSocket.getLocalPort(), "bot", "bot", "bot", "Bot", this.selector);
+		connection.setIRCConnectionListener(new IRCConnectionAdapter() {
+			public void onConnect() {
+				first.countDown();
+				second.countDown();
+			}
+		});
+		connection.open();
+		assertThat(first.await(5, TimeUnit.SECONDS), is(true));
+
+		connection.close();
+		connection.open();
+		assertThat(second.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(connection.writeln("PRIVMSG #developers :back"), is(true));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!(this.linesFromClients.contains("QUIT")
+				&& this.linesFromClients.contains("PRIVMSG #developers :back"))
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(this.linesFromClients.contains("QUIT"), is(true));
+		assertThat(this.linesFromClients.contains("PRIVMSG #developers :back"), is(true));
+		assertThat(Collections.frequency(this.linesFromClients, "NICK bot"), is(2));
+	}
+
+	@Test
+	public void testSelectorThreadIsMadeByTheGivenFactory() throws Exception {
+		final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+		IRCSelector made = new IRCSelector(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable, "test-selector");
+			}
+		});
+		try {
+			final CountDownLatch connected = new CountDownLatch(1);
+			IRCConnection connection = new IRCConnection("localhost",
+					this.serverSocket.getLocalPort(), "bot", "bot", "bot", "Bot", made);
+			connection.setIRCConnectionListener(new IRCConnectionAdapter() {
+				public void onConnect() {
+					threads.add(Thread.currentThread().getName());
+					connected.countDown();
+				}
+			});
+			connection.open();
+			assertThat(connected.await(5, TimeUnit.SECONDS), is(true));
+			assertThat(threads.get(0), is("test-selector"));
+		} finally {
+			made.shutdown();
+		}
+	}
+
+	@Test
+	public void testRefusedConnectIsReportedAsDisconnect() throws Exception {
+		ServerSocket closed = new ServerSocket(0);
+		int port = closed.getLocalPort();
+		closed.close();
+
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		IRCConnection connection = new IRCConnection("localhost", port, "bot", "bot",
+				"bot", "Bot", this.selector);
+		connection.setIRCConnectionListener(new IRCConnectionAdapter() {
+			public void onDisconnect() {
+				disconnected.countDown();
+			}
+		});
+		connection.open();
+
+		assertThat(disconnected.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(connection.getState(), is(IRCConnection.DISCONNECTED));
+	}
+
+	private void startFakeServer() {
+		Thread acceptor = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (true) {
+						final Socket socket = serverSocket.accept();
+						new Thread(new Runnable() {
+							public void run() {
+								serve(socket);
+							}
+						}).start();
+					}
+				} catch (Exception e) {
+					// server socket closed
+				}
+			}
+		});
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	private void serve(Socket socket) {
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					socket.getInputStream()));
+			OutputStream out = socket.getOutputStream();
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.length() == 0) {
+					continue;
+				}
+				this.linesFromClients.add(line);
+				if (line.startsWith("USER")) {
+					out.write((":irc.example.net 001 bot :Welcome\r\n"
+							+ ":andy!andy@office PRIVMSG #developers :hello bots\r\n")
+							.getBytes("ISO-8859-1"));
+					out.flush();
+				}
+			}
+			socket.close();
+		} catch (Exception e) {
+			// client went away
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package org.relayirc.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ListenerRegistryTest {
+
+	private final ListenerRegistry<String> registry = new ListenerRegistry<String>(new String[0]);
+
+	@Test
+	public void testListenersAreKeptInRegistrationOrder() {
+		this.registry.add("first");
+		this.registry.add("second");
+		this.registry.add("third");
+		assertThat(Arrays.asList(this.registry.getListeners()).toString(), is("[first, second, third]"));
+	}
+
+	@Test
+	public void testRemoveTakesOutOnlyTheFirstOccurrence() {
+		this.registry.add("first");
+		this.registry.add("second");
+		this.registry.add("first");
+		assertThat(this.registry.remove("first"), is(true));
+		assertThat(Arrays.asList(this.registry.getListeners()).toString(), is("[second, first]"));
+		assertThat(this.registry.remove("missing"), is(false));
+	}
+
+	@Test
+	public void testSnapshotIsNotChangedByLaterRegistration() {
+		this.registry.add("first");
+		String[] snapshot = this.registry.getListeners();
+		this.registry.add("second");
+		this.registry.remove("first");
+		assertThat(snapshot.length, is(1));
+		assertThat(snapshot[0], is("first"));
+		assertThat(this.registry.getListeners().length, is(1));
+	}
+
+	@Test
+	public void testConcurrentRegistrationLosesNothing() throws Exception {
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final String name = "listener" + t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 1000; i++) {
+						registry.add(name);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(this.registry.getListeners().length, is(4000));
+	}
+}
@@ -0,0 +1,98 @@
+package org.relayirc.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+	private final AtomicInteger threadsMade = new AtomicInteger();
+
+	private final ThreadFactory factory = new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			threadsMade.incrementAndGet();
+			return new Thread(runnable, "serial-test");
+		}
+	};
+
+	@Test
+	public void testTasksRunInSubmissionOrder() throws Exception {
+		SerialExecutor executor = new SerialExecutor(factory);
+		final List<Integer> seen = new ArrayList<Integer>();
+		final CountDownLatch done = new CountDownLatch(1000);
+
+		for (int i = 0; i < 1000; i++) {
+			final int value = i;
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					seen.add(value);
+					done.countDown();
+				}
+			});
+		}
+
+		assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+		for (int i = 0; i < 1000; i++) {
+			assertThat(seen.get(i), is(i));
+		}
+	}
+
+	@Test
+	public void testFailingTaskDoesNotStopLaterTasks() throws Exception {
+		SerialExecutor executor = new SerialExecutor(factory);
+		final CountDownLatch done = new CountDownLatch(1);
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("listener failed on purpose");
+			}
+		});
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		});
+
+		assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void testThreadIsOnlyMadeWhenIdle() throws Exception {
+		SerialExecutor executor = new SerialExecutor(factory);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		});
+		release.countDown();
+
+		assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+		assertThat(threadsMade.get(), is(1));
+	}
+}
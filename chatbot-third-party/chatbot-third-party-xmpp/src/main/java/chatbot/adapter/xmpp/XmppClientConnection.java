@@ -2,38 +2,93 @@ package chatbot.adapter.xmpp;
 
 import org.jivesoftware.smack.Connection;
 import org.jivesoftware.smack.ConnectionConfiguration;
+import org.jivesoftware.smack.ConnectionListener;
 import org.jivesoftware.smack.XMPPConnection;
 import org.jivesoftware.smack.XMPPException;
 import org.jivesoftware.smackx.muc.MultiUserChat;
 
 import chatbot.client.ClientConnection;
-import chatbot.client.ConnectionListener;
 import chatbot.client.MessageChannel;
+import chatbot.client.SendRateLimit;
+import chatbot.client.SendScheduler;
+import chatbot.client.ThreadFactories;
+import chatbot.metrics.ChannelMetrics;
+import chatbot.metrics.ConnectionMetrics;
+import chatbot.metrics.Gauge;
+import chatbot.metrics.MetricRegistry;
 
 public class XmppClientConnection implements ClientConnection {
 
+	public static final String PROTOCOL = "xmpp";
+
 	private final String server;
 	private final String username;
 	private final String password;
 	private final String nickname;
 	private final Connection connection;
-	private final XmppKeepAliveThread keepAlive;
+	private final XmppHeartbeat heartbeat;
+	private volatile ConnectionMetrics metrics;
+	private volatile chatbot.client.ConnectionListener listener;
+	private volatile SendScheduler sendScheduler;
+	private boolean listening;
 
 	public XmppClientConnection(String server, int port, String username,
 			String password, String nickname) {
+		this(server, port, username, password, nickname, XmppHeartbeat.shared());
+	}
+
+	public XmppClientConnection(String server, int port, String username,
+			String password, String nickname, XmppHeartbeat heartbeat) {
 		ConnectionConfiguration configuration = new ConnectionConfiguration(
 				server, port);
+		configuration.setReconnectionAllowed(false);
 
 		this.server = server;
 		this.username = username;
 		this.password = password;
 		this.nickname = nickname;
 		this.connection = new XMPPConnection(configuration);
-		this.keepAlive = new XmppKeepAliveThread();
+		this.heartbeat = heartbeat;
+		setMetricRegistry(new MetricRegistry(), nickname);
+	}
+
+	public void setMetricRegistry(MetricRegistry registry, String botName) {
+		ConnectionMetrics metrics = new ConnectionMetrics(registry, PROTOCOL, botName);
+		metrics.gauge(SendScheduler.QUEUE_DEPTH, new Gauge() {
+			@Override
+			public double getValue() {
+				SendScheduler sendScheduler = XmppClientConnection.this.sendScheduler;
+				return sendScheduler == null ? 0 : sendScheduler.getQueuedCount();
+			}
+		});
+		this.metrics = metrics;
+	}
+
+	public MetricRegistry getMetricRegistry() {
+		return this.metrics.getRegistry();
+	}
+
+	/**
+	 * Paces the messages sent on the chat rooms joined from now on, see
+	 * SendRateLimit.XMPP. The scheduler returned can give rooms limits of
+	 * their own. May only be called once.
+	 */
+	public synchronized SendScheduler throttleSending(SendRateLimit limit) {
+		if (this.sendScheduler != null) {
+			// replacing it would strand the rooms it already throttles
+			throw new IllegalStateException("Sending is already throttled");
+		}
+		this.sendScheduler = new SendScheduler(limit, ThreadFactories.platform(PROTOCOL
+				+ "-send-" + this.metrics.getBot(), true));
+		return this.sendScheduler;
+	}
+
+	public SendScheduler getSendScheduler() {
+		return this.sendScheduler;
 	}
 
 	@Override
-	public void connect(ConnectionListener listener) {
+	public void connect(chatbot.client.ConnectionListener listener) {
 		try {
 			this.connection.connect();
 		} catch (XMPPException e) {
@@ -44,14 +99,78 @@ public class XmppClientConnection implements ClientConnection {
 		try {
 			this.connection.login(this.username, this.password);
 		} catch (XMPPException e) {
+			this.connection.disconnect();
 			throw new IllegalStateException("Unable to login to XMPP server", e);
 		}
 		
-		this.keepAlive.start();
+		this.listener = listener;
+		this.metrics.connected();
+		if (!this.listening) {
+			this.connection.addConnectionListener(new ConnectionListener() {
+				@Override
+				public void connectionClosed() {
+					closed();
+				}
+
+				@Override
+				public void connectionClosedOnError(Exception e) {
+					closed();
+				}
+
+				@Override
+				public void reconnectingIn(int seconds) {
+					// Smack reconnection is disabled
+				}
+
+				@Override
+				public void reconnectionSuccessful() {
+					// Smack reconnection is disabled
+				}
+
+				@Override
+				public void reconnectionFailed(Exception e) {
+					// Smack reconnection is disabled
+				}
+			});
+			this.listening = true;
+		}
+
+		watch();
 
 		listener.onConnectionSuccessful();
 	}
 
+	/** Stops the send scheduler and the heartbeat and leaves the server. */
+	@Override
+	public void close() {
+		SendScheduler sendScheduler = this.sendScheduler;
+		if (sendScheduler != null) {
+			sendScheduler.shutdown();
+		}
+		this.heartbeat.unwatch(this.connection);
+		if (this.connection.isConnected()) {
+			this.connection.disconnect();
+		}
+	}
+
+	private void closed() {
+		this.heartbeat.unwatch(this.connection);
+		this.metrics.disconnected();
+		chatbot.client.ConnectionListener listener = this.listener;
+		if (listener != null) {
+			listener.onDisconnected();
+		}
+	}
+
+	private void watch() {
+		this.heartbeat.watch(this.connection, this.metrics, new Runnable() {
+			@Override
+			public void run() {
+				XmppClientConnection.this.connection.disconnect();
+			}
+		});
+	}
+
 	@Override
 	public MessageChannel channel(String name) {
 		MultiUserChat chatRoom = new MultiUserChat(connection, name
@@ -62,7 +181,12 @@ public class XmppClientConnection implements ClientConnection {
 			throw new IllegalStateException("Unable to join chatroom: " + name, e);
 		}
 		drainExistingMessages(chatRoom);
-		return new XmppMessageChannelAdapter(chatRoom);
+		ChannelMetrics channelMetrics = this.metrics.channel(name);
+		MessageChannel channel = new XmppMessageChannelAdapter(chatRoom, channelMetrics,
+				this.metrics.counter(ConnectionMetrics.PARSE_ERRORS));
+		SendScheduler sendScheduler = this.sendScheduler;
+		return sendScheduler == null ? channel : sendScheduler.throttle(name, channel,
+				channelMetrics);
 	}
 	
 	private void drainExistingMessages(MultiUserChat chatRoom) {
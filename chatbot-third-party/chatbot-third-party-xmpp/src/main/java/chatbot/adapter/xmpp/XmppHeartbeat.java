@@ -0,0 +1,202 @@
+package chatbot.adapter.xmpp;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.smack.Connection;
+import org.jivesoftware.smack.PacketListener;
+import org.jivesoftware.smack.filter.PacketFilter;
+import org.jivesoftware.smack.packet.Packet;
+
+import chatbot.client.ThreadFactories;
+import chatbot.metrics.ConnectionMetrics;
+import chatbot.metrics.Counter;
+import chatbot.metrics.LatencyHistogram;
+
+/**
+ * Pings any number of XMPP connections from one scheduler thread and
+ * reports connections whose pings go unanswered. The thread is started
+ * when the first connection is watched and stopped when the last one is
+ * unwatched, so a non-daemon heartbeat keeps the JVM running exactly as
+ * long as it has connections to watch. See XmppLiveness for when pings
+ * are sent and when a connection is declared dead.
+ */
+public class XmppHeartbeat {
+
+	public static final String ROUND_TRIP = "chatbot.heartbeat.rtt";
+	public static final String TIMEOUTS = "chatbot.heartbeat.timeouts";
+
+	public static final long DEFAULT_MIN_INTERVAL_SECONDS = 30;
+	public static final long DEFAULT_MAX_INTERVAL_SECONDS = 120;
+	public static final long DEFAULT_MIN_TIMEOUT_SECONDS = 10;
+
+	private static XmppHeartbeat shared;
+
+	private final ThreadFactory threadFactory;
+	private final Map<Connection, Watch> watches;
+	private ScheduledExecutorService scheduler;
+
+	private long minIntervalNanos = TimeUnit.SECONDS.toNanos(DEFAULT_MIN_INTERVAL_SECONDS);
+	private long maxIntervalNanos = TimeUnit.SECONDS.toNanos(DEFAULT_MAX_INTERVAL_SECONDS);
+	private long minTimeoutNanos = TimeUnit.SECONDS.toNanos(DEFAULT_MIN_TIMEOUT_SECONDS);
+
+	public XmppHeartbeat(String name, boolean daemon) {
+		this(ThreadFactories.platform(name, daemon));
+	}
+
+	public XmppHeartbeat(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+		this.watches = new IdentityHashMap<Connection, Watch>();
+	}
+
+	/**
+	 * Heartbeat shared by connections created without one. Its thread is
+	 * not a daemon, so the JVM stays up while a connection is watched.
+	 */
+	public static synchronized XmppHeartbeat shared() {
+		if (shared == null) {
+			shared = new XmppHeartbeat("xmpp-heartbeat", false);
+		}
+		return shared;
+	}
+
+	public synchronized XmppHeartbeat withIntervals(long minInterval, long maxInterval,
+			long minTimeout, TimeUnit unit) {
+		this.minIntervalNanos = unit.toNanos(minInterval);
+		this.maxIntervalNanos = unit.toNanos(maxInterval);
+		this.minTimeoutNanos = unit.toNanos(minTimeout);
+		return this;
+	}
+
+	/**
+	 * Starts pinging a connection. onDead runs on the heartbeat thread
+	 * once, after the connection stops being watched.
+	 */
+	public synchronized void watch(Connection connection, ConnectionMetrics metrics,
+			Runnable onDead) {
+		if (this.watches.containsKey(connection)) {
+			return;
+		}
+		if (this.scheduler == null) {
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+					this.threadFactory);
+			// shutdown() drops the waiting pings but lets a running task finish
+			scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			this.scheduler = scheduler;
+		}
+		Watch watch = new Watch(connection, new XmppLiveness(this.minIntervalNanos,
+				this.maxIntervalNanos, this.minTimeoutNanos, System.nanoTime()),
+				metrics.histogram(ROUND_TRIP), metrics.counter(TIMEOUTS), onDead);
+		this.watches.put(connection, watch);
+		connection.addPacketListener(watch, watch);
+		schedule(watch, this.minIntervalNanos);
+	}
+
+	public synchronized void unwatch(Connection connection) {
+		Watch watch = this.watches.remove(connection);
+		if (watch == null) {
+			return;
+		}
+		connection.removePacketListener(watch);
+		if (this.watches.isEmpty()) {
+			// not shutdownNow(), dead() unwatches from the heartbeat thread and
+			// onDead must not run with that thread interrupted
+			this.scheduler.shutdown();
+			this.scheduler = null;
+		}
+	}
+
+	public synchronized boolean isWatching(Connection connection) {
+		return this.watches.containsKey(connection);
+	}
+
+	public synchronized int getWatchedCount() {
+		return this.watches.size();
+	}
+
+	public synchronized void shutdown() {
+		for (Watch watch : this.watches.values()) {
+			watch.connection.removePacketListener(watch);
+		}
+		this.watches.clear();
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+	}
+
+	private synchronized void schedule(Watch watch, long delayNanos) {
+		if (this.watches.get(watch.connection) == watch) {
+			this.scheduler.schedule(watch, delayNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void dead(Watch watch) {
+		synchronized (this) {
+			if (this.watches.get(watch.connection) != watch) {
+				return;
+			}
+			unwatch(watch.connection);
+		}
+		watch.timeouts.increment();
+		watch.onDead.run();
+	}
+
+	private final class Watch implements Runnable, PacketListener, PacketFilter {
+
+		private final Connection connection;
+		private final XmppLiveness liveness;
+		private final LatencyHistogram roundTrips;
+		private final Counter timeouts;
+		private final Runnable onDead;
+
+		private Watch(Connection connection, XmppLiveness liveness,
+				LatencyHistogram roundTrips, Counter timeouts, Runnable onDead) {
+			this.connection = connection;
+			this.liveness = liveness;
+			this.roundTrips = roundTrips;
+			this.timeouts = timeouts;
+			this.onDead = onDead;
+		}
+
+		@Override
+		public void run() {
+			long now = System.nanoTime();
+			long next = this.liveness.check(now);
+			if (next == XmppLiveness.PING_NOW) {
+				XmppPing ping = new XmppPing(this.connection.getServiceName());
+				this.liveness.pinged(ping.getPacketID(), now);
+				try {
+					this.connection.sendPacket(ping);
+				} catch (RuntimeException e) {
+					next = XmppLiveness.DEAD;
+				}
+				if (next != XmppLiveness.DEAD) {
+					next = this.liveness.check(now);
+				}
+			}
+			if (next == XmppLiveness.DEAD) {
+				dead(this);
+				return;
+			}
+			schedule(this, next);
+		}
+
+		@Override
+		public boolean accept(Packet packet) {
+			return true;
+		}
+
+		@Override
+		public void processPacket(Packet packet) {
+			long rtt = this.liveness.received(packet.getPacketID(), System.nanoTime());
+			if (rtt >= 0) {
+				this.roundTrips.record(rtt);
+			}
+		}
+	}
+}
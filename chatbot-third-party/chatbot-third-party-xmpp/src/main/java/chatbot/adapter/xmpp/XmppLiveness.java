@@ -0,0 +1,97 @@
+package chatbot.adapter.xmpp;
+
+/**
+ * Decides when a connection needs pinging and when it is dead. Any
+ * packet received shows the connection is alive, so pings are only sent
+ * after the connection has been quiet for the ping interval. The interval
+ * doubles from its minimum to its maximum while pings are answered
+ * promptly and drops back to the minimum when round trips slow down. A
+ * ping is timed out after four round-trip deviations above the smoothed
+ * round trip, as TCP computes its retransmission timeout, but never
+ * sooner than the minimum timeout.
+ */
+final class XmppLiveness {
+
+	static final long PING_NOW = 0;
+	static final long DEAD = -1;
+
+	private final long minIntervalNanos;
+	private final long maxIntervalNanos;
+	private final long minTimeoutNanos;
+
+	private long intervalNanos;
+	private long lastActivityNanos;
+	private String pendingId;
+	private long pendingSentNanos;
+	private long smoothedRttNanos = -1;
+	private long rttDeviationNanos;
+
+	XmppLiveness(long minIntervalNanos, long maxIntervalNanos, long minTimeoutNanos,
+			long now) {
+		this.minIntervalNanos = minIntervalNanos;
+		this.maxIntervalNanos = maxIntervalNanos;
+		this.minTimeoutNanos = minTimeoutNanos;
+		this.intervalNanos = minIntervalNanos;
+		this.lastActivityNanos = now;
+	}
+
+	/**
+	 * Nanoseconds until the next check, PING_NOW if a ping should be sent,
+	 * or DEAD if the last ping was not answered in time.
+	 */
+	synchronized long check(long now) {
+		if (this.pendingId != null) {
+			long waited = now - this.pendingSentNanos;
+			return waited >= getTimeoutNanos() ? DEAD : getTimeoutNanos() - waited;
+		}
+		long idle = now - this.lastActivityNanos;
+		return idle >= this.intervalNanos ? PING_NOW : this.intervalNanos - idle;
+	}
+
+	synchronized void pinged(String packetId, long now) {
+		this.pendingId = packetId;
+		this.pendingSentNanos = now;
+	}
+
+	/**
+	 * Records a received packet, returning the round trip in nanoseconds
+	 * if it answers the pending ping and -1 otherwise.
+	 */
+	synchronized long received(String packetId, long now) {
+		this.lastActivityNanos = now;
+		if (this.pendingId == null || !this.pendingId.equals(packetId)) {
+			return -1;
+		}
+		this.pendingId = null;
+		long rtt = now - this.pendingSentNanos;
+		if (this.smoothedRttNanos < 0) {
+			this.smoothedRttNanos = rtt;
+			this.rttDeviationNanos = rtt / 2;
+		} else {
+			boolean slower = rtt > 2 * this.smoothedRttNanos;
+			this.rttDeviationNanos += (Math.abs(this.smoothedRttNanos - rtt) - this.rttDeviationNanos) / 4;
+			this.smoothedRttNanos += (rtt - this.smoothedRttNanos) / 8;
+			if (slower) {
+				this.intervalNanos = this.minIntervalNanos;
+				return rtt;
+			}
+		}
+		this.intervalNanos = Math.min(2 * this.intervalNanos, this.maxIntervalNanos);
+		return rtt;
+	}
+
+	synchronized long getIntervalNanos() {
+		return this.intervalNanos;
+	}
+
+	synchronized long getTimeoutNanos() {
+		if (this.smoothedRttNanos < 0) {
+			return this.minTimeoutNanos;
+		}
+		return Math.max(this.minTimeoutNanos, this.smoothedRttNanos + 4 * this.rttDeviationNanos);
+	}
+
+	synchronized long getSmoothedRttNanos() {
+		return this.smoothedRttNanos;
+	}
+}
@@ -1,32 +1,111 @@
 package chatbot.adapter.xmpp;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jivesoftware.smack.PacketListener;
 import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.packet.Message;
+import org.jivesoftware.smack.packet.Packet;
 import org.jivesoftware.smackx.muc.MultiUserChat;
 
 import chatbot.client.MessageChannel;
 import chatbot.client.MessageListener;
+import chatbot.metrics.ChannelMetrics;
+import chatbot.metrics.Counter;
 
+/**
+ * Chat room seen as a MessageChannel. Smack queues every room message in
+ * the room's collector before it calls any listener, so rather than
+ * deliver the packet it is called with, the room listener drains the
+ * collector and delivers everything queued as one batch; the calls for
+ * packets already drained find the collector empty.
+ */
 public class XmppMessageChannelAdapter implements MessageChannel {
 
 	private final MultiUserChat chatRoom;
+	private final ChannelMetrics metrics;
+	private final Counter parseErrors;
+	private final List<XmppMessageListenerAdapter> listeners;
+	private boolean draining;
 	
 	public XmppMessageChannelAdapter(MultiUserChat chat) {
+		this(chat, new ChannelMetrics(), new Counter());
+	}
+	
+	public XmppMessageChannelAdapter(MultiUserChat chat, ChannelMetrics metrics,
+			Counter parseErrors) {
 		this.chatRoom = chat;
+		this.metrics = metrics;
+		this.parseErrors = parseErrors;
+		this.listeners = new CopyOnWriteArrayList<XmppMessageListenerAdapter>();
 	}
 	
 	@Override
-	public void registerListener(MessageListener listener) {
-		XmppMessageListenerAdapter listenerAdapter = new XmppMessageListenerAdapter(
-				listener);
-		this.chatRoom.addMessageListener(listenerAdapter);
+	public synchronized void registerListener(MessageListener listener) {
+		this.listeners.add(new XmppMessageListenerAdapter(listener, this.metrics,
+				this.parseErrors));
+		if (!this.draining) {
+			this.chatRoom.addMessageListener(new PacketListener() {
+				@Override
+				public void processPacket(Packet packet) {
+					drain();
+				}
+			});
+			this.draining = true;
+		}
 	}
 
 	@Override
 	public void sendMessage(String message) {
+		try {
+			sendMessageAsync(message).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Unable to send message", e.getCause());
+		}
+	}
+
+	/**
+	 * Completes once Smack has queued the message for its writer thread,
+	 * which is as far as Smack lets a sender follow a packet, or fails
+	 * with the reason Smack refused it.
+	 */
+	@Override
+	public CompletableFuture<Void> sendMessageAsync(String message) {
 		try {
 			this.chatRoom.sendMessage(message);
 		} catch (XMPPException e) {
-			throw new IllegalStateException("Unable to send message", e);
+			return failed(e);
+		} catch (IllegalStateException e) {
+			// Smack refuses packets while the connection is down
+			return failed(e);
+		}
+		this.metrics.getSent().increment();
+		return CompletableFuture.completedFuture(null);
+	}
+
+	private CompletableFuture<Void> failed(Exception cause) {
+		this.metrics.getSendFailures().increment();
+		return CompletableFuture.failedFuture(cause);
+	}
+
+	private void drain() {
+		List<Message> batch = new ArrayList<Message>();
+		Message message;
+		while ((message = this.chatRoom.pollMessage()) != null) {
+			batch.add(message);
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		for (XmppMessageListenerAdapter listener : this.listeners) {
+			listener.processPackets(batch);
 		}
 	}
-}
\ No newline at end of file
+}
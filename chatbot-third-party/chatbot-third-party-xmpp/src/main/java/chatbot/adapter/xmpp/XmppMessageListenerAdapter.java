@@ -1,25 +1,77 @@
 package chatbot.adapter.xmpp;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.jivesoftware.smack.PacketListener;
 import org.jivesoftware.smack.packet.Message;
 import org.jivesoftware.smack.packet.Packet;
 
 import chatbot.client.MessageListener;
+import chatbot.metrics.ChannelMetrics;
+import chatbot.metrics.Counter;
 
 public class XmppMessageListenerAdapter implements PacketListener {
 
 	private final MessageListener messageListener;
+	private final ChannelMetrics metrics;
+	private final Counter parseErrors;
 	
 	public XmppMessageListenerAdapter(MessageListener listener) {
+		this(listener, new ChannelMetrics(), new Counter());
+	}
+
+	public XmppMessageListenerAdapter(MessageListener listener,
+			ChannelMetrics metrics, Counter parseErrors) {
 		this.messageListener = listener;
+		this.metrics = metrics;
+		this.parseErrors = parseErrors;
 	}
 
 	@Override
 	public void processPacket(Packet packet) {
+		chatbot.client.Message chatbotMessage = toMessage(packet, System.nanoTime());
+		if (chatbotMessage != null) {
+			this.metrics.getReceived().increment();
+			this.messageListener.onMessageReceived(chatbotMessage);
+		}
+	}
+
+	/** Converts packets received together and delivers them as one batch. */
+	public void processPackets(List<? extends Packet> packets) {
+		List<chatbot.client.Message> messages = new ArrayList<chatbot.client.Message>(
+				packets.size());
+		long receivedNanos = System.nanoTime();
+		for (Packet packet : packets) {
+			chatbot.client.Message chatbotMessage = toMessage(packet, receivedNanos);
+			if (chatbotMessage != null) {
+				messages.add(chatbotMessage);
+			}
+		}
+		if (messages.isEmpty()) {
+			return;
+		}
+		this.metrics.getReceived().increment(messages.size());
+		if (messages.size() == 1) {
+			this.messageListener.onMessageReceived(messages.get(0));
+		} else {
+			this.messageListener.onMessagesReceived(messages);
+		}
+	}
+
+	private chatbot.client.Message toMessage(Packet packet, long receivedNanos) {
+		if (!(packet instanceof Message)) {
+			this.parseErrors.increment();
+			return null;
+		}
 		Message xmppMessage = (Message)packet;
 		String from = xmppMessage.getFrom();
-		String nickname = from.split("/")[1];
-		chatbot.client.Message chatbotMessage = new chatbot.client.Message(nickname, xmppMessage.getBody());
-		this.messageListener.onMessageReceived(chatbotMessage);
+		int resource = from == null ? -1 : from.indexOf('/');
+		if (resource < 0) {
+			this.parseErrors.increment();
+			return null;
+		}
+		String nickname = from.substring(resource + 1);
+		return new chatbot.client.Message(nickname, xmppMessage.getBody(), receivedNanos);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package chatbot.adapter.xmpp;
+
+import org.jivesoftware.smack.packet.IQ;
+
+/**
+ * XEP-0199 ping. Servers answer with a result, or with an error if they
+ * do not support pings; either answer shows the session is alive.
+ */
+class XmppPing extends IQ {
+
+	XmppPing(String to) {
+		setType(IQ.Type.GET);
+		setTo(to);
+	}
+
+	@Override
+	public String getChildElementXML() {
+		return "<ping xmlns='urn:xmpp:ping'/>";
+	}
+}
@@ -0,0 +1,55 @@
+package chatbot.adapter.xmpp;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class XmppLivenessTest {
+
+	private static final long SECOND = 1000000000L;
+
+	private final XmppLiveness liveness = new XmppLiveness(30 * SECOND, 120 * SECOND,
+			10 * SECOND, 0);
+
+	@Test
+	public void testPingIsOnlySentAfterTheConnectionHasBeenQuiet() {
+		assertThat(this.liveness.check(10 * SECOND), is(20 * SECOND));
+		this.liveness.received("message", 20 * SECOND);
+		assertThat(this.liveness.check(40 * SECOND), is(10 * SECOND));
+		assertThat(this.liveness.check(50 * SECOND), is(XmppLiveness.PING_NOW));
+	}
+
+	@Test
+	public void testUnansweredPingTimesOut() {
+		this.liveness.pinged("ping-1", 30 * SECOND);
+		assertThat(this.liveness.check(35 * SECOND), is(5 * SECOND));
+		this.liveness.received("message", 36 * SECOND);
+		assertThat(this.liveness.check(40 * SECOND), is(XmppLiveness.DEAD));
+	}
+
+	@Test
+	public void testAnsweredPingsRecordRoundTripAndLengthenTheInterval() {
+		this.liveness.pinged("ping-1", 30 * SECOND);
+		assertThat(this.liveness.received("ping-1", 31 * SECOND), is(SECOND));
+		assertThat(this.liveness.getIntervalNanos(), is(60 * SECOND));
+		assertThat(this.liveness.check(31 * SECOND), is(60 * SECOND));
+
+		this.liveness.pinged("ping-2", 91 * SECOND);
+		this.liveness.received("ping-2", 92 * SECOND);
+		this.liveness.pinged("ping-3", 212 * SECOND);
+		this.liveness.received("ping-3", 213 * SECOND);
+		assertThat(this.liveness.getIntervalNanos(), is(120 * SECOND));
+	}
+
+	@Test
+	public void testSlowRoundTripShortensIntervalAndStretchesTimeout() {
+		this.liveness.pinged("ping-1", 30 * SECOND);
+		this.liveness.received("ping-1", 31 * SECOND);
+		this.liveness.pinged("ping-2", 91 * SECOND);
+		this.liveness.received("ping-2", 99 * SECOND);
+
+		assertThat(this.liveness.getIntervalNanos(), is(30 * SECOND));
+		assertThat(this.liveness.getTimeoutNanos() > 10 * SECOND, is(true));
+	}
+}
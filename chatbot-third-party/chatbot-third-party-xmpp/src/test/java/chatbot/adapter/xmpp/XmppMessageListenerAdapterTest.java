@@ -0,0 +1,67 @@
+package chatbot.adapter.xmpp;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jivesoftware.smack.packet.Message;
+import org.jivesoftware.smack.packet.Presence;
+import org.junit.Test;
+
+import chatbot.client.MessageListener;
+import chatbot.metrics.ChannelMetrics;
+import chatbot.metrics.Counter;
+
+public class XmppMessageListenerAdapterTest {
+
+	private final List<String> received = new ArrayList<String>();
+	private final List<Integer> batchSizes = new ArrayList<Integer>();
+	private final ChannelMetrics metrics = new ChannelMetrics();
+	private final Counter parseErrors = new Counter();
+
+	private final XmppMessageListenerAdapter adapter = new XmppMessageListenerAdapter(
+			new MessageListener() {
+				@Override
+				public void onMessageReceived(chatbot.client.Message message) {
+					received.add(message.getOriginatingUsername() + ":" + message.getPayload());
+				}
+
+				@Override
+				public void onMessagesReceived(List<chatbot.client.Message> messages) {
+					batchSizes.add(messages.size());
+					MessageListener.super.onMessagesReceived(messages);
+				}
+			}, this.metrics, this.parseErrors);
+
+	@Test
+	public void testPacketsReceivedTogetherAreDeliveredAsOneBatch() {
+		this.adapter.processPackets(Arrays.asList(message("alice", "one"),
+				new Presence(Presence.Type.available), message(null, "lost"),
+				message("bob", "two")));
+
+		assertThat(this.received.toString(), is("[alice:one, bob:two]"));
+		assertThat(this.batchSizes.toString(), is("[2]"));
+		assertThat(this.metrics.getReceived().getCount(), is(2L));
+		assertThat(this.parseErrors.getCount(), is(2L));
+	}
+
+	@Test
+	public void testSinglePacketIsDeliveredOnItsOwn() {
+		this.adapter.processPackets(Arrays.asList(message("alice", "one")));
+		this.adapter.processPacket(message("bob", "two"));
+
+		assertThat(this.received.toString(), is("[alice:one, bob:two]"));
+		assertThat(this.batchSizes.size(), is(0));
+	}
+
+	private Message message(String nickname, String body) {
+		Message message = new Message("developers@conference.localhost", Message.Type.groupchat);
+		message.setFrom(nickname == null ? "developers@conference.localhost"
+				: "developers@conference.localhost/" + nickname);
+		message.setBody(body);
+		return message;
+	}
+}